@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.benchmarks;
+
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.AllApplicationEntrypoints;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The programs analyzed by the benchmarks. These are the same inputs the core regression tests use,
+ * so the benchmark classpath must include the core test resources.
+ */
+public enum BenchmarkProgram {
+  JLEX {
+    @Override
+    public AnalysisScope makeScope() throws IOException {
+      return CallGraphTestUtil.makeJ2SEAnalysisScope(
+          TestConstants.JLEX, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    }
+
+    @Override
+    public Iterable<Entrypoint> makeEntrypoints(AnalysisScope scope, IClassHierarchy cha) {
+      return Util.makeMainEntrypoints(scope, cha, TestConstants.JLEX_MAIN);
+    }
+  },
+
+  BCEL {
+    @Override
+    public AnalysisScope makeScope() throws IOException {
+      return CallGraphTestUtil.makeJ2SEAnalysisScope(
+          TestConstants.BCEL, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    }
+
+    @Override
+    public Iterable<Entrypoint> makeEntrypoints(AnalysisScope scope, IClassHierarchy cha) {
+      return Util.makeMainEntrypoints(scope, cha, TestConstants.BCEL_VERIFIER_MAIN);
+    }
+  },
+
+  /**
+   * Joda-Time, as used by the CDG tests. The classes must have been built with Maven first; their
+   * location is given by the {@link #TIME4P_PROPERTY} system property.
+   */
+  TIME4P {
+    @Override
+    public AnalysisScope makeScope() throws IOException {
+      String classes = System.getProperty(TIME4P_PROPERTY);
+      if (classes == null || !new File(classes).isDirectory()) {
+        throw new IOException(
+            "Time4p classes not found; build them with Maven and set " + TIME4P_PROPERTY);
+      }
+      return AnalysisScopeReader.makeJavaBinaryAnalysisScope(
+          classes, new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS));
+    }
+
+    @Override
+    public Iterable<Entrypoint> makeEntrypoints(AnalysisScope scope, IClassHierarchy cha) {
+      return new AllApplicationEntrypoints(scope, cha);
+    }
+  };
+
+  public static final String TIME4P_PROPERTY = "com.ibm.wala.benchmarks.time4p";
+
+  public abstract AnalysisScope makeScope() throws IOException;
+
+  public abstract Iterable<Entrypoint> makeEntrypoints(AnalysisScope scope, IClassHierarchy cha);
+}
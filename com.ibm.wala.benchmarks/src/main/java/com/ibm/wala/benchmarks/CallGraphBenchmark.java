@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.benchmarks;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions.ReflectionOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time pointer-analysis-based call graph construction with the {@code ZeroXCFABuilder} and {@code
+ * nCFABuilder} policies. The class hierarchy is built once per trial; each invocation gets a fresh
+ * {@link AnalysisCacheImpl} so that IR construction is part of the measurement, as it is for real
+ * clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class CallGraphBenchmark {
+
+  public enum Policy {
+    ZERO_CFA {
+      @Override
+      SSAPropagationCallGraphBuilder make(
+          AnalysisOptions options, IClassHierarchy cha, AnalysisScope scope) {
+        return Util.makeZeroCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+      }
+    },
+    ZERO_ONE_CFA {
+      @Override
+      SSAPropagationCallGraphBuilder make(
+          AnalysisOptions options, IClassHierarchy cha, AnalysisScope scope) {
+        return Util.makeZeroOneCFABuilder(
+            Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+      }
+    },
+    ONE_CFA {
+      @Override
+      SSAPropagationCallGraphBuilder make(
+          AnalysisOptions options, IClassHierarchy cha, AnalysisScope scope) {
+        return Util.makeNCFABuilder(1, options, new AnalysisCacheImpl(), cha, scope);
+      }
+    };
+
+    abstract SSAPropagationCallGraphBuilder make(
+        AnalysisOptions options, IClassHierarchy cha, AnalysisScope scope);
+  }
+
+  @Param({"JLEX", "BCEL"})
+  public BenchmarkProgram program;
+
+  @Param({"ZERO_CFA", "ZERO_ONE_CFA", "ONE_CFA"})
+  public Policy policy;
+
+  private AnalysisScope scope;
+
+  private IClassHierarchy cha;
+
+  private Iterable<Entrypoint> entrypoints;
+
+  @Setup
+  public void setup() throws IOException, ClassHierarchyException {
+    scope = program.makeScope();
+    cha = ClassHierarchyFactory.make(scope);
+    entrypoints = program.makeEntrypoints(scope, cha);
+  }
+
+  @Benchmark
+  public CallGraph build() throws CancelException {
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    // reflection handling dominates some of these programs without exercising the solver
+    options.setReflectionOptions(ReflectionOptions.NONE);
+    return policy.make(options, cha, scope).makeCallGraph(options, null);
+  }
+}
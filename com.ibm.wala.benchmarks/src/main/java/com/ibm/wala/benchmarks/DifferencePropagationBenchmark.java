@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.benchmarks;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions.ReflectionOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationProfiler;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time 0-1-CFA call graph construction with and without difference propagation, and report the
+ * propagation work as secondary results: {@code evaluations} is the number of statement
+ * evaluations, and {@code elementsUnioned}, when profiling, the total size of the sets read by
+ * unions along assignments and filters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class DifferencePropagationBenchmark {
+
+  /** Secondary results, reported once per iteration */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Work {
+    public long elementsUnioned;
+
+    public long evaluations;
+  }
+
+  @Param({"JLEX", "BCEL"})
+  public BenchmarkProgram program;
+
+  @Param({"false", "true"})
+  public boolean differences;
+
+  /** elementsUnioned is only counted by a profiler, which adds to the time */
+  @Param({"false"})
+  public boolean profile;
+
+  private AnalysisScope scope;
+
+  private IClassHierarchy cha;
+
+  private Iterable<Entrypoint> entrypoints;
+
+  @Setup
+  public void setup() throws IOException, ClassHierarchyException {
+    scope = program.makeScope();
+    cha = ClassHierarchyFactory.make(scope);
+    entrypoints = program.makeEntrypoints(scope, cha);
+  }
+
+  @Benchmark
+  public CallGraph build(Work work) throws CancelException {
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    options.setReflectionOptions(ReflectionOptions.NONE);
+    options.setDifferencePropagation(differences);
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    PropagationProfiler profiler = profile ? new PropagationProfiler() : null;
+    builder.setProfiler(profiler);
+    CallGraph result = builder.makeCallGraph(options, null);
+    if (profile) {
+      work.elementsUnioned = profiler.getNumberOfElementsUnioned();
+    }
+    work.evaluations = builder.getPropagationSystem().getNumberOfEvaluations();
+    return result;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.benchmarks;
+
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.dominators.DominanceFrontiers;
+import com.ibm.wala.util.graph.dominators.Dominators;
+import com.ibm.wala.util.graph.dominators.NumberedDominators;
+import com.ibm.wala.util.graph.dominators.SemiNCADominators;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time dominators and dominance frontiers, as computed during SSA construction, on control flow
+ * graphs the size of huge generated methods. The graphs are random, with a fixed seed, and are made
+ * of the shapes that structured code compiles to: straight-line blocks, if-else diamonds and loops,
+ * with some blocks that return or throw to the exit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DominatorsBenchmark {
+
+  public enum Algorithm {
+    LENGAUER_TARJAN {
+      @Override
+      <T> Dominators<T> make(NumberedGraph<T> G, T root) {
+        return new NumberedDominators<>(G, root);
+      }
+    },
+    SEMI_NCA {
+      @Override
+      <T> Dominators<T> make(NumberedGraph<T> G, T root) {
+        return new SemiNCADominators<>(G, root);
+      }
+    };
+
+    abstract <T> Dominators<T> make(NumberedGraph<T> G, T root);
+  }
+
+  @Param({"LENGAUER_TARJAN", "SEMI_NCA"})
+  public Algorithm algorithm;
+
+  @Param({"10000", "100000"})
+  public int blocks;
+
+  private NumberedGraph<Integer> cfg;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(blocks);
+    cfg = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < blocks; i++) {
+      cfg.addNode(i);
+    }
+    int exit = blocks - 1;
+    int i = 0;
+    while (i + 3 < exit) {
+      switch (random.nextInt(3)) {
+        case 0:
+          // if-else
+          cfg.addEdge(i, i + 1);
+          cfg.addEdge(i, i + 2);
+          cfg.addEdge(i + 1, i + 3);
+          cfg.addEdge(i + 2, i + 3);
+          i += 3;
+          break;
+        case 1:
+          // loop
+          cfg.addEdge(i, i + 1);
+          cfg.addEdge(i + 1, i + 2);
+          cfg.addEdge(i + 2, i + 1);
+          cfg.addEdge(i + 2, i + 3);
+          i += 3;
+          break;
+        default:
+          cfg.addEdge(i, i + 1);
+          i++;
+      }
+      if (random.nextInt(8) == 0) {
+        // return or throw
+        cfg.addEdge(i, exit);
+      }
+    }
+    for (; i < exit; i++) {
+      cfg.addEdge(i, i + 1);
+    }
+  }
+
+  @Benchmark
+  public Dominators<Integer> dominators() {
+    return algorithm.make(cfg, 0);
+  }
+
+  @Benchmark
+  public DominanceFrontiers<Integer> dominanceFrontiers() {
+    return new DominanceFrontiers<>(cfg, 0, algorithm.make(cfg, 0));
+  }
+}
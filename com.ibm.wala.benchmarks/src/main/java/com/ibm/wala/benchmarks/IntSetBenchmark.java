@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.benchmarks;
+
+import com.ibm.wala.util.intset.BitVectorIntSetFactory;
+import com.ibm.wala.util.intset.CompressedIntSetFactory;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableIntSetFactory;
+import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
+import com.ibm.wala.util.intset.MutableSparseIntSetFactory;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time the set operations that dominate pointer analysis and dataflow solving, for each of the
+ * {@link MutableIntSet} implementations those solvers use. Operands are random sets of {@code size}
+ * elements drawn from {@code [0, size * spread)}, with a fixed seed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IntSetBenchmark {
+
+  public enum Implementation {
+    MUTABLE_SHARED_BIT_VECTOR(new MutableSharedBitVectorIntSetFactory()),
+    MUTABLE_SPARSE(new MutableSparseIntSetFactory()),
+    BIT_VECTOR(new BitVectorIntSetFactory()),
+    COMPRESSED(new CompressedIntSetFactory());
+
+    final MutableIntSetFactory<? extends MutableIntSet> factory;
+
+    Implementation(MutableIntSetFactory<? extends MutableIntSet> factory) {
+      this.factory = factory;
+    }
+  }
+
+  @Param({"MUTABLE_SHARED_BIT_VECTOR", "MUTABLE_SPARSE", "BIT_VECTOR", "COMPRESSED"})
+  public Implementation implementation;
+
+  @Param({"16", "1024", "65536"})
+  public int size;
+
+  /** ratio of the universe size to the set size; large values give sparse sets */
+  @Param({"2", "64"})
+  public int spread;
+
+  private MutableIntSet a;
+
+  private MutableIntSet b;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(size * 31 + spread);
+    a = randomSet(random);
+    b = randomSet(random);
+  }
+
+  private MutableIntSet randomSet(Random random) {
+    MutableIntSet result = implementation.factory.make();
+    while (result.size() < size) {
+      result.add(random.nextInt(size * spread));
+    }
+    return result;
+  }
+
+  /** the baseline for {@link #addAll()} and {@link #intersectWith()} */
+  @Benchmark
+  public MutableIntSet copy() {
+    return implementation.factory.makeCopy(a);
+  }
+
+  @Benchmark
+  public MutableIntSet addAll() {
+    MutableIntSet result = implementation.factory.makeCopy(a);
+    result.addAll(b);
+    return result;
+  }
+
+  @Benchmark
+  public MutableIntSet intersectWith() {
+    MutableIntSet result = implementation.factory.makeCopy(a);
+    result.intersectWith(b);
+    return result;
+  }
+
+  @Benchmark
+  public IntSet union() {
+    return a.union(b);
+  }
+
+  @Benchmark
+  public IntSet intersection() {
+    return a.intersection(b);
+  }
+
+  @Benchmark
+  public boolean containsAny() {
+    return a.containsAny(b);
+  }
+}
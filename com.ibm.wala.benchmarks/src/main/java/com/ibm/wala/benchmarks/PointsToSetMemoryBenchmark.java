@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.benchmarks;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions.ReflectionOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.intset.CompressedIntSetFactory;
+import com.ibm.wala.util.intset.HashConsingIntSetFactory;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableIntSetFactory;
+import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time 0-1-CFA call graph construction for each representation of points-to sets, and report the
+ * heap retained by the resulting pointer analysis as the {@code retainedMB} secondary result. The
+ * retained heap is measured as the used heap after a full collection, with the class hierarchy
+ * already loaded, so only differences between representations are meaningful.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class PointsToSetMemoryBenchmark {
+
+  public enum Representation {
+    DEFAULT(MutableSharedBitVectorIntSetFactory::new),
+    COMPRESSED(CompressedIntSetFactory::new),
+    HASH_CONSED(HashConsingIntSetFactory::new);
+
+    final Supplier<MutableIntSetFactory<?>> factory;
+
+    Representation(Supplier<MutableIntSetFactory<?>> factory) {
+      this.factory = factory;
+    }
+  }
+
+  /** Secondary results, reported once per iteration */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Memory {
+    public long retainedMB;
+  }
+
+  @Param({"JLEX", "BCEL"})
+  public BenchmarkProgram program;
+
+  @Param({"DEFAULT", "COMPRESSED", "HASH_CONSED"})
+  public Representation representation;
+
+  private AnalysisScope scope;
+
+  private IClassHierarchy cha;
+
+  private Iterable<Entrypoint> entrypoints;
+
+  private MutableIntSetFactory<?> savedFactory;
+
+  @Setup
+  public void setup() throws IOException, ClassHierarchyException {
+    scope = program.makeScope();
+    cha = ClassHierarchyFactory.make(scope);
+    entrypoints = program.makeEntrypoints(scope, cha);
+    savedFactory = IntSetUtil.getDefaultIntSetFactory();
+  }
+
+  @Setup(Level.Iteration)
+  public void installFactory() {
+    // a fresh factory per iteration, so that hash-consed sets of earlier iterations do not count
+    IntSetUtil.setDefaultIntSetFactory(representation.factory.get());
+  }
+
+  @TearDown
+  public void tearDown() {
+    IntSetUtil.setDefaultIntSetFactory(savedFactory);
+  }
+
+  @Benchmark
+  public PointerAnalysis<?> build(Memory memory) throws CancelException {
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    options.setReflectionOptions(ReflectionOptions.NONE);
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    builder.makeCallGraph(options, null);
+    PointerAnalysis<?> result = builder.getPointerAnalysis();
+    memory.retainedMB = usedHeap() >> 20;
+    return result;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
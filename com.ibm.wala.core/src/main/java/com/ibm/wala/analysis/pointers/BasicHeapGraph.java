@@ -252,9 +252,18 @@ public class BasicHeapGraph<T extends InstanceKey> extends HeapGraphImpl<T> {
   }
 
   private int[] computeSuccNodeNumbers(Object N, NumberedNodeManager<Object> nodeManager) {
+    return computeSuccNodeNumbers(getPointerAnalysis(), N, nodeManager);
+  }
+
+  /**
+   * @return the numbers of the successors of N in a heap graph of pa numbered by nodeManager, or
+   *     null if N has none
+   */
+  static <T extends InstanceKey> int[] computeSuccNodeNumbers(
+      PointerAnalysis<T> pa, Object N, NumberedNodeManager<Object> nodeManager) {
     if (N instanceof PointerKey) {
       PointerKey P = (PointerKey) N;
-      OrdinalSet<T> S = getPointerAnalysis().getPointsToSet(P);
+      OrdinalSet<T> S = pa.getPointsToSet(P);
       int[] result = new int[S.size()];
       int i = 0;
       for (T t : S) {
@@ -268,7 +277,7 @@ public class BasicHeapGraph<T extends InstanceKey> extends HeapGraphImpl<T> {
 
       assert T != null : "null concrete type from " + I.getClass();
       if (T.isArrayType()) {
-        PointerKey p = getHeapModel().getPointerKeyForArrayContents(I);
+        PointerKey p = pa.getHeapModel().getPointerKeyForArrayContents(I);
         if (p == null || !nodeManager.containsNode(p)) {
           return null;
         } else {
@@ -280,7 +289,7 @@ public class BasicHeapGraph<T extends InstanceKey> extends HeapGraphImpl<T> {
         MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
         for (IField f : klass.getAllInstanceFields()) {
           if (!f.getReference().getFieldType().isPrimitiveType()) {
-            PointerKey p = getHeapModel().getPointerKeyForInstanceField(I, f);
+            PointerKey p = pa.getHeapModel().getPointerKeyForInstanceField(I, f);
             if (p != null && nodeManager.containsNode(p)) {
               result.add(nodeManager.getNumber(p));
             }
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.analysis.pointers;
+
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.StaticFieldKey;
+import com.ibm.wala.util.collections.EmptyIterator;
+import com.ibm.wala.util.collections.IntMapIterator;
+import com.ibm.wala.util.intset.BitVector;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.OrdinalSet;
+import com.ibm.wala.util.intset.OrdinalSetMapping;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A {@link HeapGraph} frozen into primitive arrays.
+ *
+ * <p>The graph is built once from a {@link PointerAnalysis}, with the same nodes and edges as a
+ * {@link BasicHeapGraph}: pointer keys are numbered first, then instance keys in the order of the
+ * analysis' instance key mapping. Successors and predecessors are kept in compressed sparse row
+ * arrays, so traversals do no map lookups and compute no points-to sets. The graph is immutable and
+ * may be traversed from several threads.
+ *
+ * <p>{@link #getReachableInstanceKeysFromEach(Collection)} computes the instance keys reachable
+ * from many roots at once: it traverses the graph for 64 roots at a time, propagating a {@code
+ * long} per node whose bits record which of the roots reach it.
+ */
+public class CompactHeapGraph<T extends InstanceKey> extends HeapGraphImpl<T> {
+
+  private final MutableMapping<PointerKey> pointerKeys = MutableMapping.make();
+
+  private final OrdinalSetMapping<T> instanceKeys;
+
+  /** number of the first instance key */
+  private final int firstInstance;
+
+  private final int numberOfNodes;
+
+  private final int[] succOffsets;
+
+  private final int[] succs;
+
+  private final int[] predOffsets;
+
+  private final int[] preds;
+
+  public CompactHeapGraph(PointerAnalysis<T> pa) {
+    super(pa);
+    for (PointerKey p : pa.getPointerKeys()) {
+      pointerKeys.add(p);
+    }
+    instanceKeys = pa.getInstanceKeyMapping();
+    firstInstance = pointerKeys.getMaximumIndex() + 1;
+    numberOfNodes = firstInstance + instanceKeys.getMaximumIndex() + 1;
+
+    int[][] rows = new int[numberOfNodes][];
+    int[] predCounts = new int[numberOfNodes + 1];
+    int edges = 0;
+    for (int i = 0; i < numberOfNodes; i++) {
+      Object n = getNode(i);
+      if (n != null) {
+        int[] row = BasicHeapGraph.computeSuccNodeNumbers(pa, n, this);
+        if (row != null) {
+          Arrays.sort(row);
+          rows[i] = row;
+          edges += row.length;
+          for (int s : row) {
+            predCounts[s + 1]++;
+          }
+        }
+      }
+    }
+    succOffsets = new int[numberOfNodes + 1];
+    succs = new int[edges];
+    for (int i = 0; i < numberOfNodes; i++) {
+      int[] row = rows[i];
+      int length = row == null ? 0 : row.length;
+      if (length > 0) {
+        System.arraycopy(row, 0, succs, succOffsets[i], length);
+      }
+      succOffsets[i + 1] = succOffsets[i] + length;
+    }
+    for (int i = 0; i < numberOfNodes; i++) {
+      predCounts[i + 1] += predCounts[i];
+    }
+    predOffsets = predCounts;
+    preds = new int[edges];
+    int[] next = Arrays.copyOf(predOffsets, numberOfNodes);
+    // sources are visited in increasing order, so each row of preds is sorted
+    for (int i = 0; i < numberOfNodes; i++) {
+      for (int j = succOffsets[i]; j < succOffsets[i + 1]; j++) {
+        preds[next[succs[j]]++] = i;
+      }
+    }
+  }
+
+  public int getNumberOfEdges() {
+    return succs.length;
+  }
+
+  /**
+   * @param roots pointer keys and instance keys of this graph
+   * @return the instance keys reachable from any of the roots, including the roots themselves
+   */
+  public OrdinalSet<T> getReachableInstanceKeys(Collection<?> roots) {
+    if (roots == null) {
+      throw new IllegalArgumentException("null roots");
+    }
+    BitVector reached = new BitVector(numberOfNodes);
+    int[] queue = new int[numberOfNodes];
+    int tail = 0;
+    for (Object root : roots) {
+      int r = getRootNumber(root);
+      if (!reached.get(r)) {
+        reached.set(r);
+        queue[tail++] = r;
+      }
+    }
+    BitVectorIntSet result = new BitVectorIntSet();
+    for (int head = 0; head < tail; head++) {
+      int n = queue[head];
+      if (n >= firstInstance) {
+        result.add(n - firstInstance);
+      }
+      for (int i = succOffsets[n]; i < succOffsets[n + 1]; i++) {
+        int s = succs[i];
+        if (!reached.get(s)) {
+          reached.set(s);
+          queue[tail++] = s;
+        }
+      }
+    }
+    return new OrdinalSet<>(result, instanceKeys);
+  }
+
+  /**
+   * Compute, for each root, the instance keys reachable from it, including the root itself. This is
+   * much faster than one traversal per root, since each traversal serves 64 roots.
+   *
+   * @param roots pointer keys and instance keys of this graph
+   * @return a map from each root to the instance keys reachable from it, in the order of roots
+   */
+  public <R> Map<R, OrdinalSet<T>> getReachableInstanceKeysFromEach(Collection<R> roots) {
+    if (roots == null) {
+      throw new IllegalArgumentException("null roots");
+    }
+    List<R> distinct = new ArrayList<>(new LinkedHashSet<>(roots));
+    Map<R, OrdinalSet<T>> result = new LinkedHashMap<>();
+    for (int start = 0; start < distinct.size(); start += Long.SIZE) {
+      List<R> batch = distinct.subList(start, Math.min(start + Long.SIZE, distinct.size()));
+      BitVectorIntSet[] reached = reachFromBatch(batch);
+      for (int j = 0; j < batch.size(); j++) {
+        result.put(batch.get(j), new OrdinalSet<>(reached[j], instanceKeys));
+      }
+    }
+    return result;
+  }
+
+  /** @return a map from each static field in the graph to the instance keys reachable from it */
+  public Map<PointerKey, OrdinalSet<T>> getReachableInstanceKeysFromStaticFields() {
+    List<PointerKey> roots = new ArrayList<>();
+    for (PointerKey p : pointerKeys) {
+      if (p instanceof StaticFieldKey) {
+        roots.add(p);
+      }
+    }
+    return getReachableInstanceKeysFromEach(roots);
+  }
+
+  /** traverse the graph once, from at most 64 roots; root j reaches the nodes whose bit j is set */
+  private BitVectorIntSet[] reachFromBatch(List<?> batch) {
+    long[] masks = new long[numberOfNodes];
+    // a circular queue; a node is in it at most once at a time
+    int[] queue = new int[numberOfNodes];
+    BitVector queued = new BitVector(numberOfNodes);
+    int head = 0;
+    int size = 0;
+    for (int j = 0; j < batch.size(); j++) {
+      int r = getRootNumber(batch.get(j));
+      masks[r] |= 1L << j;
+      if (!queued.get(r)) {
+        queued.set(r);
+        queue[(head + size++) % numberOfNodes] = r;
+      }
+    }
+    while (size > 0) {
+      int n = queue[head];
+      head = (head + 1) % numberOfNodes;
+      size--;
+      queued.clear(n);
+      long m = masks[n];
+      for (int i = succOffsets[n]; i < succOffsets[n + 1]; i++) {
+        int s = succs[i];
+        if ((masks[s] & m) != m) {
+          masks[s] |= m;
+          if (!queued.get(s)) {
+            queued.set(s);
+            queue[(head + size++) % numberOfNodes] = s;
+          }
+        }
+      }
+    }
+    BitVectorIntSet[] result = new BitVectorIntSet[batch.size()];
+    for (int j = 0; j < result.length; j++) {
+      result[j] = new BitVectorIntSet();
+    }
+    for (int n = firstInstance; n < numberOfNodes; n++) {
+      for (long m = masks[n]; m != 0; m &= m - 1) {
+        result[Long.numberOfTrailingZeros(m)].add(n - firstInstance);
+      }
+    }
+    return result;
+  }
+
+  private int getRootNumber(Object root) {
+    int r = getNumber(root);
+    if (r < 0) {
+      throw new IllegalArgumentException("not in heap graph: " + root);
+    }
+    return r;
+  }
+
+  private Iterator<Object> nodes(int[] offsets, int[] targets, int n) {
+    if (offsets[n] == offsets[n + 1]) {
+      return EmptyIterator.instance();
+    }
+    return new IntMapIterator<>(
+        IntSetUtil.make(Arrays.copyOfRange(targets, offsets[n], offsets[n + 1])).intIterator(),
+        this::getNode);
+  }
+
+  @Override
+  public int getNumber(Object N) {
+    if (N instanceof PointerKey) {
+      return pointerKeys.getMappedIndex(N);
+    } else if (N instanceof InstanceKey) {
+      int i = instanceKeys.getMappedIndex(N);
+      return i < 0 ? -1 : firstInstance + i;
+    } else {
+      return -1;
+    }
+  }
+
+  @Override
+  public Object getNode(int number) {
+    if (number < firstInstance) {
+      return pointerKeys.getMappedObject(number);
+    } else {
+      return instanceKeys.getMappedObject(number - firstInstance);
+    }
+  }
+
+  @Override
+  public int getMaxNumber() {
+    return numberOfNodes - 1;
+  }
+
+  @Override
+  public int getNumberOfNodes() {
+    return numberOfNodes;
+  }
+
+  @Override
+  public Iterator<Object> iterator() {
+    return stream().iterator();
+  }
+
+  @Override
+  public Stream<Object> stream() {
+    return IntStream.range(0, numberOfNodes).mapToObj(this::getNode);
+  }
+
+  @Override
+  public boolean containsNode(Object N) {
+    return getNumber(N) != -1;
+  }
+
+  @Override
+  public Iterator<Object> getSuccNodes(Object N) {
+    return nodes(succOffsets, succs, getRootNumber(N));
+  }
+
+  @Override
+  public int getSuccNodeCount(Object N) {
+    int n = getRootNumber(N);
+    return succOffsets[n + 1] - succOffsets[n];
+  }
+
+  @Override
+  public IntSet getSuccNodeNumbers(Object N) {
+    int n = getRootNumber(N);
+    return IntSetUtil.make(Arrays.copyOfRange(succs, succOffsets[n], succOffsets[n + 1]));
+  }
+
+  @Override
+  public Iterator<Object> getPredNodes(Object N) {
+    return nodes(predOffsets, preds, getRootNumber(N));
+  }
+
+  @Override
+  public int getPredNodeCount(Object N) {
+    int n = getRootNumber(N);
+    return predOffsets[n + 1] - predOffsets[n];
+  }
+
+  @Override
+  public IntSet getPredNodeNumbers(Object N) {
+    int n = getRootNumber(N);
+    return IntSetUtil.make(Arrays.copyOfRange(preds, predOffsets[n], predOffsets[n + 1]));
+  }
+
+  @Override
+  public boolean hasEdge(Object src, Object dst) {
+    int s = getNumber(src);
+    int d = getNumber(dst);
+    return s >= 0
+        && d >= 0
+        && Arrays.binarySearch(succs, succOffsets[s], succOffsets[s + 1], d) >= 0;
+  }
+
+  @Override
+  public void addNode(Object n) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeNode(Object n) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void addEdge(Object src, Object dst) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeEdge(Object src, Object dst) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeAllIncidentEdges(Object node) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeIncomingEdges(Object node) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeOutgoingEdges(Object node) {
+    throw new UnsupportedOperationException();
+  }
+}
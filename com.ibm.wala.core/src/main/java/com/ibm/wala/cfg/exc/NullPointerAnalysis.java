@@ -12,6 +12,7 @@
 package com.ibm.wala.cfg.exc;
 
 import com.ibm.wala.cfg.exc.inter.InterprocNullPointerAnalysis;
+import com.ibm.wala.cfg.exc.inter.InterprocNullPointerCache;
 import com.ibm.wala.cfg.exc.intra.ExplodedCFGNullPointerAnalysis;
 import com.ibm.wala.cfg.exc.intra.MethodState;
 import com.ibm.wala.cfg.exc.intra.ParameterState;
@@ -119,4 +120,34 @@ public final class NullPointerAnalysis {
 
     return inpa.getResult();
   }
+
+  /**
+   * Compute the interprocedural analysis over the strongly connected components of the call graph,
+   * analyzing independent components concurrently.
+   *
+   * @see InterprocNullPointerAnalysis#compute(TypeReference[], CallGraph, MethodState,
+   *     IProgressMonitor, boolean, int, InterprocNullPointerCache)
+   */
+  public static InterprocAnalysisResult<SSAInstruction, IExplodedBasicBlock>
+      computeInterprocAnalysis(
+          final TypeReference[] ignoredExceptions,
+          final CallGraph cg,
+          final MethodState defaultExceptionMethodState,
+          final IProgressMonitor progress,
+          boolean optHasExceptions,
+          int numberOfThreads,
+          InterprocNullPointerCache cache)
+          throws WalaException, UnsoundGraphException, CancelException {
+    final InterprocNullPointerAnalysis inpa =
+        InterprocNullPointerAnalysis.compute(
+            ignoredExceptions,
+            cg,
+            defaultExceptionMethodState,
+            progress,
+            optHasExceptions,
+            numberOfThreads,
+            cache);
+
+    return inpa.getResult();
+  }
 }
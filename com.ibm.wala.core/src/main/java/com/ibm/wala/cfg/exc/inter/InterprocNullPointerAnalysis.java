@@ -15,6 +15,8 @@ import com.ibm.wala.cfg.ControlFlowGraph;
 import com.ibm.wala.cfg.exc.ExceptionPruningAnalysis;
 import com.ibm.wala.cfg.exc.InterprocAnalysisResult;
 import com.ibm.wala.cfg.exc.NullPointerAnalysis;
+import com.ibm.wala.cfg.exc.inter.InterprocNullPointerCache.FirstPass;
+import com.ibm.wala.cfg.exc.inter.InterprocNullPointerCache.SecondPass;
 import com.ibm.wala.cfg.exc.intra.MethodState;
 import com.ibm.wala.cfg.exc.intra.NullPointerState;
 import com.ibm.wala.cfg.exc.intra.NullPointerState.State;
@@ -29,17 +31,33 @@ import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
 import com.ibm.wala.types.MethodReference;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.CancelRuntimeException;
 import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.WalaException;
+import com.ibm.wala.util.WorkerPool;
 import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
+import com.ibm.wala.util.graph.traverse.SCCIterator;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.strings.Atom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
 
 /**
  * Interprocedural NullPointer Analysis.
@@ -50,6 +68,10 @@ import java.util.Set;
  * <p>1st run: collect and propagate all parameters on ENTRY nodes. 2nd run: collect the results on
  * the ENTRY nodes.
  *
+ * <p>Alternatively, the analysis visits the strongly connected components of the call graph, and
+ * analyzes independent components concurrently. See {@link #compute(TypeReference[], CallGraph,
+ * MethodState, IProgressMonitor, boolean, int, InterprocNullPointerCache)}.
+ *
  * <p>This class has been developed as part of a student project "Studienarbeit" by Markus
  * Herhoffer. It has been adapted and integrated into the WALA project by Juergen Graf.
  *
@@ -62,6 +84,11 @@ public final class InterprocNullPointerAnalysis {
   private final TypeReference[] ignoredExceptions;
   private final MethodState defaultMethodState;
   private final Map<CGNode, IntraprocAnalysisState> states;
+  /** parameter states of each method, merged over all calls; used when visiting components */
+  private final Map<CGNode, ParameterState> paramStates = new ConcurrentHashMap<>();
+  /** results of the first pass; used when visiting components */
+  private final Map<CGNode, FirstPass> firstPasses = new ConcurrentHashMap<>();
+
   private final boolean optHasExceptions;
   private CallGraph cg;
 
@@ -79,13 +106,52 @@ public final class InterprocNullPointerAnalysis {
     return inpa;
   }
 
+  /**
+   * Compute the analysis over the strongly connected components of the call graph.
+   *
+   * <p>Rather than taking the parameter states of a method from the first call that reaches it,
+   * this merges the parameter states of all calls to the method, iterating within recursive
+   * components until they are stable. The first pass visits the components top-down, so the
+   * parameter states of a method are known before it is analyzed. The second pass visits them
+   * bottom-up, so each method sees the final results of its callees. Components whose callers (or
+   * callees) are done are analyzed concurrently.
+   *
+   * @param numberOfThreads number of threads that analyze components
+   * @param cache results of earlier runs in this process over the same call graph, which are reused
+   *     and updated; may be null
+   * @throws IllegalArgumentException if {@code cache} was used with a different call graph or
+   *     configuration
+   */
+  public static InterprocNullPointerAnalysis compute(
+      final TypeReference[] ignoredExceptions,
+      final CallGraph cg,
+      final MethodState defaultMethodState,
+      final IProgressMonitor progress,
+      boolean optHasExceptions,
+      int numberOfThreads,
+      InterprocNullPointerCache cache)
+      throws WalaException, UnsoundGraphException, CancelException {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    if (cache == null) {
+      cache = new InterprocNullPointerCache();
+    }
+    cache.bind(cg, ignoredExceptions, defaultMethodState, optHasExceptions);
+    final InterprocNullPointerAnalysis inpa =
+        new InterprocNullPointerAnalysis(ignoredExceptions, defaultMethodState, optHasExceptions);
+    inpa.runBySCCs(cg, progress, numberOfThreads, cache);
+
+    return inpa;
+  }
+
   private InterprocNullPointerAnalysis(
       final TypeReference[] ignoredExceptions,
       final MethodState defaultMethodState,
       boolean optHasExceptions) {
     this.ignoredExceptions = ignoredExceptions;
     this.defaultMethodState = defaultMethodState;
-    this.states = new HashMap<>();
+    this.states = new ConcurrentHashMap<>();
     this.optHasExceptions = optHasExceptions;
   }
 
@@ -219,6 +285,341 @@ public final class InterprocNullPointerAnalysis {
     return result;
   }
 
+  private void runBySCCs(
+      final CallGraph cg,
+      final IProgressMonitor progress,
+      final int numberOfThreads,
+      final InterprocNullPointerCache cache)
+      throws WalaException, UnsoundGraphException, CancelException {
+    if (this.cgFiltered != null) {
+      throw new IllegalStateException("This analysis has already been computed.");
+    }
+
+    this.cg = cg;
+    this.cgFiltered = computeFilteredCallgraph(cg);
+
+    // number the strongly connected components, and the calls between them
+    final List<Set<CGNode>> sccs = new ArrayList<>();
+    final Map<CGNode, Integer> sccOf = new HashMap<>();
+    for (final SCCIterator<CGNode> it = new SCCIterator<>(cgFiltered); it.hasNext(); ) {
+      final Set<CGNode> scc = it.next();
+      for (final CGNode node : scc) {
+        sccOf.put(node, sccs.size());
+      }
+      sccs.add(scc);
+    }
+    final MutableIntSet[] callers = new MutableIntSet[sccs.size()];
+    final MutableIntSet[] callees = new MutableIntSet[sccs.size()];
+    final boolean[] recursive = new boolean[sccs.size()];
+    for (int i = 0; i < sccs.size(); i++) {
+      callers[i] = new BitVectorIntSet();
+      callees[i] = new BitVectorIntSet();
+    }
+    for (int i = 0; i < sccs.size(); i++) {
+      for (final CGNode node : sccs.get(i)) {
+        for (final Iterator<CGNode> it = cgFiltered.getSuccNodes(node); it.hasNext(); ) {
+          final int j = sccOf.get(it.next());
+          if (i == j) {
+            recursive[i] = true;
+          } else {
+            callees[i].add(j);
+            callers[j].add(i);
+          }
+        }
+      }
+    }
+
+    try (WorkerPool pool =
+        numberOfThreads == 1
+            ? null
+            : new WorkerPool("InterprocNullPointerAnalysis", numberOfThreads)) {
+      // we start with the first node
+      paramStates.put(cgFiltered.getNode(0), new ParameterState());
+      schedule(callers, callees, i -> firstPassOverSCC(sccs.get(i), cache, progress), pool);
+      schedule(
+          callees,
+          callers,
+          i -> secondPassOverSCC(sccs.get(i), recursive[i], cache, progress),
+          pool);
+    }
+  }
+
+  /** An analysis of one strongly connected component. */
+  @FunctionalInterface
+  private interface SCCTask {
+    void run(int scc) throws WalaException, UnsoundGraphException, CancelException;
+  }
+
+  /**
+   * Runs {@code task} on every component, each after it has run on the components it depends on.
+   *
+   * @param dependencies the components each component depends on
+   * @param dependents the components that depend on each component
+   * @param pool runs independent components concurrently; if null, components run in this thread
+   */
+  private static void schedule(
+      final IntSet[] dependencies,
+      final IntSet[] dependents,
+      final SCCTask task,
+      final WorkerPool pool)
+      throws WalaException, UnsoundGraphException, CancelException {
+    final int[] pending = new int[dependencies.length];
+    final Deque<Integer> ready = new ArrayDeque<>();
+    for (int i = 0; i < dependencies.length; i++) {
+      pending[i] = dependencies[i].size();
+      if (pending[i] == 0) {
+        ready.add(i);
+      }
+    }
+
+    final CompletionService<Integer> done =
+        pool == null ? null : new ExecutorCompletionService<>(pool.getExecutor());
+    int running = 0;
+    while (true) {
+      while (!ready.isEmpty()) {
+        final int i = ready.poll();
+        if (done == null) {
+          task.run(i);
+          release(i, dependents, pending, ready);
+        } else {
+          done.submit(
+              () -> {
+                task.run(i);
+                return i;
+              });
+          running++;
+        }
+      }
+      if (running == 0) {
+        break;
+      }
+      release(take(done), dependents, pending, ready);
+      running--;
+    }
+  }
+
+  private static void release(
+      final int scc, final IntSet[] dependents, final int[] pending, final Deque<Integer> ready) {
+    for (final IntIterator it = dependents[scc].intIterator(); it.hasNext(); ) {
+      final int d = it.next();
+      if (--pending[d] == 0) {
+        ready.add(d);
+      }
+    }
+  }
+
+  /** @return the next component analyzed by {@code done} */
+  private static int take(final CompletionService<Integer> done)
+      throws WalaException, UnsoundGraphException, CancelException {
+    try {
+      return WorkerPool.await(
+          done.take(), WalaException.class, UnsoundGraphException.class, CancelException.class);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancelRuntimeException(e);
+    }
+  }
+
+  /**
+   * Runs the first pass over the methods of a component, until the parameter states of the methods,
+   * merged over all calls from the component and from its callers, are stable. Then propagates the
+   * parameter states to the callees outside the component.
+   */
+  private void firstPassOverSCC(
+      final Set<CGNode> scc, final InterprocNullPointerCache cache, final IProgressMonitor progress)
+      throws UnsoundGraphException, CancelException {
+    final Map<CGNode, ParameterState> local = new HashMap<>();
+    final Set<CGNode> worklist = new LinkedHashSet<>();
+    for (final CGNode node : scc) {
+      // methods that are never called with known parameter states are not analyzed
+      final ParameterState paramState = paramStates.get(node);
+      if (paramState != null) {
+        local.put(node, paramState);
+        worklist.add(node);
+      }
+    }
+
+    final Map<CGNode, FirstPass> results = new HashMap<>();
+    while (!worklist.isEmpty()) {
+      MonitorUtil.throwExceptionIfCanceled(progress);
+
+      final Iterator<CGNode> next = worklist.iterator();
+      final CGNode node = next.next();
+      next.remove();
+      final FirstPass pass = firstPass(node, local.get(node), cache, progress);
+      results.put(node, pass);
+      for (final Entry<CGNode, ParameterState> callee : pass.calleeStates.entrySet()) {
+        if (scc.contains(callee.getKey())) {
+          final ParameterState prev = local.get(callee.getKey());
+          final ParameterState merged =
+              prev == null ? callee.getValue() : meet(prev, callee.getValue());
+          if (prev == null || !prev.getStates().equals(merged.getStates())) {
+            local.put(callee.getKey(), merged);
+            worklist.add(callee.getKey());
+          }
+        }
+      }
+    }
+
+    for (final Entry<CGNode, FirstPass> result : results.entrySet()) {
+      final CGNode node = result.getKey();
+      final FirstPass pass = result.getValue();
+      paramStates.put(node, local.get(node));
+      firstPasses.put(node, pass);
+      states.put(node, pass.info);
+      for (final Entry<CGNode, ParameterState> callee : pass.calleeStates.entrySet()) {
+        if (!scc.contains(callee.getKey())) {
+          paramStates.merge(callee.getKey(), callee.getValue(), InterprocNullPointerAnalysis::meet);
+        }
+      }
+    }
+  }
+
+  private FirstPass firstPass(
+      final CGNode node,
+      final ParameterState callerStates,
+      final InterprocNullPointerCache cache,
+      final IProgressMonitor progress)
+      throws UnsoundGraphException, CancelException {
+    final ParameterState paramState = new ParameterState();
+    paramState.getStates().putAll(callerStates.getStates());
+    if (!node.getMethod().isStatic()) {
+      // this pointer is never null
+      paramState.getStates().put(0, State.NOT_NULL);
+    }
+    final Map<Integer, State> params = new HashMap<>(paramState.getStates());
+    final FirstPass cached = cache.getFirstPass(node, params);
+    if (cached != null) {
+      return cached;
+    }
+
+    final IR ir = node.getIR();
+    final Map<CGNode, ParameterState> calleeStates = new HashMap<>();
+    final IntraprocAnalysisState info;
+    if (ir == null || ir.isEmptyIR()) {
+      // we have nothing to tell about the empty IR
+      info = new IntraprocAnalysisState();
+    } else {
+      final ExceptionPruningAnalysis<SSAInstruction, IExplodedBasicBlock> intra =
+          NullPointerAnalysis.createIntraproceduralExplodedCFGAnalysis(
+              ignoredExceptions, ir, paramState, defaultMethodState, optHasExceptions);
+      final int deletedEdges = intra.compute(progress);
+      final ControlFlowGraph<SSAInstruction, IExplodedBasicBlock> cfg = intra.getCFG();
+      info = new IntraprocAnalysisState(intra, node, cfg, deletedEdges);
+      info.setHasExceptions(intra.hasExceptions());
+
+      // merge the parameter states of all calls to each callee
+      for (final IExplodedBasicBlock invokeBlock : AnalysisUtil.extractInvokeBlocks(cfg)) {
+        final SSAAbstractInvokeInstruction invokeInstruction =
+            (SSAAbstractInvokeInstruction) invokeBlock.getInstruction();
+        final ParameterState paramStateOfInvokeBlock =
+            new ParameterState(
+                intra.getState(invokeBlock), AnalysisUtil.getParameterNumbers(invokeInstruction));
+        for (final CGNode target :
+            cgFiltered.getPossibleTargets(node, invokeInstruction.getCallSite())) {
+          calleeStates.merge(target, paramStateOfInvokeBlock, InterprocNullPointerAnalysis::meet);
+        }
+      }
+    }
+
+    final FirstPass result = new FirstPass(params, info, calleeStates);
+    cache.putFirstPass(node, result);
+    return result;
+  }
+
+  /**
+   * Runs the second pass over the methods of a component. In a recursive component, this is
+   * repeated until no method changes whether it may throw.
+   */
+  private void secondPassOverSCC(
+      final Set<CGNode> scc,
+      final boolean recursive,
+      final InterprocNullPointerCache cache,
+      final IProgressMonitor progress)
+      throws UnsoundGraphException, CancelException {
+    final List<CGNode> nodes = new ArrayList<>();
+    for (final CGNode node : scc) {
+      final FirstPass pass = firstPasses.get(node);
+      if (pass != null && pass.info.canBeAnalyzed() && !AnalysisUtil.isFakeRoot(cg, node)) {
+        nodes.add(node);
+      }
+    }
+
+    boolean changed;
+    do {
+      changed = false;
+      for (final CGNode node : nodes) {
+        MonitorUtil.throwExceptionIfCanceled(progress);
+
+        final IntraprocAnalysisState info = secondPass(node, cache, progress);
+        if (info.hasExceptions() != states.get(node).hasExceptions()) {
+          changed = true;
+        }
+        states.put(node, info);
+      }
+    } while (changed && recursive);
+  }
+
+  private IntraprocAnalysisState secondPass(
+      final CGNode node, final InterprocNullPointerCache cache, final IProgressMonitor progress)
+      throws UnsoundGraphException, CancelException {
+    final FirstPass first = firstPasses.get(node);
+    final Set<CGNode> nonThrowingCallees = new HashSet<>();
+    for (final Iterator<CGNode> it = cgFiltered.getSuccNodes(node); it.hasNext(); ) {
+      final CGNode callee = it.next();
+      final IntraprocAnalysisState info = states.get(callee);
+      if (info != null && !info.hasExceptions()) {
+        nonThrowingCallees.add(callee);
+      }
+    }
+    final SecondPass cached = cache.getSecondPass(node, first.params, nonThrowingCallees);
+    if (cached != null) {
+      return cached.info;
+    }
+
+    final ParameterState paramState = new ParameterState();
+    paramState.getStates().putAll(first.params);
+    final MethodState ims = new InterprocMethodState(node, cgFiltered, states);
+    final MethodState mState =
+        (defaultMethodState != null ? new DelegatingMethodState(defaultMethodState, ims) : ims);
+
+    // run intraprocedural part again with invoke exception info
+    final ExceptionPruningAnalysis<SSAInstruction, IExplodedBasicBlock> intra2 =
+        NullPointerAnalysis.createIntraproceduralExplodedCFGAnalysis(
+            ignoredExceptions, node.getIR(), paramState, mState, optHasExceptions);
+    final int deletedEdges2 = intra2.compute(progress);
+    final IntraprocAnalysisState info =
+        new IntraprocAnalysisState(
+            intra2, node, intra2.getCFG(), deletedEdges2 + first.info.compute(progress));
+    info.setHasExceptions(intra2.hasExceptions());
+
+    cache.putSecondPass(node, new SecondPass(first.params, nonThrowingCallees, info));
+    return info;
+  }
+
+  /**
+   * @return the meet of two parameter states; the lattice is BOTH &lt; { NULL, NOT_NULL } &lt;
+   *     UNKNOWN
+   */
+  private static ParameterState meet(final ParameterState a, final ParameterState b) {
+    final ParameterState result = new ParameterState();
+    result.getStates().putAll(a.getStates());
+    for (final Entry<Integer, State> e : b.getStates().entrySet()) {
+      result.getStates().merge(e.getKey(), e.getValue(), InterprocNullPointerAnalysis::meet);
+    }
+    return result;
+  }
+
+  private static State meet(final State a, final State b) {
+    if (a == b || b == State.UNKNOWN) {
+      return a;
+    } else if (a == State.UNKNOWN) {
+      return b;
+    } else {
+      return State.BOTH;
+    }
+  }
+
   /**
    * Returns the result of the interprocedural analysis.
    *
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.cfg.exc.inter;
+
+import com.ibm.wala.cfg.exc.intra.MethodState;
+import com.ibm.wala.cfg.exc.intra.NullPointerState.State;
+import com.ibm.wala.cfg.exc.intra.ParameterState;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.types.TypeReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-method results of the interprocedural NullPointer analysis, kept in memory so that later runs
+ * over the same call graph need not analyze a method again for the same inputs.
+ *
+ * <p>Results are keyed by {@link CGNode} and refer to the IRs and CFGs of the call graph, so the
+ * cache is only valid for the call graph object it was first used with, and is not persisted. After
+ * code changes, build a new call graph and use a new cache (or {@link #clear()} this one).
+ *
+ * <p>Each result is stored with the inputs it was computed from: the states of the method's
+ * parameters and, for the second pass, the callees known not to throw. A later run reuses a result
+ * only if these inputs are the same. The results also depend on the ignored exceptions, the default
+ * method state and the options of the analysis, so the cache is bound to those and to the call
+ * graph on first use.
+ *
+ * <p>The cache is thread-safe.
+ *
+ * @see InterprocNullPointerAnalysis#compute(TypeReference[], CallGraph, MethodState,
+ *     com.ibm.wala.util.MonitorUtil.IProgressMonitor, boolean, int, InterprocNullPointerCache)
+ */
+public final class InterprocNullPointerCache {
+
+  /** Result of the first pass over a method. */
+  static final class FirstPass {
+
+    final Map<Integer, State> params;
+
+    final IntraprocAnalysisState info;
+
+    /** parameter states passed to each callee, merged over all call sites */
+    final Map<CGNode, ParameterState> calleeStates;
+
+    FirstPass(
+        Map<Integer, State> params,
+        IntraprocAnalysisState info,
+        Map<CGNode, ParameterState> calleeStates) {
+      this.params = params;
+      this.info = info;
+      this.calleeStates = calleeStates;
+    }
+  }
+
+  /** Result of the second pass over a method. */
+  static final class SecondPass {
+
+    final Map<Integer, State> params;
+
+    final Set<CGNode> nonThrowingCallees;
+
+    final IntraprocAnalysisState info;
+
+    SecondPass(
+        Map<Integer, State> params, Set<CGNode> nonThrowingCallees, IntraprocAnalysisState info) {
+      this.params = params;
+      this.nonThrowingCallees = nonThrowingCallees;
+      this.info = info;
+    }
+  }
+
+  private final Map<CGNode, FirstPass> firstPasses = new ConcurrentHashMap<>();
+
+  private final Map<CGNode, SecondPass> secondPasses = new ConcurrentHashMap<>();
+
+  private final AtomicInteger hits = new AtomicInteger();
+
+  private final AtomicInteger misses = new AtomicInteger();
+
+  private boolean bound = false;
+
+  private CallGraph cg;
+
+  private TypeReference[] ignoredExceptions;
+
+  private MethodState defaultMethodState;
+
+  private boolean optHasExceptions;
+
+  /**
+   * Bind this cache to the call graph and configuration of an analysis.
+   *
+   * @throws IllegalArgumentException if this cache was used with a different call graph or
+   *     configuration
+   */
+  synchronized void bind(
+      CallGraph cg,
+      TypeReference[] ignoredExceptions,
+      MethodState defaultMethodState,
+      boolean optHasExceptions) {
+    if (!bound) {
+      this.cg = cg;
+      this.ignoredExceptions = ignoredExceptions;
+      this.defaultMethodState = defaultMethodState;
+      this.optHasExceptions = optHasExceptions;
+      bound = true;
+    } else if (this.cg != cg) {
+      throw new IllegalArgumentException("cache was used with a different call graph");
+    } else if (!Arrays.equals(this.ignoredExceptions, ignoredExceptions)
+        || this.defaultMethodState != defaultMethodState
+        || this.optHasExceptions != optHasExceptions) {
+      throw new IllegalArgumentException("cache was used with a different configuration");
+    }
+  }
+
+  FirstPass getFirstPass(CGNode node, Map<Integer, State> params) {
+    FirstPass result = firstPasses.get(node);
+    return count(result != null && result.params.equals(params)) ? result : null;
+  }
+
+  void putFirstPass(CGNode node, FirstPass result) {
+    firstPasses.put(node, result);
+  }
+
+  SecondPass getSecondPass(
+      CGNode node, Map<Integer, State> params, Set<CGNode> nonThrowingCallees) {
+    SecondPass result = secondPasses.get(node);
+    return count(
+            result != null
+                && result.params.equals(params)
+                && result.nonThrowingCallees.equals(nonThrowingCallees))
+        ? result
+        : null;
+  }
+
+  void putSecondPass(CGNode node, SecondPass result) {
+    secondPasses.put(node, result);
+  }
+
+  private boolean count(boolean hit) {
+    (hit ? hits : misses).incrementAndGet();
+    return hit;
+  }
+
+  /** @return the number of passes over a method answered from this cache */
+  public int getNumberOfHits() {
+    return hits.get();
+  }
+
+  /** @return the number of passes over a method that were not in this cache */
+  public int getNumberOfMisses() {
+    return misses.get();
+  }
+
+  /** Discard all results, and unbind this cache from its call graph and configuration. */
+  public synchronized void clear() {
+    firstPasses.clear();
+    secondPasses.clear();
+    hits.set(0);
+    misses.set(0);
+    bound = false;
+    cg = null;
+    ignoredExceptions = null;
+    defaultMethodState = null;
+  }
+}
@@ -35,7 +35,7 @@ public abstract class AbstractNestedJarFileModule implements Module {
    * For efficiency, we cache the byte[] holding each ZipEntry's contents; this will help avoid
    * multiple unzipping TODO: use a soft reference?
    */
-  private HashMap<String, byte[]> cache = null;
+  private volatile HashMap<String, byte[]> cache = null;
 
   protected abstract InputStream getNestedContents() throws IOException;
 
@@ -49,11 +49,11 @@ public abstract class AbstractNestedJarFileModule implements Module {
     return new ByteArrayInputStream(b);
   }
 
-  private void populateCache() {
+  private synchronized void populateCache() {
     if (cache != null) {
       return;
     }
-    cache = HashMapFactory.make();
+    HashMap<String, byte[]> contents = HashMapFactory.make();
     try (final JarInputStream stream = new JarInputStream(getNestedContents(), false)) {
       for (ZipEntry z = stream.getNextEntry(); z != null; z = stream.getNextEntry()) {
         final String name = z.getName();
@@ -69,7 +69,7 @@ public abstract class AbstractNestedJarFileModule implements Module {
             n = stream.read(temp);
           }
           byte[] bb = out.toByteArray();
-          cache.put(name, bb);
+          contents.put(name, bb);
         }
       }
     } catch (IOException e) {
@@ -84,6 +84,7 @@ public abstract class AbstractNestedJarFileModule implements Module {
             }
           });
     }
+    cache = contents;
   }
 
   protected long getEntrySize(String name) {
@@ -36,11 +36,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A class representing which originates in some form of bytecode.
@@ -100,7 +100,8 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
   /** hash code; cached here for efficiency */
   protected int hashCode;
 
-  private final HashMap<Atom, IField> fieldMap = HashMapFactory.make(5);
+  /** fields resolved by name; may be populated by concurrent queries */
+  private final Map<Atom, IField> fieldMap = new ConcurrentHashMap<>(5);
 
   /** A warning for when we get a class not found exception */
   private static class ClassNotFoundWarning extends Warning {
@@ -316,6 +317,7 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
    */
   @Override
   public Collection<IField> getDeclaredInstanceFields() {
+    computeFieldsIfNeeded();
     if (instanceFields == null) {
       return Collections.emptySet();
     } else {
@@ -328,6 +330,7 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
    */
   @Override
   public Collection<IField> getDeclaredStaticFields() {
+    computeFieldsIfNeeded();
     return Collections.unmodifiableList(Arrays.asList(staticFields));
   }
 
@@ -521,6 +524,7 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
 
     List<IField> result = new ArrayList<>(1);
 
+    computeFieldsIfNeeded();
     if (instanceFields != null) {
       for (IField instanceField : instanceFields) {
         if (instanceField.getName() == name) {
@@ -540,6 +544,12 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
     return result;
   }
 
+  /**
+   * Make sure {@link #instanceFields} and {@link #staticFields} are set up. Subclasses that compute
+   * the fields lazily override this; by default they are computed at construction.
+   */
+  protected void computeFieldsIfNeeded() {}
+
   protected void addFieldToList(
       List<FieldImpl> L,
       Atom name,
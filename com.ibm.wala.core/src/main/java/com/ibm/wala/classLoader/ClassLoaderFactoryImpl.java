@@ -33,11 +33,26 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
   /** A Mapping from ClassLoaderReference to IClassLoader */
   private final HashMap<ClassLoaderReference, IClassLoader> map = HashMapFactory.make(3);
 
+  /** number of threads each {@link ClassLoaderImpl} uses to parse its class files */
+  private int numberOfThreads = 1;
+
   /** @param exclusions A set of classes that class loaders should pretend don't exist. */
   public ClassLoaderFactoryImpl(SetOfClasses exclusions) {
     this.exclusions = exclusions;
   }
 
+  /**
+   * @param exclusions A set of classes that class loaders should pretend don't exist.
+   * @param numberOfThreads number of threads each loader uses to read and parse its class files
+   */
+  public ClassLoaderFactoryImpl(SetOfClasses exclusions, int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("numberOfThreads must be positive: " + numberOfThreads);
+    }
+    this.exclusions = exclusions;
+    this.numberOfThreads = numberOfThreads;
+  }
+
   /**
    * Return a class loader corresponding to a given class loader identifier. Create one if
    * necessary.
@@ -128,6 +143,9 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
                   classLoaderReference, scope.getArrayClassLoader(), parent, exclusions, cha);
         }
       }
+    if (cl instanceof ClassLoaderImpl) {
+      ((ClassLoaderImpl) cl).setNumberOfThreads(numberOfThreads);
+    }
     cl.init(scope.getModules(classLoaderReference));
     return cl;
   }
@@ -152,6 +170,10 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
     }
   }
 
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
   /** @return the set of classes that will be ignored. */
   public SetOfClasses getExclusions() {
     return exclusions;
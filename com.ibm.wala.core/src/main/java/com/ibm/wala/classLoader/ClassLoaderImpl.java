@@ -16,6 +16,7 @@ import com.ibm.wala.shrikeCT.InvalidClassFileException;
 import com.ibm.wala.ssa.SSAInstructionFactory;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.TypeName;
+import com.ibm.wala.util.WorkerPool;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
@@ -35,12 +36,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
@@ -72,6 +75,9 @@ public class ClassLoaderImpl implements IClassLoader {
   /** an object to delegate to for loading of array classes */
   private final ArrayClassLoader arrayClassLoader;
 
+  /** number of threads used to parse class files in {@link #init(List)} */
+  private int numberOfThreads = 1;
+
   /**
    * @param loader class loader reference identifying this loader
    * @param parent parent loader for delegation
@@ -206,9 +212,40 @@ public class ClassLoaderImpl implements IClassLoader {
   }
 
   /** Set up the set of classes loaded by this object. */
-  @SuppressWarnings("unused")
   private void loadAllClasses(
       Collection<ModuleEntry> moduleEntries, Map<String, Object> fileContents, boolean isJMODType) {
+    for (ClassFile classFile : findClassFiles(moduleEntries, isJMODType)) {
+      loadClass(classFile, fileContents);
+    }
+  }
+
+  /** A class file to be loaded from a module entry, and the result of parsing it. */
+  private static final class ClassFile {
+    final ModuleEntry entry;
+
+    final String className;
+
+    final TypeName T;
+
+    /** the pending parse of this class file, when it is parsed on a separate thread */
+    Future<?> parsing;
+
+    ShrikeClass klass;
+
+    InvalidClassFileException failure;
+
+    ClassFile(ModuleEntry entry, String className) {
+      this.entry = entry;
+      this.className = className;
+      this.T = TypeName.string2TypeName(className);
+    }
+  }
+
+  /** @return the class files among moduleEntries that are not excluded, in iteration order */
+  @SuppressWarnings("unused")
+  private List<ClassFile> findClassFiles(
+      Collection<ModuleEntry> moduleEntries, boolean isJMODType) {
+    List<ClassFile> result = new ArrayList<>(moduleEntries.size());
     for (ModuleEntry entry : moduleEntries) {
       // java11 support for jmod files
       if (!entry.isClassFile()
@@ -235,49 +272,87 @@ public class ClassLoaderImpl implements IClassLoader {
         continue;
       }
 
-      ShrikeClassReaderHandle entryReader = new ShrikeClassReaderHandle(entry);
+      result.add(new ClassFile(entry, 'L' + className));
+    }
+    return result;
+  }
 
-      className = 'L' + className;
-      if (DEBUG_LEVEL > 0) {
-        System.err.println("Load class " + className);
-      }
-      try {
-        TypeName T = TypeName.string2TypeName(className);
-        if (loadedClasses.get(T) != null) {
-          Warnings.add(MultipleImplementationsWarning.create(className));
-        } else if (parent != null && parent.lookupClass(T) != null) {
-          Warnings.add(MultipleImplementationsWarning.create(className));
-        } else {
-          // try to read from memory
-          ShrikeClassReaderHandle reader = entryReader;
-          if (fileContents != null) {
-            final Object contents = fileContents.get(entry.getName());
-            if (contents != null) {
-              // reader that uses the in-memory bytes
-              reader = new ByteArrayReaderHandle(entry, (byte[]) contents);
-            }
-          }
-          ShrikeClass tmpKlass = new ShrikeClass(reader, this, cha);
-          if (tmpKlass.getReference().getName().equals(T)) {
-            // always used the reader based on the entry after this point,
-            // so we can null out and re-read class file contents
-            loadedClasses.put(T, new ShrikeClass(entryReader, this, cha));
-            if (DEBUG_LEVEL > 1) {
-              System.err.println("put " + T + ' ');
-            }
-          } else {
-            Warnings.add(InvalidClassFile.create(className));
+  /**
+   * Parse a class file. This only reads the class file and interns the names it declares, so it may
+   * run concurrently with the parsing of other class files.
+   */
+  private void parse(ClassFile classFile, Map<String, Object> fileContents) {
+    if (classFile.entry instanceof SnapshotModule.SnapshotEntry) {
+      // the snapshot has the class header, so the class file need not be read yet
+      classFile.klass = ((SnapshotModule.SnapshotEntry) classFile.entry).makeClass(this, cha);
+      return;
+    }
+    ShrikeClassReaderHandle entryReader = new ShrikeClassReaderHandle(classFile.entry);
+    try {
+      // try to read from memory
+      if (fileContents != null) {
+        final Object contents = fileContents.get(classFile.entry.getName());
+        if (contents != null) {
+          // reader that uses the in-memory bytes
+          ShrikeClass tmpKlass =
+              new ShrikeClass(
+                  new ByteArrayReaderHandle(classFile.entry, (byte[]) contents), this, cha);
+          if (!tmpKlass.getReference().getName().equals(classFile.T)) {
+            classFile.klass = tmpKlass;
+            return;
           }
         }
-      } catch (InvalidClassFileException e) {
+      }
+      // always use the reader based on the entry after this point,
+      // so we can null out and re-read class file contents
+      classFile.klass = new ShrikeClass(entryReader, this, cha);
+    } catch (InvalidClassFileException e) {
+      classFile.failure = e;
+    }
+  }
+
+  /**
+   * Add a class to the set of classes loaded by this object, unless an earlier module already
+   * provided it. If the class file has not been handed to another thread for parsing, it is parsed
+   * here.
+   */
+  @SuppressWarnings("unused")
+  private void loadClass(ClassFile classFile, Map<String, Object> fileContents) {
+    String className = classFile.className;
+    TypeName T = classFile.T;
+    if (DEBUG_LEVEL > 0) {
+      System.err.println("Load class " + className);
+    }
+    if (loadedClasses.get(T) != null) {
+      Warnings.add(MultipleImplementationsWarning.create(className));
+    } else if (parent != null && parent.lookupClass(T) != null) {
+      Warnings.add(MultipleImplementationsWarning.create(className));
+    } else {
+      if (classFile.parsing == null) {
+        parse(classFile, fileContents);
+      } else {
+        awaitParse(classFile);
+      }
+      if (classFile.failure != null) {
         if (DEBUG_LEVEL > 0) {
           System.err.println("Ignoring class " + className + " due to InvalidClassFileException");
         }
         Warnings.add(InvalidClassFile.create(className));
+      } else if (classFile.klass.getReference().getName().equals(T)) {
+        loadedClasses.put(T, classFile.klass);
+        if (DEBUG_LEVEL > 1) {
+          System.err.println("put " + T + ' ');
+        }
+      } else {
+        Warnings.add(InvalidClassFile.create(className));
       }
     }
   }
 
+  private static void awaitParse(ClassFile classFile) {
+    WorkerPool.await(classFile.parsing);
+  }
+
   @SuppressWarnings("unused")
   private Map<String, Object> getAllClassAndSourceFileContents(
       byte[] jarFileContents, String fileName, Map<String, Map<String, Long>> entrySizes) {
@@ -455,9 +530,23 @@ public class ClassLoaderImpl implements IClassLoader {
       throw new IllegalArgumentException("modules is null");
     }
 
+    try (WorkerPool parser =
+        numberOfThreads > 1 ? new WorkerPool("class file parser", numberOfThreads) : null) {
+      init(modules, parser);
+    }
+  }
+
+  /**
+   * @param parser if non-null, the class files of all modules are parsed in this pool; the classes
+   *     are still added in module order, so the result is the same as with sequential loading
+   */
+  @SuppressWarnings("unused")
+  private void init(List<Module> modules, WorkerPool parser) throws IOException {
     // module are loaded according to the given order (same as in Java VM)
     Set<ModuleEntry> classModuleEntries = HashSetFactory.make();
     Set<ModuleEntry> sourceModuleEntries = HashSetFactory.make();
+    List<List<ClassFile>> pendingClassFiles = new ArrayList<>();
+    List<Set<ModuleEntry>> pendingSourceFiles = new ArrayList<>();
     for (Module archive : modules) {
       boolean isJMODType = false;
       if (archive instanceof JarFileModule) {
@@ -502,11 +591,43 @@ public class ClassLoaderImpl implements IClassLoader {
         // }
         // jarFileContents = null;
       }
-      loadAllClasses(classFiles, allClassAndSourceFileContents, isJMODType);
-      loadAllSources(sourceFiles);
+      if (parser == null) {
+        loadAllClasses(classFiles, allClassAndSourceFileContents, isJMODType);
+        loadAllSources(sourceFiles);
+      } else {
+        List<ClassFile> toParse = findClassFiles(classFiles, isJMODType);
+        for (ClassFile classFile : toParse) {
+          final Map<String, Object> fileContents = allClassAndSourceFileContents;
+          classFile.parsing = parser.submit(() -> parse(classFile, fileContents));
+        }
+        pendingClassFiles.add(toParse);
+        pendingSourceFiles.add(sourceFiles);
+      }
       classModuleEntries.addAll(classFiles);
       sourceModuleEntries.addAll(sourceFiles);
     }
+    for (int i = 0; i < pendingClassFiles.size(); i++) {
+      for (ClassFile classFile : pendingClassFiles.get(i)) {
+        loadClass(classFile, null);
+      }
+      loadAllSources(pendingSourceFiles.get(i));
+    }
+  }
+
+  /**
+   * Set the number of threads used to read and parse class files when this loader is initialized.
+   * Classes are added to the loader in the same order regardless, so this does not change its
+   * contents.
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("numberOfThreads must be positive: " + numberOfThreads);
+    }
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  public int getNumberOfThreads() {
+    return numberOfThreads;
   }
 
   @SuppressWarnings("unused")
@@ -93,7 +93,7 @@ public class JarFileModule implements Module {
     return true;
   }
 
-  public byte[] getContents(ZipEntry entry) {
+  public synchronized byte[] getContents(ZipEntry entry) {
     byte[] b = (byte[]) CacheReference.get(cache.get(entry));
 
     if (b != null) {
@@ -45,7 +45,7 @@ import java.util.Collection;
 public final class ShrikeCTMethod extends ShrikeBTMethod implements IBytecodeMethod<IInstruction> {
 
   /** The index of this method in the declaring class's method list according to Shrike CT. */
-  private final int shrikeMethodIndex;
+  private int shrikeMethodIndex;
 
   /** JVM-level modifiers for this method a value of -1 means "uninitialized" */
   private int modifiers = -1;
@@ -72,6 +72,20 @@ public final class ShrikeCTMethod extends ShrikeBTMethod implements IBytecodeMet
     }
   }
 
+  /** @return the index of this method in the class file of its declaring class */
+  int getShrikeMethodIndex() {
+    return shrikeMethodIndex;
+  }
+
+  /**
+   * Read this method from the given index of the class file of its declaring class from now on,
+   * e.g. after that class file was replaced by {@link ShrikeClass#adoptClassFile(ShrikeClass)}.
+   */
+  void setShrikeMethodIndex(int index) {
+    shrikeMethodIndex = index;
+    clearCaches();
+  }
+
   @Override
   protected String getMethodName() throws InvalidClassFileException {
     ClassReader reader = getClassReader();
@@ -23,12 +23,15 @@ import com.ibm.wala.shrikeCT.SignatureReader;
 import com.ibm.wala.shrikeCT.SourceFileReader;
 import com.ibm.wala.shrikeCT.TypeAnnotationsReader;
 import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.Selector;
 import com.ibm.wala.types.TypeName;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.types.annotations.Annotation;
 import com.ibm.wala.types.annotations.TypeAnnotation;
 import com.ibm.wala.types.generics.ClassSignature;
 import com.ibm.wala.types.generics.TypeSignature;
+import com.ibm.wala.util.WalaRuntimeException;
+import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.shrike.ShrikeClassReaderHandle;
@@ -38,6 +41,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /** A class read from Shrike */
 public final class ShrikeClass extends JVMClass<IClassLoader> {
@@ -45,7 +50,7 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
   static final boolean DEBUG = false;
 
   /** The Shrike object that knows how to read the class file */
-  private final ShrikeClassReaderHandle reader;
+  private ShrikeClassReaderHandle reader;
 
   /** @throws IllegalArgumentException if reader is null */
   public ShrikeClass(ShrikeClassReaderHandle reader, IClassLoader loader, IClassHierarchy cha)
@@ -65,6 +70,56 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
     computeFields();
   }
 
+  /**
+   * Create a class whose header has already been read, e.g. from a {@link SnapshotModule}. The
+   * class file is not read until the fields, methods or attributes of the class are requested.
+   *
+   * @param name the class name, without the leading 'L'
+   * @param superName the superclass name, without the leading 'L', or null for none
+   * @param interfaceNames the names of the direct superinterfaces, without the leading 'L'
+   */
+  ShrikeClass(
+      ShrikeClassReaderHandle reader,
+      IClassLoader loader,
+      IClassHierarchy cha,
+      String name,
+      int modifiers,
+      String superName,
+      String[] interfaceNames) {
+    super(loader, cha);
+    this.reader = reader;
+    typeReference =
+        TypeReference.findOrCreate(
+            loader.getReference(), TypeName.findOrCreate(ImmutableByteArray.make('L' + name)));
+    this.hashCode = 2161 * getReference().hashCode();
+    if (superName != null) {
+      this.superName = ImmutableByteArray.make('L' + superName);
+    }
+    this.modifiers = modifiers;
+    this.interfaceNames = new ImmutableByteArray[interfaceNames.length];
+    Arrays.setAll(this.interfaceNames, i -> ImmutableByteArray.make('L' + interfaceNames[i]));
+    this.fieldsPending = true;
+  }
+
+  /** true until the fields of a class created from a pre-read header have been computed */
+  private volatile boolean fieldsPending;
+
+  @Override
+  protected void computeFieldsIfNeeded() {
+    if (fieldsPending) {
+      synchronized (this) {
+        if (fieldsPending) {
+          try {
+            computeFields();
+          } catch (InvalidClassFileException e) {
+            throw new WalaRuntimeException("bad class file for " + getName(), e);
+          }
+          fieldsPending = false;
+        }
+      }
+    }
+  }
+
   /**
    * Compute the fields declared by this class
    *
@@ -199,6 +254,68 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
     }
   }
 
+  /**
+   * Read this class from the class file of another version of it from now on, e.g. one loaded into
+   * a new class hierarchy after the class was recompiled. The declared methods of this class keep
+   * their identity and read their code from the new class file.
+   *
+   * @throws IllegalArgumentException if other differs from this class in anything but the code and
+   *     attributes of its methods: its name, modifiers, supertypes, fields, or the selectors and
+   *     modifiers of its methods
+   */
+  public void adoptClassFile(ShrikeClass other) {
+    if (other == null) {
+      throw new IllegalArgumentException("other is null");
+    }
+    if (!getName().equals(other.getName())
+        || modifiers != other.modifiers
+        || !String.valueOf(superName).equals(String.valueOf(other.superName))
+        || !Arrays.toString(interfaceNames).equals(Arrays.toString(other.interfaceNames))
+        || !fieldSignatures(this).equals(fieldSignatures(other))) {
+      throw new IllegalArgumentException("the declaration of " + this + " changed");
+    }
+    Map<Selector, Integer> index = HashMapFactory.make();
+    for (IMethod m : other.getDeclaredMethods()) {
+      index.put(m.getSelector(), ((ShrikeCTMethod) m).getShrikeMethodIndex());
+    }
+    Collection<IMethod> methods = getDeclaredMethods();
+    if (methods.size() != index.size()) {
+      throw new IllegalArgumentException("the methods of " + this + " changed");
+    }
+    for (IMethod m : methods) {
+      Integer i = index.get(m.getSelector());
+      if (i == null
+          || ((ShrikeCTMethod) m).getModifiers()
+              != ((ShrikeCTMethod) other.getMethod(m.getSelector())).getModifiers()) {
+        throw new IllegalArgumentException("the declaration of " + m + " changed");
+      }
+    }
+    reader = other.reader;
+    for (IMethod m : methods) {
+      ((ShrikeCTMethod) m).setShrikeMethodIndex(index.get(m.getSelector()));
+    }
+  }
+
+  /** @return the modifiers, type and name of each field declared by klass */
+  private static Set<String> fieldSignatures(ShrikeClass klass) {
+    Set<String> result = HashSetFactory.make();
+    List<IField> fields = new ArrayList<>(klass.getDeclaredInstanceFields());
+    fields.addAll(klass.getDeclaredStaticFields());
+    for (IField f : fields) {
+      result.add(
+          (f.isStatic() ? "static " : "")
+              + (f.isPublic()
+                  ? "public "
+                  : f.isProtected() ? "protected " : f.isPrivate() ? "private " : "")
+              + (f.isFinal() ? "final " : "")
+              + (f.isVolatile() ? "volatile " : "")
+              + f.getFieldTypeReference().getName()
+              + ' '
+              + f.getName());
+    }
+    return result;
+  }
+
   /** Clear all optional cached data associated with this class */
   public void clearSoftCaches() {
     // toss optional information from each method.
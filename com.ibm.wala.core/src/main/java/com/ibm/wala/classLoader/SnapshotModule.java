@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.classLoader;
+
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeCT.ClassReader;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.shrike.ShrikeClassReaderHandle;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A module backed by a snapshot of the classes of a class loader, as written by {@link
+ * #write(IClassLoader, File)}. A snapshot of the primordial loader can stand in for the JDK jars in
+ * later analysis scopes, which avoids scanning, inflating and parsing the jars on every run.
+ *
+ * <p>The snapshot is a single uncompressed file holding an index of class headers (name, modifiers,
+ * superclass and interfaces) followed by the class file bytes. It is memory-mapped when the module
+ * is created, and only the index is read eagerly. {@link ClassLoaderImpl} builds its {@link
+ * ShrikeClass}es from the headers alone, so the class hierarchy can be built without reading any
+ * class file; the bytes of a class are copied out of the mapping when its fields, methods or
+ * attributes are first needed. Snapshots are limited to 2GB.
+ */
+public class SnapshotModule implements Module {
+
+  private static final int MAGIC = 0x57414c41; // "WALA"
+
+  private static final int VERSION = 1;
+
+  private static final String[] NO_INTERFACES = new String[0];
+
+  private final File file;
+
+  private final ByteBuffer contents;
+
+  private final String loaderName;
+
+  private final List<SnapshotEntry> entries;
+
+  /** @throws IOException if file cannot be read or is not a snapshot */
+  public SnapshotModule(File file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("null file");
+    }
+    this.file = file;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+        FileChannel channel = raf.getChannel()) {
+      contents = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    ByteBuffer index = contents.duplicate();
+    if (index.remaining() < 8 || index.getInt() != MAGIC || index.getInt() != VERSION) {
+      throw new IOException("not a class hierarchy snapshot: " + file);
+    }
+    loaderName = readString(index);
+    int count = index.getInt();
+    entries = new ArrayList<>(count);
+    int[] lengths = new int[count];
+    for (int i = 0; i < count; i++) {
+      SnapshotEntry entry = new SnapshotEntry(readString(index));
+      entry.modifiers = index.getInt();
+      String superName = readString(index);
+      entry.superName = superName.isEmpty() ? null : superName;
+      int interfaceCount = index.getInt();
+      entry.interfaceNames = interfaceCount == 0 ? NO_INTERFACES : new String[interfaceCount];
+      for (int j = 0; j < interfaceCount; j++) {
+        entry.interfaceNames[j] = readString(index);
+      }
+      lengths[i] = index.getInt();
+      entries.add(entry);
+    }
+    int offset = index.position();
+    for (int i = 0; i < count; i++) {
+      entries.get(i).offset = offset;
+      entries.get(i).length = lengths[i];
+      offset += lengths[i];
+    }
+    if (offset != contents.limit()) {
+      throw new IOException("truncated class hierarchy snapshot: " + file);
+    }
+  }
+
+  private static String readString(ByteBuffer b) {
+    byte[] bytes = new byte[b.getInt()];
+    b.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Write a snapshot of the classes loaded from class files by a loader. Classes that do not come
+   * from class files, e.g. synthetic or source classes, are not included.
+   */
+  public static void write(IClassLoader loader, File file) throws IOException {
+    if (loader == null) {
+      throw new IllegalArgumentException("null loader");
+    }
+    List<String> names = new ArrayList<>();
+    List<ClassReader> classes = new ArrayList<>();
+    for (IClass klass : Iterator2Iterable.make(loader.iterateAllClasses())) {
+      if (klass instanceof ShrikeClass) {
+        // drop the leading 'L', as for the class name of a jar file entry
+        names.add(klass.getName().toString().substring(1));
+        classes.add(((ShrikeClass) klass).getReader());
+      }
+    }
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      writeString(out, loader.getName().toString());
+      out.writeInt(names.size());
+      for (int i = 0; i < names.size(); i++) {
+        ClassReader reader = classes.get(i);
+        writeString(out, names.get(i));
+        out.writeInt(reader.getAccessFlags());
+        String superName = reader.getSuperName();
+        writeString(out, superName == null ? "" : superName);
+        String[] interfaceNames = reader.getInterfaceNames();
+        out.writeInt(interfaceNames.length);
+        for (String name : interfaceNames) {
+          writeString(out, name);
+        }
+        out.writeInt(reader.getBytes().length);
+      }
+      for (ClassReader reader : classes) {
+        out.write(reader.getBytes());
+      }
+    } catch (InvalidClassFileException e) {
+      throw new IOException("cannot snapshot " + loader, e);
+    }
+  }
+
+  /** @return the name of the class loader this snapshot was taken from */
+  public String getLoaderName() {
+    return loaderName;
+  }
+
+  @Override
+  public Iterator<? extends ModuleEntry> getEntries() {
+    return entries.iterator();
+  }
+
+  @Override
+  public String toString() {
+    return "SnapshotModule:" + file;
+  }
+
+  /** A class in the snapshot, with its header. */
+  class SnapshotEntry implements ModuleEntry {
+
+    private final String className;
+
+    private int modifiers;
+
+    private String superName;
+
+    private String[] interfaceNames;
+
+    private int offset;
+
+    private int length;
+
+    SnapshotEntry(String className) {
+      this.className = className;
+    }
+
+    /** @return a class built from the header, which reads its class file from this entry */
+    ShrikeClass makeClass(IClassLoader loader, IClassHierarchy cha) {
+      return new ShrikeClass(
+          new ShrikeClassReaderHandle(this),
+          loader,
+          cha,
+          className,
+          modifiers,
+          superName,
+          interfaceNames);
+    }
+
+    @Override
+    public String getName() {
+      return className + ".class";
+    }
+
+    @Override
+    public boolean isClassFile() {
+      return true;
+    }
+
+    @Override
+    public boolean isSourceFile() {
+      return false;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      // a private view of the mapping, so that entries may be read from several threads
+      ByteBuffer b = contents.duplicate();
+      b.position(offset);
+      byte[] bytes = new byte[length];
+      b.get(bytes);
+      return new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public boolean isModuleFile() {
+      return false;
+    }
+
+    @Override
+    public Module asModule() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getClassName() {
+      return className;
+    }
+
+    @Override
+    public Module getContainer() {
+      return SnapshotModule.this;
+    }
+
+    @Override
+    public String toString() {
+      return file + ":" + getName();
+    }
+  }
+}
@@ -292,6 +292,20 @@ public class LocalPathEdges {
     }
   }
 
+  /**
+   * Record a path edge (s_p,d_i) -&gt; (n,d_j) unless it was recorded before.
+   *
+   * @param n local block number of the basic block n
+   * @return true iff the path edge was not previously recorded
+   */
+  public boolean addPathEdgeIfAbsent(int i, int n, int j) {
+    if (contains(i, n, j)) {
+      return false;
+    }
+    addPathEdge(i, n, j);
+    return true;
+  }
+
   /**
    * @param n local block number of a basic block n
    * @return true iff we have a path edge {@literal <s_p,i> -> <n, j>}
@@ -15,12 +15,11 @@ import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.CancelRuntimeException;
 import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
-import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.WorkerPool;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Heap;
 import com.ibm.wala.util.collections.Iterator2Collection;
 import com.ibm.wala.util.collections.Iterator2Iterable;
-import com.ibm.wala.util.collections.MapUtil;
 import com.ibm.wala.util.collections.ToStringComparator;
 import com.ibm.wala.util.heapTrace.HeapTracer;
 import com.ibm.wala.util.intset.IntIterator;
@@ -29,15 +28,19 @@ import com.ibm.wala.util.intset.IntSetAction;
 import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.ref.ReferenceCleanser;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 /**
  * A precise interprocedural tabulation solver.
@@ -53,7 +56,8 @@ import java.util.TreeSet;
  *   <li>it stores summary edges at each callee instead of at each call site.
  * </ul>
  *
- * <p>
+ * <p>The solver can process the worklist with several threads; see {@link
+ * #setNumberOfThreads(int)}.
  *
  * @param <T> type of node in the supergraph
  * @param <P> type of a procedure (like a box in an RSM)
@@ -109,7 +113,7 @@ public class TabulationSolver<T, P, F> {
    * <p>Logically, this represents a set of edges (s_p,d_i) -&gt; (n, d_j). The data structure is
    * chosen to attempt to save space over representing each edge explicitly.
    */
-  private final Map<T, LocalPathEdges> pathEdges = HashMapFactory.make();
+  private final Map<T, LocalPathEdges> pathEdges = new ConcurrentHashMap<>();
 
   /**
    * A map from Object (entry node in supergraph) -&gt; CallFlowEdges.
@@ -117,19 +121,19 @@ public class TabulationSolver<T, P, F> {
    * <p>Logically, this represents a set of edges (c,d_i) -&gt; (s_p, d_j). The data structure is
    * chosen to attempt to save space over representing each edge explicitly.
    */
-  private final Map<T, CallFlowEdges> callFlowEdges = HashMapFactory.make();
+  private final Map<T, CallFlowEdges> callFlowEdges = new ConcurrentHashMap<>();
 
   /** A map from Object (procedure) -&gt; LocalSummaryEdges. */
-  protected final Map<P, LocalSummaryEdges> summaryEdges = HashMapFactory.make();
+  protected final Map<P, LocalSummaryEdges> summaryEdges = new ConcurrentHashMap<>();
 
   /**
    * the set of all {@link PathEdge}s that were used as seeds during the tabulation, grouped by
    * procedure.
    */
-  private final Map<P, Set<PathEdge<T>>> seeds = HashMapFactory.make();
+  private final Map<P, Set<PathEdge<T>>> seeds = new ConcurrentHashMap<>();
 
   /** All seeds, stored redundantly for quick access. */
-  private final Set<PathEdge<T>> allSeeds = HashSetFactory.make();
+  private final Set<PathEdge<T>> allSeeds = Collections.synchronizedSet(HashSetFactory.make());
 
   /** The worklist */
   private ITabulationWorklist<T> worklist;
@@ -152,6 +156,27 @@ public class TabulationSolver<T, P, F> {
    */
   private PathEdge<T> curSummaryEdge;
 
+  /** number of threads that process the worklist */
+  private int numberOfThreads = 1;
+
+  /** is the worklist currently being processed by several threads? */
+  private volatile boolean parallel;
+
+  /** {@link #curPathEdge} of each worker while {@link #parallel} */
+  private final ThreadLocal<PathEdge<T>> curPathEdges = new ThreadLocal<>();
+
+  /** {@link #curSummaryEdge} of each worker while {@link #parallel} */
+  private final ThreadLocal<PathEdge<T>> curSummaryEdges = new ThreadLocal<>();
+
+  /** guards the worklist, {@link #busyWorkers} and {@link #failed} while {@link #parallel} */
+  private final Object worklistLock = new Object();
+
+  /** number of workers currently processing a path edge */
+  private int busyWorkers;
+
+  /** has some worker failed? */
+  private boolean failed;
+
   /**
    * @param p a description of the dataflow problem to solve
    * @throws IllegalArgumentException if p is null
@@ -205,9 +230,40 @@ public class TabulationSolver<T, P, F> {
     }
   }
 
+  /** @return the number of threads that process the worklist */
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Let several threads process the worklist. This is only done for problems without a merge
+   * function; other problems are always solved sequentially. The flow functions, the domain and the
+   * supergraph must then support concurrent queries; the supergraph is fully constructed before the
+   * workers start. Path edges, summary edges and call flow edges created by a solver with more than
+   * one thread are shared by the workers, and return copies rather than live sets. For distributive
+   * problems, the result does not depend on the number of threads; subclasses such as {@link
+   * BoundedTabulationSolver} whose results depend on the order of the worklist should use one
+   * thread.
+   *
+   * <p>Set this before solving.
+   *
+   * @param numberOfThreads the number of threads that process the worklist; 1 selects the
+   *     sequential solver
+   * @throws IllegalArgumentException if numberOfThreads &lt; 1
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    this.numberOfThreads = numberOfThreads;
+  }
+
   /** Restart tabulation from a particular path edge. Use with care. */
   public void addSeed(PathEdge<T> seed) {
-    Set<PathEdge<T>> s = MapUtil.findOrCreateSet(seeds, supergraph.getProcOf(seed.entry));
+    Set<PathEdge<T>> s =
+        seeds.computeIfAbsent(
+            supergraph.getProcOf(seed.entry),
+            k -> Collections.synchronizedSet(HashSetFactory.make()));
     s.add(seed);
     allSeeds.add(seed);
     propagate(seed.entry, seed.d1, seed.target, seed.d2);
@@ -220,6 +276,10 @@ public class TabulationSolver<T, P, F> {
     if (worklist == null) {
       worklist = makeWorklist();
     }
+    if (isParallel()) {
+      forwardTabulateSLRPsInParallel();
+      return;
+    }
     while (worklist.size() > 0) {
       MonitorUtil.throwExceptionIfCanceled(progressMonitor);
       if (verbose) {
@@ -229,39 +289,129 @@ public class TabulationSolver<T, P, F> {
         tendToSoftCaches();
       }
 
-      final PathEdge<T> edge = popFromWorkList();
-      if (DEBUG_LEVEL > 0) {
-        System.err.println("TABULATE " + edge);
+      tabulate(popFromWorkList());
+    }
+    curPathEdge = null;
+  }
+
+  /** process one path edge taken from the worklist */
+  @SuppressWarnings("unused")
+  private void tabulate(final PathEdge<T> edge) {
+    if (DEBUG_LEVEL > 0) {
+      System.err.println("TABULATE " + edge);
+    }
+    setCurPathEdge(edge);
+    int j = merge(edge.entry, edge.d1, edge.target, edge.d2);
+    if (j == -1 && DEBUG_LEVEL > 0) {
+      System.err.println("merge -1: DROPPING");
+    }
+    if (j != -1) {
+      if (j != edge.d2) {
+        // this means that we don't want to push the edge. instead,
+        // we'll push the merged fact. a little tricky, but i think should
+        // work.
+        if (DEBUG_LEVEL > 0) {
+          System.err.println("propagating merged fact " + j);
+        }
+        propagate(edge.entry, edge.d1, edge.target, j);
+      } else {
+        if (supergraph.isCall(edge.target)) {
+          // [13]
+          processCall(edge);
+        } else if (supergraph.isExit(edge.target)) {
+          // [21]
+          processExit(edge);
+        } else {
+          // [33]
+          processNormal(edge);
+        }
       }
-      curPathEdge = edge;
-      int j = merge(edge.entry, edge.d1, edge.target, edge.d2);
-      if (j == -1 && DEBUG_LEVEL > 0) {
-        System.err.println("merge -1: DROPPING");
+    }
+  }
+
+  /** Should the worklist be processed by several threads? */
+  private boolean isParallel() {
+    return numberOfThreads > 1 && problem.getMergeFunction() == null;
+  }
+
+  /**
+   * The main loop of {@link #forwardTabulateSLRPs()}, run by {@link #numberOfThreads} workers that
+   * share the worklist. The workers stop when the worklist is empty and no worker is processing an
+   * edge, since only a busy worker can add edges to the worklist.
+   */
+  private void forwardTabulateSLRPsInParallel() throws CancelException {
+    // the supergraph is built lazily, which is not thread-safe
+    supergraph.getNumberOfNodes();
+    busyWorkers = 0;
+    failed = false;
+    parallel = true;
+    try (WorkerPool pool = new WorkerPool("TabulationSolver worker", numberOfThreads)) {
+      List<Future<Void>> futures = new ArrayList<>(numberOfThreads);
+      for (int i = 0; i < numberOfThreads; i++) {
+        futures.add(pool.submit(this::work));
+      }
+      for (Future<Void> f : futures) {
+        WorkerPool.await(f, CancelException.class);
+      }
+    } catch (CancelRuntimeException e) {
+      // interrupted while waiting; stop the workers
+      synchronized (worklistLock) {
+        failed = true;
+        worklistLock.notifyAll();
       }
-      if (j != -1) {
-        if (j != edge.d2) {
-          // this means that we don't want to push the edge. instead,
-          // we'll push the merged fact. a little tricky, but i think should
-          // work.
-          if (DEBUG_LEVEL > 0) {
-            System.err.println("propagating merged fact " + j);
+      throw e;
+    } finally {
+      parallel = false;
+    }
+  }
+
+  /** the loop of one worker of {@link #forwardTabulateSLRPsInParallel()} */
+  private Void work() throws CancelException {
+    try {
+      while (true) {
+        PathEdge<T> edge;
+        synchronized (worklistLock) {
+          while (worklist.size() == 0 && busyWorkers > 0 && !failed) {
+            try {
+              worklistLock.wait();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new CancelRuntimeException(e);
+            }
           }
-          propagate(edge.entry, edge.d1, edge.target, j);
-        } else {
-          if (supergraph.isCall(edge.target)) {
-            // [13]
-            processCall(edge);
-          } else if (supergraph.isExit(edge.target)) {
-            // [21]
-            processExit(edge);
-          } else {
-            // [33]
-            processNormal(edge);
+          if (worklist.size() == 0 || failed) {
+            // wake up the other workers, so that they stop as well
+            worklistLock.notifyAll();
+            return null;
+          }
+          edge = worklist.take();
+          busyWorkers++;
+        }
+        try {
+          MonitorUtil.throwExceptionIfCanceled(progressMonitor);
+          if (PERIODIC_WIPE_SOFT_CACHES) {
+            tendToSoftCaches();
+          }
+          tabulate(edge);
+        } finally {
+          synchronized (worklistLock) {
+            busyWorkers--;
+            if (busyWorkers == 0 && worklist.size() == 0) {
+              worklistLock.notifyAll();
+            }
           }
         }
       }
+    } catch (CancelException | RuntimeException | Error e) {
+      synchronized (worklistLock) {
+        failed = true;
+        worklistLock.notifyAll();
+      }
+      throw e;
+    } finally {
+      curPathEdges.remove();
+      curSummaryEdges.remove();
     }
-    curPathEdge = null;
   }
 
   /**
@@ -337,8 +487,8 @@ public class TabulationSolver<T, P, F> {
     if (!summaries.contains(s_p_n, x, edge.d1, edge.d2)) {
       summaries.insertSummaryEdge(s_p_n, x, edge.d1, edge.d2);
     }
-    assert curSummaryEdge == null : "curSummaryEdge should be null here";
-    curSummaryEdge = edge;
+    assert getCurSummaryEdge() == null : "curSummaryEdge should be null here";
+    setCurSummaryEdge(edge);
 
     final CallFlowEdges callFlow = findOrCreateCallFlowEdges(edge.entry);
 
@@ -354,7 +504,7 @@ public class TabulationSolver<T, P, F> {
         propagateToReturnSites(edge, supergraph.getNode(globalC), D4);
       }
     }
-    curSummaryEdge = null;
+    setCurSummaryEdge(null);
   }
 
   /**
@@ -478,8 +628,9 @@ public class TabulationSolver<T, P, F> {
                     d3 -> {
                       // set curPathEdge to be consistent with its setting in processCall() when
                       // applying a summary edge
-                      curPathEdge = PathEdge.createPathEdge(s_p, d3, c, d4);
-                      newSummaryEdge(curPathEdge, edge, retSite, d5);
+                      PathEdge<T> edgeToCallSite = PathEdge.createPathEdge(s_p, d3, c, d4);
+                      setCurPathEdge(edgeToCallSite);
+                      newSummaryEdge(edgeToCallSite, edge, retSite, d5);
                       propagate(s_p, d3, retSite, d5);
                     });
               }
@@ -617,7 +768,13 @@ public class TabulationSolver<T, P, F> {
       System.err.println(" reached: " + reached);
     }
     if (reached != null) {
-      final LocalSummaryEdges summaries = summaryEdges.get(supergraph.getProcOf(calleeEntry));
+      // when the workers run in parallel, an exit of the callee may be processed concurrently.
+      // create the summaries eagerly, so that either the exit sees the call flow edge recorded
+      // below, or we see its summary edge
+      final LocalSummaryEdges summaries =
+          parallel
+              ? findOrCreateLocalSummaryEdges(supergraph.getProcOf(calleeEntry))
+              : summaryEdges.get(supergraph.getProcOf(calleeEntry));
       final CallFlowEdges callFlow = findOrCreateCallFlowEdges(calleeEntry);
       final int s_p_num = supergraph.getLocalBlockNumber(calleeEntry);
 
@@ -653,15 +810,18 @@ public class TabulationSolver<T, P, F> {
                           flowFunctionMap.getReturnFlowFunction(edge.target, exit, returnSite);
                       reachedBySummary.foreach(
                           d2 -> {
-                            assert curSummaryEdge == null : "curSummaryEdge should be null here";
-                            curSummaryEdge = PathEdge.createPathEdge(calleeEntry, d1, exit, d2);
+                            assert getCurSummaryEdge() == null
+                                : "curSummaryEdge should be null here";
+                            final PathEdge<T> summaryEdge =
+                                PathEdge.createPathEdge(calleeEntry, d1, exit, d2);
+                            setCurSummaryEdge(summaryEdge);
                             if (retf instanceof IBinaryReturnFlowFunction) {
                               final IntSet D51 =
                                   computeBinaryFlow(edge.d2, d2, (IBinaryReturnFlowFunction) retf);
                               if (D51 != null) {
                                 D51.foreach(
                                     d5 -> {
-                                      newSummaryEdge(edge, curSummaryEdge, returnSite, d5);
+                                      newSummaryEdge(edge, summaryEdge, returnSite, d5);
                                       propagate(edge.entry, edge.d1, returnSite, d5);
                                     });
                               }
@@ -670,12 +830,12 @@ public class TabulationSolver<T, P, F> {
                               if (D52 != null) {
                                 D52.foreach(
                                     d5 -> {
-                                      newSummaryEdge(edge, curSummaryEdge, returnSite, d5);
+                                      newSummaryEdge(edge, summaryEdge, returnSite, d5);
                                       propagate(edge.entry, edge.d1, returnSite, d5);
                                     });
                               }
                             }
-                            curSummaryEdge = null;
+                            setCurSummaryEdge(null);
                           });
                     }
                   }
@@ -760,11 +920,10 @@ public class TabulationSolver<T, P, F> {
 
     assert j >= 0;
 
-    if (!pLocal.contains(i, number, j)) {
+    if (pLocal.addPathEdgeIfAbsent(i, number, j)) {
       if (DEBUG_LEVEL > 0) {
         System.err.println("propagate " + s_p + "  " + i + ' ' + number + ' ' + j);
       }
-      pLocal.addPathEdge(i, number, j);
       addToWorkList(s_p, i, n, j);
       return true;
     }
@@ -809,6 +968,13 @@ public class TabulationSolver<T, P, F> {
 
   @SuppressWarnings("unused")
   protected void addToWorkList(T s_p, int i, T n, int j) {
+    if (parallel) {
+      synchronized (worklistLock) {
+        worklist.insert(PathEdge.createPathEdge(s_p, i, n, j));
+        worklistLock.notify();
+      }
+      return;
+    }
     if (worklist == null) {
       worklist = makeWorklist();
     }
@@ -821,13 +987,15 @@ public class TabulationSolver<T, P, F> {
   protected LocalPathEdges findOrCreateLocalPathEdges(T s_p) {
     LocalPathEdges result = pathEdges.get(s_p);
     if (result == null) {
-      result = makeLocalPathEdges();
-      pathEdges.put(s_p, result);
+      result = pathEdges.computeIfAbsent(s_p, k -> makeLocalPathEdges());
     }
     return result;
   }
 
   private LocalPathEdges makeLocalPathEdges() {
+    if (isParallel()) {
+      return new ConcurrentLocalPathEdges(false);
+    }
     return problem.getMergeFunction() == null
         ? new LocalPathEdges(false)
         : new LocalPathEdges(true);
@@ -836,8 +1004,10 @@ public class TabulationSolver<T, P, F> {
   protected LocalSummaryEdges findOrCreateLocalSummaryEdges(P proc) {
     LocalSummaryEdges result = summaryEdges.get(proc);
     if (result == null) {
-      result = new LocalSummaryEdges();
-      summaryEdges.put(proc, result);
+      result =
+          summaryEdges.computeIfAbsent(
+              proc,
+              k -> isParallel() ? new ConcurrentLocalSummaryEdges() : new LocalSummaryEdges());
     }
     return result;
   }
@@ -845,8 +1015,9 @@ public class TabulationSolver<T, P, F> {
   protected CallFlowEdges findOrCreateCallFlowEdges(T s_p) {
     CallFlowEdges result = callFlowEdges.get(s_p);
     if (result == null) {
-      result = new CallFlowEdges();
-      callFlowEdges.put(s_p, result);
+      result =
+          callFlowEdges.computeIfAbsent(
+              s_p, k -> isParallel() ? new ConcurrentCallFlowEdges() : new CallFlowEdges());
     }
     return result;
   }
@@ -1016,11 +1187,27 @@ public class TabulationSolver<T, P, F> {
   }
 
   protected PathEdge<T> getCurPathEdge() {
-    return curPathEdge;
+    return parallel ? curPathEdges.get() : curPathEdge;
   }
 
   protected PathEdge<T> getCurSummaryEdge() {
-    return curSummaryEdge;
+    return parallel ? curSummaryEdges.get() : curSummaryEdge;
+  }
+
+  private void setCurPathEdge(PathEdge<T> edge) {
+    if (parallel) {
+      curPathEdges.set(edge);
+    } else {
+      curPathEdge = edge;
+    }
+  }
+
+  private void setCurSummaryEdge(PathEdge<T> edge) {
+    if (parallel) {
+      curSummaryEdges.set(edge);
+    } else {
+      curSummaryEdge = edge;
+    }
   }
 
   /**
@@ -104,6 +104,8 @@ import com.ibm.wala.ssa.SSAArrayStoreInstruction;
 import com.ibm.wala.ssa.SSAInstruction;
 import com.ibm.wala.ssa.SSANewInstruction;
 import com.ibm.wala.ssa.SSAPutInstruction;
+import com.ibm.wala.util.CancelRuntimeException;
+import com.ibm.wala.util.WorkerPool;
 import com.ibm.wala.util.collections.ArraySet;
 import com.ibm.wala.util.collections.ArraySetMultiMap;
 import com.ibm.wala.util.collections.HashMapFactory;
@@ -125,14 +127,21 @@ import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.intset.MutableSparseIntSetFactory;
 import com.ibm.wala.util.intset.OrdinalSet;
 import com.ibm.wala.util.intset.OrdinalSetMapping;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -162,6 +171,37 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
     return refinementPolicy;
   }
 
+  /** should the results of points-to and flows-to queries be cached across queries? */
+  private boolean cacheResults = false;
+
+  /**
+   * cached refinement passes of points-to queries, from which queries with any predicate are
+   * answered. Shared with the analyses answering parallel queries.
+   */
+  private final Map<PointerKeyAndState, Refinement> pointsToCache;
+
+  /** cached results of flows-to queries */
+  private final Map<InstanceKeyAndState, Pair<PointsToResult, Collection<PointerKey>>> flowsToCache;
+
+  private final AtomicInteger cacheHits;
+
+  private final AtomicInteger cacheMisses;
+
+  /** number of threads used to answer a batch of queries */
+  private int numberOfThreads = 1;
+
+  private QueryStatistics lastQueryStatistics;
+
+  private List<QueryStatistics> lastBatchStatistics = Collections.emptyList();
+
+  /**
+   * while a batch of queries is answered, the keys of the batch, and the points-to sets of those
+   * keys found by the first passes of other queries of the batch; {@code null} otherwise
+   */
+  private Set<PointerKey> batchKeys;
+
+  private Map<PointerKeyAndState, Collection<InstanceKeyAndState>> batchP2Sets;
+
   private DemandRefinementPointsTo(
       CallGraph cg,
       ThisFilteringHeapModel model,
@@ -176,9 +216,31 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
     this.refinementPolicyFactory =
         new SinglePassRefinementPolicy.Factory(
             new NeverRefineFieldsPolicy(), new NeverRefineCGPolicy());
+    this.pointsToCache = new ConcurrentHashMap<>();
+    this.flowsToCache = new ConcurrentHashMap<>();
+    this.cacheHits = new AtomicInteger();
+    this.cacheMisses = new AtomicInteger();
     sanityCheckCG();
   }
 
+  /**
+   * Make an analysis to answer one query on another thread. It has its own per-query state, and
+   * shares the flow graph, factories, cache, and batch state of {@code parent}.
+   */
+  private DemandRefinementPointsTo(DemandRefinementPointsTo parent) {
+    super(parent.cg, parent.heapModel, parent.mam, parent.cha, parent.options);
+    this.stateMachineFactory = parent.stateMachineFactory;
+    this.refinementPolicyFactory = parent.refinementPolicyFactory;
+    this.g = parent.g;
+    this.cacheResults = parent.cacheResults;
+    this.pointsToCache = parent.pointsToCache;
+    this.flowsToCache = parent.flowsToCache;
+    this.cacheHits = parent.cacheHits;
+    this.cacheMisses = parent.cacheMisses;
+    this.batchKeys = parent.batchKeys;
+    this.batchP2Sets = parent.batchP2Sets;
+  }
+
   private void sanityCheckCG() {
     if (PARANOID) {
       for (CGNode callee : cg) {
@@ -231,6 +293,83 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
     BUDGETEXCEEDED
   }
 
+  /**
+   * Statistics about one points-to or flows-to query.
+   *
+   * @see DemandRefinementPointsTo#getLastQueryStatistics()
+   */
+  public static final class QueryStatistics {
+
+    private final WithState<?> query;
+
+    private final PointsToResult result;
+
+    private final boolean cacheHit;
+
+    private final int passes;
+
+    private final long nodesTraversed;
+
+    private final long budget;
+
+    QueryStatistics(
+        WithState<?> query,
+        PointsToResult result,
+        boolean cacheHit,
+        int passes,
+        long nodesTraversed,
+        long budget) {
+      this.query = query;
+      this.result = result;
+      this.cacheHit = cacheHit;
+      this.passes = passes;
+      this.nodesTraversed = nodesTraversed;
+      this.budget = budget;
+    }
+
+    /** @return the queried {@link PointerKeyAndState} or {@link InstanceKeyAndState} */
+    public WithState<?> getQuery() {
+      return query;
+    }
+
+    public PointsToResult getResult() {
+      return result;
+    }
+
+    /**
+     * @return was the query answered without any traversal, from the cache or from a points-to set
+     *     found by another query of its batch?
+     */
+    public boolean isCacheHit() {
+      return cacheHit;
+    }
+
+    /** @return the number of refinement passes run */
+    public int getNumberOfPasses() {
+      return passes;
+    }
+
+    /** @return the number of nodes traversed, summed over all passes */
+    public long getNodesTraversed() {
+      return nodesTraversed;
+    }
+
+    /** @return the traversal budget, summed over all passes run */
+    public long getBudget() {
+      return budget;
+    }
+
+    @Override
+    public String toString() {
+      return query
+          + ": "
+          + result
+          + (cacheHit
+              ? " (cached)"
+              : " in " + passes + " passes, " + nodesTraversed + '/' + budget + " nodes");
+    }
+  }
+
   /** re-initialize state for a new query */
   protected void startNewQuery() {
     // re-init the refinement policy
@@ -272,10 +411,382 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
       System.err.println("answering query for " + pk);
     }
     startNewQuery();
-    Pair<PointsToResult, Collection<InstanceKeyAndState>> p =
-        outerRefinementLoop(
-            new PointerKeyAndState(queriedPk, stateMachine.getStartState()), ikeyPred);
-    return p;
+    PointerKeyAndState queried = new PointerKeyAndState(queriedPk, stateMachine.getStartState());
+    if (cacheResults) {
+      Refinement cached = pointsToCache.get(queried);
+      if (cached != null) {
+        Pair<PointsToResult, Collection<InstanceKeyAndState>> p =
+            replay(queried, cached, ikeyPred, true);
+        if (p != null) {
+          cacheHits.incrementAndGet();
+          return p;
+        }
+      }
+      cacheMisses.incrementAndGet();
+    }
+    if (batchP2Sets != null) {
+      Collection<InstanceKeyAndState> p2Set = batchP2Sets.get(queried);
+      if (p2Set != null && (p2Set.isEmpty() || passesPred(p2Set, ikeyPred))) {
+        Refinement found = new Refinement(refinementPolicy.getNumPasses());
+        found.p2Sets.add(p2Set);
+        if (cacheResults) {
+          pointsToCache.putIfAbsent(queried, found);
+        }
+        return replay(queried, found, ikeyPred, true);
+      }
+    }
+    Refinement refinement = outerRefinementLoop(queried, ikeyPred);
+    if (cacheResults) {
+      pointsToCache.put(queried, refinement);
+    }
+    return replay(queried, refinement, ikeyPred, false);
+  }
+
+  /**
+   * The refinement passes run for a points-to query. Each pass depends only on the passes before
+   * it, not on the predicate of the query, which only decides when to stop; so the passes answer
+   * queries with other predicates exactly as far as they go.
+   */
+  private static final class Refinement {
+
+    private final int numPasses;
+
+    /** the points-to set computed in each pass run, or {@code null} if it exceeded its budget */
+    private final List<Collection<InstanceKeyAndState>> p2Sets = new ArrayList<>();
+
+    /**
+     * the answer of {@link RefinementPolicy#nextPass()} after the last pass, or {@code null} if the
+     * query stopped without asking
+     */
+    private Boolean nextPass;
+
+    private long nodesTraversed;
+
+    private long budget;
+
+    Refinement(int numPasses) {
+      this.numPasses = numPasses;
+    }
+  }
+
+  /**
+   * Answer a query from its refinement passes, stopping where the refinement loop would have
+   * stopped for {@code ikeyPred}, and record the statistics of the query.
+   *
+   * @param cacheHit were the passes run for an earlier query?
+   * @return the result of the query, or {@code null} if it needs a pass that was not run
+   */
+  private Pair<PointsToResult, Collection<InstanceKeyAndState>> replay(
+      PointerKeyAndState queried,
+      Refinement refinement,
+      Predicate<InstanceKey> ikeyPred,
+      boolean cacheHit) {
+    Collection<InstanceKeyAndState> lastP2Set = null;
+    boolean succeeded = false;
+    int numPasses = refinement.numPasses;
+    int passNum = 0;
+    for (; passNum < numPasses; passNum++) {
+      if (passNum == refinement.p2Sets.size()) {
+        return null;
+      }
+      Collection<InstanceKeyAndState> curP2Set = refinement.p2Sets.get(passNum);
+      if (curP2Set != null) {
+        if (lastP2Set == null || lastP2Set.size() > curP2Set.size()) {
+          // got a more precise set
+          lastP2Set = curP2Set;
+        }
+        if (curP2Set.isEmpty() || passesPred(curP2Set, ikeyPred)) {
+          succeeded = true;
+          break;
+        }
+      }
+      if (passNum == refinement.p2Sets.size() - 1) {
+        if (refinement.nextPass == null) {
+          return null;
+        } else if (!refinement.nextPass) {
+          break;
+        }
+      }
+    }
+    PointsToResult result = null;
+    if (succeeded) {
+      result = PointsToResult.SUCCESS;
+    } else if (passNum == numPasses) {
+      // we ran all the passes without succeeding and
+      // without the refinement policy giving up
+      result = PointsToResult.BUDGETEXCEEDED;
+    } else {
+      if (lastP2Set != null) {
+        result = PointsToResult.NOMOREREFINE;
+      } else {
+        // we stopped before the maximum number of passes, but we never
+        // actually finished a pass, so we count this as BUDGETEXCEEDED
+        result = PointsToResult.BUDGETEXCEEDED;
+      }
+    }
+    lastQueryStatistics =
+        new QueryStatistics(
+            queried,
+            result,
+            cacheHit,
+            Math.min(passNum + 1, numPasses),
+            cacheHit ? 0 : refinement.nodesTraversed,
+            cacheHit ? 0 : refinement.budget);
+    return Pair.make(result, lastP2Set);
+  }
+
+  /**
+   * Compute the points-to sets of several pointer keys. Repeated keys are queried once, and if
+   * results are cached (see {@link #setCacheResults(boolean)}) keys whose results are cached need
+   * no traversal at all. The queries share intermediate state: the flow graph is built for the
+   * methods of all the keys before the first query, and when a first refinement pass with an
+   * unlimited budget computes the points-to set of another key of the batch, a query of that key
+   * whose predicate the set satisfies is answered from it. Every result is the one that {@link
+   * #getPointsTo(PointerKey, Predicate)} computes for the key alone. Statistics for each query are
+   * available from {@link #getLastBatchStatistics()}. If the number of threads is greater than 1,
+   * the queries run in parallel, as with {@link #getPointsTo(Collection, Predicate,
+   * ExecutorService)}.
+   *
+   * @param pks the pointer keys; each must be a {@link LocalPointerKey}
+   * @param ikeyPred the desired predicate that each instance key in the points-to sets should
+   *     ideally satisfy
+   * @return a map from each pointer key to its result, as computed by {@link
+   *     #getPointsTo(PointerKey, Predicate)}
+   */
+  public Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> getPointsTo(
+      Collection<? extends PointerKey> pks, Predicate<InstanceKey> ikeyPred) {
+    if (pks == null) {
+      throw new IllegalArgumentException("pks == null");
+    }
+    if (numberOfThreads > 1) {
+      try (WorkerPool pool = new WorkerPool("demand points-to worker", numberOfThreads)) {
+        return getPointsTo(pks, ikeyPred, pool.getExecutor());
+      }
+    }
+    Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> result = new LinkedHashMap<>();
+    List<QueryStatistics> stats = new ArrayList<>();
+    startBatch(pks);
+    try {
+      for (PointerKey pk : pks) {
+        if (!result.containsKey(pk)) {
+          result.put(pk, getPointsTo(pk, ikeyPred));
+          stats.add(lastQueryStatistics);
+        }
+      }
+    } finally {
+      endBatch();
+    }
+    lastBatchStatistics = stats;
+    return result;
+  }
+
+  /** set up the state shared by the queries of a batch, and build the flow graph they need */
+  private void startBatch(Collection<? extends PointerKey> pks) {
+    batchKeys = new LinkedHashSet<>(pks);
+    batchP2Sets = new ConcurrentHashMap<>();
+    for (PointerKey pk : batchKeys) {
+      if (pk instanceof LocalPointerKey) {
+        CGNode node = ((LocalPointerKey) pk).getNode();
+        if (!hasNullIR(node)) {
+          g.addSubgraphForNode(node);
+        }
+      }
+    }
+  }
+
+  private void endBatch() {
+    batchKeys = null;
+    batchP2Sets = null;
+  }
+
+  /**
+   * Compute the points-to sets of several pointer keys in parallel, as tasks of {@code executor}.
+   * Each query has its own state and its own traversal budget, so a query exceeding its budget does
+   * not affect the others. The flow graph must be an {@link AbstractFlowGraph}, which is guarded
+   * for concurrent use while the queries run. All queries share the flow graph, the points-to sets
+   * found for keys of the batch and, if enabled, the cache of results. The results and statistics
+   * are the same as for {@link #getPointsTo(Collection, Predicate)}. If a query fails, queries that
+   * have not started are skipped, and the ones that have are awaited before the failure is thrown.
+   *
+   * <p>Concurrent calls on this analysis are not supported, other than through this method.
+   *
+   * @param pks the pointer keys; each must be a {@link LocalPointerKey}
+   * @param ikeyPred the desired predicate that each instance key in the points-to sets should
+   *     ideally satisfy
+   * @param executor runs the queries; it is not shut down
+   * @return a map from each pointer key to its result, in the order of {@code pks}
+   * @throws CancelRuntimeException if interrupted while waiting for the queries
+   * @throws IllegalStateException if the flow graph is not an {@link AbstractFlowGraph}
+   */
+  public Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> getPointsTo(
+      Collection<? extends PointerKey> pks,
+      Predicate<InstanceKey> ikeyPred,
+      ExecutorService executor) {
+    if (pks == null) {
+      throw new IllegalArgumentException("pks == null");
+    }
+    if (executor == null) {
+      throw new IllegalArgumentException("executor == null");
+    }
+    if (!(g instanceof AbstractFlowGraph)) {
+      throw new IllegalStateException("flow graph cannot be shared between threads: " + g);
+    }
+    AbstractFlowGraph graph = (AbstractFlowGraph) g;
+    Map<PointerKey, Future<Pair<Pair<PointsToResult, Collection<InstanceKey>>, QueryStatistics>>>
+        futures = new LinkedHashMap<>();
+    Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> result = new LinkedHashMap<>();
+    List<QueryStatistics> stats = new ArrayList<>();
+    RunningQueries running = new RunningQueries();
+    startBatch(pks);
+    boolean wasConcurrent = graph.isConcurrent();
+    graph.setConcurrent(true);
+    try {
+      for (PointerKey pk : pks) {
+        if (!futures.containsKey(pk)) {
+          futures.put(
+              pk,
+              executor.submit(
+                  () -> {
+                    if (!running.start()) {
+                      return null;
+                    }
+                    try {
+                      DemandRefinementPointsTo worker = new DemandRefinementPointsTo(this);
+                      return Pair.make(
+                          worker.getPointsTo(pk, ikeyPred), worker.lastQueryStatistics);
+                    } finally {
+                      running.finish();
+                    }
+                  }));
+        }
+      }
+      for (Map.Entry<
+              PointerKey,
+              Future<Pair<Pair<PointsToResult, Collection<InstanceKey>>, QueryStatistics>>>
+          e : futures.entrySet()) {
+        Pair<Pair<PointsToResult, Collection<InstanceKey>>, QueryStatistics> p =
+            WorkerPool.await(e.getValue());
+        result.put(e.getKey(), p.fst);
+        stats.add(p.snd);
+      }
+    } finally {
+      for (Future<?> f : futures.values()) {
+        f.cancel(true);
+      }
+      // after a failure, queries that started must end before the graph stops guarding itself
+      running.closeAndAwait();
+      endBatch();
+      graph.setConcurrent(wasConcurrent);
+    }
+    if (!stats.isEmpty()) {
+      lastQueryStatistics = stats.get(stats.size() - 1);
+    }
+    lastBatchStatistics = stats;
+    return result;
+  }
+
+  /**
+   * The queries of a parallel batch that are running. Once the batch is closed, queries that have
+   * not started are skipped, so that it can wait for the others to end.
+   */
+  private static class RunningQueries {
+    private int running;
+
+    private boolean closed;
+
+    /** @return false if the batch is closed, in which case the query must not run */
+    synchronized boolean start() {
+      if (closed) {
+        return false;
+      }
+      running++;
+      return true;
+    }
+
+    synchronized void finish() {
+      running--;
+      if (running == 0) {
+        notifyAll();
+      }
+    }
+
+    /** close the batch, and wait for the queries that started to end */
+    synchronized void closeAndAwait() {
+      closed = true;
+      boolean interrupted = false;
+      while (running > 0) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Set the number of threads used by {@link #getPointsTo(Collection, Predicate)}.
+   *
+   * @param numberOfThreads the number of threads; 1 answers the queries one by one, on the calling
+   *     thread
+   * @throws IllegalArgumentException if numberOfThreads &lt; 1
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  /**
+   * Should the results of queries be cached, so that repeated queries need no traversal? The cache
+   * keeps the refinement passes run for each key, and a query is answered from them if it would
+   * have stopped within them, with the result it would have computed; otherwise it runs its passes
+   * again. The passes depend on the {@link RefinementPolicyFactory} and the {@link
+   * StateMachineFactory}, so the cache is cleared when either changes. Off by default.
+   */
+  public void setCacheResults(boolean cacheResults) {
+    this.cacheResults = cacheResults;
+    if (!cacheResults) {
+      clearCache();
+    }
+  }
+
+  public boolean isCacheResults() {
+    return cacheResults;
+  }
+
+  /** Forget all cached query results. */
+  public void clearCache() {
+    pointsToCache.clear();
+    flowsToCache.clear();
+  }
+
+  /** @return the number of queries answered from the cache */
+  public int getNumberOfCacheHits() {
+    return cacheHits.get();
+  }
+
+  /** @return the number of queries whose results were not cached */
+  public int getNumberOfCacheMisses() {
+    return cacheMisses.get();
+  }
+
+  /** @return statistics about the last points-to or flows-to query, or null if there was none */
+  public QueryStatistics getLastQueryStatistics() {
+    return lastQueryStatistics;
+  }
+
+  /** @return statistics about each query of the last batch of queries */
+  public List<QueryStatistics> getLastBatchStatistics() {
+    return lastBatchStatistics;
   }
 
   /**
@@ -320,18 +831,21 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
         new DemandPointerFlowGraph(cg, thisFilteringHeapModel, mam, cha));
   }
 
-  private Pair<PointsToResult, Collection<InstanceKeyAndState>> outerRefinementLoop(
+  /**
+   * Run refinement passes for a query until one computes a points-to set satisfying {@code
+   * ikeyPred}, or the refinement policy gives up, or all passes are run.
+   */
+  private Refinement outerRefinementLoop(
       PointerKeyAndState queried, Predicate<InstanceKey> ikeyPred) {
     Collection<InstanceKeyAndState> lastP2Set = null;
-    boolean succeeded = false;
     int numPasses = refinementPolicy.getNumPasses();
-    int passNum = 0;
-    for (; passNum < numPasses; passNum++) {
+    Refinement refinement = new Refinement(numPasses);
+    for (int passNum = 0; passNum < numPasses; passNum++) {
       setNumNodesTraversed(0);
       setTraversalBudget(refinementPolicy.getBudgetForPass(passNum));
+      refinement.budget += getTraversalBudget();
       Collection<InstanceKeyAndState> curP2Set = null;
       PointsToComputer computer = null;
-      boolean completedPassInBudget = false;
       try {
         while (true) {
           try {
@@ -343,7 +857,6 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
               System.err.println("traversed " + getNumNodesTraversed() + " nodes");
               System.err.println("POINTS-TO SET " + curP2Set);
             }
-            completedPassInBudget = true;
             break;
           } catch (StatesMergedException e) {
             if (DEBUG) {
@@ -354,7 +867,12 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
       } catch (BudgetExceededException e) {
 
       }
+      refinement.nodesTraversed += getNumNodesTraversed();
+      refinement.p2Sets.add(curP2Set);
       if (curP2Set != null) {
+        if (passNum == 0) {
+          shareWithBatch(computer);
+        }
         if (lastP2Set == null) {
           lastP2Set = curP2Set;
         } else if (lastP2Set.size() > curP2Set.size()) {
@@ -367,38 +885,37 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
         }
         if (curP2Set.isEmpty() || passesPred(curP2Set, ikeyPred)) {
           // we did it!
-          // if (curP2Set.isEmpty()) {
-          // System.err.println("EMPTY PTO SET");
-          // }
-          succeeded = true;
           break;
-        } else if (completedPassInBudget) {
         }
       }
       // if we get here, means either budget for pass was exceeded,
       // or points-to set wasn't good enough
       // so, start new pass, if more refinement to do
-      if (!refinementPolicy.nextPass()) {
+      refinement.nextPass = refinementPolicy.nextPass();
+      if (!refinement.nextPass) {
         break;
       }
     }
-    PointsToResult result = null;
-    if (succeeded) {
-      result = PointsToResult.SUCCESS;
-    } else if (passNum == numPasses) {
-      // we ran all the passes without succeeding and
-      // without the refinement policy giving up
-      result = PointsToResult.BUDGETEXCEEDED;
-    } else {
-      if (lastP2Set != null) {
-        result = PointsToResult.NOMOREREFINE;
-      } else {
-        // we stopped before the maximum number of passes, but we never
-        // actually finished a pass, so we count this as BUDGETEXCEEDED
-        result = PointsToResult.BUDGETEXCEEDED;
+    return refinement;
+  }
+
+  /**
+   * Make the points-to sets that a completed first pass computed for other keys of the current
+   * batch available to their queries. The first pass of every query runs with the same
+   * configuration of a fresh {@link RefinementPolicy}, so such a set is the one the first pass of
+   * the key's own query would compute; this holds for its budget too only if the budget is
+   * unlimited, so otherwise nothing is shared.
+   */
+  private void shareWithBatch(PointsToComputer computer) {
+    if (batchP2Sets == null || getTraversalBudget() != Integer.MAX_VALUE) {
+      return;
+    }
+    for (PointerKey pk : batchKeys) {
+      PointerKeyAndState pkAndState = new PointerKeyAndState(pk, stateMachine.getStartState());
+      if (computer.pointsToQueried.get(pk).contains(stateMachine.getStartState())) {
+        batchP2Sets.computeIfAbsent(pkAndState, computer::getComputedP2Set);
       }
     }
-    return Pair.make(result, lastP2Set);
   }
 
   /** to measure memory usage */
@@ -540,7 +1057,7 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
    */
   public Pair<PointsToResult, Collection<PointerKey>> getFlowsTo(InstanceKey ik) {
     startNewQuery();
-    return getFlowsToInternal(new InstanceKeyAndState(ik, stateMachine.getStartState()));
+    return getFlowsToCached(new InstanceKeyAndState(ik, stateMachine.getStartState()));
   }
 
   /**
@@ -552,7 +1069,25 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
    */
   public Pair<PointsToResult, Collection<PointerKey>> getFlowsTo(InstanceKeyAndState ikAndState) {
     startNewQuery();
-    return getFlowsToInternal(ikAndState);
+    return getFlowsToCached(ikAndState);
+  }
+
+  private Pair<PointsToResult, Collection<PointerKey>> getFlowsToCached(
+      InstanceKeyAndState ikAndState) {
+    if (cacheResults) {
+      Pair<PointsToResult, Collection<PointerKey>> cached = flowsToCache.get(ikAndState);
+      if (cached != null) {
+        cacheHits.incrementAndGet();
+        lastQueryStatistics = new QueryStatistics(ikAndState, cached.fst, true, 0, 0, 0);
+        return cached;
+      }
+      cacheMisses.incrementAndGet();
+    }
+    Pair<PointsToResult, Collection<PointerKey>> p = getFlowsToInternal(ikAndState);
+    if (cacheResults) {
+      flowsToCache.put(ikAndState, p);
+    }
+    return p;
   }
 
   private Pair<PointsToResult, Collection<PointerKey>> getFlowsToInternal(
@@ -568,9 +1103,12 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
     boolean succeeded = false;
     int numPasses = refinementPolicy.getNumPasses();
     int passNum = 0;
+    long nodesTraversed = 0;
+    long budget = 0;
     for (; passNum < numPasses; passNum++) {
       setNumNodesTraversed(0);
       setTraversalBudget(refinementPolicy.getBudgetForPass(passNum));
+      budget += getTraversalBudget();
       Collection<PointerKeyAndState> curFlowsToSet = null;
       FlowsToComputer computer = null;
       try {
@@ -594,6 +1132,7 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
       } catch (BudgetExceededException e) {
 
       }
+      nodesTraversed += getNumNodesTraversed();
       if (curFlowsToSet != null) {
         if (lastFlowsToSet == null) {
           lastFlowsToSet = curFlowsToSet;
@@ -635,6 +1174,9 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
         result = PointsToResult.BUDGETEXCEEDED;
       }
     }
+    lastQueryStatistics =
+        new QueryStatistics(
+            ikAndState, result, false, Math.min(passNum + 1, numPasses), nodesTraversed, budget);
     return Pair.make(result, lastFlowsToSet == null ? null : removeStates(lastFlowsToSet));
   }
 
@@ -2047,6 +2589,7 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
 
   public void setStateMachineFactory(StateMachineFactory<IFlowLabel> stateMachineFactory) {
     this.stateMachineFactory = stateMachineFactory;
+    clearCache();
   }
 
   public RefinementPolicyFactory getRefinementPolicyFactory() {
@@ -2055,6 +2598,7 @@ public class DemandRefinementPointsTo extends AbstractDemandPointsTo {
 
   public void setRefinementPolicyFactory(RefinementPolicyFactory refinementPolicyFactory) {
     this.refinementPolicyFactory = refinementPolicyFactory;
+    clearCache();
   }
 
   /** we are looking for an instance key flowing to pk that violates pred. */
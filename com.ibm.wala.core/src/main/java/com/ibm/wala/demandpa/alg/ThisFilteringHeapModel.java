@@ -32,6 +32,9 @@ import java.util.Iterator;
  * parameters of methods, for which it returns a {@link FilteredPointerKey} for the type of the
  * parameter
  *
+ * <p>Requests for instance keys hold the lock of the delegate, since it may create them lazily and
+ * parallel queries share it, possibly through other wrappers or a memory access map.
+ *
  * @see DemandRefinementPointsTo
  * @author manu
  */
@@ -54,28 +57,38 @@ class ThisFilteringHeapModel implements HeapModel {
 
   @Override
   public InstanceKey getInstanceKeyForAllocation(CGNode node, NewSiteReference allocation) {
-    return delegate.getInstanceKeyForAllocation(node, allocation);
+    synchronized (delegate) {
+      return delegate.getInstanceKeyForAllocation(node, allocation);
+    }
   }
 
   @Override
   public InstanceKey getInstanceKeyForMetadataObject(Object obj, TypeReference objType) {
-    return delegate.getInstanceKeyForMetadataObject(obj, objType);
+    synchronized (delegate) {
+      return delegate.getInstanceKeyForMetadataObject(obj, objType);
+    }
   }
 
   @Override
   public InstanceKey getInstanceKeyForConstant(TypeReference type, Object S) {
-    return delegate.getInstanceKeyForConstant(type, S);
+    synchronized (delegate) {
+      return delegate.getInstanceKeyForConstant(type, S);
+    }
   }
 
   @Override
   public InstanceKey getInstanceKeyForMultiNewArray(
       CGNode node, NewSiteReference allocation, int dim) {
-    return delegate.getInstanceKeyForMultiNewArray(node, allocation, dim);
+    synchronized (delegate) {
+      return delegate.getInstanceKeyForMultiNewArray(node, allocation, dim);
+    }
   }
 
   @Override
   public InstanceKey getInstanceKeyForPEI(CGNode node, ProgramCounter instr, TypeReference type) {
-    return delegate.getInstanceKeyForPEI(node, instr, type);
+    synchronized (delegate) {
+      return delegate.getInstanceKeyForPEI(node, instr, type);
+    }
   }
 
   @Override
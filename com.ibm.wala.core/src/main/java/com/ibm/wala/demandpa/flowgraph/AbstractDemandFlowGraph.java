@@ -66,7 +66,12 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
-/** A graph representing program flow, constructed method-by-method on demand */
+/**
+ * A graph representing program flow, constructed method-by-method on demand. In concurrent mode,
+ * several threads may expand the graph at once. The subgraph for a method is built outside the lock
+ * of the graph, and published under it exactly once; threads that build the same subgraph at the
+ * same time drop all but the first copy.
+ */
 public abstract class AbstractDemandFlowGraph extends AbstractFlowGraph {
   private static final boolean DEBUG = false;
 
@@ -89,12 +94,16 @@ public abstract class AbstractDemandFlowGraph extends AbstractFlowGraph {
       throw new IllegalArgumentException("no ir for node " + node);
     }
     int n = cg.getNumber(node);
-    if (!cgNodesVisited.contains(n)) {
-      cgNodesVisited.add(n);
-      unconditionallyAddConstraintsFromNode(node, ir);
-      addNodesForInvocations(node, ir);
-      addNodesForParameters(node, ir);
+    if (hasSubgraphForNode(node)) {
+      return;
     }
+    guard.build(
+        () -> cgNodesVisited.add(n),
+        () -> {
+          unconditionallyAddConstraintsFromNode(node, ir);
+          addNodesForInvocations(node, ir);
+          addNodesForParameters(node, ir);
+        });
   }
 
   /*
@@ -102,7 +111,12 @@ public abstract class AbstractDemandFlowGraph extends AbstractFlowGraph {
    */
   @Override
   public boolean hasSubgraphForNode(CGNode node) {
-    return cgNodesVisited.contains(cg.getNumber(node));
+    guard.lock();
+    try {
+      return cgNodesVisited.contains(cg.getNumber(node));
+    } finally {
+      guard.unlock();
+    }
   }
 
   /*
@@ -111,7 +125,7 @@ public abstract class AbstractDemandFlowGraph extends AbstractFlowGraph {
   public Iterator<PointerKeyAndCallSite> getParamSuccs(LocalPointerKey pk) {
     // TODO cache this result
     // TODO take some cgnode as parameter if we have calling context?
-    CGNode cgNode = params.get(pk);
+    CGNode cgNode = lookup(params, pk);
     if (cgNode == null) {
       return EmptyIterator.instance();
     }
@@ -144,12 +158,12 @@ public abstract class AbstractDemandFlowGraph extends AbstractFlowGraph {
    */
   public Iterator<PointerKeyAndCallSite> getParamPreds(LocalPointerKey pk) {
     // TODO
-    Set<SSAAbstractInvokeInstruction> instrs = callParams.get(pk);
-    if (instrs == null) {
+    Iterator<SSAAbstractInvokeInstruction> instrs = getInstrsPassingParam(pk);
+    if (!instrs.hasNext()) {
       return EmptyIterator.instance();
     }
     ArrayList<PointerKeyAndCallSite> paramPreds = new ArrayList<>();
-    for (SSAAbstractInvokeInstruction callInstr : instrs) {
+    for (SSAAbstractInvokeInstruction callInstr : Iterator2Iterable.make(instrs)) {
       for (int i = 0; i < callInstr.getNumberOfUses(); i++) {
         if (pk.getValueNumber() != callInstr.getUse(i)) continue;
         CallSiteReference callSiteRef = callInstr.getCallSite();
@@ -173,7 +187,7 @@ public abstract class AbstractDemandFlowGraph extends AbstractFlowGraph {
    * @see com.ibm.wala.demandpa.flowgraph.IFlowGraph#getReturnSuccs(com.ibm.wala.ipa.callgraph.propagation.LocalPointerKey)
    */
   public Iterator<PointerKeyAndCallSite> getReturnSuccs(LocalPointerKey pk) {
-    SSAAbstractInvokeInstruction callInstr = callDefs.get(pk);
+    SSAAbstractInvokeInstruction callInstr = getInstrReturningTo(pk);
     if (callInstr == null) return EmptyIterator.instance();
     ArrayList<PointerKeyAndCallSite> returnSuccs = new ArrayList<>();
     boolean isExceptional = pk.getValueNumber() == callInstr.getException();
@@ -199,7 +213,7 @@ public abstract class AbstractDemandFlowGraph extends AbstractFlowGraph {
    * @see com.ibm.wala.demandpa.flowgraph.IFlowGraph#getReturnPreds(com.ibm.wala.ipa.callgraph.propagation.LocalPointerKey)
    */
   public Iterator<PointerKeyAndCallSite> getReturnPreds(LocalPointerKey pk) {
-    CGNode cgNode = returns.get(pk);
+    CGNode cgNode = lookup(returns, pk);
     if (cgNode == null) {
       return EmptyIterator.instance();
     }
@@ -228,6 +242,15 @@ public abstract class AbstractDemandFlowGraph extends AbstractFlowGraph {
     return returnPreds.iterator();
   }
 
+  private CGNode lookup(Map<PointerKey, CGNode> map, PointerKey pk) {
+    guard.lock();
+    try {
+      return map.get(pk);
+    } finally {
+      guard.unlock();
+    }
+  }
+
   protected abstract void addNodesForParameters(CGNode node, IR ir);
 
   protected void unconditionallyAddConstraintsFromNode(CGNode node, IR ir) {
@@ -341,25 +364,31 @@ public abstract class AbstractDemandFlowGraph extends AbstractFlowGraph {
 
   @Override
   public Set<CallerSiteContext> getPotentialCallers(PointerKey formalPk) {
-    CGNode callee = null;
-    if (formalPk instanceof LocalPointerKey) {
-      callee = ((LocalPointerKey) formalPk).getNode();
-    } else if (formalPk instanceof ReturnValueKey) {
-      callee = ((ReturnValueKey) formalPk).getNode();
-    } else {
-      throw new IllegalArgumentException("formalPk must represent a local");
-    }
-    Set<CallerSiteContext> ret = callerCache.get(callee);
-    if (ret == null) {
-      ret = HashSetFactory.make();
-      for (CGNode caller : Iterator2Iterable.make(cg.getPredNodes(callee))) {
-        for (CallSiteReference call : Iterator2Iterable.make(cg.getPossibleSites(caller, callee))) {
-          ret.add(new CallerSiteContext(caller, call));
+    guard.lock();
+    try {
+      CGNode callee = null;
+      if (formalPk instanceof LocalPointerKey) {
+        callee = ((LocalPointerKey) formalPk).getNode();
+      } else if (formalPk instanceof ReturnValueKey) {
+        callee = ((ReturnValueKey) formalPk).getNode();
+      } else {
+        throw new IllegalArgumentException("formalPk must represent a local");
+      }
+      Set<CallerSiteContext> ret = callerCache.get(callee);
+      if (ret == null) {
+        ret = HashSetFactory.make();
+        for (CGNode caller : Iterator2Iterable.make(cg.getPredNodes(callee))) {
+          for (CallSiteReference call :
+              Iterator2Iterable.make(cg.getPossibleSites(caller, callee))) {
+            ret.add(new CallerSiteContext(caller, call));
+          }
         }
+        callerCache.put(callee, ret);
       }
-      callerCache.put(callee, ret);
+      return ret;
+    } finally {
+      guard.unlock();
     }
-    return ret;
   }
 
   @Override
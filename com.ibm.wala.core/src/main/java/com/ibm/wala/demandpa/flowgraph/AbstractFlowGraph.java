@@ -90,6 +90,14 @@ import java.util.Set;
 /**
  * A graph whose edges are labeled with {@link IFlowLabel}s.
  *
+ * <p>In concurrent mode (see {@link #setConcurrent(boolean)}) the graph may be queried from several
+ * threads while subclasses expand it lazily. All reads and writes then hold the graph's lock, and
+ * the iterators returned for successors and predecessors are over copies, so nodes and edges added
+ * while a client iterates are not visited. A subgraph is built outside the lock and published under
+ * it, so subclasses must make their additions through {@link #addNode(Object)}, {@link
+ * #addEdge(Object, Object, IFlowLabel)} and the {@code add*} methods for the maps, which defer them
+ * until then.
+ *
  * @author Manu Sridharan
  */
 public abstract class AbstractFlowGraph extends SlowSparseNumberedLabeledGraph<Object, IFlowLabel>
@@ -146,6 +154,8 @@ public abstract class AbstractFlowGraph extends SlowSparseNumberedLabeledGraph<O
 
   protected final CallGraph cg;
 
+  FlowGraphGuard guard = FlowGraphGuard.SINGLE_THREADED;
+
   public AbstractFlowGraph(
       MemoryAccessMap mam, HeapModel heapModel, IClassHierarchy cha, CallGraph cg) {
     super(defaultLabel);
@@ -181,6 +191,154 @@ public abstract class AbstractFlowGraph extends SlowSparseNumberedLabeledGraph<O
     }
   }
 
+  /**
+   * Should the graph guard against several threads expanding and reading it at once? Off by
+   * default, so that a graph used by one thread pays for no locks or copies. It must not be changed
+   * while another thread uses the graph.
+   */
+  public void setConcurrent(boolean concurrent) {
+    guard = concurrent ? FlowGraphGuard.concurrent() : FlowGraphGuard.SINGLE_THREADED;
+  }
+
+  public boolean isConcurrent() {
+    return guard != FlowGraphGuard.SINGLE_THREADED;
+  }
+
+  @Override
+  public Iterator<? extends IFlowLabel> getSuccLabels(Object node) {
+    guard.lock();
+    try {
+      return guard.iterate(super.getSuccLabels(node));
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public Iterator<? extends IFlowLabel> getPredLabels(Object node) {
+    guard.lock();
+    try {
+      return guard.iterate(super.getPredLabels(node));
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public Iterator<? extends Object> getSuccNodes(Object node, IFlowLabel label) {
+    guard.lock();
+    try {
+      return guard.iterate(super.getSuccNodes(node, label));
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public Iterator<Object> getPredNodes(Object node, IFlowLabel label) {
+    guard.lock();
+    try {
+      return guard.iterate(super.getPredNodes(node, label));
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public Iterator<Object> getSuccNodes(Object node) {
+    guard.lock();
+    try {
+      return guard.iterate(super.getSuccNodes(node));
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public Iterator<Object> getPredNodes(Object node) {
+    guard.lock();
+    try {
+      return guard.iterate(super.getPredNodes(node));
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public boolean containsNode(Object node) {
+    guard.lock();
+    try {
+      return super.containsNode(node);
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public void addNode(Object node) {
+    List<Runnable> deferred = guard.deferred();
+    if (deferred != null) {
+      deferred.add(() -> super.addNode(node));
+      return;
+    }
+    guard.lock();
+    try {
+      super.addNode(node);
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public void addEdge(Object src, Object dst, IFlowLabel label) {
+    List<Runnable> deferred = guard.deferred();
+    if (deferred != null) {
+      deferred.add(() -> super.addEdge(src, dst, label));
+      return;
+    }
+    guard.lock();
+    try {
+      super.addEdge(src, dst, label);
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  /** run an update of the maps of this graph, deferring it if a subgraph is being built */
+  private void update(Runnable update) {
+    List<Runnable> deferred = guard.deferred();
+    if (deferred != null) {
+      deferred.add(update);
+      return;
+    }
+    guard.lock();
+    try {
+      update.run();
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  /** record that pk is a parameter of node */
+  protected void addParam(PointerKey pk, CGNode node) {
+    update(() -> params.put(pk, node));
+  }
+
+  /** record that pk is a return value of node */
+  protected void addReturn(PointerKey pk, CGNode node) {
+    update(() -> returns.put(pk, node));
+  }
+
+  /** record that pk is passed as a parameter by call */
+  protected void addCallParam(PointerKey pk, SSAAbstractInvokeInstruction call) {
+    update(() -> MapUtil.findOrCreateSet(callParams, pk).add(call));
+  }
+
+  /** record that pk is def'fed by call */
+  protected void addCallDef(PointerKey pk, SSAAbstractInvokeInstruction call) {
+    update(() -> callDefs.put(pk, call));
+  }
+
   /** For each invocation in the method, add nodes for actual parameters and return values */
   protected void addNodesForInvocations(CGNode node, IR ir) {
     for (CallSiteReference site : Iterator2Iterable.make(ir.iterateCallSites())) {
@@ -192,8 +350,7 @@ public abstract class AbstractFlowGraph extends SlowSparseNumberedLabeledGraph<O
           // from the callee
           PointerKey use = heapModel.getPointerKeyForLocal(node, invokeInstr.getUse(i));
           addNode(use);
-          Set<SSAAbstractInvokeInstruction> s = MapUtil.findOrCreateSet(callParams, use);
-          s.add(invokeInstr);
+          addCallParam(use, invokeInstr);
         }
 
         // for any def'd values, keep track of the fact that they are def'd
@@ -201,33 +358,48 @@ public abstract class AbstractFlowGraph extends SlowSparseNumberedLabeledGraph<O
         if (invokeInstr.hasDef()) {
           PointerKey def = heapModel.getPointerKeyForLocal(node, invokeInstr.getDef());
           addNode(def);
-          callDefs.put(def, invokeInstr);
+          addCallDef(def, invokeInstr);
         }
         PointerKey exc = heapModel.getPointerKeyForLocal(node, invokeInstr.getException());
         addNode(exc);
-        callDefs.put(exc, invokeInstr);
+        addCallDef(exc, invokeInstr);
       }
     }
   }
 
   @Override
   public boolean isParam(LocalPointerKey pk) {
-    return params.get(pk) != null;
+    guard.lock();
+    try {
+      return params.get(pk) != null;
+    } finally {
+      guard.unlock();
+    }
   }
 
   @Override
   public Iterator<SSAAbstractInvokeInstruction> getInstrsPassingParam(LocalPointerKey pk) {
-    Set<SSAAbstractInvokeInstruction> instrs = callParams.get(pk);
-    if (instrs == null) {
-      return EmptyIterator.instance();
-    } else {
-      return instrs.iterator();
+    guard.lock();
+    try {
+      Set<SSAAbstractInvokeInstruction> instrs = callParams.get(pk);
+      if (instrs == null) {
+        return EmptyIterator.instance();
+      } else {
+        return guard.iterate(instrs.iterator());
+      }
+    } finally {
+      guard.unlock();
     }
   }
 
   @Override
   public SSAAbstractInvokeInstruction getInstrReturningTo(LocalPointerKey pk) {
-    return callDefs.get(pk);
+    guard.lock();
+    try {
+      return callDefs.get(pk);
+    } finally {
+      guard.unlock();
+    }
   }
 
   @Override
@@ -289,6 +461,9 @@ public abstract class AbstractFlowGraph extends SlowSparseNumberedLabeledGraph<O
   /**
    * convert a pointer key to one in the memory access map's heap model
    *
+   * <p>Instance keys are looked up holding the lock of h, since heap models may create them lazily
+   * and parallel demand queries share one model.
+   *
    * <p>TODO move this somewhere more appropriate
    *
    * @throws UnsupportedOperationException if it doesn't know how to handle a {@link PointerKey}
@@ -305,7 +480,9 @@ public abstract class AbstractFlowGraph extends SlowSparseNumberedLabeledGraph<O
       InstanceKey ik = ack.getInstanceKey();
       if (ik instanceof NormalAllocationInNode) {
         NormalAllocationInNode nain = (NormalAllocationInNode) ik;
-        ik = h.getInstanceKeyForAllocation(nain.getNode(), nain.getSite());
+        synchronized (h) {
+          ik = h.getInstanceKeyForAllocation(nain.getNode(), nain.getSite());
+        }
       } else {
         assert false : "need to handle " + ik.getClass();
       }
@@ -100,14 +100,14 @@ public class DemandPointerFlowGraph extends AbstractDemandFlowGraph implements I
     for (int parameter : Iterator2Iterable.make(new PointerParamValueNumIterator(node))) {
       PointerKey paramPk = heapModel.getPointerKeyForLocal(node, parameter);
       addNode(paramPk);
-      params.put(paramPk, node);
+      addParam(paramPk, node);
     }
     PointerKey returnKey = heapModel.getPointerKeyForReturnValue(node);
     addNode(returnKey);
-    returns.put(returnKey, node);
+    addReturn(returnKey, node);
     PointerKey exceptionReturnKey = heapModel.getPointerKeyForExceptionalReturnValue(node);
     addNode(exceptionReturnKey);
-    returns.put(exceptionReturnKey, node);
+    addReturn(exceptionReturnKey, node);
   }
 
   @Override
@@ -53,7 +53,6 @@ import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
 import com.ibm.wala.ipa.cha.ClassHierarchy;
 import com.ibm.wala.ssa.IR;
 import com.ibm.wala.ssa.ISSABasicBlock;
-import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
 import com.ibm.wala.ssa.SSAArrayLengthInstruction;
 import com.ibm.wala.ssa.SSAArrayLoadInstruction;
 import com.ibm.wala.ssa.SSAArrayStoreInstruction;
@@ -78,7 +77,6 @@ import com.ibm.wala.ssa.SymbolTable;
 import com.ibm.wala.types.FieldReference;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.collections.HashSetFactory;
-import com.ibm.wala.util.collections.MapUtil;
 import com.ibm.wala.util.debug.Assertions;
 import java.util.List;
 import java.util.Set;
@@ -105,14 +103,14 @@ public class DemandValueFlowGraph extends AbstractDemandFlowGraph {
       int parameter = symbolTable.getParameter(i);
       PointerKey paramPk = heapModel.getPointerKeyForLocal(node, parameter);
       addNode(paramPk);
-      params.put(paramPk, node);
+      addParam(paramPk, node);
     }
     PointerKey returnKey = heapModel.getPointerKeyForReturnValue(node);
     addNode(returnKey);
-    returns.put(returnKey, node);
+    addReturn(returnKey, node);
     PointerKey exceptionReturnKey = heapModel.getPointerKeyForExceptionalReturnValue(node);
     addNode(exceptionReturnKey);
-    returns.put(exceptionReturnKey, node);
+    addReturn(exceptionReturnKey, node);
   }
 
   @Override
@@ -297,8 +295,7 @@ public class DemandValueFlowGraph extends AbstractDemandFlowGraph {
         // from the callee
         PointerKey use = heapModel.getPointerKeyForLocal(node, instruction.getUse(i));
         addNode(use);
-        Set<SSAAbstractInvokeInstruction> s = MapUtil.findOrCreateSet(callParams, use);
-        s.add(instruction);
+        addCallParam(use, instruction);
       }
 
       // for any def'd values, keep track of the fact that they are def'd
@@ -306,11 +303,11 @@ public class DemandValueFlowGraph extends AbstractDemandFlowGraph {
       if (instruction.hasDef()) {
         PointerKey def = heapModel.getPointerKeyForLocal(node, instruction.getDef());
         addNode(def);
-        callDefs.put(def, instruction);
+        addCallDef(def, instruction);
       }
       PointerKey exc = heapModel.getPointerKeyForLocal(node, instruction.getException());
       addNode(exc);
-      callDefs.put(exc, instruction);
+      addCallDef(exc, instruction);
     }
 
     /*
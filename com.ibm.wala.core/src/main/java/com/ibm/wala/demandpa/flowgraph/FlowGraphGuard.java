@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.demandpa.flowgraph;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a flow graph guards its state against other threads. A graph used by one thread is not
+ * guarded at all. A graph that several threads expand and read at once holds a lock around each
+ * access, and hands out iterators over copies, since other threads may add edges while a client
+ * iterates. A subgraph is built without the lock: its additions are deferred, and published
+ * together under the lock.
+ *
+ * @see AbstractFlowGraph#setConcurrent(boolean)
+ */
+abstract class FlowGraphGuard {
+
+  static final FlowGraphGuard SINGLE_THREADED =
+      new FlowGraphGuard() {
+        @Override
+        void lock() {}
+
+        @Override
+        void unlock() {}
+
+        @Override
+        <T> Iterator<T> iterate(Iterator<T> it) {
+          return it;
+        }
+
+        @Override
+        List<Runnable> deferred() {
+          return null;
+        }
+
+        @Override
+        void build(BooleanSupplier claim, Runnable build) {
+          if (claim.getAsBoolean()) {
+            build.run();
+          }
+        }
+      };
+
+  /** @return a new guard for a graph used by several threads */
+  static FlowGraphGuard concurrent() {
+    return new FlowGraphGuard() {
+      private final ReentrantLock lock = new ReentrantLock();
+
+      /** the additions deferred by the subgraph each thread is building, if any */
+      private final ThreadLocal<List<Runnable>> deferred = new ThreadLocal<>();
+
+      @Override
+      void lock() {
+        lock.lock();
+      }
+
+      @Override
+      void unlock() {
+        lock.unlock();
+      }
+
+      @Override
+      <T> Iterator<T> iterate(Iterator<T> it) {
+        List<T> result = new ArrayList<>();
+        while (it.hasNext()) {
+          result.add(it.next());
+        }
+        return result.iterator();
+      }
+
+      @Override
+      List<Runnable> deferred() {
+        return deferred.get();
+      }
+
+      @Override
+      void build(BooleanSupplier claim, Runnable build) {
+        List<Runnable> outer = deferred.get();
+        List<Runnable> additions = new ArrayList<>();
+        deferred.set(additions);
+        try {
+          build.run();
+        } finally {
+          deferred.set(outer);
+        }
+        // another thread may have published the same subgraph while this one was building it
+        lock.lock();
+        try {
+          if (claim.getAsBoolean()) {
+            for (Runnable addition : additions) {
+              addition.run();
+            }
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+    };
+  }
+
+  abstract void lock();
+
+  abstract void unlock();
+
+  /**
+   * @return an iterator for a client to use outside the lock, over the elements of {@code it},
+   *     which is only valid while the lock is held
+   */
+  abstract <T> Iterator<T> iterate(Iterator<T> it);
+
+  /**
+   * @return the list to which additions to the graph must be appended, rather than made, because
+   *     this thread is building a subgraph that is not yet published; null if additions are made at
+   *     once
+   */
+  abstract List<Runnable> deferred();
+
+  /**
+   * Add a subgraph to the graph, unless it was already added. When concurrent, {@code build} runs
+   * without the lock and its additions are deferred; under the lock, {@code claim} then decides
+   * whether they are published.
+   *
+   * @param claim marks the subgraph as added, returning false if it already was; it runs with the
+   *     lock held
+   * @param build adds the subgraph to the graph
+   */
+  abstract void build(BooleanSupplier claim, Runnable build);
+}
@@ -188,6 +188,36 @@ public class AnalysisOptions {
   /** Should call graph construction handle arrays of zero-length differently? */
   private boolean handleZeroLengthArray = true;
 
+  /**
+   * How many threads may the pointer analysis solver use to evaluate independent constraints? The
+   * default of 1 selects the sequential solver.
+   */
+  private int numberOfSolverThreads = 1;
+
+  /**
+   * Should the pointer analysis solver detect cycles of assignments while solving, and unify the
+   * variables on each cycle?
+   */
+  private boolean onlineCycleDetection = false;
+
+  /**
+   * Should the pointer analysis find the local variables whose points-to sets are equal before
+   * solving, such as a phi and its only incoming value, and let them share one variable?
+   */
+  private boolean offlineVariableSubstitution = false;
+
+  /**
+   * Should the pointer analysis solver propagate only the instance keys added to each points-to set
+   * since its users last saw it, rather than the whole set?
+   */
+  private boolean differencePropagation = false;
+
+  /**
+   * Should the pointer analysis record where each of its constraints comes from, so that the call
+   * graph can be updated after some classes change?
+   */
+  private boolean incrementalUpdates = false;
+
   // SJF: I'm not sure these factories and caches belong here.
   // TODO: figure out how to clean this up.
 
@@ -394,4 +424,92 @@ public class AnalysisOptions {
   public void setHandleZeroLengthArray(boolean handleZeroLengthArray) {
     this.handleZeroLengthArray = handleZeroLengthArray;
   }
+
+  /**
+   * How many threads may the pointer analysis solver use to evaluate independent constraints? The
+   * default of 1 selects the sequential solver.
+   */
+  public int getNumberOfSolverThreads() {
+    return numberOfSolverThreads;
+  }
+
+  /**
+   * How many threads may the pointer analysis solver use to evaluate independent constraints? The
+   * default of 1 selects the sequential solver.
+   *
+   * @throws IllegalArgumentException if numberOfSolverThreads &lt; 1
+   */
+  public void setNumberOfSolverThreads(int numberOfSolverThreads) {
+    if (numberOfSolverThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfSolverThreads);
+    }
+    this.numberOfSolverThreads = numberOfSolverThreads;
+  }
+
+  /**
+   * Should the pointer analysis solver detect cycles of assignments while solving, and unify the
+   * variables on each cycle?
+   */
+  public boolean getOnlineCycleDetection() {
+    return onlineCycleDetection;
+  }
+
+  /**
+   * Should the pointer analysis solver detect cycles of assignments while solving, and unify the
+   * variables on each cycle?
+   */
+  public void setOnlineCycleDetection(boolean onlineCycleDetection) {
+    this.onlineCycleDetection = onlineCycleDetection;
+  }
+
+  /**
+   * Should the pointer analysis find the local variables whose points-to sets are equal before
+   * solving, such as a phi and its only incoming value, and let them share one variable?
+   */
+  public boolean getOfflineVariableSubstitution() {
+    return offlineVariableSubstitution;
+  }
+
+  /**
+   * Should the pointer analysis find the local variables whose points-to sets are equal before
+   * solving, such as a phi and its only incoming value, and let them share one variable?
+   */
+  public void setOfflineVariableSubstitution(boolean offlineVariableSubstitution) {
+    this.offlineVariableSubstitution = offlineVariableSubstitution;
+  }
+
+  /**
+   * Should the pointer analysis solver propagate only the instance keys added to each points-to set
+   * since its users last saw it, rather than the whole set?
+   */
+  public boolean getDifferencePropagation() {
+    return differencePropagation;
+  }
+
+  /**
+   * Should the pointer analysis solver propagate only the instance keys added to each points-to set
+   * since its users last saw it, rather than the whole set?
+   */
+  public void setDifferencePropagation(boolean differencePropagation) {
+    this.differencePropagation = differencePropagation;
+  }
+
+  /**
+   * Should the pointer analysis record where each of its constraints comes from, so that the call
+   * graph can be updated after some classes change?
+   */
+  public boolean getIncrementalUpdates() {
+    return incrementalUpdates;
+  }
+
+  /**
+   * Should the pointer analysis record where each of its constraints comes from, so that {@link
+   * com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder#updateCallGraph} can
+   * update the call graph after some classes change? This costs memory for every constraint, and
+   * cannot be combined with online cycle detection or offline variable substitution, which let
+   * pointer keys share variables.
+   */
+  public void setIncrementalUpdates(boolean incrementalUpdates) {
+    this.incrementalUpdates = incrementalUpdates;
+  }
 }
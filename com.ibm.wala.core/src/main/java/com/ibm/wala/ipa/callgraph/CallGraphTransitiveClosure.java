@@ -15,11 +15,22 @@ import com.ibm.wala.fixpoint.BitVectorVariable;
 import com.ibm.wala.ipa.modref.GenReach;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.CancelRuntimeException;
+import com.ibm.wala.util.WorkerPool;
 import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.graph.traverse.SCCIterator;
+import com.ibm.wala.util.intset.BitVector;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.OrdinalSet;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 
 /**
@@ -53,6 +64,55 @@ public class CallGraphTransitiveClosure {
     }
   }
 
+  /**
+   * Compute the transitive closure of an analysis result over all callees, by a single bottom-up
+   * pass over the strongly connected components of the call graph. The result is the same as that
+   * of {@link #transitiveClosure(CallGraph, Map)}, but is computed with one dense bit vector per
+   * component instead of an iterative solver, and all nodes of a component share one {@link
+   * OrdinalSet}.
+   *
+   * @param cg the call graph
+   * @param nodeResults analysis result for each individual node
+   * @return a map from each node to the analysis result for the node and its transitive callees
+   */
+  public static <T> Map<CGNode, OrdinalSet<T>> transitiveClosureOverSCCs(
+      CallGraph cg, Map<CGNode, Collection<T>> nodeResults) {
+    MutableMapping<T> domain = MutableMapping.make();
+    for (CGNode n : cg) {
+      Collection<T> local = nodeResults.get(n);
+      if (local != null) {
+        local.forEach(domain::add);
+      }
+    }
+    // SCCs come out callers first
+    List<Set<CGNode>> sccs = Iterator2Collection.toList(new SCCIterator<>(cg));
+    Map<CGNode, BitVector> closures = HashMapFactory.make(cg.getNumberOfNodes());
+    Map<CGNode, OrdinalSet<T>> result = HashMapFactory.make(cg.getNumberOfNodes());
+    for (int i = sccs.size() - 1; i >= 0; i--) {
+      Set<CGNode> scc = sccs.get(i);
+      BitVector bits = new BitVector(domain.getSize());
+      for (CGNode n : scc) {
+        Collection<T> local = nodeResults.get(n);
+        if (local != null) {
+          for (T t : local) {
+            bits.set(domain.getMappedIndex(t));
+          }
+        }
+        for (CGNode callee : Iterator2Iterable.make(cg.getSuccNodes(n))) {
+          if (!scc.contains(callee)) {
+            bits.or(closures.get(callee));
+          }
+        }
+      }
+      OrdinalSet<T> closure = new OrdinalSet<>(new BitVectorIntSet(bits), domain);
+      for (CGNode n : scc) {
+        closures.put(n, bits);
+        result.put(n, closure);
+      }
+    }
+    return result;
+  }
+
   /** Collect analysis result for each {@link CGNode} in a {@link Map}. */
   public static <T> Map<CGNode, Collection<T>> collectNodeResults(
       CallGraph cg, Function<CGNode, Collection<T>> nodeResultComputer) {
@@ -62,4 +122,32 @@ public class CallGraphTransitiveClosure {
     }
     return result;
   }
+
+  /**
+   * Collect analysis result for each {@link CGNode} in a {@link Map}, computing the results for
+   * different nodes on several threads. nodeResultComputer must support concurrent calls.
+   *
+   * @param numberOfThreads the number of threads; 1 computes all results on the calling thread
+   * @throws IllegalArgumentException if numberOfThreads &lt; 1
+   */
+  public static <T> Map<CGNode, Collection<T>> collectNodeResults(
+      CallGraph cg, Function<CGNode, Collection<T>> nodeResultComputer, int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    if (numberOfThreads == 1) {
+      return collectNodeResults(cg, nodeResultComputer);
+    }
+    try (WorkerPool pool = new WorkerPool("CallGraphTransitiveClosure worker", numberOfThreads)) {
+      Map<CGNode, Future<Collection<T>>> futures = new LinkedHashMap<>();
+      for (CGNode n : cg) {
+        futures.put(n, pool.submit(() -> nodeResultComputer.apply(n)));
+      }
+      Map<CGNode, Collection<T>> result = HashMapFactory.make();
+      for (Map.Entry<CGNode, Future<Collection<T>>> e : futures.entrySet()) {
+        result.put(e.getKey(), WorkerPool.await(e.getValue()));
+      }
+      return result;
+    }
+  }
 }
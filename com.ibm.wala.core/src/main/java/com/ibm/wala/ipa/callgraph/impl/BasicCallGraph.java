@@ -237,6 +237,20 @@ public abstract class BasicCallGraph<T> extends AbstractNumberedGraph<CGNode> im
     Assertions.UNREACHABLE();
   }
 
+  /** Forget a node that no longer has any edges, as if it had never been created. */
+  protected void unregisterNode(CGNode N) {
+    nodes.remove(new Key(N.getMethod(), N.getContext()));
+    Set<CGNode> s = mr2Nodes.get(N.getMethod().getReference());
+    if (s != null) {
+      s.remove(N);
+      if (s.isEmpty()) {
+        mr2Nodes.remove(N.getMethod().getReference());
+      }
+    }
+    entrypointNodes.remove(N);
+    nodeManager.removeNode(N);
+  }
+
   /** @return NodeImpl, or null if none found */
   @Override
   public CGNode getNode(IMethod method, Context C) {
@@ -30,6 +30,7 @@ import com.ibm.wala.util.collections.EmptyIterator;
 import com.ibm.wala.util.collections.FilterIterator;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.IntMapIterator;
+import com.ibm.wala.util.collections.Iterator2Collection;
 import com.ibm.wala.util.collections.SparseVector;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.graph.NumberedEdgeManager;
@@ -41,9 +42,11 @@ import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.intset.MutableSharedBitVectorIntSet;
 import com.ibm.wala.util.intset.SparseIntSet;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.function.IntFunction;
 
@@ -283,6 +286,14 @@ public class ExplicitCallGraph extends BasicCallGraph<SSAContextInterpreter>
       allTargets.clear();
     }
 
+    /**
+     * Forget the IR and {@link DefUse} cached by this node, e.g. after the method's code changed.
+     */
+    public void clearCachedIR() {
+      ir = new WeakReference<>(null);
+      du = new WeakReference<>(null);
+    }
+
     @Override
     public IR getIR() {
       if (getMethod().isWalaSynthetic()) {
@@ -429,9 +440,15 @@ public class ExplicitCallGraph extends BasicCallGraph<SSAContextInterpreter>
       Assertions.UNREACHABLE();
     }
 
+    /** Remove all call edges out of a node, forgetting the targets of each of its call sites. */
     @Override
     public void removeOutgoingEdges(CGNode node) {
-      Assertions.UNREACHABLE();
+      ExplicitNode n = (ExplicitNode) node;
+      int x = getNumber(n);
+      for (IntIterator it = n.getAllTargetNumbers().intIterator(); it.hasNext(); ) {
+        predecessors.remove(it.next(), x);
+      }
+      n.clearAllTargets();
     }
 
     @Override
@@ -442,6 +459,93 @@ public class ExplicitCallGraph extends BasicCallGraph<SSAContextInterpreter>
     }
   }
 
+  /**
+   * Remove a node and the call edges into and out of it, e.g. once the code that called it has
+   * changed.
+   *
+   * @throws IllegalArgumentException if N is the fake root or the fake world clinit node
+   */
+  @Override
+  public void removeNodeAndEdges(CGNode N) {
+    if (N == null) {
+      throw new IllegalArgumentException("N is null");
+    }
+    if (N.equals(getFakeRootNode()) || N.equals(getFakeWorldClinitNode())) {
+      throw new IllegalArgumentException("cannot remove " + N);
+    }
+    for (CGNode pred : Iterator2Collection.toList(getPredNodes(N))) {
+      ((ExplicitNode) pred).removeTarget(N);
+      edgeManager.removeEdge(pred, N);
+    }
+    removeOutgoingEdges(N);
+    unregisterNode(N);
+  }
+
+  /**
+   * Renumber the nodes of this graph, keeping its call edges: the nodes in {@code order} get the
+   * numbers 0, 1, ... in turn, and the other nodes follow in the order of their current numbers.
+   * Use this only while no one holds on to node numbers, e.g. once a builder has solved this graph.
+   *
+   * @throws IllegalArgumentException if {@code order} contains a node that is not in this graph
+   */
+  public void renumberNodes(Iterable<CGNode> order) {
+    List<CGNode> nodes = new ArrayList<>(getNumberOfNodes());
+    Set<CGNode> added = HashSetFactory.make(getNumberOfNodes());
+    for (CGNode n : order) {
+      if (!containsNode(n)) {
+        throw new IllegalArgumentException("node not in callgraph " + n);
+      }
+      if (added.add(n)) {
+        nodes.add(n);
+      }
+    }
+    for (CGNode n : this) {
+      if (added.add(n)) {
+        nodes.add(n);
+      }
+    }
+
+    // the targets of each call site, as nodes rather than numbers
+    List<SparseVector<Set<CGNode>>> targets = new ArrayList<>(nodes.size());
+    for (CGNode n : nodes) {
+      ExplicitNode x = (ExplicitNode) n;
+      SparseVector<Set<CGNode>> sites = new SparseVector<>();
+      for (IntIterator pcs = x.targets.iterateIndices(); pcs.hasNext(); ) {
+        int pc = pcs.next();
+        Object t = x.targets.get(pc);
+        if (t instanceof CGNode) {
+          sites.set(pc, Collections.singleton((CGNode) t));
+        } else {
+          Set<CGNode> s = HashSetFactory.make();
+          for (IntIterator it = ((IntSet) t).intIterator(); it.hasNext(); ) {
+            s.add(getNode(it.next()));
+          }
+          sites.set(pc, s);
+        }
+      }
+      targets.add(sites);
+    }
+
+    for (CGNode n : nodes) {
+      edgeManager.removeOutgoingEdges(n);
+      getNodeManager().removeNode(n);
+    }
+    for (int i = 0; i < nodes.size(); i++) {
+      nodes.get(i).setGraphNodeId(i);
+      getNodeManager().addNode(nodes.get(i));
+    }
+    for (int i = 0; i < nodes.size(); i++) {
+      ExplicitNode x = (ExplicitNode) nodes.get(i);
+      SparseVector<Set<CGNode>> sites = targets.get(i);
+      for (IntIterator pcs = sites.iterateIndices(); pcs.hasNext(); ) {
+        int pc = pcs.next();
+        for (CGNode t : sites.get(pc)) {
+          x.addTarget(pc, t);
+        }
+      }
+    }
+  }
+
   /** @return Returns the edgeManger. */
   @Override
   public NumberedEdgeManager<CGNode> getEdgeManager() {
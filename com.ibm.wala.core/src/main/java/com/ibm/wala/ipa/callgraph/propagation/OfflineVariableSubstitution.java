@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph.propagation;
+
+import com.ibm.wala.ssa.IRView;
+import com.ibm.wala.ssa.ISSABasicBlock;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAPhiInstruction;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Offline variable substitution for the locals of one method: find the values whose points-to sets
+ * are provably equal before any constraint is solved, so that they can share one {@link
+ * PointsToSetVariable}.
+ *
+ * <p>In SSA form, the only copies between locals are phis, and a phi's points-to set is exactly the
+ * union of its operands' sets. Following the hash-based value numbering (HVN) of Hardekopf and Lin,
+ * "Exploiting Pointer and Location Equivalence to Optimize Pointer Analysis", SAS 2007, each value
+ * gets a label: a value that is not a phi gets a label of its own, the phis on a cycle share a
+ * label, and a phi (or cycle of phis) gets the label of its single outside operand if there is just
+ * one, and otherwise a label for the set of its operands' labels. Values with the same label have
+ * the same points-to set.
+ */
+final class OfflineVariableSubstitution {
+
+  private OfflineVariableSubstitution() {}
+
+  /**
+   * @param ir the method
+   * @param isExplicit true for a value number whose points-to set is represented by a variable,
+   *     rather than implicitly
+   * @param isInvariant true for a value number whose points-to set is fixed, like that of a
+   *     constant or allocation, and which is therefore represented implicitly
+   * @return for each value number, the value number whose variable it should share, or itself
+   */
+  static int[] computeRepresentatives(
+      IRView ir, IntPredicate isExplicit, IntPredicate isInvariant) {
+    int maxValueNumber = ir.getSymbolTable().getMaxValueNumber();
+    int[] result = new int[maxValueNumber + 1];
+    Arrays.setAll(result, vn -> vn);
+
+    // operands of the phis that need a variable
+    int[][] operands = new int[maxValueNumber + 1][];
+    List<Integer> phis = new ArrayList<>();
+    for (ISSABasicBlock b : Iterator2Iterable.make(ir.getBlocks())) {
+      for (SSAInstruction inst : Iterator2Iterable.make(b.iteratePhis())) {
+        SSAPhiInstruction phi = (SSAPhiInstruction) inst;
+        if (phi == null || !isExplicit.test(phi.getDef())) {
+          continue;
+        }
+        int[] uses = new int[phi.getNumberOfUses()];
+        int n = 0;
+        for (int i = 0; i < uses.length; i++) {
+          if (phi.getUse(i) > 0) {
+            uses[n++] = phi.getUse(i);
+          }
+        }
+        operands[phi.getDef()] = Arrays.copyOf(uses, n);
+        phis.add(phi.getDef());
+      }
+    }
+    if (phis.isEmpty()) {
+      return result;
+    }
+
+    // label the phis; Tarjan's algorithm over the operand edges finishes the components of
+    // operands before those of their users
+    int[] label = new int[maxValueNumber + 1];
+    Arrays.setAll(label, vn -> vn);
+    int nextLabel = maxValueNumber + 1;
+    Map<List<Integer>, Integer> labelsOfOperandSets = HashMapFactory.make();
+    int[] index = new int[maxValueNumber + 1];
+    int[] lowlink = new int[maxValueNumber + 1];
+    boolean[] onStack = new boolean[maxValueNumber + 1];
+    boolean[] inComponent = new boolean[maxValueNumber + 1];
+    int[] component = new int[phis.size()];
+    int componentTop = 0;
+    int[] path = new int[phis.size()];
+    int[] cursor = new int[phis.size()];
+    int counter = 0;
+    for (int root : phis) {
+      if (index[root] != 0) {
+        continue;
+      }
+      int top = 0;
+      index[root] = lowlink[root] = ++counter;
+      component[componentTop++] = root;
+      onStack[root] = true;
+      path[top] = root;
+      cursor[top++] = 0;
+      while (top > 0) {
+        int v = path[top - 1];
+        if (cursor[top - 1] < operands[v].length) {
+          int w = operands[v][cursor[top - 1]++];
+          if (operands[w] == null) {
+            // not a phi
+            continue;
+          }
+          if (index[w] == 0) {
+            index[w] = lowlink[w] = ++counter;
+            component[componentTop++] = w;
+            onStack[w] = true;
+            path[top] = w;
+            cursor[top++] = 0;
+          } else if (onStack[w]) {
+            lowlink[v] = Math.min(lowlink[v], index[w]);
+          }
+          continue;
+        }
+        top--;
+        if (top > 0) {
+          int parent = path[top - 1];
+          lowlink[parent] = Math.min(lowlink[parent], lowlink[v]);
+        }
+        if (lowlink[v] != index[v]) {
+          continue;
+        }
+        // v roots a component; collect the labels of the operands outside it
+        int first = componentTop;
+        do {
+          onStack[component[--first]] = false;
+          inComponent[component[first]] = true;
+        } while (component[first] != v);
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = first; i < componentTop; i++) {
+          for (int u : operands[component[i]]) {
+            if (!inComponent[u]) {
+              inputs.add(label[u]);
+            }
+          }
+        }
+        inputs.sort(null);
+        int l;
+        if (inputs.isEmpty()) {
+          l = nextLabel++;
+        } else if (inputs.get(0).equals(inputs.get(inputs.size() - 1))) {
+          l = inputs.get(0);
+        } else {
+          List<Integer> key = new ArrayList<>();
+          for (int x : inputs) {
+            if (key.isEmpty() || key.get(key.size() - 1) != x) {
+              key.add(x);
+            }
+          }
+          Integer known = labelsOfOperandSets.get(key);
+          if (known == null) {
+            known = nextLabel++;
+            labelsOfOperandSets.put(key, known);
+          }
+          l = known;
+        }
+        for (int i = first; i < componentTop; i++) {
+          label[component[i]] = l;
+          inComponent[component[i]] = false;
+        }
+        componentTop = first;
+      }
+    }
+
+    // pick a representative for each label: the value that is not a phi, if it needs a variable,
+    // and otherwise the first phi
+    phis.sort(null);
+    Map<Integer, Integer> firstPhi = HashMapFactory.make();
+    for (int phi : phis) {
+      int l = label[phi];
+      if (l <= maxValueNumber && !isInvariant.test(l)) {
+        result[phi] = l;
+      } else {
+        result[phi] = firstPhi.computeIfAbsent(l, x -> phi);
+      }
+    }
+    return result;
+  }
+}
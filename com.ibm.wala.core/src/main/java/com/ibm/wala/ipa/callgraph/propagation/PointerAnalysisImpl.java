@@ -99,10 +99,13 @@ public class PointerAnalysisImpl extends AbstractPointerAnalysis {
 
   /*
    * @see com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis#getPointsToSet(com.ibm.wala.ipa.callgraph.propagation.PointerKey)
+   *
+   * Synchronized since implicit points-to sets and string contents may add instance keys, and
+   * clients such as the SDG query the points-to sets from several threads.
    */
   @Override
   @SuppressWarnings("unchecked")
-  public OrdinalSet<InstanceKey> getPointsToSet(PointerKey key) {
+  public synchronized OrdinalSet<InstanceKey> getPointsToSet(PointerKey key) {
     if (pointsToMap.isImplicit(key)) {
       return computeImplicitPointsToSet(key);
     }
@@ -20,6 +20,7 @@ import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntegerUnionFind;
 import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.SimpleIntVector;
 import java.util.Iterator;
 
 /** An object that tracks the mapping between pointer keys and points-to set variables */
@@ -37,6 +38,7 @@ public class PointsToMap {
    *   <li>a PointsToSetVariable
    *   <li>IMPLICIT
    *   <li>UNIFIED
+   *   <li>SUBSTITUTED
    * </ul>
    */
   private final IVector<Object> pointsToSets = new SimpleVector<>();
@@ -61,6 +63,18 @@ public class PointsToMap {
         }
       };
 
+  /** A hack: used to represent points-to-sets that share the variable of another key */
+  static final Object SUBSTITUTED =
+      new Object() {
+        @Override
+        public String toString() {
+          return "SUBSTITUTED points-to set";
+        }
+      };
+
+  /** for each SUBSTITUTED pointer key, the number of the key whose variable it shares */
+  private final SimpleIntVector substitutes = new SimpleIntVector(-1);
+
   /**
    * Numbers of pointer keys (non locals) that are roots of transitive closure. A "root" is a
    * points-to-set whose contents do not result from flow from other points-to-sets; these
@@ -73,7 +87,7 @@ public class PointsToMap {
     return pointerKeys.iterator();
   }
 
-  /** If p is unified, returns the representative for p. */
+  /** If p is unified or substituted, returns the representative for p. */
   public PointsToSetVariable getPointsToSet(PointerKey p) {
     if (p == null) {
       throw new IllegalArgumentException("null p");
@@ -86,8 +100,7 @@ public class PointsToMap {
     if (i == -1) {
       return null;
     }
-    int repI = uf.find(i);
-    PointsToSetVariable result = (PointsToSetVariable) pointsToSets.get(repI);
+    PointsToSetVariable result = getPointsToSet(i);
     if (result != null
         && p instanceof FilteredPointerKey
         && (!(result.getPointerKey() instanceof FilteredPointerKey))) {
@@ -98,6 +111,9 @@ public class PointsToMap {
 
   /** @return the {@link PointsToSetVariable} recorded for a particular id */
   public PointsToSetVariable getPointsToSet(int id) {
+    if (pointsToSets.get(id) == SUBSTITUTED) {
+      id = substitutes.get(id);
+    }
     int repI = uf.find(id);
     return (PointsToSetVariable) pointsToSets.get(repI);
   }
@@ -111,6 +127,41 @@ public class PointsToMap {
     pointsToSets.set(i, IMPLICIT);
   }
 
+  /**
+   * forget that a particular points-to-set is represented implicitly, e.g. because the code that
+   * defines it changed
+   */
+  void forgetImplicit(PointerKey key) {
+    int i = getIndex(key);
+    if (i != -1 && pointsToSets.get(i) == IMPLICIT) {
+      pointsToSets.set(i, null);
+    }
+  }
+
+  /**
+   * record that the points-to-set for key is known to equal that of rep, and that key shares the
+   * variable for rep rather than getting its own
+   */
+  void recordSubstitute(PointerKey key, PointerKey rep) {
+    int i = findOrCreateIndex(key);
+    substitutes.set(i, findOrCreateIndex(rep));
+    pointsToSets.set(i, SUBSTITUTED);
+  }
+
+  /** @return the key whose variable p shares, or null if p is not substituted */
+  PointerKey getSubstitute(PointerKey p) {
+    int i = getIndex(p);
+    if (i == -1 || pointsToSets.get(i) != SUBSTITUTED) {
+      return null;
+    }
+    return pointerKeys.getMappedObject(substitutes.get(i));
+  }
+
+  public boolean isSubstituted(PointerKey p) {
+    int i = getIndex(p);
+    return i != -1 && pointsToSets.get(i) == SUBSTITUTED;
+  }
+
   public void put(PointerKey key, PointsToSetVariable v) {
     int i = findOrCreateIndex(key);
     pointsToSets.set(i, v);
@@ -176,7 +227,7 @@ public class PointsToMap {
   /** Wipe out the cached transitive closure information */
   public void revertToPreTransitive() {
     for (PointerKey key : Iterator2Iterable.make(iterateKeys())) {
-      if (!isTransitiveRoot(key) && !isImplicit(key) && !isUnified(key)) {
+      if (!isTransitiveRoot(key) && !isImplicit(key) && !isUnified(key) && !isSubstituted(key)) {
         PointsToSetVariable v = getPointsToSet(key);
         v.removeAll();
       }
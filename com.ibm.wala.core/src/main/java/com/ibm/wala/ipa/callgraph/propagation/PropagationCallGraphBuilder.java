@@ -37,6 +37,7 @@ import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.CancelRuntimeException;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.intset.IntSet;
@@ -45,8 +46,12 @@ import com.ibm.wala.util.intset.IntSetUtil;
 import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.warnings.Warning;
 import com.ibm.wala.util.warnings.Warnings;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -94,6 +99,9 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
   /** Set of nodes that have already been traversed for constraints */
   private final Set<CGNode> alreadyVisited = HashSetFactory.make();
 
+  /** The nodes whose constraints have been added, in the order they were first added */
+  private final Set<CGNode> firstVisits = HashSetFactory.make();
+
   /**
    * At any given time, the set of nodes that have been discovered but not yet processed for
    * constraints
@@ -134,6 +142,9 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
   /** An object that abstracts how to model instances in the heap. */
   protected InstanceKeyFactory instanceKeyFactory;
 
+  /** if non-null, collects a profile of call graph construction */
+  private PropagationProfiler profiler;
+
   /**
    * Algorithmic choice: should the GetfieldOperator and PutfieldOperator cache its previous history
    * to reduce work?
@@ -200,6 +211,12 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
     if (options == null) {
       throw new IllegalArgumentException("options is null");
     }
+    if (options.getIncrementalUpdates()
+        && (options.getOnlineCycleDetection() || options.getOfflineVariableSubstitution())) {
+      throw new IllegalArgumentException(
+          "incremental updates cannot be combined with online cycle detection or offline"
+              + " variable substitution");
+    }
     system = makeSystem(options);
 
     if (DEBUG_GENERAL) {
@@ -213,6 +230,11 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
     system.setMinEquationsForTopSort(options.getMinEquationsForTopSort());
     system.setTopologicalGrowthFactor(options.getTopologicalGrowthFactor());
     system.setMaxEvalBetweenTopo(options.getMaxEvalBetweenTopo());
+    system.setNumberOfThreads(options.getNumberOfSolverThreads());
+    system.setOnlineCycleDetection(options.getOnlineCycleDetection());
+    system.setDifferencePropagation(options.getDifferencePropagation());
+    system.setOriginTracking(options.getIncrementalUpdates());
+    system.setProfiler(profiler);
 
     discoveredNodes = HashSetFactory.make();
     discoveredNodes.add(callGraph.getFakeRootNode());
@@ -255,6 +277,7 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
               e, callGraph, system.extractPointerAnalysis(this));
       throw c;
     }
+    renumberCallGraph();
 
     return callGraph;
   }
@@ -299,21 +322,40 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
    * Add constraints from newly discovered nodes. Note: the act of adding constraints may discover
    * new nodes, so this routine is iterative.
    *
+   * <p>The nodes discovered since the last call are visited in {@link #inCanonicalOrder(Collection)
+   * canonical order}: which nodes the solver discovered does not depend on the order in which it
+   * evaluated its statements, but the order of discovery does, and it decides the numbering of the
+   * call graph nodes created from the new constraints and of the values added to synthetic methods
+   * like fakeWorldClinit().
+   *
    * @return true iff any new constraints are added.
    */
   protected boolean addConstraintsFromNewNodes(IProgressMonitor monitor) throws CancelException {
     boolean result = false;
     while (!discoveredNodes.isEmpty()) {
-      Iterator<CGNode> it = discoveredNodes.iterator();
+      List<CGNode> nodes = inCanonicalOrder(discoveredNodes);
       discoveredNodes = HashSetFactory.make();
-      while (it.hasNext()) {
-        CGNode n = it.next();
+      for (CGNode n : nodes) {
         result |= addConstraintsFromNode(n, monitor);
       }
     }
     return result;
   }
 
+  /**
+   * @return the nodes, ordered by their method and context alone, so that the order does not depend
+   *     on how the nodes were discovered
+   */
+  private static List<CGNode> inCanonicalOrder(Collection<CGNode> nodes) {
+    Map<CGNode, String> keys = HashMapFactory.make(nodes.size());
+    for (CGNode n : nodes) {
+      keys.put(n, n.getMethod().getSignature() + ' ' + n.getContext());
+    }
+    List<CGNode> result = new ArrayList<>(nodes);
+    result.sort(Comparator.comparing(keys::get));
+    return result;
+  }
+
   /**
    * @return the PointerKey that acts as a representative for the class of pointers that includes
    *     the local variable identified by the value number parameter.
@@ -483,7 +525,7 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
 
     private final PointerKey base;
 
-    static TypedPointerKey make(PointerKey base, IClass type) {
+    public static TypedPointerKey make(PointerKey base, IClass type) {
       assert type != null;
       return new TypedPointerKey(base, type);
     }
@@ -647,6 +689,19 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
     return JAVA_LANG_OBJECT;
   }
 
+  /** @return the profiler of call graph construction, or null if none */
+  public PropagationProfiler getProfiler() {
+    return profiler;
+  }
+
+  /**
+   * Profile the next call graph construction with the given profiler, or with none if null. The
+   * profiler is attached to the {@link PropagationSystem} when {@link #makeCallGraph} starts.
+   */
+  public void setProfiler(PropagationProfiler profiler) {
+    this.profiler = profiler;
+  }
+
   public ExplicitCallGraph getCallGraph() {
     return callGraph;
   }
@@ -761,6 +816,34 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
 
   protected void markAlreadyVisited(CGNode node) {
     alreadyVisited.add(node);
+    firstVisits.add(node);
+  }
+
+  /**
+   * Number the call graph nodes in the order in which their constraints were first added, after the
+   * fake root and fake world clinit nodes. Since new nodes are visited in canonical order (see
+   * {@link #addConstraintsFromNewNodes(IProgressMonitor)}), this numbering does not depend on the
+   * order in which the solver evaluated its statements, e.g. on the number of solver threads.
+   */
+  protected void renumberCallGraph() {
+    Set<CGNode> others = HashSetFactory.make();
+    for (CGNode n : callGraph) {
+      others.add(n);
+    }
+    List<CGNode> order = new ArrayList<>(others.size());
+    for (CGNode n :
+        Arrays.asList(callGraph.getFakeRootNode(), callGraph.getFakeWorldClinitNode())) {
+      if (others.remove(n)) {
+        order.add(n);
+      }
+    }
+    for (CGNode n : firstVisits) {
+      if (others.remove(n)) {
+        order.add(n);
+      }
+    }
+    order.addAll(inCanonicalOrder(others));
+    callGraph.renumberNodes(order);
   }
 
   /** record that we've discovered a node */
@@ -773,6 +856,11 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
     discoveredNodes.add(node);
   }
 
+  /** record that the constraints of a node must be added again if it is discovered again */
+  protected void markUnvisited(CGNode node) {
+    alreadyVisited.remove(node);
+  }
+
   protected boolean wasChanged(CGNode node) {
     return discoveredNodes.contains(node) && !alreadyVisited.contains(node);
   }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph.propagation;
+
+import com.ibm.wala.ipa.callgraph.CGNode;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR events emitted by a {@link PropagationProfiler}. This class is only loaded if JFR events are
+ * requested, so that profiling works on JVMs without the {@code jdk.jfr} API.
+ */
+final class PropagationEvents {
+
+  private PropagationEvents() {}
+
+  @Name("com.ibm.wala.ConstraintsFromNode")
+  @Label("Constraints From Node")
+  @Category({"WALA", "Pointer Analysis"})
+  @Description("Generation of the statements for one call graph node")
+  static final class ConstraintsFromNode extends Event {
+    @Label("Node")
+    String node;
+
+    @Label("Statements")
+    int statements;
+  }
+
+  @Name("com.ibm.wala.SolverProgress")
+  @Label("Solver Progress")
+  @Category({"WALA", "Pointer Analysis"})
+  @Description(
+      "The worklist length of the pointer analysis solver, sampled every so many evaluations")
+  static final class SolverProgress extends Event {
+    @Label("Evaluations")
+    long evaluations;
+
+    @Label("Worklist Length")
+    int worklistSize;
+  }
+
+  @Name("com.ibm.wala.Solve")
+  @Label("Solve")
+  @Category({"WALA", "Pointer Analysis"})
+  @Description("One run of the pointer analysis solver")
+  static final class Solve extends Event {
+    @Label("Solve Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long nanos;
+
+    @Label("Evaluations")
+    long evaluations;
+  }
+
+  static Object beginNode() {
+    ConstraintsFromNode event = new ConstraintsFromNode();
+    event.begin();
+    return event;
+  }
+
+  static void endNode(Object token, CGNode node, int statements) {
+    ConstraintsFromNode event = (ConstraintsFromNode) token;
+    event.end();
+    if (event.shouldCommit()) {
+      event.node = node.toString();
+      event.statements = statements;
+      event.commit();
+    }
+  }
+
+  static void solverProgress(long evaluations, int worklistSize) {
+    SolverProgress event = new SolverProgress();
+    if (event.shouldCommit()) {
+      event.evaluations = evaluations;
+      event.worklistSize = worklistSize;
+      event.commit();
+    }
+  }
+
+  static void solve(long nanos, long evaluations) {
+    Solve event = new Solve();
+    if (event.shouldCommit()) {
+      event.nanos = nanos;
+      event.evaluations = evaluations;
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph.propagation;
+
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Pair;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collects a profile of call graph construction by a {@link PropagationCallGraphBuilder}: the time
+ * spent evaluating each type of operator, the nodes that generated the most statements, the
+ * dispatch sites that took the most time, the largest points-to sets, and the length of the
+ * worklist over time.
+ *
+ * <p>Install a profiler with {@link PropagationCallGraphBuilder#setProfiler} before building the
+ * call graph, and then get the profile with {@link #writeReport(Writer)} or {@link #toJson()}. If
+ * JFR events are requested, the profiler also emits {@code com.ibm.wala.*} events to any running
+ * Flight Recorder, which needs a JVM that has the {@code jdk.jfr} API.
+ *
+ * <p>Evaluations may be recorded from the threads of the parallel solver; everything else is
+ * recorded on the thread that builds the call graph.
+ */
+public class PropagationProfiler {
+
+  /** default number of entries in each list of the report */
+  public static final int DEFAULT_REPORT_SIZE = 20;
+
+  /** default number of evaluations between samples of the worklist length */
+  public static final int DEFAULT_SAMPLE_INTERVAL = 1000;
+
+  private final boolean jfrEvents;
+
+  private final int reportSize;
+
+  private final int sampleInterval;
+
+  /** when profiling started */
+  private final long startTime = System.nanoTime();
+
+  /** the system being profiled */
+  private PropagationSystem system;
+
+  /** number of evaluations and time spent evaluating, by operator class */
+  private final Map<Class<?>, Counter> operators = new ConcurrentHashMap<>();
+
+  /** number of evaluations and time spent evaluating, by dispatch site */
+  private final Map<Pair<CGNode, CallSiteReference>, Counter> dispatchSites =
+      new ConcurrentHashMap<>();
+
+  /** number of statements generated and time spent generating them, by node */
+  private final Map<CGNode, Counter> nodes = HashMapFactory.make();
+
+  private final AtomicLong evaluations = new AtomicLong();
+
+  /** number of instance keys read by unions along assignments and filters */
+  private final LongAdder elementsUnioned = new LongAdder();
+
+  /** number of evaluations, time in ms, and worklist length at each sample */
+  private final List<long[]> worklistSamples = new ArrayList<>();
+
+  private int solves = 0;
+
+  private long solveNanos = 0;
+
+  private long solveEvaluations = 0;
+
+  private static final class Counter {
+    final LongAdder count = new LongAdder();
+
+    final LongAdder nanos = new LongAdder();
+
+    void add(long count, long nanos) {
+      this.count.add(count);
+      this.nanos.add(nanos);
+    }
+  }
+
+  /** a profiler that reports the default number of entries and emits no JFR events */
+  public PropagationProfiler() {
+    this(false, DEFAULT_REPORT_SIZE, DEFAULT_SAMPLE_INTERVAL);
+  }
+
+  /**
+   * @param jfrEvents should the profiler also emit JFR events?
+   * @param reportSize number of entries in each list of the report
+   * @param sampleInterval number of evaluations between samples of the worklist length
+   */
+  public PropagationProfiler(boolean jfrEvents, int reportSize, int sampleInterval) {
+    if (reportSize < 0) {
+      throw new IllegalArgumentException("invalid report size: " + reportSize);
+    }
+    if (sampleInterval < 1) {
+      throw new IllegalArgumentException("invalid sample interval: " + sampleInterval);
+    }
+    this.jfrEvents = jfrEvents;
+    this.reportSize = reportSize;
+    this.sampleInterval = sampleInterval;
+  }
+
+  void attach(PropagationSystem system) {
+    this.system = system;
+  }
+
+  /**
+   * record an evaluation of a statement with the given operator
+   *
+   * @return true iff the worklist length should be sampled now
+   */
+  boolean recordEvaluation(Object operator, long nanos) {
+    operators.computeIfAbsent(operator.getClass(), c -> new Counter()).add(1, nanos);
+    if (operator instanceof SSAPropagationCallGraphBuilder.DispatchOperator) {
+      SSAPropagationCallGraphBuilder.DispatchOperator dispatch =
+          (SSAPropagationCallGraphBuilder.DispatchOperator) operator;
+      dispatchSites
+          .computeIfAbsent(
+              Pair.make(dispatch.getNode(), dispatch.getCallSite()), p -> new Counter())
+          .add(1, nanos);
+    }
+    return evaluations.incrementAndGet() % sampleInterval == 0;
+  }
+
+  /** record a union along an assignment or filter that read the given number of instance keys */
+  void recordElementsUnioned(int size) {
+    elementsUnioned.add(size);
+  }
+
+  /**
+   * @return the total size of the sets read by unions along assignments and filters so far, a
+   *     measure of the propagation work done
+   */
+  public long getNumberOfElementsUnioned() {
+    return elementsUnioned.sum();
+  }
+
+  synchronized void recordWorklistSize(int size) {
+    long n = evaluations.get();
+    worklistSamples.add(new long[] {n, (System.nanoTime() - startTime) / 1000000, size});
+    if (jfrEvents) {
+      PropagationEvents.solverProgress(n, size);
+    }
+  }
+
+  void recordSolve(long nanos, long evaluations) {
+    solves++;
+    solveNanos += nanos;
+    solveEvaluations += evaluations;
+    if (jfrEvents) {
+      PropagationEvents.solve(nanos, evaluations);
+    }
+  }
+
+  /** what {@link #startNode} returns */
+  private static final class NodeStart {
+    final long nanos = System.nanoTime();
+
+    final int statements;
+
+    /** the JFR event, if any */
+    final Object event;
+
+    NodeStart(int statements, Object event) {
+      this.statements = statements;
+      this.event = event;
+    }
+  }
+
+  /**
+   * Start generating statements for a node
+   *
+   * @return a token to pass to {@link #endNode}
+   */
+  Object startNode(PropagationSystem system) {
+    Object event = jfrEvents ? PropagationEvents.beginNode() : null;
+    return new NodeStart(system.getNumberOfStatementsCreated(), event);
+  }
+
+  /** Finish generating statements for a node */
+  void endNode(Object token, CGNode node, PropagationSystem system) {
+    NodeStart start = (NodeStart) token;
+    int statements = system.getNumberOfStatementsCreated() - start.statements;
+    nodes
+        .computeIfAbsent(node, n -> new Counter())
+        .add(statements, System.nanoTime() - start.nanos);
+    if (start.event != null) {
+      PropagationEvents.endNode(start.event, node, statements);
+    }
+  }
+
+  /** @return the report, as a JSON object */
+  public String toJson() {
+    StringWriter result = new StringWriter();
+    try {
+      writeReport(result);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return result.toString();
+  }
+
+  /**
+   * Write the report as a JSON object with these members:
+   *
+   * <ul>
+   *   <li>{@code solver}: number of solves, evaluations, statements, and instance keys read by
+   *       unions along assignments and filters, and the time spent solving
+   *   <li>{@code operators}: evaluations and time by operator class, most time first, counting the
+   *       evaluations of new statements outside the solver too
+   *   <li>{@code nodes}: the nodes that generated the most statements, and the time it took
+   *   <li>{@code dispatchSites}: the dispatch sites that took the most time to evaluate
+   *   <li>{@code largestPointsToSets}: the pointer keys with the largest points-to sets
+   *   <li>{@code worklist}: the worklist length after every so many evaluations, with the time
+   * </ul>
+   *
+   * Times are in milliseconds.
+   */
+  public synchronized void writeReport(Writer out) throws IOException {
+    out.write("{\n  \"solver\": {");
+    out.write("\"solves\": " + solves);
+    out.write(", \"evaluations\": " + solveEvaluations);
+    out.write(", \"statements\": " + (system == null ? 0 : system.getNumberOfStatementsCreated()));
+    out.write(", \"elementsUnioned\": " + elementsUnioned.sum());
+    out.write(", \"millis\": " + solveNanos / 1000000);
+    out.write("},\n  \"operators\": [");
+    List<Map.Entry<Class<?>, Counter>> ops = top(operators, c -> c.nanos.sum(), operators.size());
+    for (int i = 0; i < ops.size(); i++) {
+      Map.Entry<Class<?>, Counter> e = ops.get(i);
+      out.write(i == 0 ? "\n    {" : ",\n    {");
+      out.write("\"operator\": " + quote(e.getKey().getName()));
+      writeCounter(out, "evaluations", e.getValue());
+      out.write("}");
+    }
+    out.write("\n  ],\n  \"nodes\": [");
+    List<Map.Entry<CGNode, Counter>> ns = top(nodes, c -> c.count.sum(), reportSize);
+    for (int i = 0; i < ns.size(); i++) {
+      Map.Entry<CGNode, Counter> e = ns.get(i);
+      out.write(i == 0 ? "\n    {" : ",\n    {");
+      out.write("\"node\": " + quote(e.getKey().toString()));
+      writeCounter(out, "statements", e.getValue());
+      out.write("}");
+    }
+    out.write("\n  ],\n  \"dispatchSites\": [");
+    List<Map.Entry<Pair<CGNode, CallSiteReference>, Counter>> ds =
+        top(dispatchSites, c -> c.nanos.sum(), reportSize);
+    for (int i = 0; i < ds.size(); i++) {
+      Map.Entry<Pair<CGNode, CallSiteReference>, Counter> e = ds.get(i);
+      out.write(i == 0 ? "\n    {" : ",\n    {");
+      out.write("\"node\": " + quote(e.getKey().fst.toString()));
+      out.write(", \"site\": " + quote(e.getKey().snd.toString()));
+      writeCounter(out, "evaluations", e.getValue());
+      out.write("}");
+    }
+    out.write("\n  ],\n  \"largestPointsToSets\": [");
+    List<PointsToSetVariable> largest = largestPointsToSets();
+    for (int i = 0; i < largest.size(); i++) {
+      PointsToSetVariable v = largest.get(i);
+      out.write(i == 0 ? "\n    {" : ",\n    {");
+      out.write("\"pointerKey\": " + quote(v.getPointerKey().toString()));
+      out.write(", \"size\": " + v.size());
+      out.write("}");
+    }
+    out.write("\n  ],\n  \"worklist\": [");
+    for (int i = 0; i < worklistSamples.size(); i++) {
+      long[] sample = worklistSamples.get(i);
+      out.write(i == 0 ? "\n    {" : ",\n    {");
+      out.write("\"evaluations\": " + sample[0]);
+      out.write(", \"millis\": " + sample[1]);
+      out.write(", \"size\": " + sample[2]);
+      out.write("}");
+    }
+    out.write("\n  ]\n}\n");
+    out.flush();
+  }
+
+  private static void writeCounter(Writer out, String countName, Counter c) throws IOException {
+    out.write(", \"" + countName + "\": " + c.count.sum());
+    out.write(", \"millis\": " + c.nanos.sum() / 1000000);
+  }
+
+  /** @return up to n entries of map with the largest weights, largest first */
+  private static <K> List<Map.Entry<K, Counter>> top(
+      Map<K, Counter> map, Function<Counter, Long> weight, int n) {
+    List<Map.Entry<K, Counter>> result = new ArrayList<>(map.entrySet());
+    result.sort(
+        Comparator.comparing((Map.Entry<K, Counter> e) -> weight.apply(e.getValue())).reversed());
+    return result.subList(0, Math.min(n, result.size()));
+  }
+
+  /** @return the variables with the largest points-to sets, largest first */
+  private List<PointsToSetVariable> largestPointsToSets() {
+    List<PointsToSetVariable> result = new ArrayList<>();
+    if (system == null || reportSize == 0) {
+      return result;
+    }
+    PriorityQueue<PointsToSetVariable> smallest =
+        new PriorityQueue<>(Comparator.comparingInt(PointsToSetVariable::size));
+    for (Iterator<PointerKey> it = system.iteratePointerKeys(); it.hasNext(); ) {
+      PointerKey key = it.next();
+      if (system.isImplicit(key)
+          || system.isUnified(key)
+          || system.pointsToMap.isSubstituted(key)) {
+        continue;
+      }
+      PointsToSetVariable v = system.pointsToMap.getPointsToSet(key);
+      if (v == null) {
+        continue;
+      }
+      if (smallest.size() < reportSize) {
+        smallest.add(v);
+      } else if (v.size() > smallest.peek().size()) {
+        smallest.poll();
+        smallest.add(v);
+      }
+    }
+    result.addAll(smallest);
+    result.sort(Comparator.comparingInt(PointsToSetVariable::size).reversed());
+    return result;
+  }
+
+  /** @return s as a JSON string literal */
+  static String quote(String s) {
+    StringBuilder result = new StringBuilder(s.length() + 2);
+    result.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          result.append("\\\"");
+          break;
+        case '\\':
+          result.append("\\\\");
+          break;
+        case '\n':
+          result.append("\\n");
+          break;
+        case '\r':
+          result.append("\\r");
+          break;
+        case '\t':
+          result.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            result.append(String.format("\\u%04x", (int) c));
+          } else {
+            result.append(c);
+          }
+      }
+    }
+    return result.append('"').toString();
+  }
+}
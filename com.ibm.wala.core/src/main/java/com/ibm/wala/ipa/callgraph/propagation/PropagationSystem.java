@@ -20,33 +20,48 @@ import com.ibm.wala.fixpoint.IFixedPointSystem;
 import com.ibm.wala.fixpoint.IVariable;
 import com.ibm.wala.fixpoint.UnaryOperator;
 import com.ibm.wala.fixpoint.UnaryStatement;
+import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.callgraph.CallGraph;
 import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder.FilterOperator;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder.TypedPointerKey;
 import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.WorkerPool;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.MapUtil;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.VerboseAction;
 import com.ibm.wala.util.graph.Graph;
 import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.traverse.DFS;
 import com.ibm.wala.util.heapTrace.HeapTracer;
+import com.ibm.wala.util.intset.BasicNaturalRelation;
+import com.ibm.wala.util.intset.HashConsingIntSetFactory;
+import com.ibm.wala.util.intset.IBinaryNaturalRelation;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.IntegerUnionFind;
 import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.ref.ReferenceCleanser;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 /** System of constraints that define propagation for call graph construction */
 public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariable> {
@@ -98,6 +113,72 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
 
   private int periodicMaintainInterval = DEFAULT_PERIODIC_MAINTENANCE_INTERVAL;
 
+  /**
+   * Worklist batches with fewer parallelizable statements than this are evaluated on the calling
+   * thread, since farming them out costs more than it saves.
+   */
+  private static final int MIN_PARALLEL_BATCH = 256;
+
+  /** number of threads used to evaluate independent constraints; 1 means fully sequential */
+  private int numberOfThreads = 1;
+
+  /** while solving with more than one thread, the threads to use */
+  private WorkerPool pool;
+
+  /**
+   * The solver looks for cycles of assignments once this many assignment edges have become
+   * candidates, so that rebuilding the worklist after unification is amortized.
+   */
+  private static final int CYCLE_DETECTION_BATCH = 64;
+
+  /** should the solver detect and collapse cycles of assignments while solving? */
+  private boolean onlineCycleDetection = false;
+
+  /**
+   * assignment edges (by graph node id of rhs and lhs) already used to trigger cycle detection;
+   * each edge triggers it at most once
+   */
+  private final IBinaryNaturalRelation checkedAssignments =
+      new BasicNaturalRelation(
+          new byte[] {BasicNaturalRelation.SIMPLE_SPACE_STINGY}, BasicNaturalRelation.SIMPLE);
+
+  /** left-hand sides of assignments after which both sides had the same points-to set */
+  private final List<PointsToSetVariable> cycleCandidates = new ArrayList<>();
+
+  /** number of cycles of assignments collapsed so far */
+  private int numberOfCyclesFound = 0;
+
+  /** number of variables merged into another one by collapsing cycles so far */
+  private int numberOfVariablesMerged = 0;
+
+  /** number of pointer keys that share the variable of another key, by offline substitution */
+  private int numberOfKeysSubstituted = 0;
+
+  /** should the solver propagate only the new part of each changed points-to set? */
+  private boolean differencePropagation = false;
+
+  /**
+   * during difference propagation, for each variable whose growth has not yet reached its users,
+   * the instance keys added to it since; the values are scratch variables with the same key
+   */
+  private final Map<PointsToSetVariable, PointsToSetVariable> pendingDifferences =
+      new LinkedHashMap<>();
+
+  /** if non-null, collects a profile of solving */
+  private PropagationProfiler profiler;
+
+  /**
+   * if non-null, the origins of each statement: the nodes whose code and the statements whose
+   * evaluation asked for it, or null for neither
+   */
+  private Map<AbstractStatement<PointsToSetVariable, ?>, Set<Object>> origins;
+
+  /** if non-null, for each origin as above, the instance keys it added to variables directly */
+  private Map<Object, Map<PointsToSetVariable, MutableIntSet>> seeds;
+
+  /** the origin of the constraints being added, while origins are tracked */
+  private Object currentOrigin;
+
   public PropagationSystem(
       CallGraph cg, PointerKeyFactory pointerKeyFactory, InstanceKeyFactory instanceKeyFactory) {
     if (cg == null) {
@@ -228,6 +309,41 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     pointsToMap.recordImplicit(key);
   }
 
+  /**
+   * Record that the points-to set for key is known to equal that of rep before solving, so that key
+   * can share the variable for rep instead of getting its own. All constraints on key then apply to
+   * the variable for rep, and the {@link PointerAnalysis} gives key the points-to set of rep.
+   *
+   * <p>Nothing happens if key already has a representation, or if rep has no variable of its own.
+   *
+   * @return true iff key now shares the variable for rep
+   */
+  public boolean substitutePointerKey(PointerKey key, PointerKey rep) {
+    if (key == null) {
+      throw new IllegalArgumentException("null key");
+    }
+    if (rep == null) {
+      throw new IllegalArgumentException("null rep");
+    }
+    if (key.equals(rep)
+        || pointsToMap.isImplicit(key)
+        || pointsToMap.isSubstituted(key)
+        || pointsToMap.getIndex(key) != -1 && pointsToMap.getPointsToSet(key) != null
+        || pointsToMap.isImplicit(rep)
+        || pointsToMap.isSubstituted(rep)
+        || pointsToMap.getIndex(rep) != -1 && pointsToMap.isUnified(rep)) {
+      return false;
+    }
+    pointsToMap.recordSubstitute(key, rep);
+    numberOfKeysSubstituted++;
+    return true;
+  }
+
+  /** @return the number of pointer keys that share the variable of another key */
+  public int getNumberOfKeysSubstituted() {
+    return numberOfKeysSubstituted;
+  }
+
   /**
    * If key is unified, returns the representative
    *
@@ -239,6 +355,11 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
       throw new IllegalArgumentException("null key");
     }
 
+    PointerKey substitute = pointsToMap.getSubstitute(key);
+    if (substitute != null) {
+      key = substitute;
+    }
+
     if (pointsToMap.isImplicit(key)) {
       System.err.println(
           "Did not expect to findOrCreatePointsToSet for implicitly represented PointerKey");
@@ -316,6 +437,10 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     }
     PointsToSetVariable L = findOrCreatePointsToSet(lhs);
     PointsToSetVariable R = findOrCreatePointsToSet(rhs);
+    if (L == R && op instanceof AssignOperator) {
+      // lhs and rhs share a variable
+      return false;
+    }
     if (op instanceof FilterOperator) {
       // we do not want to revert the lhs to pre-transitive form;
       // we instead want to check in the outer loop of the pre-transitive
@@ -400,13 +525,20 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     if (DEBUG) {
       System.err.println("Add constraint B: " + lhs + " U= " + value);
     }
-    pointsToMap.recordTransitiveRoot(lhs);
+    PointerKey substitute = pointsToMap.getSubstitute(lhs);
+    pointsToMap.recordTransitiveRoot(substitute == null ? lhs : substitute);
 
     // we don't actually add a constraint.
     // instead, we immediately add the value to the points-to set.
     // This works since the solver is monotonic with TOP = {}
     PointsToSetVariable L = findOrCreatePointsToSet(lhs);
     int index = findOrCreateIndexForInstanceKey(value);
+    if (seeds != null) {
+      seeds
+          .computeIfAbsent(currentOrigin, o -> HashMapFactory.make())
+          .computeIfAbsent(L, v -> IntSetUtil.make())
+          .add(index);
+    }
     if (!L.add(index)) {
       // a no-op
       return false;
@@ -575,6 +707,748 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     addAllStatementsToWorkList();
   }
 
+  /** @return the number of threads the solver may use to evaluate independent constraints */
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * @param numberOfThreads the number of threads the solver may use to evaluate independent
+   *     constraints; 1 selects the sequential solver
+   * @throws IllegalArgumentException if numberOfThreads &lt; 1
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  /** @return true iff the solver detects and collapses cycles of assignments */
+  public boolean getOnlineCycleDetection() {
+    return onlineCycleDetection;
+  }
+
+  /**
+   * Should the solver detect cycles of assignments as they form, and unify the variables on each
+   * cycle? With more than one thread, cycles are collapsed between rounds.
+   *
+   * <p>Only variables whose type filter is known not to change are unified: filtered keys and
+   * parameters, which may get a filter when a new call edge reaches them, are left alone. This
+   * cannot be combined with {@link #setOriginTracking(boolean)}.
+   */
+  public void setOnlineCycleDetection(boolean onlineCycleDetection) {
+    this.onlineCycleDetection = onlineCycleDetection;
+  }
+
+  /** @return true iff the system records the origin of each constraint */
+  public boolean getOriginTracking() {
+    return origins != null;
+  }
+
+  /**
+   * Should the system record the origin of each constraint, so that {@link
+   * #retractConstraints(Set)} can take back the constraints induced by the code of some nodes? The
+   * origin of a constraint is the node whose code, as given to {@link #setOrigin(CGNode)}, or the
+   * statement whose evaluation added it. This costs memory for every constraint, and must be
+   * decided before any constraint is added.
+   *
+   * @throws IllegalStateException if the system already has constraints
+   */
+  public void setOriginTracking(boolean originTracking) {
+    if (flowGraph.getStatements().hasNext() || instanceKeys.getSize() > 0) {
+      throw new IllegalStateException("the system already has constraints");
+    }
+    origins = originTracking ? HashMapFactory.make() : null;
+    seeds = originTracking ? HashMapFactory.make() : null;
+  }
+
+  /**
+   * While origins are tracked, attribute the constraints added from now on, other than by the
+   * evaluation of statements, to the code of node, or to no node if null.
+   */
+  public void setOrigin(CGNode node) {
+    currentOrigin = node;
+  }
+
+  @Override
+  protected void statementRequested(AbstractStatement<PointsToSetVariable, ?> s) {
+    if (origins != null) {
+      // key each statement by the instance in the flow graph, which is the one removed later
+      Set<Object> o;
+      if (flowGraph.containsStatement(s)) {
+        o = origins.computeIfAbsent(s, x -> HashSetFactory.make(2));
+      } else {
+        o = origins.remove(s);
+        if (o == null) {
+          o = HashSetFactory.make(2);
+        }
+        origins.put(s, o);
+      }
+      o.add(currentOrigin);
+    }
+  }
+
+  /** @return the number of cycles of assignments collapsed so far */
+  public int getNumberOfCyclesFound() {
+    return numberOfCyclesFound;
+  }
+
+  /** @return the number of variables merged into another one by collapsing cycles so far */
+  public int getNumberOfVariablesMerged() {
+    return numberOfVariablesMerged;
+  }
+
+  /** @return true iff the solver propagates only the new part of changed sets */
+  public boolean getDifferencePropagation() {
+    return differencePropagation;
+  }
+
+  /**
+   * Should the solver propagate only the instance keys added to a points-to set since its users
+   * last saw it, rather than the whole set? This applies along assignments, class-based filters,
+   * and the field and array loads and stores, which are the statements whose effect distributes
+   * over union; other statements are re-evaluated as usual. With more than one thread, the
+   * assignments and filters evaluated concurrently read whole sets.
+   */
+  public void setDifferencePropagation(boolean differencePropagation) {
+    this.differencePropagation = differencePropagation;
+  }
+
+  /** @return the profiler of this system, or null if none */
+  public PropagationProfiler getProfiler() {
+    return profiler;
+  }
+
+  /** Profile this system with the given profiler, or with none if null. */
+  public void setProfiler(PropagationProfiler profiler) {
+    this.profiler = profiler;
+    if (profiler != null) {
+      profiler.attach(this);
+    }
+  }
+
+  @Override
+  public boolean solve(IProgressMonitor monitor) throws CancelException {
+    if (profiler == null) {
+      return solveOnce(monitor);
+    }
+    long start = System.nanoTime();
+    int evaluations = getNumberOfEvaluations();
+    try {
+      return solveOnce(monitor);
+    } finally {
+      profiler.recordSolve(System.nanoTime() - start, getNumberOfEvaluations() - evaluations);
+    }
+  }
+
+  private boolean solveOnce(IProgressMonitor monitor) throws CancelException {
+    boolean result;
+    if (numberOfThreads == 1) {
+      result = super.solve(monitor);
+    } else {
+      try (WorkerPool p = new WorkerPool("PropagationSystem solver", numberOfThreads)) {
+        pool = p;
+        result = super.solve(monitor);
+      } finally {
+        pool = null;
+      }
+    }
+    cycleCandidates.clear();
+    internPointsToSets();
+    return result;
+  }
+
+  @Override
+  protected boolean hasWork() {
+    return !workList.isEmpty() || !pendingDifferences.isEmpty();
+  }
+
+  /**
+   * Select the next work for the solver: with more than one thread, a round of all the statements
+   * on the worklist, as described at {@link #evaluateRound()}; otherwise, the next statement on the
+   * worklist; and once the worklist is empty, the instance keys pending for some variable under
+   * difference propagation. Afterwards, with online cycle detection, collapse cycles of assignments
+   * if enough candidates have been found.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  protected boolean evaluateNext() {
+    boolean changed;
+    if (workList.isEmpty()) {
+      changed = propagatePendingDifference();
+    } else if (pool != null) {
+      changed = evaluateRound();
+    } else {
+      changed = evaluateFromWorkList(workList.takeStatement());
+    }
+    if (cycleCandidates.size() >= CYCLE_DETECTION_BATCH) {
+      collapseCycles();
+    }
+    return changed;
+  }
+
+  /**
+   * Evaluate a statement taken from the worklist. Under difference propagation, a statement
+   * accepted by {@link #propagatesDifferences(AbstractStatement)} pushes its whole right-hand side
+   * as a difference.
+   *
+   * @return true iff the left-hand side of s changed
+   */
+  @SuppressWarnings("unchecked")
+  private boolean evaluateFromWorkList(AbstractStatement<PointsToSetVariable, ?> s) {
+    if (differencePropagation && propagatesDifferences(s)) {
+      UnaryStatement<PointsToSetVariable> u = (UnaryStatement<PointsToSetVariable>) s;
+      return propagateDifferenceAlong(u, u.getRightHandSide());
+    }
+    return evaluated(s, evaluateStatement(s));
+  }
+
+  /**
+   * With online cycle detection, an assignment that leaves both sides with the same points-to set
+   * may lie on a cycle, as in the lazy cycle detection of Hardekopf and Lin, PLDI 2007.
+   */
+  @Override
+  protected boolean evaluated(AbstractStatement<PointsToSetVariable, ?> s, byte code) {
+    if (onlineCycleDetection && !isChanged(code) && s instanceof AssignEquation) {
+      noteCycleCandidate((AssignEquation) s);
+    }
+    return super.evaluated(s, code);
+  }
+
+  /**
+   * While origins are tracked, the constraints added by the evaluation of s, other than one that
+   * only reads its right-hand side and writes its left-hand side, are attributed to s.
+   */
+  @Override
+  protected byte evaluateStatement(AbstractStatement<PointsToSetVariable, ?> s) {
+    if (origins == null || isParallelizable(s)) {
+      return evaluateAndProfile(s);
+    }
+    Object previous = currentOrigin;
+    currentOrigin = s;
+    try {
+      return evaluateAndProfile(s);
+    } finally {
+      currentOrigin = previous;
+    }
+  }
+
+  private byte evaluateAndProfile(AbstractStatement<PointsToSetVariable, ?> s) {
+    if (profiler == null) {
+      return s.evaluate();
+    }
+    if (s instanceof AssignEquation
+        || s instanceof UnaryStatement && s.getOperator() instanceof FilterOperator) {
+      profiler.recordElementsUnioned(
+          ((PointsToSetVariable) ((UnaryStatement<?>) s).getRightHandSide()).size());
+    }
+    long start = System.nanoTime();
+    byte code = s.evaluate();
+    recordEvaluation(s, start);
+    return code;
+  }
+
+  /** tell the profiler about an evaluation of s that began at start */
+  private void recordEvaluation(AbstractStatement<?, ?> s, long start) {
+    if (profiler.recordEvaluation(s.getOperator(), System.nanoTime() - start)) {
+      profiler.recordWorklistSize(workList.size() + pendingDifferences.size());
+    }
+  }
+
+  /**
+   * Under difference propagation, as in Pearce, Kelly and Hankin, "Online Cycle Detection and
+   * Difference Propagation for Pointer Analysis", SCAM 2003, push the instance keys pending for one
+   * variable to the statements that use it.
+   *
+   * <p>When a statement accepted by {@link #propagatesDifferences(AbstractStatement)} adds instance
+   * keys to its left-hand side, the added keys are recorded as pending for that variable instead of
+   * putting its users on the worklist. Pending keys are pushed along those statements and into the
+   * statements accepted by {@link #receivesDifferences(AbstractStatement)}, which remember the
+   * instances they have seen; all other users are put on the worklist. A variable changed by any
+   * other means has all its users put on the worklist, so every user sees every instance key either
+   * through a difference or through a full evaluation.
+   *
+   * @return true iff the evaluation of some equation caused a change in the value of some variable.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean propagatePendingDifference() {
+    Iterator<Map.Entry<PointsToSetVariable, PointsToSetVariable>> it =
+        pendingDifferences.entrySet().iterator();
+    Map.Entry<PointsToSetVariable, PointsToSetVariable> next = it.next();
+    it.remove();
+    PointsToSetVariable difference = next.getValue();
+    boolean changed = false;
+    // side effects may add statements that use the variable
+    for (AbstractStatement<PointsToSetVariable, ?> s :
+        Iterator2Collection.toList(flowGraph.getStatementsThatUse(next.getKey()))) {
+      if (propagatesDifferences(s)) {
+        changed |= propagateDifferenceAlong((UnaryStatement<PointsToSetVariable>) s, difference);
+      } else if (receivesDifferences(s)) {
+        long start = profiler == null ? 0 : System.nanoTime();
+        Object previous = currentOrigin;
+        if (origins != null) {
+          currentOrigin = s;
+        }
+        byte code;
+        try {
+          code = ((UnaryOperator<PointsToSetVariable>) s.getOperator()).evaluate(null, difference);
+        } finally {
+          currentOrigin = previous;
+        }
+        if (profiler != null) {
+          recordEvaluation(s, start);
+        }
+        changed |= evaluated(s, code);
+      } else {
+        addToWorkList(s);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Push difference along s as an evaluation by the solver.
+   *
+   * @return true iff the left-hand side of s changed
+   */
+  private boolean propagateDifferenceAlong(
+      UnaryStatement<PointsToSetVariable> s, PointsToSetVariable difference) {
+    long start = profiler == null ? 0 : System.nanoTime();
+    boolean changed = propagateDifference(s, difference);
+    if (profiler != null) {
+      recordEvaluation(s, start);
+    }
+    countEvaluation();
+    if (onlineCycleDetection && !changed && s instanceof AssignEquation) {
+      noteCycleCandidate((AssignEquation) s);
+    }
+    return changed;
+  }
+
+  /**
+   * Push the instance keys in difference, which are in the right-hand side of s, to the left-hand
+   * side of s, and record the keys that are new there as pending.
+   *
+   * @return true iff the left-hand side of s changed
+   */
+  private boolean propagateDifference(
+      UnaryStatement<PointsToSetVariable> s, PointsToSetVariable difference) {
+    IntSet value = difference.getValue();
+    if (value == null || value.isEmpty()) {
+      return false;
+    }
+    if (profiler != null) {
+      profiler.recordElementsUnioned(value.size());
+    }
+    PointsToSetVariable lhs = s.getLHS();
+    // look up each key of the difference in lhs, which takes time in the size of the difference,
+    // rather than take a set difference, which takes time in the size of lhs
+    MutableIntSet fresh = IntSetUtil.make();
+    value.foreach(
+        x -> {
+          if (!lhs.contains(x)) {
+            fresh.add(x);
+          }
+        });
+    if (fresh.isEmpty()) {
+      return false;
+    }
+    MutableIntSet added;
+    if (s instanceof AssignEquation) {
+      lhs.addAll(fresh);
+      added = fresh;
+    } else {
+      s.getOperator().evaluate(lhs, difference);
+      added = IntSetUtil.make();
+      fresh.foreach(
+          x -> {
+            if (lhs.contains(x)) {
+              added.add(x);
+            }
+          });
+      if (added.isEmpty()) {
+        return false;
+      }
+    }
+    PointsToSetVariable pending = pendingDifferences.get(lhs);
+    if (pending == null) {
+      pending = new PointsToSetVariable(lhs.getPointerKey());
+      pendingDifferences.put(lhs, pending);
+    }
+    pending.addAll(added);
+    return true;
+  }
+
+  /**
+   * @return true iff s adds the instance keys of its right-hand side that pass some per-key test to
+   *     its left-hand side, and does nothing else, so that it may be evaluated on differences
+   */
+  protected boolean propagatesDifferences(AbstractStatement<?, ?> s) {
+    return s instanceof AssignEquation || isClassFilter(s);
+  }
+
+  /**
+   * @return true iff s is a side effect that acts on each instance key of its right-hand side that
+   *     it has not seen before, so that it may be evaluated on differences
+   */
+  protected boolean receivesDifferences(AbstractStatement<?, ?> s) {
+    if (!(s instanceof UnaryStatement)) {
+      return false;
+    }
+    Object op = s.getOperator();
+    // subclasses of the field operators may look at the instance keys differently
+    return op instanceof PropagationCallGraphBuilder.ArrayLoadOperator
+        || op instanceof PropagationCallGraphBuilder.ArrayStoreOperator
+        || op.getClass() == PropagationCallGraphBuilder.GetFieldOperator.class
+        || op.getClass() == PropagationCallGraphBuilder.PutFieldOperator.class;
+  }
+
+  /** record the lhs of an assignment that may lie on a cycle, if it may and is not yet recorded */
+  private void noteCycleCandidate(AssignEquation s) {
+    PointsToSetVariable lhs = s.getLHS();
+    PointsToSetVariable rhs = s.getRightHandSide();
+    if (lhs == rhs || rhs.getValue() == null || rhs.getValue().isEmpty()) {
+      return;
+    }
+    if (!isCollapsible(lhs) || !isCollapsible(rhs)) {
+      return;
+    }
+    if (lhs.getValue() != null
+        && lhs.getValue().size() == rhs.getValue().size()
+        && lhs.getValue().sameValue(rhs.getValue())
+        && checkedAssignments.add(rhs.getGraphNodeId(), lhs.getGraphNodeId())) {
+      cycleCandidates.add(lhs);
+    }
+  }
+
+  /**
+   * @return true iff v may be unified with other variables, i.e., its pointer key has no type
+   *     filter and will never get one
+   */
+  private boolean isCollapsible(PointsToSetVariable v) {
+    PointerKey key = v.getPointerKey();
+    if (key instanceof FilteredPointerKey || pointsToMap.isUnified(key)) {
+      return false;
+    }
+    if (key instanceof LocalPointerKey) {
+      LocalPointerKey local = (LocalPointerKey) key;
+      return local.getValueNumber() > local.getNode().getMethod().getNumberOfParameters();
+    }
+    return true;
+  }
+
+  /**
+   * Find the strongly connected components of the assignment graph reachable from the cycle
+   * candidates, restricted to collapsible variables, and unify the variables of each component.
+   * Statements on the worklist that mention a variable that has been unified away are replaced by
+   * the statements of its representative.
+   */
+  private void collapseCycles() {
+    NumberedGraph<PointsToSetVariable> assignments = flowGraph.getAssignmentGraph();
+    // representatives whose users must see the union of the component
+    Set<PointsToSetVariable> changed = HashSetFactory.make();
+    // iterative Tarjan; index and lowlink by variable
+    Map<PointsToSetVariable, int[]> visited = HashMapFactory.make();
+    int cyclesBefore = numberOfCyclesFound;
+    ArrayDeque<PointsToSetVariable> component = new ArrayDeque<>();
+    ArrayDeque<PointsToSetVariable> path = new ArrayDeque<>();
+    ArrayDeque<Iterator<PointsToSetVariable>> successors = new ArrayDeque<>();
+    int index = 0;
+    for (PointsToSetVariable root : cycleCandidates) {
+      if (visited.containsKey(root) || !isCollapsible(root)) {
+        continue;
+      }
+      visited.put(root, new int[] {index, index++});
+      component.push(root);
+      path.push(root);
+      successors.push(assignments.getSuccNodes(root));
+      while (!path.isEmpty()) {
+        PointsToSetVariable v = path.peek();
+        Iterator<PointsToSetVariable> it = successors.peek();
+        if (it.hasNext()) {
+          PointsToSetVariable w = it.next();
+          int[] wInfo = visited.get(w);
+          if (wInfo == null) {
+            if (isCollapsible(w)) {
+              visited.put(w, new int[] {index, index++});
+              component.push(w);
+              path.push(w);
+              successors.push(assignments.getSuccNodes(w));
+            }
+          } else if (wInfo[1] >= 0) {
+            // w is on the component stack
+            int[] vInfo = visited.get(v);
+            vInfo[1] = Math.min(vInfo[1], wInfo[0]);
+          }
+          continue;
+        }
+        path.pop();
+        successors.pop();
+        int[] vInfo = visited.get(v);
+        if (!path.isEmpty()) {
+          int[] parentInfo = visited.get(path.peek());
+          parentInfo[1] = Math.min(parentInfo[1], vInfo[1]);
+        }
+        if (vInfo[1] == vInfo[0]) {
+          MutableIntSet scc = IntSetUtil.make();
+          boolean sameValues = true;
+          PointsToSetVariable w;
+          do {
+            w = component.pop();
+            // mark as no longer on the component stack
+            visited.get(w)[1] = -1;
+            scc.add(pointsToMap.getIndex(w.getPointerKey()));
+            sameValues &=
+                w == v
+                    || (w.getValue() != null
+                        && v.getValue() != null
+                        && w.getValue().sameValue(v.getValue()));
+          } while (w != v);
+          if (scc.size() > 1) {
+            unify(scc);
+            numberOfCyclesFound++;
+            numberOfVariablesMerged += scc.size() - 1;
+            if (!sameValues) {
+              changed.add(pointsToMap.getPointsToSet(scc.max()));
+            }
+          }
+        }
+      }
+    }
+    cycleCandidates.clear();
+    if (numberOfCyclesFound == cyclesBefore) {
+      return;
+    }
+
+    // statements on the worklist that were replaced during unification pass their pending work on
+    // to the statements of the representatives
+    Set<PointsToSetVariable> defined = HashSetFactory.make();
+    List<AbstractStatement<PointsToSetVariable, ?>> pending = new ArrayList<>();
+    while (!workList.isEmpty()) {
+      AbstractStatement<PointsToSetVariable, ?> s = workList.takeStatement();
+      if (!mentionsUnifiedVariable(s)) {
+        pending.add(s);
+        continue;
+      }
+      if (s.getLHS() != null) {
+        defined.add(representative((PointsToSetVariable) s.getLHS()));
+      }
+      if (s instanceof UnaryStatement) {
+        changed.add(representative((PointsToSetVariable) ((UnaryStatement) s).getRightHandSide()));
+      } else {
+        for (IVariable<?> v : s.getRHS()) {
+          if (v != null) {
+            changed.add(representative((PointsToSetVariable) v));
+          }
+        }
+      }
+    }
+    pending.forEach(this::addToWorkList);
+    // instance keys pending for a variable that was unified away have reached its representative,
+    // but not the users it now stands for
+    for (Iterator<PointsToSetVariable> it = pendingDifferences.keySet().iterator();
+        it.hasNext(); ) {
+      PointsToSetVariable v = it.next();
+      if (pointsToMap.isUnified(v.getPointerKey())) {
+        it.remove();
+        changed.add(representative(v));
+      }
+    }
+    for (PointsToSetVariable rep : defined) {
+      for (AbstractStatement<PointsToSetVariable, ?> s :
+          Iterator2Iterable.make(flowGraph.getStatementsThatDef(rep))) {
+        addToWorkList(s);
+      }
+    }
+    changed.forEach(this::changedVariable);
+  }
+
+  /** @return the variable that represents v after unification */
+  private PointsToSetVariable representative(PointsToSetVariable v) {
+    return pointsToMap.getPointsToSet(v.getPointerKey());
+  }
+
+  private boolean mentionsUnifiedVariable(AbstractStatement<?, ?> s) {
+    if (s.getLHS() != null
+        && pointsToMap.isUnified(((PointsToSetVariable) s.getLHS()).getPointerKey())) {
+      return true;
+    }
+    if (s instanceof UnaryStatement) {
+      PointsToSetVariable rhs = (PointsToSetVariable) ((UnaryStatement<?>) s).getRightHandSide();
+      return pointsToMap.isUnified(rhs.getPointerKey());
+    }
+    for (IVariable<?> v : s.getRHS()) {
+      if (v != null && pointsToMap.isUnified(((PointsToSetVariable) v).getPointerKey())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * If points-to sets are made by a {@link HashConsingIntSetFactory}, let all points-to sets with
+   * equal contents share one representation. Sets that change later on get a private copy again.
+   */
+  public void internPointsToSets() {
+    if (!(IntSetUtil.getDefaultIntSetFactory() instanceof HashConsingIntSetFactory)) {
+      return;
+    }
+    HashConsingIntSetFactory factory =
+        (HashConsingIntSetFactory) IntSetUtil.getDefaultIntSetFactory();
+    for (PointerKey key : Iterator2Iterable.make(pointsToMap.iterateKeys())) {
+      if (!pointsToMap.isImplicit(key) && !pointsToMap.isUnified(key)) {
+        PointsToSetVariable v = pointsToMap.getPointsToSet(key);
+        if (v != null && v.getValue() != null) {
+          factory.intern(v.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Evaluate a round of all the statements on the worklist.
+   *
+   * <p>The statements that only read their right-hand side and write their left-hand side
+   * (assignments and read-only filters) are split into groups that share no variables, and the
+   * groups are evaluated concurrently, each in worklist order. Everything else (field and array
+   * side effects, dispatch, ...) may add constraints or call graph nodes, and is evaluated
+   * afterwards on the calling thread in worklist order.
+   *
+   * <p>Since the system is monotone, this computes the same fixed point as the sequential solver.
+   * Since no variable is touched by more than one thread per round, the result does not depend on
+   * thread scheduling either. The builder adds the constraints of new call graph nodes in canonical
+   * order and renumbers the call graph once it is solved, so CGNode numbers and value numbers in
+   * synthetic methods like fakeWorldClinit() are the same as well; only the numbers of instance
+   * keys created while solving may differ, not the instance keys in each points-to set.
+   *
+   * @return true iff the evaluation of some equation caused a change in the value of some variable.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean evaluateRound() {
+    List<AbstractStatement<PointsToSetVariable, ?>> parallel = new ArrayList<>();
+    List<AbstractStatement<PointsToSetVariable, ?>> sequential = new ArrayList<>();
+    while (!workList.isEmpty()) {
+      AbstractStatement<PointsToSetVariable, ?> s = workList.takeStatement();
+      if (isParallelizable(s)) {
+        parallel.add(s);
+      } else {
+        sequential.add(s);
+      }
+    }
+
+    boolean changed = false;
+    byte[] codes = evaluateInParallel(parallel);
+    for (int i = 0; i < codes.length; i++) {
+      changed |= evaluated(parallel.get(i), codes[i]);
+    }
+    for (AbstractStatement<PointsToSetVariable, ?> s : sequential) {
+      changed |= evaluateFromWorkList(s);
+    }
+    return changed;
+  }
+
+  /**
+   * @return true iff evaluating s only reads its right-hand side and writes its left-hand side, so
+   *     that s may run concurrently with other such statements over disjoint variables
+   */
+  protected boolean isParallelizable(AbstractStatement<?, ?> s) {
+    return s instanceof AssignEquation || isClassFilter(s);
+  }
+
+  /** @return true iff s is a filter by the classes of instance keys */
+  private static boolean isClassFilter(AbstractStatement<?, ?> s) {
+    if (s instanceof UnaryStatement && s.getOperator() instanceof FilterOperator) {
+      PointerKey lhs = ((PointsToSetVariable) s.getLHS()).getPointerKey();
+      if (lhs instanceof FilteredPointerKey) {
+        FilteredPointerKey.TypeFilter filter = ((FilteredPointerKey) lhs).getTypeFilter();
+        // other filters may allocate instance key numbers during evaluation
+        return filter instanceof FilteredPointerKey.SingleClassFilter
+            || filter instanceof FilteredPointerKey.MultipleClassesFilter;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Evaluate a list of unary statements accepted by {@link #isParallelizable(AbstractStatement)}.
+   * Statements connected through a shared variable are placed in the same group, and each group is
+   * evaluated in order on a single thread of the pool.
+   *
+   * @return the evaluation code for each statement, in order
+   */
+  @SuppressWarnings("unchecked")
+  private byte[] evaluateInParallel(
+      final List<AbstractStatement<PointsToSetVariable, ?>> statements) {
+    final byte[] codes = new byte[statements.size()];
+    if (statements.size() < MIN_PARALLEL_BATCH) {
+      for (int i = 0; i < codes.length; i++) {
+        codes[i] = evaluateStatement(statements.get(i));
+      }
+      return codes;
+    }
+
+    // number the variables of this batch, and union the two sides of each statement
+    Map<IVariable<?>, Integer> local = HashMapFactory.make();
+    IntegerUnionFind groups = new IntegerUnionFind(2 * codes.length);
+    int[] lhsIndex = new int[codes.length];
+    for (int i = 0; i < codes.length; i++) {
+      UnaryStatement<PointsToSetVariable> s =
+          (UnaryStatement<PointsToSetVariable>) statements.get(i);
+      lhsIndex[i] = localIndex(local, s.getLHS());
+      groups.union(lhsIndex[i], localIndex(local, s.getRightHandSide()));
+    }
+
+    // assign each group to the least loaded task, in order of first appearance
+    final int nTasks = pool.getNumberOfThreads();
+    final int[] task = new int[codes.length];
+    int[] load = new int[nTasks];
+    Map<Integer, Integer> taskForGroup = HashMapFactory.make();
+    for (int i = 0; i < codes.length; i++) {
+      Integer t = taskForGroup.get(groups.find(lhsIndex[i]));
+      if (t == null) {
+        int min = 0;
+        for (int j = 1; j < nTasks; j++) {
+          if (load[j] < load[min]) {
+            min = j;
+          }
+        }
+        t = min;
+        taskForGroup.put(groups.find(lhsIndex[i]), t);
+      }
+      task[i] = t;
+      load[t]++;
+    }
+
+    List<Future<?>> futures = new ArrayList<>(nTasks);
+    for (int t = 0; t < nTasks; t++) {
+      if (load[t] == 0) {
+        continue;
+      }
+      final int me = t;
+      futures.add(
+          pool.submit(
+              () -> {
+                for (int i = 0; i < codes.length; i++) {
+                  if (task[i] == me) {
+                    codes[i] = evaluateStatement(statements.get(i));
+                  }
+                }
+              }));
+    }
+    WorkerPool.awaitAll(futures);
+    return codes;
+  }
+
+  private static int localIndex(Map<IVariable<?>, Integer> local, IVariable<?> v) {
+    Integer i = local.get(v);
+    if (i == null) {
+      i = local.size();
+      local.put(v, i);
+    }
+    return i;
+  }
+
   /** @return an object that encapsulates the pointer analysis results */
   public PointerAnalysis<InstanceKey> extractPointerAnalysis(PropagationCallGraphBuilder builder) {
     if (pointerAnalysis == null) {
@@ -667,6 +1541,190 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     return flowGraph.getStatementsThatDef(v);
   }
 
+  /**
+   * Take back the constraints induced by the code of some call graph nodes and everything derived
+   * from them, so that the constraints of the nodes can be added again from new code, and solving
+   * the system again gives what solving it from scratch would. Needs {@link
+   * #setOriginTracking(boolean)}.
+   *
+   * <p>The constraints of a node are taken back if it is one of the given nodes, if one of its side
+   * effects read a points-to set that may lose instance keys, or if it is no longer reachable from
+   * the root of the call graph; its call edges are removed. A statement is removed once all its
+   * origins have been taken back, and then the constraints its evaluation added are taken back too.
+   * The points-to sets that may lose instance keys, those defined by removed statements or seeded
+   * by taken back origins and everything they flow to, are emptied, refilled from the instance keys
+   * other origins added to them directly, and the statements that still define them are put on the
+   * worklist. Implicitly represented locals of the nodes taken back are forgotten.
+   *
+   * @return the nodes whose constraints were taken back
+   * @throws IllegalStateException if the origins of constraints are not tracked
+   */
+  public Set<CGNode> retractConstraints(Set<CGNode> nodes) {
+    if (nodes == null) {
+      throw new IllegalArgumentException("null nodes");
+    }
+    if (origins == null) {
+      throw new IllegalStateException("the origins of constraints are not tracked");
+    }
+    Retraction r = new Retraction();
+    nodes.forEach(r::retract);
+    r.run();
+
+    for (PointerKey key : Iterator2Iterable.make(pointsToMap.iterateKeys())) {
+      CGNode node = getOwner(key);
+      if (node != null && r.nodes.contains(node) && pointsToMap.isImplicit(key)) {
+        // the new code may need a variable for it, and a node that is not called again has none
+        pointsToMap.forgetImplicit(key);
+      }
+    }
+
+    for (AbstractStatement<PointsToSetVariable, ?> s : r.removed) {
+      // statements that reached a fixed point have left the flow graph already
+      if (flowGraph.containsStatement(s)) {
+        flowGraph.removeStatement(s);
+      }
+      origins.remove(s);
+    }
+    seeds.keySet().removeAll(r.retracted);
+    for (PointsToSetVariable v : r.emptied) {
+      v.removeAll();
+      pendingDifferences.remove(v);
+    }
+    for (Map<PointsToSetVariable, MutableIntSet> seeded : seeds.values()) {
+      seeded.forEach(
+          (v, keys) -> {
+            if (r.emptied.contains(v)) {
+              v.addAll(keys);
+            }
+          });
+    }
+    for (PointsToSetVariable v : r.emptied) {
+      for (AbstractStatement<PointsToSetVariable, ?> s :
+          Iterator2Iterable.make(flowGraph.getStatementsThatDef(v))) {
+        addToWorkList(s);
+      }
+    }
+    return r.nodes;
+  }
+
+  /** The closure computed by {@link #retractConstraints(Set)} */
+  private final class Retraction {
+
+    /** for each origin, the statements it asked for */
+    private final Map<Object, Set<AbstractStatement<PointsToSetVariable, ?>>> products =
+        HashMapFactory.make();
+
+    /** the origins taken back */
+    private final Set<Object> retracted = HashSetFactory.make();
+
+    /** the nodes taken back */
+    private final Set<CGNode> nodes = HashSetFactory.make();
+
+    /** the statements all of whose origins were taken back */
+    private final Set<AbstractStatement<PointsToSetVariable, ?>> removed = HashSetFactory.make();
+
+    /** the variables that may lose instance keys */
+    private final Set<PointsToSetVariable> emptied = HashSetFactory.make();
+
+    private final ArrayDeque<Object> pendingOrigins = new ArrayDeque<>();
+
+    private final ArrayDeque<PointsToSetVariable> pendingVariables = new ArrayDeque<>();
+
+    private Retraction() {
+      origins.forEach((s, os) -> os.forEach(o -> MapUtil.findOrCreateSet(products, o).add(s)));
+    }
+
+    private void retract(Object origin) {
+      if (retracted.add(origin)) {
+        pendingOrigins.add(origin);
+      }
+    }
+
+    /** take back the origins that would ask for s again, so that it starts from scratch */
+    private void retractCreators(AbstractStatement<?, ?> s) {
+      Set<Object> os = origins.get(s);
+      if (os == null) {
+        return;
+      }
+      for (Object o : os) {
+        if (o instanceof CGNode) {
+          retract(o);
+        } else if (o != null && !retracted.contains(o)) {
+          retract(o);
+          retractCreators((AbstractStatement<?, ?>) o);
+        }
+      }
+    }
+
+    private void empty(IVariable<?> v) {
+      if (v != null && emptied.add((PointsToSetVariable) v)) {
+        pendingVariables.add((PointsToSetVariable) v);
+      }
+    }
+
+    private void run() {
+      do {
+        while (!pendingOrigins.isEmpty() || !pendingVariables.isEmpty()) {
+          Object o = pendingOrigins.poll();
+          if (o != null) {
+            if (o instanceof CGNode) {
+              nodes.add((CGNode) o);
+              cg.removeOutgoingEdges((CGNode) o);
+            }
+            Map<PointsToSetVariable, MutableIntSet> seeded = seeds.get(o);
+            if (seeded != null) {
+              seeded.keySet().forEach(this::empty);
+            }
+            for (AbstractStatement<PointsToSetVariable, ?> s :
+                products.getOrDefault(o, Collections.emptySet())) {
+              if (!removed.contains(s) && retracted.containsAll(origins.get(s))) {
+                removed.add(s);
+                empty(s.getLHS());
+                retract(s);
+              }
+            }
+          } else {
+            PointsToSetVariable v = pendingVariables.poll();
+            for (AbstractStatement<?, ?> s :
+                Iterator2Iterable.make(flowGraph.getStatementsThatUse(v))) {
+              if (s.getLHS() != null) {
+                empty(s.getLHS());
+              } else {
+                // a side effect that acted on instance keys v may lose
+                retractCreators(s);
+              }
+            }
+          }
+        }
+      } while (retractUnreachableNodes());
+    }
+
+    /** @return true iff some nodes no longer reachable from the root were taken back */
+    private boolean retractUnreachableNodes() {
+      Set<CGNode> reachable =
+          DFS.getReachableNodes(cg, Collections.singleton(cg.getFakeRootNode()));
+      for (CGNode n : cg) {
+        if (!reachable.contains(n)) {
+          retract(n);
+        }
+      }
+      return !pendingOrigins.isEmpty();
+    }
+  }
+
+  /** @return the node whose code defines the given pointer key, or null if it is not node-local */
+  private static CGNode getOwner(PointerKey key) {
+    if (key instanceof TypedPointerKey) {
+      return getOwner(((TypedPointerKey) key).getBase());
+    } else if (key instanceof LocalPointerKey) {
+      return ((LocalPointerKey) key).getNode();
+    } else if (key instanceof ReturnValueKey) {
+      return ((ReturnValueKey) key).getNode();
+    } else {
+      return null;
+    }
+  }
+
   public NumberedGraph<PointsToSetVariable> getAssignmentGraph() {
     return flowGraph.getAssignmentGraph();
   }
@@ -20,9 +20,12 @@ import com.ibm.wala.classLoader.IField;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.classLoader.NewSiteReference;
 import com.ibm.wala.classLoader.ProgramCounter;
+import com.ibm.wala.classLoader.ShrikeClass;
 import com.ibm.wala.fixpoint.AbstractOperator;
 import com.ibm.wala.ipa.callgraph.AnalysisOptions;
 import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilderCancelException;
 import com.ibm.wala.ipa.callgraph.ContextKey;
 import com.ibm.wala.ipa.callgraph.ContextSelector;
 import com.ibm.wala.ipa.callgraph.Entrypoint;
@@ -63,12 +66,14 @@ import com.ibm.wala.types.MethodReference;
 import com.ibm.wala.types.Selector;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.CancelRuntimeException;
 import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.UnimplementedError;
+import com.ibm.wala.util.graph.traverse.DFS;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetAction;
@@ -174,6 +179,94 @@ public abstract class SSAPropagationCallGraphBuilder extends PropagationCallGrap
     return ikFactory.getInstanceKeyForPEI(node, x, type);
   }
 
+  /**
+   * Bring the call graph built by {@link #makeCallGraph} up to date after some classes were
+   * recompiled, without starting from scratch. This needs {@link
+   * AnalysisOptions#setIncrementalUpdates(boolean)}, and works on the live builder: solver state
+   * saved to disk and loaded into another process is not supported.
+   *
+   * <p>Each changed class of the class hierarchy of this builder adopts the class file of the class
+   * with the same name in rebuilt, so that classes, methods and call graph nodes keep their
+   * identity. The IR of the nodes for the methods of the changed classes is dropped, the
+   * constraints induced by their old code and everything derived from them are taken back (see
+   * {@link PropagationSystem#retractConstraints(Set)}), and the solver runs again. Nodes that are
+   * no longer reachable are removed from the call graph; their pointer keys remain, with empty
+   * points-to sets.
+   *
+   * <p>The call graph and points-to sets are then those a fresh build on rebuilt would give, except
+   * that calls the old code caused the fake root to make, such as those to class initializers,
+   * remain.
+   *
+   * @param rebuilt a class hierarchy with the new versions of the changed classes
+   * @param changedClasses the classes whose class files changed
+   * @return the updated call graph
+   * @throws IllegalStateException if no call graph has been built yet, or if it was built without
+   *     incremental updates
+   * @throws IllegalArgumentException if a changed class is not read from a class file in both class
+   *     hierarchies, or differs in anything but the code of its methods; such changes need a new
+   *     class hierarchy and a new call graph
+   */
+  public CallGraph updateCallGraph(
+      IClassHierarchy rebuilt, Collection<TypeReference> changedClasses, IProgressMonitor monitor)
+      throws CallGraphBuilderCancelException {
+    if (rebuilt == null) {
+      throw new IllegalArgumentException("rebuilt is null");
+    }
+    if (changedClasses == null) {
+      throw new IllegalArgumentException("changedClasses is null");
+    }
+    if (system == null) {
+      throw new IllegalStateException("no call graph to update; call makeCallGraph first");
+    }
+    if (!system.getOriginTracking()) {
+      throw new IllegalStateException("the call graph was built without incremental updates");
+    }
+    Set<CGNode> changed = HashSetFactory.make();
+    for (TypeReference type : changedClasses) {
+      IClass klass = getClassHierarchy().lookupClass(type);
+      IClass newKlass = rebuilt.lookupClass(type);
+      if (!(klass instanceof ShrikeClass) || !(newKlass instanceof ShrikeClass)) {
+        throw new IllegalArgumentException(type + " is not read from a class file in both");
+      }
+      ((ShrikeClass) klass).adoptClassFile((ShrikeClass) newKlass);
+      for (IMethod method : klass.getDeclaredMethods()) {
+        changed.addAll(callGraph.getNodes(method.getReference()));
+      }
+    }
+
+    for (CGNode node : changed) {
+      getAnalysisCache().invalidate(node.getMethod(), node.getContext());
+      ((ExplicitCallGraph.ExplicitNode) node).clearCachedIR();
+    }
+    Set<CGNode> retracted = system.retractConstraints(changed);
+    Set<CGNode> reachable =
+        DFS.getReachableNodes(callGraph, Collections.singleton(callGraph.getFakeRootNode()));
+    Set<CGNode> unreachable = HashSetFactory.make();
+    for (CGNode node : retracted) {
+      if (reachable.contains(node)) {
+        markChanged(node);
+      } else {
+        // its constraints are added again only if something calls it again
+        markUnvisited(node);
+        unreachable.add(node);
+      }
+    }
+
+    try {
+      getSolver().solve(monitor);
+    } catch (CancelException | CancelRuntimeException e) {
+      throw CallGraphBuilderCancelException.createCallGraphBuilderCancelException(
+          e, callGraph, system.extractPointerAnalysis(this));
+    }
+    for (CGNode node : unreachable) {
+      if (!haveAlreadyVisited(node)) {
+        callGraph.removeNodeAndEdges(node);
+      }
+    }
+    renumberCallGraph();
+    return callGraph;
+  }
+
   /**
    * Visit all instructions in a node, and add dataflow constraints induced by each statement in the
    * SSA form.
@@ -222,16 +315,54 @@ public abstract class SSAPropagationCallGraphBuilder extends PropagationCallGrap
       return false;
     }
 
-    addNodeInstructionConstraints(node, monitor);
+    PropagationProfiler profiler = getProfiler();
+    Object profile = profiler == null ? null : profiler.startNode(system);
+
+    if (options.getOfflineVariableSubstitution()) {
+      substituteEquivalentLocals(node, ir);
+    }
+
+    system.setOrigin(node);
+    try {
+      addNodeInstructionConstraints(node, monitor);
 
-    addNodeValueConstraints(node, monitor);
+      addNodeValueConstraints(node, monitor);
 
-    DefUse du = getCFAContextInterpreter().getDU(node);
-    addNodePassthruExceptionConstraints(node, ir, du);
+      DefUse du = getCFAContextInterpreter().getDU(node);
+      addNodePassthruExceptionConstraints(node, ir, du);
+    } finally {
+      system.setOrigin(null);
+    }
+
+    if (profiler != null) {
+      profiler.endNode(profile, node, system);
+    }
     // conservatively assume something changed
     return true;
   }
 
+  /**
+   * Before adding constraints from node, let each local whose points-to set must equal that of
+   * another local share that local's variable.
+   *
+   * @see OfflineVariableSubstitution
+   */
+  protected void substituteEquivalentLocals(CGNode node, IRView ir) {
+    DefUse du = getCFAContextInterpreter().getDU(node);
+    SymbolTable symbolTable = ir.getSymbolTable();
+    int[] rep =
+        OfflineVariableSubstitution.computeRepresentatives(
+            ir,
+            vn -> !hasNoInterestingUses(node, vn, du),
+            vn -> contentsAreInvariant(symbolTable, du, vn));
+    for (int vn = 1; vn < rep.length; vn++) {
+      if (rep[vn] != vn) {
+        system.substitutePointerKey(
+            getPointerKeyForLocal(node, vn), getPointerKeyForLocal(node, rep[vn]));
+      }
+    }
+  }
+
   /** @return a visitor to examine instructions in the ir */
   protected ConstraintVisitor makeVisitor(CGNode node) {
     return new ConstraintVisitor(this, node);
@@ -1807,6 +1938,16 @@ public abstract class SSAPropagationCallGraphBuilder extends PropagationCallGrap
       Arrays.setAll(previousPtrs, i -> IntSetUtil.getDefaultIntSetFactory().make());
     }
 
+    /** @return the node that contains the call */
+    CGNode getNode() {
+      return node;
+    }
+
+    /** @return the call site dispatched by this operator */
+    CallSiteReference getCallSite() {
+      return call.getCallSite();
+    }
+
     private byte cpa(final PointsToSetVariable[] rhs) {
       final MutableBoolean changed = new MutableBoolean();
       for (int rhsIndex = 0; rhsIndex < rhs.length; rhsIndex++) {
@@ -367,6 +367,13 @@ public abstract class AbstractRTABuilder extends PropagationCallGraphBuilder {
   /*
    * @see com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder#makeSolver()
    */
+  /**
+   * The nodes of an RTA call graph delegate call sites to each other by node number (see {@link
+   * DelegatingExplicitCallGraph}), so they keep the numbers they were created with.
+   */
+  @Override
+  protected void renumberCallGraph() {}
+
   @Override
   protected IPointsToSolver makeSolver() {
     return new StandardSolver(system, this);
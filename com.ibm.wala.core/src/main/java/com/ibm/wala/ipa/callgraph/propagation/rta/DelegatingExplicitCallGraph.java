@@ -255,6 +255,16 @@ public class DelegatingExplicitCallGraph extends ExplicitCallGraph {
   /*
    * @see com.ibm.wala.ipa.callgraph.impl.ExplicitCallGraph#makeEdgeManger()
    */
+  /**
+   * Not supported: call sites delegated to other nodes are recorded by node number.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void renumberNodes(Iterable<CGNode> order) {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   protected ExplicitEdgeManager makeEdgeManger() {
     return new DelegatingEdgeManager();
@@ -0,0 +1,661 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph.store;
+
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IField;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.NewSiteReference;
+import com.ibm.wala.classLoader.SyntheticMethod;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.callgraph.impl.FakeRootClass;
+import com.ibm.wala.ipa.callgraph.propagation.AllocationSiteInNode;
+import com.ibm.wala.ipa.callgraph.propagation.ArrayContentsKey;
+import com.ibm.wala.ipa.callgraph.propagation.FilteredPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceFieldKey;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.LocalPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder.TypedPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.ReturnValueKey;
+import com.ibm.wala.ipa.callgraph.propagation.StaticFieldKey;
+import com.ibm.wala.ipa.callgraph.propagation.cfa.ExceptionReturnValueKey;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeBT.IInvokeInstruction;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.FieldReference;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.intset.OrdinalSet;
+import com.ibm.wala.util.intset.OrdinalSetMapping;
+import com.ibm.wala.util.strings.Atom;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes call graphs and pointer analysis results in a compact binary format, so that the
+ * results of an expensive analysis can be reused without rebuilding the propagation system.
+ *
+ * <p>A store holds the nodes of the call graph, in the order of their numbers, with the targets of
+ * each call site, the successor and predecessor relations, and optionally, the instance keys and
+ * the points-to sets of the pointer keys of a {@link PointerAnalysis}. Methods, fields and types
+ * are stored by name and resolved against a class hierarchy on loading. {@link #read(File,
+ * IClassHierarchy, IAnalysisCacheView)} memory-maps the store and decodes only the tables of nodes,
+ * instance keys and pointer keys; edges, call sites and points-to sets are read from the mapping
+ * when they are first asked for.
+ *
+ * <p>Some information does not survive the round trip:
+ *
+ * <ul>
+ *   <li>contexts other than {@link Everywhere} become {@link StoredContext}s, which keep only the
+ *       identity and description of the original contexts
+ *   <li>instance keys become {@link StoredInstanceKey}s, which keep the concrete type, creation
+ *       sites and description of the original keys
+ *   <li>WALA-synthetic methods, like the fake root method, are replaced by placeholders with the
+ *       same reference, which have no IR
+ *   <li>only local, typed local, return value, static field, instance field and array contents
+ *       pointer keys are stored; points-to sets of other kinds of keys are dropped
+ * </ul>
+ *
+ * Call sites must use the Java {@link IInvokeInstruction.Dispatch} codes. Stores are limited to
+ * 2GB.
+ */
+public class CallGraphStore {
+
+  private static final int MAGIC = 0x57414c43; // "WALC"
+
+  private static final int VERSION = 1;
+
+  /* kinds of pointer keys */
+  private static final byte LOCAL = 0;
+
+  private static final byte RETURN_VALUE = 1;
+
+  private static final byte EXCEPTIONAL_RETURN_VALUE = 2;
+
+  private static final byte STATIC_FIELD = 3;
+
+  private static final byte INSTANCE_FIELD = 4;
+
+  private static final byte ARRAY_CONTENTS = 5;
+
+  private static final byte TYPED_LOCAL = 6;
+
+  /** kind, filtered flag, three operands and the position of the points-to set */
+  private static final int POINTER_KEY_SIZE = 18;
+
+  /* flags of stored methods */
+  private static final int SYNTHETIC = 1;
+
+  private static final int STATIC = 2;
+
+  private static final int FACTORY = 4;
+
+  private CallGraphStore() {}
+
+  /**
+   * Write a call graph and, optionally, the results of the pointer analysis that built it.
+   *
+   * @param pa the pointer analysis results for cg, or null to store just the call graph
+   */
+  public static void write(CallGraph cg, PointerAnalysis<InstanceKey> pa, File file)
+      throws IOException {
+    if (cg == null) {
+      throw new IllegalArgumentException("null cg");
+    }
+    Encoder encoder = new Encoder(cg, pa);
+    encoder.encode();
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      encoder.writeTables(out);
+      encoder.body.writeTo(out);
+      out.writeInt(encoder.nodeData.size());
+      encoder.nodeData.writeTo(out);
+      out.writeInt(encoder.sets.size());
+      encoder.sets.writeTo(out);
+    }
+  }
+
+  /** Encodes the sections of a store; the string, type, method and field tables come last. */
+  private static final class Encoder {
+
+    private final CallGraph cg;
+
+    private final PointerAnalysis<InstanceKey> pa;
+
+    private final Map<String, Integer> strings = HashMapFactory.make();
+
+    private final Map<TypeReference, Integer> types = HashMapFactory.make();
+
+    private final Map<MethodReference, Integer> methods = HashMapFactory.make();
+
+    private final Map<FieldReference, Integer> fields = HashMapFactory.make();
+
+    private final Map<CGNode, Integer> ids = HashMapFactory.make();
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    private final ByteArrayOutputStream nodeData = new ByteArrayOutputStream();
+
+    private final ByteArrayOutputStream sets = new ByteArrayOutputStream();
+
+    private Encoder(CallGraph cg, PointerAnalysis<InstanceKey> pa) {
+      this.cg = cg;
+      this.pa = pa;
+    }
+
+    private static <T> int index(Map<T, Integer> table, T key) {
+      Integer result = table.get(key);
+      if (result == null) {
+        result = table.size();
+        table.put(key, result);
+      }
+      return result;
+    }
+
+    private int string(String s) {
+      return index(strings, s);
+    }
+
+    private int type(TypeReference t) {
+      string(t.getClassLoader().getName().toString());
+      string(t.getName().toString());
+      return index(types, t);
+    }
+
+    private int method(MethodReference m) {
+      type(m.getDeclaringClass());
+      string(m.getSelector().toString());
+      return index(methods, m);
+    }
+
+    private int field(FieldReference f) {
+      type(f.getDeclaringClass());
+      type(f.getFieldType());
+      string(f.getName().toString());
+      return index(fields, f);
+    }
+
+    private int id(CGNode n) {
+      return n == null ? -1 : ids.get(n);
+    }
+
+    private void encode() throws IOException {
+      List<CGNode> nodes = new ArrayList<>();
+      cg.forEach(nodes::add);
+      nodes.sort(Comparator.comparingInt(cg::getNumber));
+      for (CGNode n : nodes) {
+        ids.put(n, ids.size());
+      }
+
+      DataOutputStream out = new DataOutputStream(body);
+      Map<Context, Integer> contexts = HashMapFactory.make();
+      List<String> contextNames = new ArrayList<>();
+      for (CGNode n : nodes) {
+        if (!(n.getContext() instanceof Everywhere) && !contexts.containsKey(n.getContext())) {
+          contexts.put(n.getContext(), contexts.size());
+          contextNames.add(n.getContext().toString());
+        }
+      }
+      out.writeInt(contextNames.size());
+      for (String name : contextNames) {
+        out.writeInt(string(name));
+      }
+
+      DataOutputStream data = new DataOutputStream(nodeData);
+      out.writeInt(nodes.size());
+      for (CGNode n : nodes) {
+        IMethod m = n.getMethod();
+        int flags = m.isStatic() ? STATIC : 0;
+        if (m.isWalaSynthetic()) {
+          flags |= SYNTHETIC;
+          if (m instanceof SyntheticMethod && ((SyntheticMethod) m).isFactoryMethod()) {
+            flags |= FACTORY;
+          }
+        }
+        out.writeInt(method(m.getReference()));
+        out.writeByte(flags);
+        out.writeInt(n.getContext() instanceof Everywhere ? -1 : contexts.get(n.getContext()));
+        out.writeInt(data.size());
+        encodeSites(n, data);
+      }
+      out.writeInt(id(cg.getFakeRootNode()));
+      out.writeInt(id(cg.getFakeWorldClinitNode()));
+      out.writeInt(cg.getEntrypointNodes().size());
+      for (CGNode n : cg.getEntrypointNodes()) {
+        out.writeInt(id(n));
+      }
+
+      encodeAdjacency(out, nodes, true);
+      encodeAdjacency(out, nodes, false);
+      encodePointerAnalysis(out);
+    }
+
+    private void encodeSites(CGNode n, DataOutputStream data) throws IOException {
+      List<CallSiteReference> calls = new ArrayList<>();
+      n.iterateCallSites().forEachRemaining(calls::add);
+      data.writeInt(calls.size());
+      for (CallSiteReference site : calls) {
+        if (!(site.getInvocationCode() instanceof IInvokeInstruction.Dispatch)) {
+          throw new IllegalArgumentException("cannot store call site " + site + " of " + n);
+        }
+        data.writeInt(site.getProgramCounter());
+        data.writeInt(method(site.getDeclaredTarget()));
+        data.writeByte(((IInvokeInstruction.Dispatch) site.getInvocationCode()).ordinal());
+        Set<CGNode> targets = cg.getPossibleTargets(n, site);
+        data.writeInt(targets.size());
+        for (CGNode target : targets) {
+          data.writeInt(id(target));
+        }
+      }
+      List<NewSiteReference> news = new ArrayList<>();
+      n.iterateNewSites().forEachRemaining(news::add);
+      data.writeInt(news.size());
+      for (NewSiteReference site : news) {
+        data.writeInt(site.getProgramCounter());
+        data.writeInt(type(site.getDeclaredType()));
+      }
+    }
+
+    /** write the offsets and then the targets of the sorted successor or predecessor lists */
+    private void encodeAdjacency(DataOutputStream out, List<CGNode> nodes, boolean succ)
+        throws IOException {
+      int[][] adjacent = new int[nodes.size()][];
+      int offset = 0;
+      for (int i = 0; i < adjacent.length; i++) {
+        CGNode n = nodes.get(i);
+        Iterator<CGNode> it = succ ? cg.getSuccNodes(n) : cg.getPredNodes(n);
+        List<CGNode> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        adjacent[i] = list.stream().mapToInt(this::id).sorted().toArray();
+        out.writeInt(offset);
+        offset += adjacent[i].length;
+      }
+      out.writeInt(offset);
+      for (int[] a : adjacent) {
+        for (int x : a) {
+          out.writeInt(x);
+        }
+      }
+    }
+
+    private void encodePointerAnalysis(DataOutputStream out) throws IOException {
+      if (pa == null) {
+        out.writeInt(0);
+        out.writeInt(0);
+        return;
+      }
+      OrdinalSetMapping<InstanceKey> mapping = pa.getInstanceKeyMapping();
+
+      // compute the points-to sets first, since that may add instance keys to the mapping
+      ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+      DataOutputStream keys = new DataOutputStream(keyBytes);
+      DataOutputStream setData = new DataOutputStream(sets);
+      Map<IntBuffer, Integer> setOffsets = HashMapFactory.make();
+      int keyCount = 0;
+      for (PointerKey key : pa.getPointerKeys()) {
+        byte kind;
+        int a = 0, b = 0, c = 0;
+        if (key instanceof LocalPointerKey) {
+          kind = LOCAL;
+          a = id(((LocalPointerKey) key).getNode());
+          b = ((LocalPointerKey) key).getValueNumber();
+        } else if (key instanceof ExceptionReturnValueKey) {
+          kind = EXCEPTIONAL_RETURN_VALUE;
+          a = id(((ExceptionReturnValueKey) key).getNode());
+        } else if (key instanceof ReturnValueKey) {
+          kind = RETURN_VALUE;
+          a = id(((ReturnValueKey) key).getNode());
+        } else if (key instanceof StaticFieldKey) {
+          kind = STATIC_FIELD;
+          a = field(((StaticFieldKey) key).getField().getReference());
+        } else if (key instanceof InstanceFieldKey) {
+          kind = INSTANCE_FIELD;
+          a = mapping.getMappedIndex(((InstanceFieldKey) key).getInstanceKey());
+          b = field(((InstanceFieldKey) key).getField().getReference());
+        } else if (key instanceof ArrayContentsKey) {
+          kind = ARRAY_CONTENTS;
+          a = mapping.getMappedIndex(((ArrayContentsKey) key).getInstanceKey());
+        } else if (key instanceof TypedPointerKey
+            && ((TypedPointerKey) key).getBase() instanceof LocalPointerKey) {
+          kind = TYPED_LOCAL;
+          LocalPointerKey base = (LocalPointerKey) ((TypedPointerKey) key).getBase();
+          a = id(base.getNode());
+          b = base.getValueNumber();
+          FilteredPointerKey.SingleClassFilter filter =
+              (FilteredPointerKey.SingleClassFilter) ((TypedPointerKey) key).getTypeFilter();
+          c = type(filter.getConcreteType().getReference());
+        } else {
+          continue;
+        }
+        if (a < 0) {
+          continue;
+        }
+        OrdinalSet<InstanceKey> pts = pa.getPointsToSet(key);
+        int[] set = new int[pts.size()];
+        int size = 0;
+        for (InstanceKey ik : pts) {
+          set[size++] = mapping.getMappedIndex(ik);
+        }
+        Arrays.sort(set);
+        // identical sets, e.g. of copies of the same variable, are stored once
+        Integer setOffset = setOffsets.get(IntBuffer.wrap(set));
+        if (setOffset == null) {
+          setOffset = setData.size();
+          setOffsets.put(IntBuffer.wrap(set), setOffset);
+          setData.writeInt(set.length);
+          for (int x : set) {
+            setData.writeInt(x);
+          }
+        }
+        keys.writeByte(kind);
+        keys.writeBoolean(pa.isFiltered(key));
+        keys.writeInt(a);
+        keys.writeInt(b);
+        keys.writeInt(c);
+        keys.writeInt(setOffset);
+        keyCount++;
+      }
+
+      int instanceKeyCount = mapping.getMaximumIndex() + 1;
+      out.writeInt(instanceKeyCount);
+      for (int i = 0; i < instanceKeyCount; i++) {
+        InstanceKey ik = mapping.getMappedObject(i);
+        IClass concreteType = ik.getConcreteType();
+        out.writeInt(concreteType == null ? -1 : type(concreteType.getReference()));
+        out.writeInt(string(ik.toString()));
+        out.writeBoolean(ik instanceof AllocationSiteInNode);
+        List<Pair<CGNode, NewSiteReference>> sites = new ArrayList<>();
+        for (Pair<CGNode, NewSiteReference> site :
+            Iterator2Iterable.make(ik.getCreationSites(cg))) {
+          if (ids.containsKey(site.fst)) {
+            sites.add(site);
+          }
+        }
+        out.writeInt(sites.size());
+        for (Pair<CGNode, NewSiteReference> site : sites) {
+          out.writeInt(id(site.fst));
+          out.writeInt(site.snd.getProgramCounter());
+          out.writeInt(type(site.snd.getDeclaredType()));
+        }
+      }
+      out.writeInt(keyCount);
+      keyBytes.writeTo(out);
+    }
+
+    private static <T> List<T> byIndex(Map<T, Integer> table) {
+      List<T> result = new ArrayList<>(table.keySet());
+      result.sort(Comparator.comparingInt(table::get));
+      return result;
+    }
+
+    /** write the tables, which must be complete, so only after all other sections are encoded */
+    private void writeTables(DataOutputStream out) throws IOException {
+      List<String> stringList = byIndex(strings);
+      out.writeInt(stringList.size());
+      for (String s : stringList) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+      List<TypeReference> typeList = byIndex(types);
+      out.writeInt(typeList.size());
+      for (TypeReference t : typeList) {
+        out.writeInt(string(t.getClassLoader().getName().toString()));
+        out.writeInt(string(t.getName().toString()));
+      }
+      List<MethodReference> methodList = byIndex(methods);
+      out.writeInt(methodList.size());
+      for (MethodReference m : methodList) {
+        out.writeInt(type(m.getDeclaringClass()));
+        out.writeInt(string(m.getSelector().toString()));
+      }
+      List<FieldReference> fieldList = byIndex(fields);
+      out.writeInt(fieldList.size());
+      for (FieldReference f : fieldList) {
+        out.writeInt(type(f.getDeclaringClass()));
+        out.writeInt(string(f.getName().toString()));
+        out.writeInt(type(f.getFieldType()));
+      }
+    }
+  }
+
+  /**
+   * Load a store. The class hierarchy should be built from the same analysis scope as the one the
+   * stored results were computed for.
+   *
+   * @param cache used to build the IRs of the nodes of the loaded call graph
+   * @return the stored pointer analysis results, whose {@link StoredPointerAnalysis#getCallGraph()
+   *     call graph} is the stored call graph; if no pointer analysis results were stored, the
+   *     points-to sets are all empty
+   * @throws IOException if file cannot be read or is not a call graph store
+   */
+  public static StoredPointerAnalysis read(File file, IClassHierarchy cha, IAnalysisCacheView cache)
+      throws IOException {
+    if (cha == null) {
+      throw new IllegalArgumentException("null cha");
+    }
+    ByteBuffer contents;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+        FileChannel channel = raf.getChannel()) {
+      contents = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    ByteBuffer in = contents.duplicate();
+    if (in.remaining() < 8 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+      throw new IOException("not a call graph store: " + file);
+    }
+
+    String[] strings = new String[in.getInt()];
+    for (int i = 0; i < strings.length; i++) {
+      byte[] bytes = new byte[in.getInt()];
+      in.get(bytes);
+      strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+    TypeReference[] types = new TypeReference[in.getInt()];
+    for (int i = 0; i < types.length; i++) {
+      ClassLoaderReference loader =
+          cha.getScope().getLoader(Atom.findOrCreateUnicodeAtom(strings[in.getInt()]));
+      types[i] = TypeReference.findOrCreate(loader, strings[in.getInt()]);
+    }
+    MethodReference[] methods = new MethodReference[in.getInt()];
+    for (int i = 0; i < methods.length; i++) {
+      TypeReference declaringClass = types[in.getInt()];
+      methods[i] =
+          MethodReference.findOrCreate(declaringClass, Selector.make(strings[in.getInt()]));
+    }
+    FieldReference[] fields = new FieldReference[in.getInt()];
+    for (int i = 0; i < fields.length; i++) {
+      TypeReference declaringClass = types[in.getInt()];
+      Atom name = Atom.findOrCreateUnicodeAtom(strings[in.getInt()]);
+      fields[i] = FieldReference.findOrCreate(declaringClass, name, types[in.getInt()]);
+    }
+
+    Context[] contexts = new Context[in.getInt()];
+    for (int i = 0; i < contexts.length; i++) {
+      contexts[i] = new StoredContext(strings[in.getInt()]);
+    }
+
+    StoredCallGraph cg = new StoredCallGraph(cha, cache, contents, methods, types);
+    CGNode[] nodes = new CGNode[in.getInt()];
+    Map<MethodReference, IMethod> placeholders = HashMapFactory.make();
+    for (int i = 0; i < nodes.length; i++) {
+      MethodReference ref = methods[in.getInt()];
+      int flags = in.get();
+      int context = in.getInt();
+      IMethod method = resolve(cha, ref, flags, placeholders);
+      nodes[i] =
+          cg.makeNode(method, context < 0 ? Everywhere.EVERYWHERE : contexts[context], in.getInt());
+    }
+    int fakeRoot = in.getInt();
+    int fakeWorldClinit = in.getInt();
+    cg.setRoots(
+        fakeRoot < 0 ? null : nodes[fakeRoot], fakeWorldClinit < 0 ? null : nodes[fakeWorldClinit]);
+    for (int i = in.getInt(); i > 0; i--) {
+      cg.addEntrypoint(nodes[in.getInt()]);
+    }
+
+    // the adjacency lists stay in the mapping
+    int succOffsets = in.position();
+    int succTargets = succOffsets + 4 * (nodes.length + 1);
+    in.position(succTargets + 4 * contents.getInt(succTargets - 4));
+    int predOffsets = in.position();
+    int predTargets = predOffsets + 4 * (nodes.length + 1);
+    in.position(predTargets + 4 * contents.getInt(predTargets - 4));
+    cg.setEdges(succOffsets, succTargets, predOffsets, predTargets);
+
+    InstanceKey[] instanceKeys = new InstanceKey[in.getInt()];
+    boolean[] exact = new boolean[instanceKeys.length];
+    for (int i = 0; i < instanceKeys.length; i++) {
+      int type = in.getInt();
+      String description = strings[in.getInt()];
+      exact[i] = in.get() != 0;
+      List<Pair<CGNode, NewSiteReference>> sites = new ArrayList<>();
+      for (int j = in.getInt(); j > 0; j--) {
+        CGNode node = nodes[in.getInt()];
+        int pc = in.getInt();
+        sites.add(Pair.make(node, NewSiteReference.make(pc, types[in.getInt()])));
+      }
+      IClass concreteType = type < 0 ? null : cha.lookupClass(types[type]);
+      instanceKeys[i] = new StoredInstanceKey(concreteType, description, sites);
+    }
+    StoredPointerAnalysis pa = new StoredPointerAnalysis(cg, cha, contents, instanceKeys);
+    // keys for a single allocation site take precedence over those summarizing several sites
+    for (boolean pass : new boolean[] {true, false}) {
+      for (int i = 0; i < instanceKeys.length; i++) {
+        if (exact[i] == pass) {
+          for (Pair<CGNode, NewSiteReference> site :
+              Iterator2Iterable.make(instanceKeys[i].getCreationSites(cg))) {
+            pa.addAllocation(site.fst, site.snd, instanceKeys[i]);
+          }
+        }
+      }
+    }
+
+    int keyCount = in.getInt();
+    int keys = in.position();
+    in.position(keys + POINTER_KEY_SIZE * keyCount);
+    int nodeData = in.position() + 4;
+    in.position(nodeData + in.getInt());
+    int sets = in.position() + 4;
+    if (sets + in.getInt() != contents.limit()) {
+      throw new IOException("truncated call graph store: " + file);
+    }
+    cg.setNodeData(nodeData);
+
+    for (int p = keys; p < nodeData - 4; p += POINTER_KEY_SIZE) {
+      byte kind = contents.get(p);
+      boolean filtered = contents.get(p + 1) != 0;
+      int a = contents.getInt(p + 2);
+      int b = contents.getInt(p + 6);
+      PointerKey key;
+      switch (kind) {
+        case LOCAL:
+          key = pa.getHeapModel().getPointerKeyForLocal(nodes[a], b);
+          break;
+        case RETURN_VALUE:
+          key = pa.getHeapModel().getPointerKeyForReturnValue(nodes[a]);
+          break;
+        case EXCEPTIONAL_RETURN_VALUE:
+          key = pa.getHeapModel().getPointerKeyForExceptionalReturnValue(nodes[a]);
+          break;
+        case STATIC_FIELD:
+          {
+            IField f = cha.resolveField(fields[a]);
+            key = f == null ? null : pa.getHeapModel().getPointerKeyForStaticField(f);
+            break;
+          }
+        case INSTANCE_FIELD:
+          {
+            IField f = cha.resolveField(fields[b]);
+            key =
+                f == null
+                    ? null
+                    : pa.getHeapModel().getPointerKeyForInstanceField(instanceKeys[a], f);
+            break;
+          }
+        case ARRAY_CONTENTS:
+          key = pa.getHeapModel().getPointerKeyForArrayContents(instanceKeys[a]);
+          break;
+        case TYPED_LOCAL:
+          {
+            IClass type = cha.lookupClass(types[contents.getInt(p + 10)]);
+            key =
+                type == null
+                    ? null
+                    : TypedPointerKey.make(
+                        pa.getHeapModel().getPointerKeyForLocal(nodes[a], b), type);
+            break;
+          }
+        default:
+          throw new IOException("unknown pointer key kind " + kind + " in " + file);
+      }
+      if (key != null) {
+        pa.addPointerKey(key, filtered, sets + contents.getInt(p + 14));
+      }
+    }
+    return pa;
+  }
+
+  /**
+   * @return the method for a stored node; WALA-synthetic methods and methods missing from the class
+   *     hierarchy are replaced by placeholders
+   */
+  private static IMethod resolve(
+      IClassHierarchy cha,
+      MethodReference ref,
+      int flags,
+      Map<MethodReference, IMethod> placeholders) {
+    if ((flags & SYNTHETIC) == 0) {
+      IMethod m = cha.resolveMethod(ref);
+      if (m != null && m.getReference().equals(ref)) {
+        return m;
+      }
+    }
+    return placeholders.computeIfAbsent(
+        ref,
+        r -> {
+          IClass declaringClass = cha.lookupClass(r.getDeclaringClass());
+          if (declaringClass == null) {
+            declaringClass = new FakeRootClass(r.getDeclaringClass(), cha);
+          }
+          return new SyntheticMethod(
+              r, declaringClass, (flags & STATIC) != 0, (flags & FACTORY) != 0);
+        });
+  }
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph.store;
+
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.NewSiteReference;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeBT.IInvokeInstruction;
+import com.ibm.wala.ssa.DefUse;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.graph.AbstractNumberedGraph;
+import com.ibm.wala.util.graph.NumberedEdgeManager;
+import com.ibm.wala.util.graph.NumberedNodeManager;
+import com.ibm.wala.util.graph.impl.DelegatingNumberedNodeManager;
+import com.ibm.wala.util.graph.impl.NodeWithNumber;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.IntSetUtil;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A call graph read from a {@link CallGraphStore}. Nodes are numbered as in the stored graph. The
+ * edges and the call and allocation sites of each node are read from the memory-mapped store on
+ * demand, so loading costs time proportional to the number of nodes, not the number of edges.
+ *
+ * <p>The graph is immutable. IRs are rebuilt through an {@link IAnalysisCacheView} for nodes of
+ * methods from class files; nodes of WALA-synthetic methods, like the fake root, have no IR.
+ */
+public class StoredCallGraph extends AbstractNumberedGraph<CGNode> implements CallGraph {
+
+  private static final CallSiteReference[] NO_CALLS = new CallSiteReference[0];
+
+  private static final NewSiteReference[] NO_NEWS = new NewSiteReference[0];
+
+  private static final IInvokeInstruction.Dispatch[] DISPATCH =
+      IInvokeInstruction.Dispatch.values();
+
+  private final IClassHierarchy cha;
+
+  private final IAnalysisCacheView cache;
+
+  /** the store; only absolute reads are used, so it may be shared between threads */
+  private final ByteBuffer contents;
+
+  private final MethodReference[] methods;
+
+  private final TypeReference[] types;
+
+  private final DelegatingNumberedNodeManager<CGNode> nodeManager =
+      new DelegatingNumberedNodeManager<>();
+
+  private final Edges edges = new Edges();
+
+  private final Map<Pair<IMethod, Context>, CGNode> nodes = HashMapFactory.make();
+
+  private final Map<MethodReference, Set<CGNode>> mr2Nodes = HashMapFactory.make();
+
+  private final List<CGNode> entrypointNodes = new ArrayList<>();
+
+  private CGNode fakeRoot;
+
+  private CGNode fakeWorldClinit;
+
+  /** position of the per-node call and allocation site records */
+  private int nodeData;
+
+  /** positions of the successor and predecessor tables */
+  private int succOffsets, succTargets, predOffsets, predTargets;
+
+  StoredCallGraph(
+      IClassHierarchy cha,
+      IAnalysisCacheView cache,
+      ByteBuffer contents,
+      MethodReference[] methods,
+      TypeReference[] types) {
+    this.cha = cha;
+    this.cache = cache;
+    this.contents = contents;
+    this.methods = methods;
+    this.types = types;
+  }
+
+  StoredNode makeNode(IMethod method, Context context, int dataOffset) {
+    StoredNode node = new StoredNode(method, context, dataOffset);
+    nodeManager.addNode(node);
+    nodes.put(Pair.make(method, context), node);
+    mr2Nodes.computeIfAbsent(method.getReference(), k -> HashSetFactory.make(3)).add(node);
+    return node;
+  }
+
+  void setRoots(CGNode fakeRoot, CGNode fakeWorldClinit) {
+    this.fakeRoot = fakeRoot;
+    this.fakeWorldClinit = fakeWorldClinit;
+  }
+
+  void addEntrypoint(CGNode node) {
+    entrypointNodes.add(node);
+  }
+
+  void setEdges(int succOffsets, int succTargets, int predOffsets, int predTargets) {
+    this.succOffsets = succOffsets;
+    this.succTargets = succTargets;
+    this.predOffsets = predOffsets;
+    this.predTargets = predTargets;
+  }
+
+  void setNodeData(int nodeData) {
+    this.nodeData = nodeData;
+  }
+
+  @Override
+  protected NumberedNodeManager<CGNode> getNodeManager() {
+    return nodeManager;
+  }
+
+  @Override
+  protected NumberedEdgeManager<CGNode> getEdgeManager() {
+    return edges;
+  }
+
+  @Override
+  public CGNode getFakeRootNode() {
+    return fakeRoot;
+  }
+
+  @Override
+  public CGNode getFakeWorldClinitNode() {
+    return fakeWorldClinit;
+  }
+
+  @Override
+  public Collection<CGNode> getEntrypointNodes() {
+    return Collections.unmodifiableList(entrypointNodes);
+  }
+
+  @Override
+  public CGNode getNode(IMethod method, Context C) {
+    return nodes.get(Pair.make(method, C));
+  }
+
+  @Override
+  public Set<CGNode> getNodes(MethodReference m) {
+    IMethod im = cha.resolveMethod(m);
+    if (im != null) {
+      m = im.getReference();
+    }
+    Set<CGNode> result = mr2Nodes.get(m);
+    return (result == null) ? Collections.emptySet() : Collections.unmodifiableSet(result);
+  }
+
+  @Override
+  public IClassHierarchy getClassHierarchy() {
+    return cha;
+  }
+
+  @Override
+  public Set<CGNode> getPossibleTargets(CGNode node, CallSiteReference site) {
+    int[] targets = ((StoredNode) node).getSites().targets.get(site);
+    if (targets == null) {
+      return Collections.emptySet();
+    }
+    Set<CGNode> result = HashSetFactory.make(targets.length);
+    for (int t : targets) {
+      result.add(getNode(t));
+    }
+    return result;
+  }
+
+  @Override
+  public int getNumberOfTargets(CGNode node, CallSiteReference site) {
+    int[] targets = ((StoredNode) node).getSites().targets.get(site);
+    return targets == null ? 0 : targets.length;
+  }
+
+  @Override
+  public Iterator<CallSiteReference> getPossibleSites(CGNode src, CGNode target) {
+    int t = getNumber(target);
+    List<CallSiteReference> result = new ArrayList<>();
+    Sites sites = ((StoredNode) src).getSites();
+    for (CallSiteReference site : sites.calls) {
+      if (Arrays.stream(sites.targets.get(site)).anyMatch(x -> x == t)) {
+        result.add(site);
+      }
+    }
+    return result.iterator();
+  }
+
+  @Override
+  public void removeNodeAndEdges(CGNode N) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String toString() {
+    return "StoredCallGraph: " + getNumberOfNodes() + " nodes";
+  }
+
+  /** The decoded call and allocation sites of a node. */
+  private static final class Sites {
+
+    private final CallSiteReference[] calls;
+
+    private final Map<CallSiteReference, int[]> targets;
+
+    private final NewSiteReference[] news;
+
+    private Sites(
+        CallSiteReference[] calls, Map<CallSiteReference, int[]> targets, NewSiteReference[] news) {
+      this.calls = calls;
+      this.targets = targets;
+      this.news = news;
+    }
+  }
+
+  private Sites decodeSites(int offset) {
+    int p = nodeData + offset;
+    int callCount = contents.getInt(p);
+    p += 4;
+    CallSiteReference[] calls = callCount == 0 ? NO_CALLS : new CallSiteReference[callCount];
+    Map<CallSiteReference, int[]> targets = HashMapFactory.make(callCount);
+    for (int i = 0; i < callCount; i++) {
+      int pc = contents.getInt(p);
+      MethodReference declaredTarget = methods[contents.getInt(p + 4)];
+      IInvokeInstruction.Dispatch dispatch = DISPATCH[contents.get(p + 8)];
+      int targetCount = contents.getInt(p + 9);
+      p += 13;
+      int[] t = new int[targetCount];
+      for (int j = 0; j < targetCount; j++, p += 4) {
+        t[j] = contents.getInt(p);
+      }
+      calls[i] = CallSiteReference.make(pc, declaredTarget, dispatch);
+      targets.put(calls[i], t);
+    }
+    int newCount = contents.getInt(p);
+    p += 4;
+    NewSiteReference[] news = newCount == 0 ? NO_NEWS : new NewSiteReference[newCount];
+    for (int i = 0; i < newCount; i++, p += 8) {
+      news[i] = NewSiteReference.make(contents.getInt(p), types[contents.getInt(p + 4)]);
+    }
+    return new Sites(calls, targets, news);
+  }
+
+  /** A node of a stored call graph. */
+  public class StoredNode extends NodeWithNumber implements CGNode {
+
+    private final IMethod method;
+
+    private final Context context;
+
+    private final int dataOffset;
+
+    /** decoded on first use; decoding is idempotent, so racing threads are harmless */
+    private volatile Sites sites;
+
+    private StoredNode(IMethod method, Context context, int dataOffset) {
+      this.method = method;
+      this.context = context;
+      this.dataOffset = dataOffset;
+    }
+
+    private Sites getSites() {
+      Sites result = sites;
+      if (result == null) {
+        result = sites = decodeSites(dataOffset);
+      }
+      return result;
+    }
+
+    @Override
+    public IMethod getMethod() {
+      return method;
+    }
+
+    @Override
+    public Context getContext() {
+      return context;
+    }
+
+    @Override
+    public IClassHierarchy getClassHierarchy() {
+      return cha;
+    }
+
+    @Override
+    public boolean addTarget(CallSiteReference site, CGNode target) {
+      throw new UnsupportedOperationException("stored call graphs are immutable");
+    }
+
+    /** @return the IR of the method, or null for WALA-synthetic methods */
+    @Override
+    public IR getIR() {
+      if (method.isWalaSynthetic()) {
+        return null;
+      }
+      return cache.getIR(method, Everywhere.EVERYWHERE);
+    }
+
+    @Override
+    public DefUse getDU() {
+      IR ir = getIR();
+      return ir == null ? null : cache.getDefUse(ir);
+    }
+
+    @Override
+    public Iterator<NewSiteReference> iterateNewSites() {
+      return Arrays.asList(getSites().news).iterator();
+    }
+
+    @Override
+    public Iterator<CallSiteReference> iterateCallSites() {
+      return Arrays.asList(getSites().calls).iterator();
+    }
+
+    @Override
+    public String toString() {
+      return "Node: " + method.toString() + " Context: " + context.toString();
+    }
+  }
+
+  /** Successors and predecessors, kept in the store as sorted adjacency arrays. */
+  private final class Edges implements NumberedEdgeManager<CGNode> {
+
+    private int[] read(int offsets, int targets, int n) {
+      int start = contents.getInt(offsets + 4 * n);
+      int end = contents.getInt(offsets + 4 * n + 4);
+      int[] result = new int[end - start];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = contents.getInt(targets + 4 * (start + i));
+      }
+      return result;
+    }
+
+    private int count(int offsets, int n) {
+      return contents.getInt(offsets + 4 * n + 4) - contents.getInt(offsets + 4 * n);
+    }
+
+    private Iterator<CGNode> nodes(int[] numbers) {
+      List<CGNode> result = new ArrayList<>(numbers.length);
+      for (int n : numbers) {
+        result.add(getNode(n));
+      }
+      return result.iterator();
+    }
+
+    @Override
+    public Iterator<CGNode> getPredNodes(CGNode n) {
+      return nodes(read(predOffsets, predTargets, getNumber(n)));
+    }
+
+    @Override
+    public int getPredNodeCount(CGNode n) {
+      return count(predOffsets, getNumber(n));
+    }
+
+    @Override
+    public Iterator<CGNode> getSuccNodes(CGNode n) {
+      return nodes(read(succOffsets, succTargets, getNumber(n)));
+    }
+
+    @Override
+    public int getSuccNodeCount(CGNode n) {
+      return count(succOffsets, getNumber(n));
+    }
+
+    @Override
+    public IntSet getSuccNodeNumbers(CGNode node) {
+      return IntSetUtil.make(read(succOffsets, succTargets, getNumber(node)));
+    }
+
+    @Override
+    public IntSet getPredNodeNumbers(CGNode node) {
+      return IntSetUtil.make(read(predOffsets, predTargets, getNumber(node)));
+    }
+
+    @Override
+    public boolean hasEdge(CGNode src, CGNode dst) {
+      return Arrays.binarySearch(read(succOffsets, succTargets, getNumber(src)), getNumber(dst))
+          >= 0;
+    }
+
+    @Override
+    public void addEdge(CGNode src, CGNode dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeEdge(CGNode src, CGNode dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeAllIncidentEdges(CGNode node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeIncomingEdges(CGNode node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeOutgoingEdges(CGNode node) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
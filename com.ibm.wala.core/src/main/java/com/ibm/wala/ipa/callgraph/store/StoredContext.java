@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph.store;
+
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.callgraph.ContextItem;
+import com.ibm.wala.ipa.callgraph.ContextKey;
+
+/**
+ * A context read from a {@link CallGraphStore}. Only the identity of the original context is kept:
+ * two nodes share a stored context iff their original contexts were equal, and {@link #toString()}
+ * gives the description of the original, but no context items are available.
+ */
+public class StoredContext implements Context {
+
+  private final String description;
+
+  StoredContext(String description) {
+    this.description = description;
+  }
+
+  @Override
+  public ContextItem get(ContextKey name) {
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return description;
+  }
+}
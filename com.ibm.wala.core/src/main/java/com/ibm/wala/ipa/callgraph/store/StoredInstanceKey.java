@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph.store;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.NewSiteReference;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.util.collections.Pair;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An instance key read from a {@link CallGraphStore}. It keeps the concrete type, creation sites
+ * and description of the original key; stored keys are equal only to themselves.
+ */
+public class StoredInstanceKey implements InstanceKey {
+
+  private final IClass concreteType;
+
+  private final String description;
+
+  private final List<Pair<CGNode, NewSiteReference>> creationSites;
+
+  StoredInstanceKey(
+      IClass concreteType, String description, List<Pair<CGNode, NewSiteReference>> sites) {
+    this.concreteType = concreteType;
+    this.description = description;
+    this.creationSites = sites;
+  }
+
+  @Override
+  public IClass getConcreteType() {
+    return concreteType;
+  }
+
+  /** @return the creation sites in the stored call graph, whatever call graph is passed */
+  @Override
+  public Iterator<Pair<CGNode, NewSiteReference>> getCreationSites(CallGraph CG) {
+    return creationSites.iterator();
+  }
+
+  @Override
+  public String toString() {
+    return description;
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph.store;
+
+import com.ibm.wala.classLoader.IField;
+import com.ibm.wala.classLoader.NewSiteReference;
+import com.ibm.wala.classLoader.ProgramCounter;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.propagation.AbstractPointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.ArrayContentsKey;
+import com.ibm.wala.ipa.callgraph.propagation.FilteredPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.HeapModel;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceFieldKey;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.LocalPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.LocalPointerKeyWithFilter;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.ReturnValueKey;
+import com.ibm.wala.ipa.callgraph.propagation.StaticFieldKey;
+import com.ibm.wala.ipa.callgraph.propagation.cfa.ExceptionReturnValueKey;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.OrdinalSet;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pointer analysis results read from a {@link CallGraphStore}, over a {@link StoredCallGraph}.
+ * Points-to sets are decoded from the memory-mapped store when they are asked for.
+ *
+ * <p>Pointer keys are the standard local, return value, field and array contents keys of the
+ * propagation framework, built over the stored nodes and {@link StoredInstanceKey}s; the {@link
+ * #getHeapModel() heap model} builds the same keys, so clients can look up points-to sets as they
+ * would for a {@code PointerAnalysisImpl}. The heap model only knows the instance keys of recorded
+ * allocation sites; it cannot create new instance keys.
+ */
+public class StoredPointerAnalysis extends AbstractPointerAnalysis {
+
+  private final IClassHierarchy cha;
+
+  private final ByteBuffer contents;
+
+  /** maps each stored pointer key to the position of its points-to set */
+  private final Map<PointerKey, Integer> pointsTo = HashMapFactory.make();
+
+  private final Set<PointerKey> filtered = HashSetFactory.make();
+
+  /** instance key for each recorded (node, allocation site) */
+  private final Map<Pair<CGNode, NewSiteReference>, InstanceKey> allocations =
+      HashMapFactory.make();
+
+  private final HeapModel heapModel = new StoredHeapModel();
+
+  StoredPointerAnalysis(
+      StoredCallGraph cg, IClassHierarchy cha, ByteBuffer contents, InstanceKey[] instanceKeys) {
+    super(cg, new MutableMapping<>(instanceKeys));
+    this.cha = cha;
+    this.contents = contents;
+  }
+
+  void addPointerKey(PointerKey key, boolean isFiltered, int setPosition) {
+    pointsTo.put(key, setPosition);
+    if (isFiltered) {
+      filtered.add(key);
+    }
+  }
+
+  /**
+   * record the instance key for an allocation site; if several keys claim a site, the first one
+   * wins
+   */
+  void addAllocation(CGNode node, NewSiteReference site, InstanceKey key) {
+    allocations.putIfAbsent(Pair.make(node, site), key);
+  }
+
+  @Override
+  public StoredCallGraph getCallGraph() {
+    return (StoredCallGraph) super.getCallGraph();
+  }
+
+  @Override
+  public OrdinalSet<InstanceKey> getPointsToSet(PointerKey key) {
+    Integer position = pointsTo.get(key);
+    if (position == null) {
+      return OrdinalSet.empty();
+    }
+    int p = position;
+    int[] set = new int[contents.getInt(p)];
+    for (int i = 0; i < set.length; i++) {
+      set[i] = contents.getInt(p + 4 + 4 * i);
+    }
+    return new OrdinalSet<>(IntSetUtil.make(set), instanceKeys);
+  }
+
+  @Override
+  public HeapModel getHeapModel() {
+    return heapModel;
+  }
+
+  @Override
+  public Iterable<PointerKey> getPointerKeys() {
+    return Collections.unmodifiableSet(pointsTo.keySet());
+  }
+
+  @Override
+  public boolean isFiltered(PointerKey pk) {
+    return filtered.contains(pk);
+  }
+
+  @Override
+  public IClassHierarchy getClassHierarchy() {
+    return cha;
+  }
+
+  private class StoredHeapModel implements HeapModel {
+
+    @Override
+    public Iterator<PointerKey> iteratePointerKeys() {
+      return getPointerKeys().iterator();
+    }
+
+    @Override
+    public IClassHierarchy getClassHierarchy() {
+      return cha;
+    }
+
+    @Override
+    public InstanceKey getInstanceKeyForAllocation(CGNode node, NewSiteReference allocation) {
+      return allocations.get(Pair.make(node, allocation));
+    }
+
+    /** @return null; multi-dimensional array instance keys are not recorded */
+    @Override
+    public InstanceKey getInstanceKeyForMultiNewArray(
+        CGNode node, NewSiteReference allocation, int dim) {
+      return null;
+    }
+
+    /** @return null; constant instance keys are not recorded */
+    @Override
+    public <T> InstanceKey getInstanceKeyForConstant(TypeReference type, T S) {
+      return null;
+    }
+
+    /** @return null; exception instance keys are not recorded */
+    @Override
+    public InstanceKey getInstanceKeyForPEI(CGNode node, ProgramCounter instr, TypeReference type) {
+      return null;
+    }
+
+    /** @return null; metadata instance keys are not recorded */
+    @Override
+    public InstanceKey getInstanceKeyForMetadataObject(Object obj, TypeReference objType) {
+      return null;
+    }
+
+    @Override
+    public PointerKey getPointerKeyForLocal(CGNode node, int valueNumber) {
+      return new LocalPointerKey(node, valueNumber);
+    }
+
+    @Override
+    public FilteredPointerKey getFilteredPointerKeyForLocal(
+        CGNode node, int valueNumber, FilteredPointerKey.TypeFilter filter) {
+      return new LocalPointerKeyWithFilter(node, valueNumber, filter);
+    }
+
+    @Override
+    public PointerKey getPointerKeyForReturnValue(CGNode node) {
+      return new ReturnValueKey(node);
+    }
+
+    @Override
+    public PointerKey getPointerKeyForExceptionalReturnValue(CGNode node) {
+      return new ExceptionReturnValueKey(node);
+    }
+
+    @Override
+    public PointerKey getPointerKeyForStaticField(IField f) {
+      return new StaticFieldKey(f);
+    }
+
+    @Override
+    public PointerKey getPointerKeyForInstanceField(InstanceKey I, IField field) {
+      return new InstanceFieldKey(I, field);
+    }
+
+    @Override
+    public PointerKey getPointerKeyForArrayContents(InstanceKey I) {
+      return new ArrayContentsKey(I);
+    }
+  }
+}
@@ -28,6 +28,21 @@ public class ClassHierarchyFactory {
     return make(scope, new ClassLoaderFactoryImpl(scope.getExclusions()));
   }
 
+  /**
+   * Build the class hierarchy with the class files of each loader read and parsed by a pool of
+   * {@code numberOfThreads} threads. Classes are still added to the loaders and linked into the
+   * hierarchy in scope order, so the result is the same as that of {@link #make(AnalysisScope)}.
+   *
+   * @return a ClassHierarchy object representing the analysis scope
+   */
+  public static ClassHierarchy makeParallel(AnalysisScope scope, int numberOfThreads)
+      throws ClassHierarchyException {
+    if (scope == null) {
+      throw new IllegalArgumentException("null scope");
+    }
+    return make(scope, new ClassLoaderFactoryImpl(scope.getExclusions(), numberOfThreads));
+  }
+
   /**
    * NOTE: phantom classes are a work-in-progress and this functionality has known bugs; see
    * https://github.com/wala/WALA/pull/335. At this point, we recommend using {@link
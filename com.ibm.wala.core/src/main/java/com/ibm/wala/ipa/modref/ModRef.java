@@ -47,8 +47,30 @@ public class ModRef<T extends InstanceKey> {
     return new ModRef<>();
   }
 
+  /** number of threads that scan call graph nodes for the heap locations they access */
+  private int numberOfThreads = 1;
+
   public ModRef() {}
 
+  /** @return the number of threads that scan call graph nodes */
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Scan call graph nodes for the heap locations they access on several threads. The pointer
+   * analysis and the visitors made by {@link #makeModVisitor} and {@link #makeRefVisitor} must then
+   * support concurrent use.
+   *
+   * @throws IllegalArgumentException if numberOfThreads &lt; 1
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    this.numberOfThreads = numberOfThreads;
+  }
+
   /**
    * For each call graph node, what heap locations (as determined by a heap model) may it write,
    * including its callees transitively
@@ -61,7 +83,7 @@ public class ModRef<T extends InstanceKey> {
       throw new IllegalArgumentException("cg is null");
     }
     Map<CGNode, Collection<PointerKey>> scan = scanForMod(cg, pa, heapExclude);
-    return CallGraphTransitiveClosure.transitiveClosure(cg, scan);
+    return CallGraphTransitiveClosure.transitiveClosureOverSCCs(cg, scan);
   }
 
   /**
@@ -76,7 +98,7 @@ public class ModRef<T extends InstanceKey> {
       throw new IllegalArgumentException("cg is null");
     }
     Map<CGNode, Collection<PointerKey>> scan = scanForRef(cg, pa, heapExclude);
-    return CallGraphTransitiveClosure.transitiveClosure(cg, scan);
+    return CallGraphTransitiveClosure.transitiveClosureOverSCCs(cg, scan);
   }
 
   /**
@@ -103,7 +125,7 @@ public class ModRef<T extends InstanceKey> {
       CallGraph cg, final PointerAnalysis<T> pa, final HeapExclusions heapExclude) {
 
     return CallGraphTransitiveClosure.collectNodeResults(
-        cg, n -> scanNodeForMod(n, pa, heapExclude));
+        cg, n -> scanNodeForMod(n, pa, heapExclude), numberOfThreads);
   }
 
   /**
@@ -113,7 +135,7 @@ public class ModRef<T extends InstanceKey> {
   private Map<CGNode, Collection<PointerKey>> scanForRef(
       CallGraph cg, final PointerAnalysis<T> pa, final HeapExclusions heapExclude) {
     return CallGraphTransitiveClosure.collectNodeResults(
-        cg, n -> scanNodeForRef(n, pa, heapExclude));
+        cg, n -> scanNodeForRef(n, pa, heapExclude), numberOfThreads);
   }
 
   public ExtendedHeapModel makeHeapModel(PointerAnalysis<T> pa) {
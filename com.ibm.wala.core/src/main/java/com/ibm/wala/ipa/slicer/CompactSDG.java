@@ -0,0 +1,749 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.slicer;
+
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
+import com.ibm.wala.ssa.SSAGetCaughtExceptionInstruction;
+import com.ibm.wala.ssa.SSAPhiInstruction;
+import com.ibm.wala.ssa.SSAPiInstruction;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.graph.AbstractNumberedGraph;
+import com.ibm.wala.util.graph.NumberedEdgeManager;
+import com.ibm.wala.util.graph.NumberedNodeManager;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableMapping;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A system dependence graph that is frozen into primitive arrays.
+ *
+ * <p>Each {@link Statement} is encoded as a long that packs the number of its call graph node, its
+ * {@link Statement.Kind}, an instruction index and a value number or heap location. The statements
+ * are kept in a sorted array, so the number of a statement is its position in that array and the
+ * statements of each call graph node are contiguous; successors and predecessors are kept in
+ * compressed sparse row arrays. {@link Statement} objects are only created when they are returned
+ * to a client, and a PHI, PI or CATCH statement then looks up its instruction in the {@link
+ * CGNode#getDU() DefUse} of its node.
+ *
+ * <p>This graph is built with the dependence rules of an {@link SDG}, one call graph node at a
+ * time: the PDG of each node is computed, its statements and their outgoing edges are encoded, and
+ * the PDG is dropped before the next node. The SDG itself computes and keeps nothing, and this
+ * graph does not refer to it once built. {@link #getIPDG(CGNode)} returns a view of the statements
+ * of one node that supports what the {@link Slicer} needs, so the slicer works on this graph
+ * unchanged; there are no PDGs to get from {@link #getPDG(CGNode)}.
+ */
+public class CompactSDG extends AbstractNumberedGraph<Statement> implements ISDG {
+
+  private static final int VALUE_BITS = 21;
+
+  private static final int INDEX_BITS = 18;
+
+  private static final int KIND_BITS = 4;
+
+  private static final int NODE_BITS = 20;
+
+  private static final int INDEX_SHIFT = VALUE_BITS;
+
+  private static final int KIND_SHIFT = INDEX_SHIFT + INDEX_BITS;
+
+  private static final int NODE_SHIFT = KIND_SHIFT + KIND_BITS;
+
+  private static final Statement.Kind[] KINDS = Statement.Kind.values();
+
+  private final Nodes nodeMgr = new Nodes();
+
+  private final Edges edgeMgr = new Edges();
+
+  private final CallGraph cg;
+
+  private final ControlDependenceOptions cOptions;
+
+  /** the heap locations of heap statements */
+  private final MutableMapping<PointerKey> locations = MutableMapping.make();
+
+  /** the encoded statements, sorted; the number of a statement is its index */
+  private final long[] statements;
+
+  private final int[] succOffsets;
+
+  private final int[] succs;
+
+  private final int[] predOffsets;
+
+  private final int[] preds;
+
+  /** views of the statements of each call graph node */
+  private final Map<CGNode, IPDG> pdgMap = new ConcurrentHashMap<>();
+
+  /**
+   * Freeze the SDG for the call graph and options of sdg. The PDGs are computed here, one at a
+   * time, and none is kept by sdg.
+   *
+   * @throws IllegalArgumentException if the SDG is too big to encode
+   */
+  public CompactSDG(SDG<?> sdg) {
+    if (sdg == null) {
+      throw new IllegalArgumentException("sdg cannot be null");
+    }
+    this.cg = sdg.getCallGraph();
+    this.cOptions = sdg.getCOptions();
+
+    LongStream.Builder encoded = LongStream.builder();
+    LongStream.Builder sources = LongStream.builder();
+    LongStream.Builder targets = LongStream.builder();
+    for (CGNode n : cg) {
+      PDG<?> pdg = sdg.makePDG(n);
+      for (Statement s : pdg) {
+        long source = encode(s);
+        encoded.add(source);
+        LongStream.Builder row = LongStream.builder();
+        sdg.getSuccNodes(s, pdg, t -> {}).forEachRemaining(t -> row.add(encode(t)));
+        row.build()
+            .distinct()
+            .forEach(
+                target -> {
+                  sources.add(source);
+                  targets.add(target);
+                });
+      }
+    }
+    statements = encoded.build().toArray();
+    Arrays.sort(statements);
+
+    long[] from = sources.build().toArray();
+    long[] to = targets.build().toArray();
+    int[] src = new int[from.length];
+    int[] dst = new int[to.length];
+    succOffsets = new int[statements.length + 1];
+    predOffsets = new int[statements.length + 1];
+    for (int e = 0; e < src.length; e++) {
+      src[e] = lookup(from[e]);
+      dst[e] = lookup(to[e]);
+      if (dst[e] == -1) {
+        throw new IllegalStateException(
+            "successor " + decode(to[e]) + " of " + decode(from[e]) + " is in no PDG");
+      }
+      succOffsets[src[e] + 1]++;
+      predOffsets[dst[e] + 1]++;
+    }
+    for (int i = 0; i < statements.length; i++) {
+      succOffsets[i + 1] += succOffsets[i];
+      predOffsets[i + 1] += predOffsets[i];
+    }
+
+    succs = new int[src.length];
+    int[] next = Arrays.copyOf(succOffsets, statements.length);
+    for (int e = 0; e < src.length; e++) {
+      succs[next[src[e]]++] = dst[e];
+    }
+    for (int i = 0; i < statements.length; i++) {
+      Arrays.sort(succs, succOffsets[i], succOffsets[i + 1]);
+    }
+    // sources are visited in increasing order, so each row of predecessors ends up sorted
+    preds = new int[src.length];
+    next = Arrays.copyOf(predOffsets, statements.length);
+    for (int i = 0; i < statements.length; i++) {
+      for (int e = succOffsets[i]; e < succOffsets[i + 1]; e++) {
+        preds[next[succs[e]]++] = i;
+      }
+    }
+  }
+
+  /**
+   * @return the encoding of a statement, adding its heap location if need be
+   * @throws IllegalArgumentException if some component of the statement is out of range
+   */
+  private long encode(Statement s) {
+    long result = encode(s, true);
+    if (result == -1) {
+      throw new IllegalArgumentException("cannot encode " + s);
+    }
+    return result;
+  }
+
+  /** @return the encoding of a statement, or -1 if some component is out of range */
+  private static long pack(int node, Statement.Kind kind, int index, int value) {
+    if (node < 0
+        || index < 0
+        || value < 0
+        || node >= 1 << NODE_BITS
+        || index >= 1 << INDEX_BITS
+        || value >= 1 << VALUE_BITS) {
+      return -1;
+    }
+    return ((long) node << NODE_SHIFT)
+        | ((long) kind.ordinal() << KIND_SHIFT)
+        | ((long) index << INDEX_SHIFT)
+        | value;
+  }
+
+  private static int nodeOf(long s) {
+    return (int) (s >>> NODE_SHIFT);
+  }
+
+  private static Statement.Kind kindOf(long s) {
+    return KINDS[(int) (s >>> KIND_SHIFT) & ((1 << KIND_BITS) - 1)];
+  }
+
+  private static int indexOf(long s) {
+    return (int) (s >>> INDEX_SHIFT) & ((1 << INDEX_BITS) - 1);
+  }
+
+  private static int valueOf(long s) {
+    return (int) s & ((1 << VALUE_BITS) - 1);
+  }
+
+  /**
+   * @param addLocation should an unknown heap location be added?
+   * @return the encoding of s, or -1 if s cannot be in this graph
+   */
+  private long encode(Statement s, boolean addLocation) {
+    int node = cg.getNumber(s.getNode());
+    Statement.Kind kind = s.getKind();
+    switch (kind) {
+      case NORMAL:
+        return pack(node, kind, ((NormalStatement) s).getInstructionIndex(), 0);
+      case PHI:
+        return pack(node, kind, 0, ((PhiStatement) s).getPhi().getDef());
+      case PI:
+        return pack(node, kind, 0, ((PiStatement) s).getPi().getDef());
+      case CATCH:
+        return pack(node, kind, 0, ((GetCaughtExceptionStatement) s).getInstruction().getDef());
+      case PARAM_CALLER:
+        {
+          ParamCaller p = (ParamCaller) s;
+          return pack(node, kind, p.getInstructionIndex(), p.getValueNumber());
+        }
+      case PARAM_CALLEE:
+        return pack(node, kind, 0, ((ParamCallee) s).getValueNumber());
+      case NORMAL_RET_CALLER:
+      case EXC_RET_CALLER:
+        return pack(node, kind, ((StatementWithInstructionIndex) s).getInstructionIndex(), 0);
+      case HEAP_PARAM_CALLER:
+      case HEAP_PARAM_CALLEE:
+      case HEAP_RET_CALLER:
+      case HEAP_RET_CALLEE:
+        {
+          PointerKey loc = ((HeapStatement) s).getLocation();
+          int l = addLocation ? locations.add(loc) : locations.getMappedIndex(loc);
+          if (l == -1) {
+            return -1;
+          }
+          int call =
+              kind == Statement.Kind.HEAP_PARAM_CALLER
+                  ? ((HeapStatement.HeapParamCaller) s).getCallIndex()
+                  : kind == Statement.Kind.HEAP_RET_CALLER
+                      ? ((HeapStatement.HeapReturnCaller) s).getCallIndex()
+                      : 0;
+          return pack(node, kind, call, l);
+        }
+      default:
+        return pack(node, kind, 0, 0);
+    }
+  }
+
+  /** Materialize an encoded statement. */
+  private Statement decode(long s) {
+    CGNode node = cg.getNode(nodeOf(s));
+    int index = indexOf(s);
+    int value = valueOf(s);
+    switch (kindOf(s)) {
+      case NORMAL:
+        return new NormalStatement(node, index);
+      case PHI:
+        return new PhiStatement(node, (SSAPhiInstruction) node.getDU().getDef(value));
+      case PI:
+        return new PiStatement(node, (SSAPiInstruction) node.getDU().getDef(value));
+      case CATCH:
+        return new GetCaughtExceptionStatement(
+            node, (SSAGetCaughtExceptionInstruction) node.getDU().getDef(value));
+      case PARAM_CALLER:
+        return new ParamCaller(node, index, value);
+      case PARAM_CALLEE:
+        return new ParamCallee(node, value);
+      case NORMAL_RET_CALLER:
+        return new NormalReturnCaller(node, index);
+      case NORMAL_RET_CALLEE:
+        return new NormalReturnCallee(node);
+      case EXC_RET_CALLER:
+        return new ExceptionalReturnCaller(node, index);
+      case EXC_RET_CALLEE:
+        return new ExceptionalReturnCallee(node);
+      case HEAP_PARAM_CALLER:
+        return new HeapStatement.HeapParamCaller(node, index, locations.getMappedObject(value));
+      case HEAP_PARAM_CALLEE:
+        return new HeapStatement.HeapParamCallee(node, locations.getMappedObject(value));
+      case HEAP_RET_CALLER:
+        return new HeapStatement.HeapReturnCaller(node, index, locations.getMappedObject(value));
+      case HEAP_RET_CALLEE:
+        return new HeapStatement.HeapReturnCallee(node, locations.getMappedObject(value));
+      case METHOD_ENTRY:
+        return new MethodEntryStatement(node);
+      case METHOD_EXIT:
+        return new MethodExitStatement(node);
+      default:
+        throw new IllegalStateException("unexpected statement kind " + kindOf(s));
+    }
+  }
+
+  /** @return the number of an encoded statement, or -1 if it is not in this graph */
+  private int lookup(long s) {
+    if (s == -1) {
+      return -1;
+    }
+    int i = Arrays.binarySearch(statements, s);
+    return i < 0 ? -1 : i;
+  }
+
+  /** @return the number of the first statement whose encoding is at least s */
+  private int lowerBound(long s) {
+    int i = Arrays.binarySearch(statements, s);
+    return i < 0 ? -i - 1 : i;
+  }
+
+  /** @return the numbers of the statements of a node with the given kind and instruction index */
+  private IntStream range(int node, Statement.Kind kind, int index) {
+    long first = pack(node, kind, index, 0);
+    if (first == -1) {
+      return IntStream.empty();
+    }
+    return IntStream.range(lowerBound(first), lowerBound(first + (1L << INDEX_SHIFT)));
+  }
+
+  private Iterator<Statement> statements(IntStream numbers) {
+    return numbers.mapToObj(i -> decode(statements[i])).iterator();
+  }
+
+  private static IntStream row(int[] offsets, int[] targets, int n) {
+    return Arrays.stream(targets, offsets[n], offsets[n + 1]);
+  }
+
+  /** @return the number of dependence edges in this graph */
+  public int getNumberOfEdges() {
+    return succs.length;
+  }
+
+  @Override
+  protected NumberedNodeManager<Statement> getNodeManager() {
+    return nodeMgr;
+  }
+
+  @Override
+  protected NumberedEdgeManager<Statement> getEdgeManager() {
+    return edgeMgr;
+  }
+
+  @Override
+  public ControlDependenceOptions getCOptions() {
+    return cOptions;
+  }
+
+  /**
+   * A compact SDG keeps no PDGs.
+   *
+   * @throws UnsupportedOperationException always; use {@link #getIPDG(CGNode)}
+   */
+  @Override
+  public PDG<? extends InstanceKey> getPDG(CGNode node) {
+    throw new UnsupportedOperationException("a compact SDG keeps no PDGs; use getIPDG");
+  }
+
+  @Override
+  public IPDG getIPDG(CGNode node) {
+    return pdgMap.computeIfAbsent(node, CompactPDG::new);
+  }
+
+  /** All nodes are computed eagerly, so this iterates over all nodes. */
+  @Override
+  public Iterator<? extends Statement> iterateLazyNodes() {
+    return iterator();
+  }
+
+  @Override
+  public IClassHierarchy getClassHierarchy() {
+    return cg.getClassHierarchy();
+  }
+
+  public CallGraph getCallGraph() {
+    return cg;
+  }
+
+  private final class Nodes implements NumberedNodeManager<Statement> {
+
+    @Override
+    public int getNumber(Statement s) {
+      return lookup(encode(s, false));
+    }
+
+    @Override
+    public Statement getNode(int number) {
+      return decode(statements[number]);
+    }
+
+    @Override
+    public int getMaxNumber() {
+      return statements.length - 1;
+    }
+
+    @Override
+    public Iterator<Statement> iterateNodes(IntSet s) {
+      List<Statement> result = new ArrayList<>(s.size());
+      for (IntIterator it = s.intIterator(); it.hasNext(); ) {
+        result.add(getNode(it.next()));
+      }
+      return result.iterator();
+    }
+
+    @Override
+    public Stream<Statement> stream() {
+      return IntStream.range(0, statements.length).mapToObj(this::getNode);
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+      return statements.length;
+    }
+
+    @Override
+    public void addNode(Statement n) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeNode(Statement n) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean containsNode(Statement n) {
+      return getNumber(n) != -1;
+    }
+  }
+
+  private final class Edges implements NumberedEdgeManager<Statement> {
+
+    private int number(Statement n) {
+      int result = nodeMgr.getNumber(n);
+      if (result == -1) {
+        throw new IllegalArgumentException("statement not in graph: " + n);
+      }
+      return result;
+    }
+
+    @Override
+    public Iterator<Statement> getPredNodes(Statement n) {
+      return statements(row(predOffsets, preds, number(n)));
+    }
+
+    @Override
+    public int getPredNodeCount(Statement n) {
+      int i = number(n);
+      return predOffsets[i + 1] - predOffsets[i];
+    }
+
+    @Override
+    public Iterator<Statement> getSuccNodes(Statement n) {
+      return statements(row(succOffsets, succs, number(n)));
+    }
+
+    @Override
+    public int getSuccNodeCount(Statement n) {
+      int i = number(n);
+      return succOffsets[i + 1] - succOffsets[i];
+    }
+
+    @Override
+    public IntSet getSuccNodeNumbers(Statement node) {
+      return IntSetUtil.make(row(succOffsets, succs, number(node)).toArray());
+    }
+
+    @Override
+    public IntSet getPredNodeNumbers(Statement node) {
+      return IntSetUtil.make(row(predOffsets, preds, number(node)).toArray());
+    }
+
+    @Override
+    public boolean hasEdge(Statement src, Statement dst) {
+      int s = number(src);
+      int d = nodeMgr.getNumber(dst);
+      return d != -1 && Arrays.binarySearch(succs, succOffsets[s], succOffsets[s + 1], d) >= 0;
+    }
+
+    @Override
+    public void addEdge(Statement src, Statement dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeEdge(Statement src, Statement dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeAllIncidentEdges(Statement node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeIncomingEdges(Statement node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeOutgoingEdges(Statement node) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * The statements of one call graph node. Local numbers are offsets from the first statement of
+   * the node, and edges are the intraprocedural edges of the graph.
+   */
+  private final class CompactPDG implements IPDG {
+
+    private final CGNode node;
+
+    private final int nodeNumber;
+
+    private final int start;
+
+    private final int end;
+
+    CompactPDG(CGNode node) {
+      this.node = node;
+      this.nodeNumber = cg.getNumber(node);
+      long first = pack(nodeNumber, KINDS[0], 0, 0);
+      this.start = lowerBound(first);
+      this.end = lowerBound(first + (1L << NODE_SHIFT));
+    }
+
+    private int local(Statement s) {
+      int i = nodeMgr.getNumber(s);
+      return i >= start && i < end ? i - start : -1;
+    }
+
+    private Set<Statement> toSet(IntStream numbers) {
+      Set<Statement> result = HashSetFactory.make();
+      statements(numbers).forEachRemaining(result::add);
+      return result;
+    }
+
+    private Statement[] toArray(IntStream numbers) {
+      return numbers.mapToObj(i -> decode(statements[i])).toArray(Statement[]::new);
+    }
+
+    private IntStream local(IntStream numbers) {
+      return numbers.filter(i -> i >= start && i < end);
+    }
+
+    private IntSet localNumbers(IntStream numbers) {
+      return IntSetUtil.make(local(numbers).map(i -> i - start).toArray());
+    }
+
+    @Override
+    public CGNode getCallGraphNode() {
+      return node;
+    }
+
+    @Override
+    public Set<Statement> getCallerParamStatements(SSAAbstractInvokeInstruction call) {
+      if (call == null) {
+        throw new IllegalArgumentException("call == null");
+      }
+      return toSet(
+          IntStream.concat(
+              range(nodeNumber, Statement.Kind.PARAM_CALLER, call.iIndex()),
+              range(nodeNumber, Statement.Kind.HEAP_PARAM_CALLER, call.iIndex())));
+    }
+
+    @Override
+    public Set<Statement> getCallStatements(SSAAbstractInvokeInstruction call) {
+      Set<Statement> result = getCallerParamStatements(call);
+      result.addAll(toSet(range(nodeNumber, Statement.Kind.NORMAL, call.iIndex())));
+      return result;
+    }
+
+    @Override
+    public Set<Statement> getCallerReturnStatements(SSAAbstractInvokeInstruction call) {
+      if (call == null) {
+        throw new IllegalArgumentException("call == null");
+      }
+      return toSet(
+          IntStream.concat(
+              IntStream.concat(
+                  range(nodeNumber, Statement.Kind.NORMAL_RET_CALLER, call.iIndex()),
+                  range(nodeNumber, Statement.Kind.EXC_RET_CALLER, call.iIndex())),
+              range(nodeNumber, Statement.Kind.HEAP_RET_CALLER, call.iIndex())));
+    }
+
+    private IntStream ofKind(Statement.Kind kind) {
+      long first = pack(nodeNumber, kind, 0, 0);
+      return IntStream.range(lowerBound(first), lowerBound(first + (1L << KIND_SHIFT)));
+    }
+
+    @Override
+    public Statement[] getParamCalleeStatements() {
+      return toArray(
+          IntStream.concat(
+              ofKind(Statement.Kind.PARAM_CALLEE), ofKind(Statement.Kind.HEAP_PARAM_CALLEE)));
+    }
+
+    @Override
+    public Statement[] getReturnStatements() {
+      return toArray(
+          IntStream.concat(
+              IntStream.concat(
+                  ofKind(Statement.Kind.NORMAL_RET_CALLEE), ofKind(Statement.Kind.EXC_RET_CALLEE)),
+              ofKind(Statement.Kind.HEAP_RET_CALLEE)));
+    }
+
+    @Override
+    public Iterator<Statement> getPredNodes(Statement n) {
+      return statements(local(row(predOffsets, preds, edgeMgr.number(n))));
+    }
+
+    @Override
+    public int getPredNodeCount(Statement n) {
+      return (int) local(row(predOffsets, preds, edgeMgr.number(n))).count();
+    }
+
+    @Override
+    public IntSet getPredNodeNumbers(Statement n) {
+      return localNumbers(row(predOffsets, preds, edgeMgr.number(n)));
+    }
+
+    @Override
+    public Iterator<Statement> getSuccNodes(Statement n) {
+      return statements(local(row(succOffsets, succs, edgeMgr.number(n))));
+    }
+
+    @Override
+    public int getSuccNodeCount(Statement n) {
+      return (int) local(row(succOffsets, succs, edgeMgr.number(n))).count();
+    }
+
+    @Override
+    public IntSet getSuccNodeNumbers(Statement n) {
+      return localNumbers(row(succOffsets, succs, edgeMgr.number(n)));
+    }
+
+    @Override
+    public boolean hasEdge(Statement src, Statement dst) {
+      return local(src) != -1 && local(dst) != -1 && edgeMgr.hasEdge(src, dst);
+    }
+
+    @Override
+    public boolean containsNode(Statement n) {
+      return local(n) != -1;
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+      return end - start;
+    }
+
+    @Override
+    public Iterator<Statement> iterator() {
+      return statements(IntStream.range(start, end));
+    }
+
+    @Override
+    public Stream<Statement> stream() {
+      return IntStream.range(start, end).mapToObj(i -> decode(statements[i]));
+    }
+
+    @Override
+    public int getMaxNumber() {
+      return end - start - 1;
+    }
+
+    @Override
+    public Statement getNode(int number) {
+      return decode(statements[start + number]);
+    }
+
+    @Override
+    public int getNumber(Statement n) {
+      return local(n);
+    }
+
+    @Override
+    public Iterator<Statement> iterateNodes(IntSet s) {
+      List<Statement> result = new ArrayList<>(s.size());
+      for (IntIterator it = s.intIterator(); it.hasNext(); ) {
+        result.add(getNode(it.next()));
+      }
+      return result.iterator();
+    }
+
+    @Override
+    public void addNode(Statement n) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeNode(Statement n) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeNodeAndEdges(Statement n) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addEdge(Statement src, Statement dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeEdge(Statement src, Statement dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeAllIncidentEdges(Statement node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeIncomingEdges(Statement node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeOutgoingEdges(Statement node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString() {
+      return "compact PDG for " + node;
+    }
+  }
+}
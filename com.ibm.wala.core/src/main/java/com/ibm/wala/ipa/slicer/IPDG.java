@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.slicer;
+
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
+import com.ibm.wala.util.graph.NumberedGraph;
+import java.util.Set;
+
+/**
+ * Interface for a program dependence graph of a single call graph node, as an {@link ISDG} gives it
+ * to the {@link Slicer}. Its edges are the dependences between statements of the node.
+ */
+public interface IPDG extends NumberedGraph<Statement> {
+
+  /** @return the call graph node whose statements this graph holds */
+  CGNode getCallGraphNode();
+
+  /**
+   * return the set of all PARAM_CALLER and HEAP_PARAM_CALLER statements associated with a given
+   * call
+   */
+  Set<Statement> getCallerParamStatements(SSAAbstractInvokeInstruction call);
+
+  /**
+   * return the set of all PARAM_CALLER, HEAP_PARAM_CALLER, and NORMAL statements (i.e., the actual
+   * call statement) associated with a given call
+   */
+  Set<Statement> getCallStatements(SSAAbstractInvokeInstruction call);
+
+  /**
+   * return the set of all NORMAL_RETURN_CALLER and HEAP_RETURN_CALLER statements associated with a
+   * given call.
+   */
+  Set<Statement> getCallerReturnStatements(SSAAbstractInvokeInstruction call);
+
+  /** @return the PARAM_CALLEE and HEAP_PARAM_CALLEE statements */
+  Statement[] getParamCalleeStatements();
+
+  /** @return the NORMAL_RET_CALLEE, EXC_RET_CALLEE and HEAP_RET_CALLEE statements */
+  Statement[] getReturnStatements();
+}
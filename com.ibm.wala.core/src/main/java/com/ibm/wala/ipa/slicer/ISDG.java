@@ -29,6 +29,14 @@ public interface ISDG extends NumberedGraph<Statement>, IClassHierarchyDweller {
   /** Get the program dependence graph constructed for a particular node. */
   PDG<? extends InstanceKey> getPDG(CGNode node);
 
+  /**
+   * Get the dependences among the statements of a particular node, as the {@link Slicer} uses them.
+   * By default, this is the {@link #getPDG(CGNode) PDG} of the node.
+   */
+  default IPDG getIPDG(CGNode node) {
+    return getPDG(node);
+  }
+
   /**
    * Iterate over the nodes which have been discovered so far, but do <em>NOT</em> eagerly construct
    * the entire graph.
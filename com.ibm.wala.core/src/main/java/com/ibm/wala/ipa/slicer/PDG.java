@@ -49,7 +49,6 @@ import com.ibm.wala.util.config.SetOfClasses;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.UnimplementedError;
 import com.ibm.wala.util.graph.GraphUtil;
-import com.ibm.wala.util.graph.NumberedGraph;
 import com.ibm.wala.util.graph.dominators.Dominators;
 import com.ibm.wala.util.graph.labeled.SlowSparseNumberedLabeledGraph;
 import com.ibm.wala.util.intset.BitVectorIntSet;
@@ -67,7 +66,7 @@ import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /** Program dependence graph for a single call graph node */
-public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
+public class PDG<T extends InstanceKey> implements IPDG {
 
   /* BEGIN Custom change: control deps */
   public enum Dependency {
@@ -194,6 +193,20 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     }
   }
 
+  /**
+   * Compute all edges of this PDG now, including the heap data dependences that are otherwise
+   * computed on demand for the statements whose neighbors are queried.
+   */
+  public void computeAllDependences() {
+    populate();
+    if (!dOptions.isIgnoreHeap()) {
+      for (Statement s : Iterator2Collection.toList(delegate.iterator())) {
+        computeIncomingHeapDependencies(s);
+        computeOutgoingHeapDependencies(s);
+      }
+    }
+  }
+
   private void createScalarEdges(
       ControlDependenceOptions cOptions, IR ir, Map<SSAInstruction, Integer> instructionIndices) {
     createScalarDataDependenceEdges(ir, instructionIndices);
@@ -204,6 +217,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
    * return the set of all PARAM_CALLER and HEAP_PARAM_CALLER statements associated with a given
    * call
    */
+  @Override
   public Set<Statement> getCallerParamStatements(SSAAbstractInvokeInstruction call)
       throws IllegalArgumentException {
     if (call == null) {
@@ -217,6 +231,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
    * return the set of all PARAM_CALLER, HEAP_PARAM_CALLER, and NORMAL statements (i.e., the actual
    * call statement) associated with a given call
    */
+  @Override
   public Set<Statement> getCallStatements(SSAAbstractInvokeInstruction call)
       throws IllegalArgumentException {
     Set<Statement> callerParamStatements = getCallerParamStatements(call);
@@ -230,6 +245,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
    * return the set of all NORMAL_RETURN_CALLER and HEAP_RETURN_CALLER statements associated with a
    * given call.
    */
+  @Override
   public Set<Statement> getCallerReturnStatements(SSAAbstractInvokeInstruction call)
       throws IllegalArgumentException {
     if (call == null) {
@@ -1066,6 +1082,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     return "PDG for " + node + ":\n" + super.toString();
   }
 
+  @Override
   public Statement[] getParamCalleeStatements() {
     if (paramCalleeStatements == null) {
       createCalleeParams();
@@ -1075,6 +1092,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     return result;
   }
 
+  @Override
   public Statement[] getReturnStatements() {
     populate();
     Statement[] result = new Statement[returnStatements.length];
@@ -1082,6 +1100,7 @@ public class PDG<T extends InstanceKey> implements NumberedGraph<Statement> {
     return result;
   }
 
+  @Override
   public CGNode getCallGraphNode() {
     return node;
   }
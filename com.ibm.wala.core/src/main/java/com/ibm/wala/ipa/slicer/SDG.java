@@ -25,9 +25,9 @@ import com.ibm.wala.ssa.IR;
 import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
 import com.ibm.wala.types.MethodReference;
 import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.WorkerPool;
 import com.ibm.wala.util.collections.CompoundIterator;
 import com.ibm.wala.util.collections.EmptyIterator;
-import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Collection;
 import com.ibm.wala.util.collections.Iterator2Iterable;
@@ -41,10 +41,15 @@ import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.intset.OrdinalSet;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * System dependence graph.
@@ -71,7 +76,7 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
   private final PointerAnalysis<T> pa;
 
   /** keeps track of PDG for each call graph node */
-  private final Map<CGNode, PDG<T>> pdgMap = HashMapFactory.make();
+  private final Map<CGNode, PDG<T>> pdgMap = new ConcurrentHashMap<>();
 
   /** governs data dependence edges in the graph */
   private final DataDependenceOptions dOptions;
@@ -102,6 +107,9 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
   /** Have we eagerly populated all nodes of this SDG? */
   private boolean eagerComputed = false;
 
+  /** number of threads used to compute all PDGs at once */
+  private int numberOfThreads = 1;
+
   public SDG(
       final CallGraph cg,
       PointerAnalysis<T> pa,
@@ -162,8 +170,9 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
     if (!eagerComputed) {
       eagerComputed = true;
       computeAllPDGs();
-      for (PDG<?> pdg : pdgMap.values()) {
-        addPDGStatementNodes(pdg.getCallGraphNode());
+      // number the statements in call graph order, independently of how the PDGs were computed
+      for (CGNode n : cg) {
+        addPDGStatementNodes(n);
       }
     }
   }
@@ -183,6 +192,54 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
     for (CGNode n : cg) {
       getPDG(n);
     }
+    if (numberOfThreads > 1) {
+      computeAllDependences();
+    }
+  }
+
+  /** @return the number of threads used to compute the PDGs when the SDG is built eagerly */
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Compute the PDGs of all call graph nodes on several threads when the SDG is built eagerly, e.g.
+   * by {@link #iterator()} or {@link #getNumberOfNodes()}. The PDGs are then computed in full,
+   * including the heap data dependences that are otherwise computed on demand. Statements are
+   * numbered in call graph order either way, so the numbering does not depend on the number of
+   * threads.
+   *
+   * @param numberOfThreads the number of threads; 1 computes PDGs on demand, on the calling thread
+   * @throws IllegalArgumentException if numberOfThreads &lt; 1
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  /**
+   * Compute all dependences in the PDGs of all call graph nodes, using {@link
+   * #getNumberOfThreads()} threads. Each PDG is computed by a single thread; the pointer analysis
+   * and call graph are only read.
+   */
+  public void computeAllDependences() {
+    List<PDG<T>> pdgs = new ArrayList<>(cg.getNumberOfNodes());
+    for (CGNode n : cg) {
+      pdgs.add(getPDG(n));
+    }
+    if (numberOfThreads <= 1) {
+      pdgs.forEach(PDG::computeAllDependences);
+      return;
+    }
+    try (WorkerPool pool = new WorkerPool("SDG worker", numberOfThreads)) {
+      List<Future<?>> futures = new ArrayList<>(pdgs.size());
+      for (PDG<T> pdg : pdgs) {
+        futures.add(pool.submit(pdg::computeAllDependences));
+      }
+      WorkerPool.awaitAll(futures);
+    }
   }
 
   /**
@@ -268,6 +325,187 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
     }
   }
 
+  /**
+   * Compute the successors of a statement. Those in other call graph nodes are made from the call
+   * graph alone, without the PDGs of those nodes.
+   *
+   * @param pdg the PDG of the node of N, which gives the successors of N in that node
+   * @param discovered told of each successor made here rather than taken from pdg
+   */
+  Iterator<Statement> getSuccNodes(Statement N, IPDG pdg, Consumer<Statement> discovered) {
+    if (dOptions.isTerminateAtCast() && isUninformativeForReflection(N.getNode())) {
+      return EmptyIterator.instance();
+    }
+    switch (N.getKind()) {
+      case NORMAL:
+        if (cOptions.isIgnoreInterproc()) {
+          return pdg.getSuccNodes(N);
+        } else {
+          NormalStatement ns = (NormalStatement) N;
+          if (ns.getInstruction() instanceof SSAAbstractInvokeInstruction) {
+            HashSet<Statement> result = HashSetFactory.make();
+            SSAAbstractInvokeInstruction call = (SSAAbstractInvokeInstruction) ns.getInstruction();
+            for (CGNode t : cg.getPossibleTargets(N.getNode(), call.getCallSite())) {
+              Statement s = new MethodEntryStatement(t);
+              discovered.accept(s);
+              result.add(s);
+            }
+            return new CompoundIterator<>(result.iterator(), pdg.getSuccNodes(N));
+          } else {
+            return pdg.getSuccNodes(N);
+          }
+        }
+      case PHI:
+      case PI:
+      case CATCH:
+      case EXC_RET_CALLER:
+      case NORMAL_RET_CALLER:
+      case PARAM_CALLEE:
+      case HEAP_PARAM_CALLEE:
+      case HEAP_RET_CALLER:
+      case METHOD_ENTRY:
+      case METHOD_EXIT:
+        return pdg.getSuccNodes(N);
+      case EXC_RET_CALLEE:
+        {
+          Collection<Statement> result = HashSetFactory.make(5);
+          if (!dOptions.equals(DataDependenceOptions.NONE)) {
+            // data dependence predecessors
+            for (CGNode caller : Iterator2Iterable.make(cg.getPredNodes(N.getNode()))) {
+              for (CallSiteReference site :
+                  Iterator2Iterable.make(cg.getPossibleSites(caller, N.getNode()))) {
+                IR ir = caller.getIR();
+                IntSet indices = ir.getCallInstructionIndices(site);
+                for (IntIterator ii = indices.intIterator(); ii.hasNext(); ) {
+                  int i = ii.next();
+                  Statement s = new ExceptionalReturnCaller(caller, i);
+                  discovered.accept(s);
+                  result.add(s);
+                }
+              }
+            }
+          }
+          return result.iterator();
+        }
+      case NORMAL_RET_CALLEE:
+        {
+          Collection<Statement> result = HashSetFactory.make(5);
+          if (!dOptions.equals(DataDependenceOptions.NONE)) {
+            // data dependence predecessors
+            for (CGNode caller : Iterator2Iterable.make(cg.getPredNodes(N.getNode()))) {
+              for (CallSiteReference site :
+                  Iterator2Iterable.make(cg.getPossibleSites(caller, N.getNode()))) {
+                IR ir = caller.getIR();
+                IntSet indices = ir.getCallInstructionIndices(site);
+                for (IntIterator ii = indices.intIterator(); ii.hasNext(); ) {
+                  int i = ii.next();
+                  Statement s = new NormalReturnCaller(caller, i);
+                  discovered.accept(s);
+                  result.add(s);
+                }
+              }
+            }
+          }
+          return result.iterator();
+        }
+      case HEAP_RET_CALLEE:
+        {
+          HeapStatement.HeapReturnCallee r = (HeapStatement.HeapReturnCallee) N;
+          Collection<Statement> result = HashSetFactory.make(5);
+          if (!dOptions.equals(DataDependenceOptions.NONE)) {
+            // data dependence predecessors
+            for (CGNode caller : Iterator2Iterable.make(cg.getPredNodes(N.getNode()))) {
+              for (CallSiteReference site :
+                  Iterator2Iterable.make(cg.getPossibleSites(caller, N.getNode()))) {
+                IR ir = caller.getIR();
+                IntSet indices = ir.getCallInstructionIndices(site);
+                for (IntIterator ii = indices.intIterator(); ii.hasNext(); ) {
+                  int i = ii.next();
+                  Statement s = new HeapStatement.HeapReturnCaller(caller, i, r.getLocation());
+                  discovered.accept(s);
+                  result.add(s);
+                }
+              }
+            }
+          }
+          return result.iterator();
+        }
+      case PARAM_CALLER:
+        {
+          ParamCaller pac = (ParamCaller) N;
+          SSAAbstractInvokeInstruction call = pac.getInstruction();
+          int numParamsPassed = call.getNumberOfUses();
+          Collection<Statement> result = HashSetFactory.make(5);
+          if (!dOptions.equals(DataDependenceOptions.NONE)) {
+            // data dependence successors
+            for (CGNode t : cg.getPossibleTargets(N.getNode(), call.getCallSite())) {
+              // in some languages (*cough* JavaScript *cough*) you can pass
+              // fewer parameters than the number of formals.  So, only loop
+              // over the parameters actually being passed here
+              for (int i = 0;
+                  i < t.getMethod().getNumberOfParameters() && i < numParamsPassed;
+                  i++) {
+                if (dOptions.isTerminateAtCast()
+                    && call.isDispatch()
+                    && pac.getValueNumber() == call.getReceiver()) {
+                  // a virtual dispatch is just like a cast.
+                  continue;
+                }
+                if (dOptions.isTerminateAtCast() && isUninformativeForReflection(t)) {
+                  // don't track reflection into reflective invokes
+                  continue;
+                }
+                if (call.getUse(i) == pac.getValueNumber()) {
+                  Statement s = new ParamCallee(t, i + 1);
+                  discovered.accept(s);
+                  result.add(s);
+                }
+              }
+            }
+          }
+          return result.iterator();
+        }
+      case HEAP_PARAM_CALLER:
+        HeapStatement.HeapParamCaller pc = (HeapStatement.HeapParamCaller) N;
+        SSAAbstractInvokeInstruction call = pc.getCall();
+        Collection<Statement> result = HashSetFactory.make(5);
+        if (!dOptions.equals(DataDependenceOptions.NONE)) {
+          // data dependence successors
+          for (CGNode t : cg.getPossibleTargets(N.getNode(), call.getCallSite())) {
+            if (ref.get(t).contains(pc.getLocation())) {
+              Statement s = new HeapStatement.HeapParamCallee(t, pc.getLocation());
+              discovered.accept(s);
+              result.add(s);
+            }
+          }
+        }
+        return result.iterator();
+      default:
+        Assertions.UNREACHABLE(N.getKind().toString());
+        return null;
+    }
+  }
+
+  /** Should we cut off flow into node t when processing reflection? */
+  private boolean isUninformativeForReflection(CGNode t) {
+    if (t.getMethod()
+        .getDeclaringClass()
+        .getReference()
+        .equals(TypeReference.JavaLangReflectMethod)) {
+      return true;
+    }
+    if (t.getMethod()
+        .getDeclaringClass()
+        .getReference()
+        .equals(TypeReference.JavaLangReflectConstructor)) {
+      return true;
+    }
+    if (t.getMethod().getSelector().equals(MethodReference.equalsSelector)) {
+      return true;
+    }
+    return false;
+  }
+
   private class Edges implements NumberedEdgeManager<Statement> {
     @Override
     public void addEdge(Statement src, Statement dst) {
@@ -451,179 +689,8 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
 
     @Override
     public Iterator<Statement> getSuccNodes(Statement N) {
-      if (dOptions.isTerminateAtCast() && isUninformativeForReflection(N.getNode())) {
-        return EmptyIterator.instance();
-      }
       addPDGStatementNodes(N.getNode());
-      switch (N.getKind()) {
-        case NORMAL:
-          if (cOptions.isIgnoreInterproc()) {
-            return getPDG(N.getNode()).getSuccNodes(N);
-          } else {
-            NormalStatement ns = (NormalStatement) N;
-            if (ns.getInstruction() instanceof SSAAbstractInvokeInstruction) {
-              HashSet<Statement> result = HashSetFactory.make();
-              SSAAbstractInvokeInstruction call =
-                  (SSAAbstractInvokeInstruction) ns.getInstruction();
-              for (CGNode t : cg.getPossibleTargets(N.getNode(), call.getCallSite())) {
-                Statement s = new MethodEntryStatement(t);
-                addNode(s);
-                result.add(s);
-              }
-              return new CompoundIterator<>(result.iterator(), getPDG(N.getNode()).getSuccNodes(N));
-            } else {
-              return getPDG(N.getNode()).getSuccNodes(N);
-            }
-          }
-        case PHI:
-        case PI:
-        case CATCH:
-        case EXC_RET_CALLER:
-        case NORMAL_RET_CALLER:
-        case PARAM_CALLEE:
-        case HEAP_PARAM_CALLEE:
-        case HEAP_RET_CALLER:
-        case METHOD_ENTRY:
-        case METHOD_EXIT:
-          return getPDG(N.getNode()).getSuccNodes(N);
-        case EXC_RET_CALLEE:
-          {
-            Collection<Statement> result = HashSetFactory.make(5);
-            if (!dOptions.equals(DataDependenceOptions.NONE)) {
-              // data dependence predecessors
-              for (CGNode caller : Iterator2Iterable.make(cg.getPredNodes(N.getNode()))) {
-                for (CallSiteReference site :
-                    Iterator2Iterable.make(cg.getPossibleSites(caller, N.getNode()))) {
-                  IR ir = caller.getIR();
-                  IntSet indices = ir.getCallInstructionIndices(site);
-                  for (IntIterator ii = indices.intIterator(); ii.hasNext(); ) {
-                    int i = ii.next();
-                    Statement s = new ExceptionalReturnCaller(caller, i);
-                    addNode(s);
-                    result.add(s);
-                  }
-                }
-              }
-            }
-            return result.iterator();
-          }
-        case NORMAL_RET_CALLEE:
-          {
-            Collection<Statement> result = HashSetFactory.make(5);
-            if (!dOptions.equals(DataDependenceOptions.NONE)) {
-              // data dependence predecessors
-              for (CGNode caller : Iterator2Iterable.make(cg.getPredNodes(N.getNode()))) {
-                for (CallSiteReference site :
-                    Iterator2Iterable.make(cg.getPossibleSites(caller, N.getNode()))) {
-                  IR ir = caller.getIR();
-                  IntSet indices = ir.getCallInstructionIndices(site);
-                  for (IntIterator ii = indices.intIterator(); ii.hasNext(); ) {
-                    int i = ii.next();
-                    Statement s = new NormalReturnCaller(caller, i);
-                    addNode(s);
-                    result.add(s);
-                  }
-                }
-              }
-            }
-            return result.iterator();
-          }
-        case HEAP_RET_CALLEE:
-          {
-            HeapStatement.HeapReturnCallee r = (HeapStatement.HeapReturnCallee) N;
-            Collection<Statement> result = HashSetFactory.make(5);
-            if (!dOptions.equals(DataDependenceOptions.NONE)) {
-              // data dependence predecessors
-              for (CGNode caller : Iterator2Iterable.make(cg.getPredNodes(N.getNode()))) {
-                for (CallSiteReference site :
-                    Iterator2Iterable.make(cg.getPossibleSites(caller, N.getNode()))) {
-                  IR ir = caller.getIR();
-                  IntSet indices = ir.getCallInstructionIndices(site);
-                  for (IntIterator ii = indices.intIterator(); ii.hasNext(); ) {
-                    int i = ii.next();
-                    Statement s = new HeapStatement.HeapReturnCaller(caller, i, r.getLocation());
-                    addNode(s);
-                    result.add(s);
-                  }
-                }
-              }
-            }
-            return result.iterator();
-          }
-        case PARAM_CALLER:
-          {
-            ParamCaller pac = (ParamCaller) N;
-            SSAAbstractInvokeInstruction call = pac.getInstruction();
-            int numParamsPassed = call.getNumberOfUses();
-            Collection<Statement> result = HashSetFactory.make(5);
-            if (!dOptions.equals(DataDependenceOptions.NONE)) {
-              // data dependence successors
-              for (CGNode t : cg.getPossibleTargets(N.getNode(), call.getCallSite())) {
-                // in some languages (*cough* JavaScript *cough*) you can pass
-                // fewer parameters than the number of formals.  So, only loop
-                // over the parameters actually being passed here
-                for (int i = 0;
-                    i < t.getMethod().getNumberOfParameters() && i < numParamsPassed;
-                    i++) {
-                  if (dOptions.isTerminateAtCast()
-                      && call.isDispatch()
-                      && pac.getValueNumber() == call.getReceiver()) {
-                    // a virtual dispatch is just like a cast.
-                    continue;
-                  }
-                  if (dOptions.isTerminateAtCast() && isUninformativeForReflection(t)) {
-                    // don't track reflection into reflective invokes
-                    continue;
-                  }
-                  if (call.getUse(i) == pac.getValueNumber()) {
-                    Statement s = new ParamCallee(t, i + 1);
-                    addNode(s);
-                    result.add(s);
-                  }
-                }
-              }
-            }
-            return result.iterator();
-          }
-        case HEAP_PARAM_CALLER:
-          HeapStatement.HeapParamCaller pc = (HeapStatement.HeapParamCaller) N;
-          SSAAbstractInvokeInstruction call = pc.getCall();
-          Collection<Statement> result = HashSetFactory.make(5);
-          if (!dOptions.equals(DataDependenceOptions.NONE)) {
-            // data dependence successors
-            for (CGNode t : cg.getPossibleTargets(N.getNode(), call.getCallSite())) {
-              if (ref.get(t).contains(pc.getLocation())) {
-                Statement s = new HeapStatement.HeapParamCallee(t, pc.getLocation());
-                addNode(s);
-                result.add(s);
-              }
-            }
-          }
-          return result.iterator();
-        default:
-          Assertions.UNREACHABLE(N.getKind().toString());
-          return null;
-      }
-    }
-
-    /** Should we cut off flow into node t when processing reflection? */
-    private boolean isUninformativeForReflection(CGNode t) {
-      if (t.getMethod()
-          .getDeclaringClass()
-          .getReference()
-          .equals(TypeReference.JavaLangReflectMethod)) {
-        return true;
-      }
-      if (t.getMethod()
-          .getDeclaringClass()
-          .getReference()
-          .equals(TypeReference.JavaLangReflectConstructor)) {
-        return true;
-      }
-      if (t.getMethod().getSelector().equals(MethodReference.equalsSelector)) {
-        return true;
-      }
-      return false;
+      return SDG.this.getSuccNodes(N, getPDG(N.getNode()), SDG.this::addNode);
     }
 
     @Override
@@ -809,16 +876,13 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
 
   @Override
   public PDG<T> getPDG(CGNode node) {
-    PDG<T> result = pdgMap.get(node);
-    if (result == null) {
-      result = new PDG<>(node, pa, mod, ref, dOptions, cOptions, heapExclude, cg, modRef);
-      pdgMap.put(node, result);
-      // Let's not eagerly add nodes, shall we?
-      // for (Iterator<? extends Statement> it = result.iterator(); it.hasNext();) {
-      // nodeMgr.addNode(it.next());
-      // }
-    }
-    return result;
+    // Let's not eagerly add nodes, shall we?
+    return pdgMap.computeIfAbsent(node, this::makePDG);
+  }
+
+  /** @return a new PDG for a node, which this SDG does not keep */
+  PDG<T> makePDG(CGNode node) {
+    return new PDG<>(node, pa, mod, ref, dOptions, cOptions, heapExclude, cg, modRef);
   }
 
   @Override
@@ -12,7 +12,6 @@ package com.ibm.wala.ipa.slicer;
 
 import com.ibm.wala.dataflow.IFDS.ISupergraph;
 import com.ibm.wala.ipa.callgraph.CGNode;
-import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
 import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
 import com.ibm.wala.util.collections.EmptyIterator;
 import com.ibm.wala.util.collections.FilterIterator;
@@ -23,7 +22,7 @@ import java.util.Iterator;
 import java.util.stream.Stream;
 
 /** A wrapper around an SDG to make it look like a supergraph for tabulation. */
-class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>> {
+class SDGSupergraph implements ISupergraph<Statement, IPDG> {
 
   private final ISDG sdg;
 
@@ -36,7 +35,7 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
   }
 
   @Override
-  public Graph<PDG<? extends InstanceKey>> getProcedureGraph() {
+  public Graph<IPDG> getProcedureGraph() {
     Assertions.UNREACHABLE();
     return null;
   }
@@ -59,28 +58,27 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
    * @see com.ibm.wala.dataflow.IFDS.ISupergraph#getCallSites(java.lang.Object)
    */
   @Override
-  public Iterator<? extends Statement> getCallSites(
-      Statement r, PDG<? extends InstanceKey> callee) {
+  public Iterator<? extends Statement> getCallSites(Statement r, IPDG callee) {
     switch (r.getKind()) {
       case EXC_RET_CALLER:
         {
           ExceptionalReturnCaller n = (ExceptionalReturnCaller) r;
           SSAAbstractInvokeInstruction call = n.getInstruction();
-          PDG<?> pdg = getProcOf(r);
+          IPDG pdg = getProcOf(r);
           return pdg.getCallStatements(call).iterator();
         }
       case NORMAL_RET_CALLER:
         {
           NormalReturnCaller n = (NormalReturnCaller) r;
           SSAAbstractInvokeInstruction call = n.getInstruction();
-          PDG<?> pdg = getProcOf(r);
+          IPDG pdg = getProcOf(r);
           return pdg.getCallStatements(call).iterator();
         }
       case HEAP_RET_CALLER:
         {
           HeapStatement.HeapReturnCaller n = (HeapStatement.HeapReturnCaller) r;
           SSAAbstractInvokeInstruction call = n.getCall();
-          PDG<?> pdg = getProcOf(r);
+          IPDG pdg = getProcOf(r);
           return pdg.getCallStatements(call).iterator();
         }
       default:
@@ -110,7 +108,7 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
    * @see com.ibm.wala.dataflow.IFDS.ISupergraph#getEntriesForProcedure(java.lang.Object)
    */
   @Override
-  public Statement[] getEntriesForProcedure(PDG<? extends InstanceKey> procedure) {
+  public Statement[] getEntriesForProcedure(IPDG procedure) {
     Statement[] normal = procedure.getParamCalleeStatements();
     Statement[] result = new Statement[normal.length + 1];
     result[0] = new MethodEntryStatement(procedure.getCallGraphNode());
@@ -122,7 +120,7 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
    * @see com.ibm.wala.dataflow.IFDS.ISupergraph#getExitsForProcedure(java.lang.Object)
    */
   @Override
-  public Statement[] getExitsForProcedure(PDG<? extends InstanceKey> procedure) {
+  public Statement[] getExitsForProcedure(IPDG procedure) {
     Statement[] normal = procedure.getReturnStatements();
     Statement[] result = new Statement[normal.length + 1];
     result[0] = new MethodExitStatement(procedure.getCallGraphNode());
@@ -134,7 +132,7 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
    * @see com.ibm.wala.dataflow.IFDS.ISupergraph#getLocalBlock(java.lang.Object, int)
    */
   @Override
-  public Statement getLocalBlock(PDG<? extends InstanceKey> procedure, int i) {
+  public Statement getLocalBlock(IPDG procedure, int i) {
     return procedure.getNode(i);
   }
 
@@ -143,7 +141,7 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
    */
   @Override
   public int getLocalBlockNumber(Statement n) {
-    PDG<?> pdg = getProcOf(n);
+    IPDG pdg = getProcOf(n);
     return pdg.getNumber(n);
   }
 
@@ -164,7 +162,7 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
    * @see com.ibm.wala.dataflow.IFDS.ISupergraph#getNumberOfBlocks(java.lang.Object)
    */
   @Override
-  public int getNumberOfBlocks(PDG<? extends InstanceKey> procedure) {
+  public int getNumberOfBlocks(IPDG procedure) {
     Assertions.UNREACHABLE();
     return 0;
   }
@@ -173,9 +171,9 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
    * @see com.ibm.wala.dataflow.IFDS.ISupergraph#getProcOf(java.lang.Object)
    */
   @Override
-  public PDG<? extends InstanceKey> getProcOf(Statement n) {
+  public IPDG getProcOf(Statement n) {
     CGNode node = n.getNode();
-    PDG<? extends InstanceKey> result = sdg.getPDG(node);
+    IPDG result = sdg.getIPDG(node);
     if (result == null) {
       Assertions.UNREACHABLE("panic: " + n + ' ' + node);
     }
@@ -186,28 +184,27 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
    * @see com.ibm.wala.dataflow.IFDS.ISupergraph#getReturnSites(java.lang.Object)
    */
   @Override
-  public Iterator<? extends Statement> getReturnSites(
-      Statement call, PDG<? extends InstanceKey> callee) {
+  public Iterator<? extends Statement> getReturnSites(Statement call, IPDG callee) {
     switch (call.getKind()) {
       case PARAM_CALLER:
         {
           ParamCaller n = (ParamCaller) call;
           SSAAbstractInvokeInstruction st = n.getInstruction();
-          PDG<?> pdg = getProcOf(call);
+          IPDG pdg = getProcOf(call);
           return pdg.getCallerReturnStatements(st).iterator();
         }
       case HEAP_PARAM_CALLER:
         {
           HeapStatement.HeapParamCaller n = (HeapStatement.HeapParamCaller) call;
           SSAAbstractInvokeInstruction st = n.getCall();
-          PDG<?> pdg = getProcOf(call);
+          IPDG pdg = getProcOf(call);
           return pdg.getCallerReturnStatements(st).iterator();
         }
       case NORMAL:
         {
           NormalStatement n = (NormalStatement) call;
           SSAAbstractInvokeInstruction st = (SSAAbstractInvokeInstruction) n.getInstruction();
-          PDG<?> pdg = getProcOf(call);
+          IPDG pdg = getProcOf(call);
           return pdg.getCallerReturnStatements(st).iterator();
         }
       default:
@@ -348,8 +345,7 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
 
   @Override
   public int getNumberOfNodes() {
-    Assertions.UNREACHABLE();
-    return 0;
+    return sdg.getNumberOfNodes();
   }
 
   @Override
@@ -251,15 +251,30 @@ public class Slicer {
   public Collection<Statement> slice(
       SDG<?> sdg, Collection<Statement> roots, boolean backward, IProgressMonitor monitor)
       throws CancelException {
+    return slice((ISDG) sdg, roots, backward, monitor);
+  }
+
+  /**
+   * Main driver logic, for any system dependence graph, such as a {@link CompactSDG}.
+   *
+   * @param sdg governing system dependence graph
+   * @param roots set of roots to slice from
+   * @param backward do a backwards slice?
+   * @param monitor to cancel analysis if needed
+   * @return the {@link Statement}s found by the slicer
+   */
+  public Collection<Statement> slice(
+      ISDG sdg, Collection<Statement> roots, boolean backward, IProgressMonitor monitor)
+      throws CancelException {
     if (sdg == null) {
       throw new IllegalArgumentException("sdg cannot be null");
     }
 
     SliceProblem p = makeSliceProblem(roots, sdg, backward);
 
-    PartiallyBalancedTabulationSolver<Statement, PDG<?>, Object> solver =
+    PartiallyBalancedTabulationSolver<Statement, IPDG, Object> solver =
         PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(p, monitor);
-    TabulationResult<Statement, PDG<?>, Object> tr = solver.solve();
+    TabulationResult<Statement, IPDG, Object> tr = solver.solve();
 
     Collection<Statement> slice = tr.getSupergraphNodesReached();
 
@@ -292,11 +307,11 @@ public class Slicer {
 
   /** Tabulation problem representing slicing */
   public static class SliceProblem
-      implements PartiallyBalancedTabulationProblem<Statement, PDG<?>, Object> {
+      implements PartiallyBalancedTabulationProblem<Statement, IPDG, Object> {
 
     private final Collection<Statement> roots;
 
-    private final ISupergraph<Statement, PDG<? extends InstanceKey>> supergraph;
+    private final ISupergraph<Statement, IPDG> supergraph;
 
     private final SliceFunctions f;
 
@@ -339,7 +354,7 @@ public class Slicer {
      * @see com.ibm.wala.dataflow.IFDS.TabulationProblem#getSupergraph()
      */
     @Override
-    public ISupergraph<Statement, PDG<?>> getSupergraph() {
+    public ISupergraph<Statement, IPDG> getSupergraph() {
       return supergraph;
     }
 
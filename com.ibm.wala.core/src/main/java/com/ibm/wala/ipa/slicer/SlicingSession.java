@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.slicer;
+
+import com.ibm.wala.dataflow.IFDS.IBinaryReturnFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IMergeFunction;
+import com.ibm.wala.dataflow.IFDS.IPartiallyBalancedFlowFunctions;
+import com.ibm.wala.dataflow.IFDS.ISupergraph;
+import com.ibm.wala.dataflow.IFDS.IUnaryFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IdentityFlowFunction;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationProblem;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
+import com.ibm.wala.dataflow.IFDS.PathEdge;
+import com.ibm.wala.dataflow.IFDS.TabulationDomain;
+import com.ibm.wala.dataflow.IFDS.UnorderedDomain;
+import com.ibm.wala.ipa.slicer.Slicer.SliceProblem;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.intset.SparseIntSet;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A session that answers many slicing queries against one {@link SDG}.
+ *
+ * <p>{@link Slicer} builds a fresh tabulation solver for each query, so the summary edges it
+ * computes for a procedure are thrown away and recomputed by the next query. A session instead
+ * keeps one {@link PartiallyBalancedTabulationSolver} alive. Each query gets its own dataflow fact,
+ * which identifies the statements reached from its seeds; a call always enters the callee with the
+ * shared fact 0, so the part of the slice below a call, and the summary edges of the callee, are
+ * computed once and reused by all later queries.
+ *
+ * <p>A query may be a batch of seeds: {@link #slice(Collection)} computes the slice from all seeds
+ * together, while {@link #sliceEach(Collection)} computes a separate slice for each seed with a
+ * single round of tabulation.
+ *
+ * <p>A session is a serialized cache of tabulation state: it may be queried from several threads,
+ * but answers one query at a time, so queries from different threads do not run concurrently. To
+ * answer queries concurrently, give each thread its own session; sessions over the same SDG do not
+ * share summaries. Only the tabulation of a single query may use several threads (see {@link
+ * #setNumberOfThreads(int)}).
+ *
+ * <p>The tabulation state grows with every query, since the path edges of each query's fact stay in
+ * the solver. Its size is bounded by a number of path edges (see {@link #setMaxPathEdges(long)}):
+ * once a query leaves more than that, the session discards the solver, with all summaries computed
+ * so far, and starts over with the next query.
+ *
+ * <p>The slice of a seed in a procedure that is also entered through a call may be smaller than the
+ * one computed by {@link Slicer}: the slicer uses the same fact for the seed and for the calling
+ * context, so statements in callers of that procedure that are only reached from calls to it end up
+ * in its slice, while a session keeps the two apart.
+ */
+public class SlicingSession {
+
+  /** default bound on the number of path edges a session keeps */
+  public static final long DEFAULT_MAX_PATH_EDGES = 1 << 22;
+
+  /** governing system dependence graph */
+  private final SDG<?> sdg;
+
+  private final boolean backward;
+
+  private final IProgressMonitor monitor;
+
+  private Solver solver;
+
+  private int numberOfThreads = 1;
+
+  /** the next fact to hand out to a query. fact 0 is shared by all callee contexts */
+  private int nextFact = 1;
+
+  private int numberOfQueries;
+
+  /** path edges the solver may hold before the session starts over */
+  private long maxPathEdges = DEFAULT_MAX_PATH_EDGES;
+
+  /** path edges the solver holds; counted by all the threads tabulating a query */
+  private final AtomicLong pathEdges = new AtomicLong();
+
+  private int numberOfFlushes;
+
+  /** has the SDG been built in full, so that several threads may read it? */
+  private boolean sdgComplete;
+
+  // the maps below are updated by all the threads tabulating a query
+
+  /** statements reached in the context of each callee entry, with fact 0 */
+  private final Map<Statement, Set<Statement>> contextStatements = new ConcurrentHashMap<>();
+
+  /** callee entries called from each callee entry, with fact 0 */
+  private final Map<Statement, Set<Statement>> contextCallees = new ConcurrentHashMap<>();
+
+  /** statements reached by each pending query fact */
+  private final Map<Integer, Set<Statement>> queryStatements = new ConcurrentHashMap<>();
+
+  /** callee entries called by each pending query fact */
+  private final Map<Integer, Set<Statement>> queryCallees = new ConcurrentHashMap<>();
+
+  /**
+   * @param sdg governing system dependence graph
+   * @param backward compute backward slices?
+   */
+  public SlicingSession(SDG<?> sdg, boolean backward) {
+    this(sdg, backward, null);
+  }
+
+  /**
+   * @param sdg governing system dependence graph
+   * @param backward compute backward slices?
+   * @param monitor to cancel analysis if needed
+   */
+  public SlicingSession(SDG<?> sdg, boolean backward, IProgressMonitor monitor) {
+    if (sdg == null) {
+      throw new IllegalArgumentException("sdg cannot be null");
+    }
+    this.sdg = sdg;
+    this.backward = backward;
+    this.monitor = monitor;
+    this.solver = new Solver(new SessionProblem(sdg, backward), monitor);
+  }
+
+  /** @return the number of threads used to tabulate a query */
+  public synchronized int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Let several threads tabulate each query. The {@link SDG} is then built in full, with all its
+   * statements and dependences, before the next query: the workers read the SDG concurrently, and a
+   * lazily built SDG adds statements and numbers them as it is read.
+   *
+   * @throws IllegalArgumentException if numberOfThreads &lt; 1
+   */
+  public synchronized void setNumberOfThreads(int numberOfThreads) {
+    solver.setNumberOfThreads(numberOfThreads);
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  /** @return the number of path edges the session keeps before it starts over */
+  public synchronized long getMaxPathEdges() {
+    return maxPathEdges;
+  }
+
+  /**
+   * Bound the tabulation state kept between queries. A single query may exceed the bound; the state
+   * is discarded before the next one.
+   *
+   * @throws IllegalArgumentException if maxPathEdges &lt; 1
+   */
+  public synchronized void setMaxPathEdges(long maxPathEdges) {
+    if (maxPathEdges < 1) {
+      throw new IllegalArgumentException("invalid number of path edges: " + maxPathEdges);
+    }
+    this.maxPathEdges = maxPathEdges;
+  }
+
+  /** @return the number of times the session discarded its tabulation state */
+  public synchronized int getNumberOfFlushes() {
+    return numberOfFlushes;
+  }
+
+  /** @return are the slices of this session backward slices? */
+  public boolean isBackward() {
+    return backward;
+  }
+
+  /** @return the number of queries answered so far; a batch of seeds counts once per slice */
+  public synchronized int getNumberOfQueries() {
+    return numberOfQueries;
+  }
+
+  /** @return the number of callee contexts tabulated and kept, which are shared by all queries */
+  public synchronized int getNumberOfSharedContexts() {
+    return contextStatements.size();
+  }
+
+  /** @return the slice from a single seed */
+  public Collection<Statement> slice(Statement seed) throws CancelException {
+    return slice(Collections.singleton(seed));
+  }
+
+  /** @return the slice from a set of seeds, computed together */
+  public synchronized Collection<Statement> slice(Collection<Statement> seeds)
+      throws CancelException {
+    if (seeds == null) {
+      throw new IllegalArgumentException("seeds cannot be null");
+    }
+    flushIfFull();
+    int fact = newFact();
+    for (Statement s : seeds) {
+      addSeed(s, fact);
+    }
+    solve();
+    return collect(fact);
+  }
+
+  /**
+   * Compute one slice for each seed, tabulating all of them together.
+   *
+   * @return a map from each seed to its slice
+   */
+  public synchronized Map<Statement, Collection<Statement>> sliceEach(Collection<Statement> seeds)
+      throws CancelException {
+    if (seeds == null) {
+      throw new IllegalArgumentException("seeds cannot be null");
+    }
+    flushIfFull();
+    Map<Statement, Integer> facts = HashMapFactory.make();
+    for (Statement s : seeds) {
+      if (!facts.containsKey(s)) {
+        int fact = newFact();
+        facts.put(s, fact);
+        addSeed(s, fact);
+      }
+    }
+    solve();
+    Map<Statement, Collection<Statement>> result = HashMapFactory.make();
+    for (Map.Entry<Statement, Integer> e : facts.entrySet()) {
+      result.put(e.getKey(), collect(e.getValue()));
+    }
+    return result;
+  }
+
+  /** discard the tabulation state if it has grown past the bound */
+  private void flushIfFull() {
+    if (pathEdges.get() > maxPathEdges) {
+      solver = new Solver(new SessionProblem(sdg, backward), monitor);
+      solver.setNumberOfThreads(numberOfThreads);
+      contextStatements.clear();
+      contextCallees.clear();
+      nextFact = 1;
+      pathEdges.set(0);
+      numberOfFlushes++;
+    }
+  }
+
+  private int newFact() {
+    numberOfQueries++;
+    int fact = nextFact++;
+    queryStatements.put(fact, ConcurrentHashMap.newKeySet());
+    queryCallees.put(fact, ConcurrentHashMap.newKeySet());
+    return fact;
+  }
+
+  private void addSeed(Statement s, int fact) {
+    if (s == null) {
+      throw new IllegalArgumentException("null seed");
+    }
+    Statement entry =
+        backward ? new MethodExitStatement(s.getNode()) : new MethodEntryStatement(s.getNode());
+    solver.addSeed(PathEdge.createPathEdge(entry, fact, s, fact));
+  }
+
+  private void solve() throws CancelException {
+    if (solver.getNumberOfThreads() > 1 && !sdgComplete) {
+      sdg.computeAllDependences();
+      // adds and numbers the statements of all PDGs
+      sdg.getNumberOfNodes();
+      sdgComplete = true;
+    }
+    solver.solve();
+  }
+
+  /**
+   * Collect the statements reached by a query fact, and by the callee contexts reachable from it.
+   * Once a query has been tabulated, those contexts are complete.
+   */
+  private Collection<Statement> collect(int fact) {
+    Set<Statement> result = HashSetFactory.make(queryStatements.remove(fact));
+    Set<Statement> visited = HashSetFactory.make();
+    Deque<Statement> worklist = new ArrayDeque<>(queryCallees.remove(fact));
+    while (!worklist.isEmpty()) {
+      Statement entry = worklist.pop();
+      if (visited.add(entry)) {
+        result.addAll(contextStatements.getOrDefault(entry, Collections.emptySet()));
+        worklist.addAll(contextCallees.getOrDefault(entry, Collections.emptySet()));
+      }
+    }
+    return result;
+  }
+
+  private static Set<Statement> findOrCreate(Map<Statement, Set<Statement>> map, Statement key) {
+    return map.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+  }
+
+  /** A solver that records which statements and callee contexts each fact reaches */
+  private final class Solver extends PartiallyBalancedTabulationSolver<Statement, IPDG, Object> {
+
+    Solver(SessionProblem p, IProgressMonitor monitor) {
+      super(p, monitor);
+    }
+
+    @Override
+    protected boolean propagate(Statement s_p, int i, Statement n, int j) {
+      boolean result = super.propagate(s_p, i, n, j);
+      if (result) {
+        pathEdges.incrementAndGet();
+        if (j == 0) {
+          findOrCreate(contextStatements, s_p).add(n);
+        } else {
+          queryStatements.get(j).add(n);
+        }
+      }
+      return result;
+    }
+
+    @Override
+    protected void newCallExplodedEdge(PathEdge<Statement> edge, Statement calleeEntry, int d3) {
+      if (edge.getD1() == 0) {
+        findOrCreate(contextCallees, edge.getEntry()).add(calleeEntry);
+      } else {
+        queryCallees.get(edge.getD1()).add(calleeEntry);
+      }
+    }
+  }
+
+  /**
+   * The slicing problem of a session. It uses the supergraph of a {@link SliceProblem}, but keeps
+   * the fact of each query within the procedures it reaches without a call: calls enter the callee
+   * with fact 0, and returns restore the fact of the caller.
+   */
+  private static final class SessionProblem
+      implements PartiallyBalancedTabulationProblem<Statement, IPDG, Object> {
+
+    private final SliceProblem delegate;
+
+    private final SessionFunctions f = new SessionFunctions();
+
+    private final TabulationDomain<Object, Statement> domain = new UnorderedDomain<>();
+
+    SessionProblem(ISDG sdg, boolean backward) {
+      this.delegate = new SliceProblem(Collections.emptySet(), sdg, backward);
+    }
+
+    @Override
+    public ISupergraph<Statement, IPDG> getSupergraph() {
+      return delegate.getSupergraph();
+    }
+
+    @Override
+    public TabulationDomain<Object, Statement> getDomain() {
+      return domain;
+    }
+
+    @Override
+    public IPartiallyBalancedFlowFunctions<Statement> getFunctionMap() {
+      return f;
+    }
+
+    @Override
+    public Collection<PathEdge<Statement>> initialSeeds() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public IMergeFunction getMergeFunction() {
+      return null;
+    }
+
+    @Override
+    public Statement getFakeEntry(Statement n) {
+      return delegate.getFakeEntry(n);
+    }
+  }
+
+  /**
+   * Flow functions for a {@link SessionProblem}. Like {@link SliceFunctions}, every fact flows
+   * along every dependence, but facts are not merged into fact 0 except when entering a callee.
+   */
+  private static final class SessionFunctions
+      implements IPartiallyBalancedFlowFunctions<Statement> {
+
+    private final SliceFunctions slice = new SliceFunctions();
+
+    /** a call enters the callee with the shared fact 0 */
+    private static final IUnaryFlowFunction CALL =
+        new IUnaryFlowFunction() {
+          @Override
+          public SparseIntSet getTargets(int d1) {
+            return SparseIntSet.singleton(0);
+          }
+
+          @Override
+          public String toString() {
+            return "Call";
+          }
+        };
+
+    /** a return restores the fact that reached the call */
+    private static final IBinaryReturnFlowFunction RETURN =
+        new IBinaryReturnFlowFunction() {
+          @Override
+          public SparseIntSet getTargets(int call_d, int exit_d) {
+            return SparseIntSet.singleton(call_d);
+          }
+
+          @Override
+          public String toString() {
+            return "Return";
+          }
+        };
+
+    @Override
+    public IUnaryFlowFunction getNormalFlowFunction(Statement src, Statement dest) {
+      return IdentityFlowFunction.identity();
+    }
+
+    @Override
+    public IUnaryFlowFunction getCallFlowFunction(Statement src, Statement dest, Statement ret) {
+      return CALL;
+    }
+
+    @Override
+    public IFlowFunction getReturnFlowFunction(Statement call, Statement src, Statement dest) {
+      return RETURN;
+    }
+
+    @Override
+    public IUnaryFlowFunction getCallToReturnFlowFunction(Statement src, Statement dest) {
+      return slice.getCallToReturnFlowFunction(src, dest);
+    }
+
+    @Override
+    public IUnaryFlowFunction getCallNoneToReturnFlowFunction(Statement src, Statement dest) {
+      return slice.getCallNoneToReturnFlowFunction(src, dest);
+    }
+
+    @Override
+    public IFlowFunction getUnbalancedReturnFlowFunction(Statement src, Statement dest) {
+      return IdentityFlowFunction.identity();
+    }
+  }
+}
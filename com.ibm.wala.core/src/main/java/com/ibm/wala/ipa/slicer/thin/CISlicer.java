@@ -25,9 +25,6 @@ import com.ibm.wala.ipa.slicer.Statement;
 import com.ibm.wala.ssa.IR;
 import com.ibm.wala.ssa.SSAInstruction;
 import com.ibm.wala.util.collections.HashMapFactory;
-import com.ibm.wala.util.graph.Graph;
-import com.ibm.wala.util.graph.impl.GraphInverter;
-import com.ibm.wala.util.graph.traverse.DFS;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
@@ -36,7 +33,8 @@ import java.util.Set;
 /**
  * A cheap, context-insensitive slicer based on reachability over a custom SDG.
  *
- * <p>This is a prototype implementation; not tuned.
+ * <p>The SDG is indexed once, as a {@link CompactCISDG}, so each slice is a search over primitive
+ * arrays.
  *
  * <p>Currently supports backward slices only.
  *
@@ -46,7 +44,7 @@ import java.util.Set;
 public class CISlicer {
 
   /** the dependence graph used for context-insensitive slicing */
-  private final Graph<Statement> depGraph;
+  private final CompactCISDG depGraph;
 
   public CISlicer(
       CallGraph cg,
@@ -73,30 +71,22 @@ public class CISlicer {
 
     SDG<InstanceKey> sdg = new SDG<>(cg, pa, modRef, dOptions, cOptions, null);
 
-    Map<Statement, Set<PointerKey>> mod = scanForMod(sdg, pa, modRef);
-    Map<Statement, Set<PointerKey>> ref = scanForRef(sdg, pa, modRef);
-
-    depGraph = GraphInverter.invert(new CISDG(sdg, mod, ref));
+    depGraph = new CompactCISDG(sdg, pa, modRef);
   }
 
   public CISlicer(
       final SDG<InstanceKey> sdg,
       final PointerAnalysis<InstanceKey> pa,
       final ModRef<InstanceKey> modRef) {
-    Map<Statement, Set<PointerKey>> mod = scanForMod(sdg, pa, modRef);
-    Map<Statement, Set<PointerKey>> ref = scanForRef(sdg, pa, modRef);
-
-    depGraph = GraphInverter.invert(new CISDG(sdg, mod, ref));
+    depGraph = new CompactCISDG(sdg, pa, modRef);
   }
 
   public Collection<Statement> computeBackwardThinSlice(Statement seed) {
-    Collection<Statement> slice = DFS.getReachableNodes(depGraph, Collections.singleton(seed));
-    return slice;
+    return depGraph.computeBackwardThinSlice(Collections.singleton(seed));
   }
 
   public Collection<Statement> computeBackwardThinSlice(Collection<Statement> seeds) {
-    Collection<Statement> slice = DFS.getReachableNodes(depGraph, seeds);
-    return slice;
+    return depGraph.computeBackwardThinSlice(seeds);
   }
 
   /** Compute the set of pointer keys each statement mods */
@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.slicer.thin;
+
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.modref.ExtendedHeapModel;
+import com.ibm.wala.ipa.modref.ModRef;
+import com.ibm.wala.ipa.slicer.NormalStatement;
+import com.ibm.wala.ipa.slicer.SDG;
+import com.ibm.wala.ipa.slicer.Statement;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.intset.BitVector;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.MutableMapping;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A context-insensitive SDG, like {@link CISDG}, indexed once into primitive arrays.
+ *
+ * <p>Statements are numbered as in the underlying NO_HEAP {@link SDG}, and its edges are kept in
+ * compressed sparse row arrays. Each statement that reads or writes the heap maps to the numbers of
+ * the {@link PointerKey}s it refs or mods, and each pointer key maps back to the statements that
+ * read or write it. A thin slice is then a breadth-first search over these arrays; the heap
+ * dependences through a pointer key are followed once per slice rather than once per statement.
+ *
+ * <p>Once built, the index is immutable, so slices may be computed concurrently.
+ */
+public class CompactCISDG {
+
+  /** the basic SDG, without interprocedural heap edges; used to number statements */
+  private final SDG<InstanceKey> noHeap;
+
+  /** number of the first statement that is not in {@link #noHeap} */
+  private final int sdgSize;
+
+  /** statements that ref or mod the heap but are not in {@link #noHeap} */
+  private final Map<Statement, Integer> extraNumbers = HashMapFactory.make();
+
+  /** Statement by number */
+  private final Statement[] statements;
+
+  private final MutableMapping<PointerKey> pointerKeys = MutableMapping.make();
+
+  private final int[] predOffsets;
+
+  private final int[] preds;
+
+  private final int[] succOffsets;
+
+  private final int[] succs;
+
+  /** pointer keys each statement refs */
+  private final int[] refOffsets;
+
+  private final int[] refs;
+
+  /** pointer keys each statement mods */
+  private final int[] modOffsets;
+
+  private final int[] mods;
+
+  /** statements that ref each pointer key */
+  private final int[] readerOffsets;
+
+  private final int[] readers;
+
+  /** statements that mod each pointer key */
+  private final int[] writerOffsets;
+
+  private final int[] writers;
+
+  /**
+   * Index an SDG and the heap locations read and written by each statement of its call graph. This
+   * builds every PDG of {@code noHeap}.
+   *
+   * @param noHeap an SDG without heap data dependences
+   */
+  public CompactCISDG(
+      SDG<InstanceKey> noHeap, PointerAnalysis<InstanceKey> pa, ModRef<InstanceKey> modRef) {
+    if (noHeap == null) {
+      throw new IllegalArgumentException("null noHeap");
+    }
+    if (pa == null) {
+      throw new IllegalArgumentException("null pa");
+    }
+    this.noHeap = noHeap;
+    this.sdgSize = noHeap.getMaxNumber() + 1;
+
+    // scan for heap accesses first, since they may add statements
+    IntPairs refPairs = new IntPairs();
+    IntPairs modPairs = new IntPairs();
+    List<Statement> extras = new ArrayList<>();
+    ExtendedHeapModel h = modRef.makeHeapModel(pa);
+    for (CGNode n : noHeap.getCallGraph()) {
+      IR ir = n.getIR();
+      if (ir == null) {
+        continue;
+      }
+      SSAInstruction[] instructions = ir.getInstructions();
+      for (int i = 0; i < instructions.length; i++) {
+        SSAInstruction st = instructions[i];
+        if (st == null) {
+          continue;
+        }
+        Set<PointerKey> ref = modRef.getRef(n, h, pa, st, null);
+        Set<PointerKey> mod = modRef.getMod(n, h, pa, st, null, false);
+        if (ref.isEmpty() && mod.isEmpty()) {
+          continue;
+        }
+        Statement s = new NormalStatement(n, i);
+        int number = getNumber(s);
+        if (number < 0) {
+          number = sdgSize + extras.size();
+          extraNumbers.put(s, number);
+          extras.add(s);
+        }
+        for (PointerKey p : ref) {
+          refPairs.add(number, pointerKeys.add(p));
+        }
+        for (PointerKey p : mod) {
+          modPairs.add(number, pointerKeys.add(p));
+        }
+      }
+    }
+
+    int numberOfStatements = sdgSize + extras.size();
+    statements = new Statement[numberOfStatements];
+    IntPairs edges = new IntPairs();
+    for (int i = 0; i < sdgSize; i++) {
+      Statement s = noHeap.getNode(i);
+      statements[i] = s;
+      if (s != null) {
+        for (IntIterator it = noHeap.getSuccNodeNumbers(s).intIterator(); it.hasNext(); ) {
+          edges.add(i, it.next());
+        }
+      }
+    }
+    for (int i = 0; i < extras.size(); i++) {
+      statements[sdgSize + i] = extras.get(i);
+    }
+
+    int numberOfKeys = pointerKeys.getMaximumIndex() + 1;
+    succOffsets = edges.offsets(numberOfStatements, false);
+    succs = edges.targets(succOffsets, false);
+    predOffsets = edges.offsets(numberOfStatements, true);
+    preds = edges.targets(predOffsets, true);
+    refOffsets = refPairs.offsets(numberOfStatements, false);
+    refs = refPairs.targets(refOffsets, false);
+    readerOffsets = refPairs.offsets(numberOfKeys, true);
+    readers = refPairs.targets(readerOffsets, true);
+    modOffsets = modPairs.offsets(numberOfStatements, false);
+    mods = modPairs.targets(modOffsets, false);
+    writerOffsets = modPairs.offsets(numberOfKeys, true);
+    writers = modPairs.targets(writerOffsets, true);
+  }
+
+  public int getNumberOfStatements() {
+    return statements.length;
+  }
+
+  public int getNumberOfPointerKeys() {
+    return pointerKeys.getMaximumIndex() + 1;
+  }
+
+  /** @return the number of s, or -1 if s is not in this graph */
+  public int getNumber(Statement s) {
+    if (noHeap.containsNode(s)) {
+      return noHeap.getNumber(s);
+    }
+    Integer n = extraNumbers.get(s);
+    return n == null ? -1 : n;
+  }
+
+  public Statement getStatement(int number) {
+    return statements[number];
+  }
+
+  /** @return the statements that read p */
+  public Collection<Statement> getReaders(PointerKey p) {
+    return statementsFor(p, readerOffsets, readers);
+  }
+
+  /** @return the statements that write p */
+  public Collection<Statement> getWriters(PointerKey p) {
+    return statementsFor(p, writerOffsets, writers);
+  }
+
+  private Collection<Statement> statementsFor(PointerKey p, int[] offsets, int[] targets) {
+    int k = pointerKeys.getMappedIndex(p);
+    if (k < 0) {
+      return Collections.emptySet();
+    }
+    List<Statement> result = new ArrayList<>(offsets[k + 1] - offsets[k]);
+    for (int i = offsets[k]; i < offsets[k + 1]; i++) {
+      result.add(statements[targets[i]]);
+    }
+    return result;
+  }
+
+  /**
+   * @return the statements on which the seeds depend, through data dependences and
+   *     context-insensitive heap dependences from stores to loads
+   */
+  public Set<Statement> computeBackwardThinSlice(Collection<Statement> seeds) {
+    return slice(seeds, predOffsets, preds, refOffsets, refs, writerOffsets, writers);
+  }
+
+  /** @return the statements that depend on the seeds */
+  public Set<Statement> computeForwardThinSlice(Collection<Statement> seeds) {
+    return slice(seeds, succOffsets, succs, modOffsets, mods, readerOffsets, readers);
+  }
+
+  private Set<Statement> slice(
+      Collection<Statement> seeds,
+      int[] edgeOffsets,
+      int[] edges,
+      int[] accessOffsets,
+      int[] accesses,
+      int[] heapOffsets,
+      int[] heap) {
+    if (seeds == null) {
+      throw new IllegalArgumentException("null seeds");
+    }
+    BitVector reached = new BitVector(statements.length);
+    BitVector keysDone = new BitVector(getNumberOfPointerKeys());
+    int[] queue = new int[statements.length];
+    int tail = 0;
+    for (Statement seed : seeds) {
+      int s = getNumber(seed);
+      if (s < 0) {
+        throw new IllegalArgumentException("unknown seed " + seed);
+      }
+      if (!reached.get(s)) {
+        reached.set(s);
+        queue[tail++] = s;
+      }
+    }
+    for (int head = 0; head < tail; head++) {
+      int s = queue[head];
+      for (int i = edgeOffsets[s]; i < edgeOffsets[s + 1]; i++) {
+        int t = edges[i];
+        if (!reached.get(t)) {
+          reached.set(t);
+          queue[tail++] = t;
+        }
+      }
+      for (int i = accessOffsets[s]; i < accessOffsets[s + 1]; i++) {
+        int k = accesses[i];
+        if (keysDone.get(k)) {
+          continue;
+        }
+        keysDone.set(k);
+        for (int j = heapOffsets[k]; j < heapOffsets[k + 1]; j++) {
+          int t = heap[j];
+          if (!reached.get(t)) {
+            reached.set(t);
+            queue[tail++] = t;
+          }
+        }
+      }
+    }
+    return new Slice(reached, tail);
+  }
+
+  /** A set of statements backed by a bit vector over statement numbers. */
+  private final class Slice extends AbstractSet<Statement> {
+
+    private final BitVector bits;
+
+    private final int size;
+
+    Slice(BitVector bits, int size) {
+      this.bits = bits;
+      this.size = size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Statement)) {
+        return false;
+      }
+      int n = getNumber((Statement) o);
+      return n >= 0 && bits.get(n);
+    }
+
+    @Override
+    public Iterator<Statement> iterator() {
+      return new Iterator<Statement>() {
+        private int next = bits.nextSetBit(0);
+
+        @Override
+        public boolean hasNext() {
+          return next >= 0;
+        }
+
+        @Override
+        public Statement next() {
+          if (next < 0) {
+            throw new NoSuchElementException();
+          }
+          Statement s = statements[next];
+          next = bits.nextSetBit(next + 1);
+          return s;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  /** A growable list of (source, target) pairs, from which compressed sparse rows are built. */
+  private static final class IntPairs {
+
+    private int[] sources = new int[16];
+
+    private int[] targets = new int[16];
+
+    private int size = 0;
+
+    void add(int source, int target) {
+      if (size == sources.length) {
+        sources = Arrays.copyOf(sources, 2 * size);
+        targets = Arrays.copyOf(targets, 2 * size);
+      }
+      sources[size] = source;
+      targets[size] = target;
+      size++;
+    }
+
+    /** @return row offsets for rows 0..n-1, grouping by source, or by target if inverse */
+    int[] offsets(int n, boolean inverse) {
+      int[] rows = inverse ? targets : sources;
+      int[] offsets = new int[n + 1];
+      for (int i = 0; i < size; i++) {
+        offsets[rows[i] + 1]++;
+      }
+      for (int i = 0; i < n; i++) {
+        offsets[i + 1] += offsets[i];
+      }
+      return offsets;
+    }
+
+    /** @return the row contents for the given offsets, each row in order of insertion */
+    int[] targets(int[] offsets, boolean inverse) {
+      int[] rows = inverse ? targets : sources;
+      int[] columns = inverse ? sources : targets;
+      int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+      int[] result = new int[size];
+      for (int i = 0; i < size; i++) {
+        result[next[rows[i]]++] = columns[i];
+      }
+      return result;
+    }
+  }
+}
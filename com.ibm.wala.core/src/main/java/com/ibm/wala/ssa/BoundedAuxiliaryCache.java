@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ssa;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.Context;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * A cache for auxiliary information based on an SSA representation, which holds strong references
+ * and bounds the estimated number of bytes retained by cached objects.
+ *
+ * <p>Unlike {@link AuxiliaryCache}, this cache does not rely on the garbage collector to clear soft
+ * references: when the estimated size of its contents exceeds the bound, it evicts entries
+ * according to an {@link EvictionPolicy}. Entries are spread over independently locked segments, so
+ * threads looking up different methods rarely contend. Each segment gets an equal share of the
+ * bound; an object bigger than that share is not cached.
+ *
+ * <p>The cache counts hits, misses, evictions, and the number and duration of builds reported by
+ * its {@link SSACache}.
+ */
+public class BoundedAuxiliaryCache implements IAuxiliaryCache {
+
+  /** How to choose the entry to evict when the cache is full */
+  public enum EvictionPolicy {
+    /** evict the least recently used entry */
+    LRU,
+    /**
+     * evict the least frequently used among the few least recently used entries; an approximation
+     * of LFU that keeps eviction cheap
+     */
+    LFU
+  }
+
+  /** number of independently locked segments */
+  private static final int SEGMENTS = 16;
+
+  /** number of least recently used entries from which the LFU policy picks a victim */
+  private static final int LFU_SAMPLE = 8;
+
+  /** rough per-object costs used to estimate the size of an {@link IR} */
+  private static final int IR_BASE_BYTES = 256;
+
+  private static final int IR_INSTRUCTION_BYTES = 64;
+
+  private static final int IR_VALUE_BYTES = 32;
+
+  private static final int IR_BLOCK_BYTES = 128;
+
+  /** size assumed for objects the default estimator does not know about */
+  private static final int DEFAULT_BYTES = 1024;
+
+  private final EvictionPolicy policy;
+
+  private final ToLongFunction<Object> sizeEstimator;
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  private final LongAdder builds = new LongAdder();
+
+  private final LongAdder buildNanos = new LongAdder();
+
+  /**
+   * @param maxBytes bound on the estimated number of bytes retained by cached objects
+   * @param policy how to choose entries to evict
+   * @param sizeEstimator estimates the number of bytes retained by a cached object
+   */
+  public BoundedAuxiliaryCache(
+      long maxBytes, EvictionPolicy policy, ToLongFunction<Object> sizeEstimator) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("illegal maxBytes: " + maxBytes);
+    }
+    if (policy == null) {
+      throw new IllegalArgumentException("null policy");
+    }
+    if (sizeEstimator == null) {
+      throw new IllegalArgumentException("null sizeEstimator");
+    }
+    this.policy = policy;
+    this.sizeEstimator = sizeEstimator;
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(Math.max(1, maxBytes / SEGMENTS));
+    }
+  }
+
+  /**
+   * @param maxBytes bound on the estimated number of bytes retained by cached objects
+   * @param policy how to choose entries to evict
+   */
+  public BoundedAuxiliaryCache(long maxBytes, EvictionPolicy policy) {
+    this(maxBytes, policy, BoundedAuxiliaryCache::estimateSize);
+  }
+
+  /** @param maxBytes bound on the estimated number of bytes retained by cached objects */
+  public BoundedAuxiliaryCache(long maxBytes) {
+    this(maxBytes, EvictionPolicy.LRU);
+  }
+
+  /**
+   * A rough estimate of the bytes retained by an {@link IR} or {@link DefUse}, based on the number
+   * of instructions, values and basic blocks. A {@link DefUse} keeps its IR alive, so its estimate
+   * includes the IR; an IR kept by both an IR cache and a DefUse cache counts toward both bounds.
+   */
+  public static long estimateSize(Object o) {
+    if (o instanceof IR) {
+      IR ir = (IR) o;
+      return IR_BASE_BYTES
+          + (long) IR_INSTRUCTION_BYTES * ir.getInstructions().length
+          + (long) IR_VALUE_BYTES * ir.getSymbolTable().getMaxValueNumber()
+          + (long) IR_BLOCK_BYTES * ir.getControlFlowGraph().getNumberOfNodes();
+    } else if (o instanceof DefUse) {
+      return ((DefUse) o).estimateSize();
+    } else {
+      return DEFAULT_BYTES;
+    }
+  }
+
+  private Segment segmentFor(IMethod m, Context c) {
+    int h = m.hashCode() * 31 + (c == null ? 0 : c.hashCode());
+    h ^= h >>> 16;
+    return segments[h & (SEGMENTS - 1)];
+  }
+
+  @Override
+  public void wipe() {
+    for (Segment s : segments) {
+      s.clear();
+    }
+  }
+
+  @Override
+  public Object find(IMethod m, Context c, SSAOptions options) {
+    Object result = segmentFor(m, c).find(new Key(m, c, options));
+    if (result == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return result;
+  }
+
+  @Override
+  public void cache(IMethod m, Context c, SSAOptions options, Object aux) {
+    if (aux == null) {
+      return;
+    }
+    segmentFor(m, c).put(new Key(m, c, options), aux, sizeEstimator.applyAsLong(aux));
+  }
+
+  @Override
+  public void invalidate(IMethod method, Context c) {
+    segmentFor(method, c).remove(method, c);
+  }
+
+  @Override
+  public void recordBuild(long nanos) {
+    builds.increment();
+    buildNanos.add(nanos);
+  }
+
+  /** @return the number of lookups that found a cached object */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /** @return the number of lookups that found nothing */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** @return the number of entries evicted to respect the bound */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /** @return the number of objects built because they were not cached */
+  public long getBuildCount() {
+    return builds.sum();
+  }
+
+  /** @return the total time spent building objects that were not cached, in nanoseconds */
+  public long getBuildTimeNanos() {
+    return buildNanos.sum();
+  }
+
+  /** @return the estimated number of bytes retained by the cached objects */
+  public long getEstimatedBytes() {
+    long result = 0;
+    for (Segment s : segments) {
+      result += s.getBytes();
+    }
+    return result;
+  }
+
+  /** @return the number of cached objects */
+  public int size() {
+    int result = 0;
+    for (Segment s : segments) {
+      result += s.size();
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "BoundedAuxiliaryCache["
+        + policy
+        + ", entries: "
+        + size()
+        + ", bytes: "
+        + getEstimatedBytes()
+        + ", hits: "
+        + getHitCount()
+        + ", misses: "
+        + getMissCount()
+        + ", evictions: "
+        + getEvictionCount()
+        + ", builds: "
+        + getBuildCount()
+        + ", build ms: "
+        + getBuildTimeNanos() / 1_000_000
+        + ']';
+  }
+
+  private static final class Key {
+    private final IMethod method;
+
+    private final Context context;
+
+    private final SSAOptions options;
+
+    Key(IMethod method, Context context, SSAOptions options) {
+      this.method = method;
+      this.context = context;
+      this.options = options;
+    }
+
+    boolean matches(IMethod m, Context c) {
+      return method.equals(m) && (context == null ? c == null : context.equals(c));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return matches(other.method, other.context)
+          && (options == null ? other.options == null : options.equals(other.options));
+    }
+
+    @Override
+    public int hashCode() {
+      return method.hashCode() * 31
+          + (context == null ? 0 : context.hashCode()) * 7
+          + (options == null ? 0 : options.hashCode());
+    }
+  }
+
+  private static final class Entry {
+    private final Object value;
+
+    private final long size;
+
+    private int frequency;
+
+    Entry(Object value, long size) {
+      this.value = value;
+      this.size = size;
+    }
+  }
+
+  /** A part of the cache with its own lock and its own share of the bound */
+  private final class Segment {
+
+    /** entries in access order, least recently used first */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxBytes;
+
+    private long bytes;
+
+    Segment(long maxBytes) {
+      this.maxBytes = maxBytes;
+    }
+
+    synchronized Object find(Key key) {
+      Entry e = entries.get(key);
+      if (e == null) {
+        return null;
+      }
+      e.frequency++;
+      return e.value;
+    }
+
+    synchronized void put(Key key, Object value, long size) {
+      Entry old = entries.remove(key);
+      if (old != null) {
+        bytes -= old.size;
+      }
+      if (size > maxBytes) {
+        return;
+      }
+      while (bytes + size > maxBytes) {
+        evict();
+      }
+      entries.put(key, new Entry(value, size));
+      bytes += size;
+    }
+
+    private void evict() {
+      Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+      Map.Entry<Key, Entry> victim = it.next();
+      if (policy == EvictionPolicy.LFU) {
+        for (int i = 1; i < LFU_SAMPLE && it.hasNext(); i++) {
+          Map.Entry<Key, Entry> e = it.next();
+          if (e.getValue().frequency < victim.getValue().frequency) {
+            victim = e;
+          }
+        }
+      }
+      entries.remove(victim.getKey());
+      bytes -= victim.getValue().size;
+      evictions.increment();
+    }
+
+    synchronized void remove(IMethod m, Context c) {
+      for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+        Map.Entry<Key, Entry> e = it.next();
+        if (e.getKey().matches(m, c)) {
+          bytes -= e.getValue().size;
+          it.remove();
+        }
+      }
+    }
+
+    synchronized void clear() {
+      entries.clear();
+      bytes = 0;
+    }
+
+    synchronized long getBytes() {
+      return bytes;
+    }
+
+    synchronized int size() {
+      return entries.size();
+    }
+  }
+}
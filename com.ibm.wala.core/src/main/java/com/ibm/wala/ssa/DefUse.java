@@ -169,4 +169,20 @@ public class DefUse {
     assert usesSet == null || !usesSet.isEmpty();
     return usesSet == null;
   }
+
+  /** @return a rough estimate of the bytes retained by this object, including the IR it keeps */
+  long estimateSize() {
+    long size =
+        BoundedAuxiliaryCache.estimateSize(ir)
+            + 64
+            + 8L * defs.length
+            + 8L * uses.length
+            + 8L * allInstructions.size();
+    for (MutableIntSet s : uses) {
+      if (s != null) {
+        size += 32 + 4L * s.size();
+      }
+    }
+    return size;
+  }
 }
@@ -13,7 +13,14 @@ package com.ibm.wala.ssa;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.callgraph.Context;
 
-interface IAuxiliaryCache {
+/**
+ * A cache for auxiliary information based on an SSA representation, such as the {@link IR}s and
+ * {@link DefUse}s kept by an {@link SSACache}.
+ *
+ * @see AuxiliaryCache
+ * @see BoundedAuxiliaryCache
+ */
+public interface IAuxiliaryCache {
 
   /** The existence of this is unfortunate. */
   void wipe();
@@ -35,4 +42,11 @@ interface IAuxiliaryCache {
 
   /** invalidate all cached information about a method */
   void invalidate(IMethod method, Context c);
+
+  /**
+   * record that an object not found in this cache had to be built
+   *
+   * @param nanos the time it took to build the object
+   */
+  default void recordBuild(long nanos) {}
 }
@@ -13,12 +13,22 @@ package com.ibm.wala.ssa;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.callgraph.Context;
 import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * A mapping from IMethod -&gt; SSAOptions -&gt; SoftReference -&gt; Something
  *
  * <p>This doesn't work very well ... GCs don't do such a great job with SoftReferences ... revamp
  * it.
+ *
+ * <p>Lookups from several threads proceed in parallel. Threads asking for an IR or {@link DefUse}
+ * while another thread builds it wait for that build rather than starting their own; builds of
+ * different objects do not wait for each other.
  */
 public class SSACache {
 
@@ -34,6 +44,12 @@ public class SSACache {
   /** A cache of DefUse information */
   private final IAuxiliaryCache duCache;
 
+  /** IRs being built */
+  private final Map<Key, CompletableFuture<Object>> irBuilds = new ConcurrentHashMap<>();
+
+  /** DefUses being built */
+  private final Map<Key, CompletableFuture<Object>> duBuilds = new ConcurrentHashMap<>();
+
   /** @param factory a factory for creating IRs */
   public SSACache(IRFactory<IMethod> factory, IAuxiliaryCache irCache, IAuxiliaryCache duCache) {
     this.factory = factory;
@@ -47,7 +63,7 @@ public class SSACache {
    * @return an IR for m, built according to the specified options. null if m is abstract or native.
    * @throws IllegalArgumentException if m is null
    */
-  public synchronized IR findOrCreateIR(final IMethod m, Context c, final SSAOptions options) {
+  public IR findOrCreateIR(final IMethod m, Context c, final SSAOptions options) {
 
     if (m == null) {
       throw new IllegalArgumentException("m is null");
@@ -64,12 +80,9 @@ public class SSACache {
       return factory.makeIR(m, c, options);
     }
 
-    IR ir = (IR) irCache.find(m, c, options);
-    if (ir == null) {
-      ir = factory.makeIR(m, c, options);
-      irCache.cache(m, c, options, ir);
-    }
-    return ir;
+    final Context context = c;
+    return (IR)
+        findOrBuild(irCache, irBuilds, m, c, options, () -> factory.makeIR(m, context, options));
   }
 
   /**
@@ -78,7 +91,7 @@ public class SSACache {
    * @return DefUse information for m, built according to the specified options. null if unavailable
    * @throws IllegalArgumentException if m is null
    */
-  public synchronized DefUse findOrCreateDU(IMethod m, Context c, SSAOptions options) {
+  public DefUse findOrCreateDU(IMethod m, Context c, SSAOptions options) {
     if (m == null) {
       throw new IllegalArgumentException("m is null");
     }
@@ -89,13 +102,15 @@ public class SSACache {
       c = Everywhere.EVERYWHERE;
     }
 
-    DefUse du = (DefUse) duCache.find(m, c, options);
-    if (du == null) {
-      IR ir = findOrCreateIR(m, c, options);
-      du = new DefUse(ir);
-      duCache.cache(m, c, options, du);
-    }
-    return du;
+    final Context context = c;
+    return (DefUse)
+        findOrBuild(
+            duCache,
+            duBuilds,
+            m,
+            c,
+            options,
+            () -> new DefUse(findOrCreateIR(m, context, options)));
   }
 
   /**
@@ -103,16 +118,63 @@ public class SSACache {
    *     unavailable
    * @throws IllegalArgumentException if ir is null
    */
-  public synchronized DefUse findOrCreateDU(IR ir, Context C) {
+  public DefUse findOrCreateDU(IR ir, Context C) {
     if (ir == null) {
       throw new IllegalArgumentException("ir is null");
     }
-    DefUse du = (DefUse) duCache.find(ir.getMethod(), C, ir.getOptions());
-    if (du == null) {
-      du = new DefUse(ir);
-      duCache.cache(ir.getMethod(), C, ir.getOptions(), du);
+    return (DefUse)
+        findOrBuild(duCache, duBuilds, ir.getMethod(), C, ir.getOptions(), () -> new DefUse(ir));
+  }
+
+  /**
+   * Look up an object in a cache, building and caching it if it is missing. If another thread is
+   * building the same object, wait for it instead.
+   *
+   * @param builds the objects of the cache being built
+   */
+  private static Object findOrBuild(
+      IAuxiliaryCache cache,
+      Map<Key, CompletableFuture<Object>> builds,
+      IMethod m,
+      Context c,
+      SSAOptions options,
+      Supplier<Object> builder) {
+    // look up the cache and claim the build atomically, so that a build finishing meanwhile is
+    // either seen in the cache or still registered
+    Object[] found = new Object[1];
+    CompletableFuture<Object> build = new CompletableFuture<>();
+    CompletableFuture<Object> running =
+        builds.computeIfAbsent(
+            new Key(m, c, options),
+            k -> {
+              found[0] = cache.find(m, c, options);
+              return found[0] == null ? build : null;
+            });
+    if (running == null) {
+      return found[0];
+    } else if (running != build) {
+      try {
+        return running.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw (RuntimeException) e.getCause();
+      }
+    }
+    try {
+      long start = System.nanoTime();
+      Object result = builder.get();
+      cache.recordBuild(System.nanoTime() - start);
+      cache.cache(m, c, options, result);
+      build.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      build.completeExceptionally(e);
+      throw e;
+    } finally {
+      builds.remove(new Key(m, c, options));
     }
-    return du;
   }
 
   /** The existence of this is unfortunate. */
@@ -136,4 +198,34 @@ public class SSACache {
     invalidateIR(method, c);
     invalidateDU(method, c);
   }
+
+  private static final class Key {
+    private final IMethod method;
+
+    private final Context context;
+
+    private final SSAOptions options;
+
+    Key(IMethod method, Context context, SSAOptions options) {
+      this.method = method;
+      this.context = context;
+      this.options = options;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return method.equals(other.method)
+          && Objects.equals(context, other.context)
+          && Objects.equals(options, other.options);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(method, context, options);
+    }
+  }
 }
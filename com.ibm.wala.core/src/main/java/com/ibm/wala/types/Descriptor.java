@@ -11,11 +11,10 @@
 package com.ibm.wala.types;
 
 import com.ibm.wala.classLoader.Language;
-import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.strings.ImmutableByteArray;
 import com.ibm.wala.util.strings.StringStuff;
 import com.ibm.wala.util.strings.UTF8Convert;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A method descriptor; something like: (Ljava/langString;)Ljava/lang/Class;
@@ -25,7 +24,7 @@ import java.util.Map;
 public final class Descriptor {
 
   /** A mapping from Key -&gt; Descriptor */
-  private static final Map<Key, Descriptor> map = HashMapFactory.make();
+  private static final ConcurrentHashMap<Key, Descriptor> map = new ConcurrentHashMap<>();
 
   /** key holds the logical value of this descriptor */
   private final Key key;
@@ -42,11 +41,17 @@ public final class Descriptor {
     if (parameters != null && parameters.length == 0) {
       parameters = null;
     }
-    Key k = new Key(returnType, parameters);
+    return findOrCreate(new Key(returnType, parameters));
+  }
+
+  private static Descriptor findOrCreate(Key k) {
     Descriptor result = map.get(k);
     if (result == null) {
-      result = new Descriptor(k);
-      map.put(k, result);
+      Descriptor fresh = new Descriptor(k);
+      result = map.putIfAbsent(k, fresh);
+      if (result == null) {
+        result = fresh;
+      }
     }
     return result;
   }
@@ -59,13 +64,7 @@ public final class Descriptor {
       throws IllegalArgumentException {
     TypeName returnType = StringStuff.parseForReturnTypeName(l, b);
     TypeName[] parameters = StringStuff.parseForParameterNames(l, b);
-    Key k = new Key(returnType, parameters);
-    Descriptor result = map.get(k);
-    if (result == null) {
-      result = new Descriptor(k);
-      map.put(k, result);
-    }
-    return result;
+    return findOrCreate(new Key(returnType, parameters));
   }
 
   public static Descriptor findOrCreate(ImmutableByteArray b) throws IllegalArgumentException {
@@ -10,19 +10,19 @@
  */
 package com.ibm.wala.types;
 
-import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.UnimplementedError;
 import com.ibm.wala.util.shrike.ShrikeUtil;
 import com.ibm.wala.util.strings.Atom;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** A class to represent the reference in a class file to a field. */
 public final class FieldReference extends MemberReference {
   private static final boolean DEBUG = false;
 
   /** Used to canonicalize MemberReferences a mapping from Key -&gt; MemberReference */
-  private static final HashMap<Key, FieldReference> dictionary = HashMapFactory.make();
+  private static final ConcurrentHashMap<Key, FieldReference> dictionary =
+      new ConcurrentHashMap<>();
 
   private final TypeReference fieldType;
 
@@ -36,8 +36,7 @@ public final class FieldReference extends MemberReference {
    *
    * @param mn the name of the member
    */
-  public static synchronized FieldReference findOrCreate(
-      TypeReference tref, Atom mn, TypeReference fieldType) {
+  public static FieldReference findOrCreate(TypeReference tref, Atom mn, TypeReference fieldType) {
     if (tref == null) {
       throw new IllegalArgumentException("null tref");
     }
@@ -48,10 +47,9 @@ public final class FieldReference extends MemberReference {
       return val;
     }
 
-    val = new FieldReference(key, fieldType);
-
-    dictionary.put(key, val);
-    return val;
+    FieldReference fresh = new FieldReference(key, fieldType);
+    val = dictionary.putIfAbsent(key, fresh);
+    return val == null ? fresh : val;
   }
 
   /** Find or create the canonical MemberReference instance for the given tuple. */
@@ -10,14 +10,13 @@
  */
 package com.ibm.wala.types;
 
-import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.strings.Atom;
 import com.ibm.wala.util.strings.ImmutableByteArray;
 import com.ibm.wala.util.strings.StringStuff;
 import java.io.Serializable;
 import java.io.UTFDataFormatException;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * We've introduced this class to canonicalize Atoms that represent package names.
@@ -38,13 +37,16 @@ public final class TypeName implements Serializable {
   private static final long serialVersionUID = -3256390509887654326L;
 
   /** canonical mapping from TypeNameKey -&gt; TypeName */
-  private static final Map<TypeNameKey, TypeName> map = HashMapFactory.make();
+  private static final ConcurrentHashMap<TypeNameKey, TypeName> map = new ConcurrentHashMap<>();
 
-  private static synchronized TypeName findOrCreate(TypeNameKey t) {
+  private static TypeName findOrCreate(TypeNameKey t) {
     TypeName result = map.get(t);
     if (result == null) {
-      result = new TypeName(t);
-      map.put(t, result);
+      TypeName fresh = new TypeName(t);
+      result = map.putIfAbsent(t, fresh);
+      if (result == null) {
+        result = fresh;
+      }
     }
     return result;
   }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+
+package com.ibm.wala.core.tests.basic;
+
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.strings.Atom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check that interned atoms and type references stay canonical when created concurrently. */
+public class InterningTest {
+
+  private static final int THREADS = 8;
+
+  private static final int NAMES = 2000;
+
+  private static String name(int i) {
+    return "Lcom/ibm/wala/InterningTest" + i;
+  }
+
+  @Test
+  public void testConcurrentInterning() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<Object[]>> results = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        Callable<Object[]> task =
+            () -> {
+              Object[] interned = new Object[2 * NAMES];
+              for (int i = 0; i < NAMES; i++) {
+                interned[2 * i] = Atom.findOrCreateUnicodeAtom(name(i));
+                interned[2 * i + 1] =
+                    TypeReference.findOrCreate(ClassLoaderReference.Application, name(i));
+              }
+              return interned;
+            };
+        results.add(pool.submit(task));
+      }
+      Object[] first = results.get(0).get();
+      for (Future<Object[]> result : results) {
+        Object[] other = result.get();
+        for (int i = 0; i < first.length; i++) {
+          Assert.assertSame(first[i], other[i]);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -18,7 +18,11 @@ import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.SmallMap;
 import com.ibm.wala.util.graph.Graph;
 import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.dominators.DominanceFrontiers;
 import com.ibm.wala.util.graph.dominators.Dominators;
+import com.ibm.wala.util.graph.dominators.GenericDominators;
+import com.ibm.wala.util.graph.dominators.NumberedDominators;
+import com.ibm.wala.util.graph.dominators.SemiNCADominators;
 import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
 import com.ibm.wala.util.graph.traverse.BFSPathFinder;
 import com.ibm.wala.util.graph.traverse.BoundedBFSIterator;
@@ -26,8 +30,14 @@ import com.ibm.wala.util.intset.BasicNaturalRelation;
 import com.ibm.wala.util.intset.BimodalMutableIntSetFactory;
 import com.ibm.wala.util.intset.BitVector;
 import com.ibm.wala.util.intset.BitVectorBase;
+import com.ibm.wala.util.intset.BitVectorIntSet;
 import com.ibm.wala.util.intset.BitVectorIntSetFactory;
+import com.ibm.wala.util.intset.CompressedIntSet;
+import com.ibm.wala.util.intset.CompressedIntSetFactory;
+import com.ibm.wala.util.intset.CopyOnWriteIntSet;
+import com.ibm.wala.util.intset.HashConsingIntSetFactory;
 import com.ibm.wala.util.intset.IBinaryNaturalRelation;
+import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntPair;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetUtil;
@@ -50,6 +60,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -355,6 +366,121 @@ public class PrimitivesTest extends WalaTestCase {
     doMutableIntSet(new SemiSparseMutableIntSetFactory());
   }
 
+  /** Test the CompressedIntSet implementation */
+  @Test
+  public void testCompressedIntSet() {
+    doMutableIntSet(new CompressedIntSetFactory());
+  }
+
+  /** Test the CopyOnWriteIntSet implementation */
+  @Test
+  public void testCopyOnWriteIntSet() {
+    doMutableIntSet(new HashConsingIntSetFactory());
+    doMutableIntSet(new HashConsingIntSetFactory(new MutableSparseIntSetFactory()));
+  }
+
+  /**
+   * Compare CompressedIntSet against BitVectorIntSet on sets that need both array and bitmap
+   * containers
+   */
+  @Test
+  public void testCompressedIntSetContainers() {
+    Random r = new Random(42);
+    for (int round = 0; round < 20; round++) {
+      CompressedIntSet a = new CompressedIntSet();
+      CompressedIntSet b = new CompressedIntSet();
+      BitVectorIntSet ea = new BitVectorIntSet();
+      BitVectorIntSet eb = new BitVectorIntSet();
+      int range = 1 << (12 + r.nextInt(8));
+      int n = r.nextInt(10000);
+      for (int i = 0; i < n; i++) {
+        int x = r.nextInt(range);
+        Assert.assertEquals(ea.add(x), a.add(x));
+        int y = r.nextInt(range);
+        Assert.assertEquals(eb.add(y), b.add(y));
+      }
+      for (int i = 0; i < n / 10; i++) {
+        int x = r.nextInt(range);
+        Assert.assertEquals(ea.remove(x), a.remove(x));
+      }
+      Assert.assertTrue(a.sameValue(ea));
+      Assert.assertEquals(ea.size(), a.size());
+      Assert.assertEquals(ea.max(), a.max());
+      Assert.assertEquals(ea.containsAny(eb), a.containsAny(b));
+      Assert.assertTrue(a.intersection(b).sameValue(ea.intersection(eb)));
+      Assert.assertTrue(a.union(b).sameValue(ea.union(eb)));
+
+      CompressedIntSet c = new CompressedIntSet(a);
+      BitVectorIntSet ec = new BitVectorIntSet(ea);
+      Assert.assertEquals(ec.addAll(eb), c.addAll(b));
+      Assert.assertTrue(c.sameValue(ec));
+      Assert.assertTrue(a.isSubset(c));
+      Assert.assertTrue(b.isSubset(c));
+      Assert.assertEquals(c.size() == a.size(), c.isSubset(a));
+
+      c.intersectWith(b);
+      ec.intersectWith(eb);
+      Assert.assertTrue(c.sameValue(ec));
+      Assert.assertTrue(ec.sameValue(c));
+
+      CompressedIntSet d = new CompressedIntSet();
+      BitVectorIntSet ed = new BitVectorIntSet();
+      Assert.assertEquals(ed.addAllInIntersection(ea, eb), d.addAllInIntersection(a, b));
+      Assert.assertTrue(d.sameValue(ed));
+
+      int[] count = new int[1];
+      IntIterator it = ea.intIterator();
+      a.foreach(
+          x -> {
+            Assert.assertEquals(it.next(), x);
+            count[0]++;
+          });
+      Assert.assertEquals(ea.size(), count[0]);
+    }
+  }
+
+  /** Test that copies of CopyOnWriteIntSets share their representation until they change */
+  @Test
+  public void testHashConsingIntSetFactory() {
+    HashConsingIntSetFactory factory = new HashConsingIntSetFactory();
+    CopyOnWriteIntSet x = factory.make(new int[] {2, 4, 7});
+    CopyOnWriteIntSet y = factory.makeCopy(x);
+    Assert.assertTrue(x.isShared());
+    Assert.assertTrue(y.isShared());
+    Assert.assertTrue(x.sameValue(y));
+
+    // no-op changes keep sharing
+    Assert.assertFalse(y.add(4));
+    Assert.assertFalse(y.remove(5));
+    Assert.assertFalse(y.addAll(SparseIntSet.pair(2, 7)));
+    Assert.assertTrue(y.isShared());
+
+    Assert.assertTrue(y.add(9));
+    Assert.assertFalse(y.isShared());
+    Assert.assertTrue(x.isShared());
+    Assert.assertTrue(x.sameValue(SparseIntSet.add(SparseIntSet.pair(2, 4), 7)));
+    Assert.assertTrue(x.isSubset(y));
+    Assert.assertFalse(y.isSubset(x));
+
+    // sets that became equal independently share after interning
+    CopyOnWriteIntSet z = factory.make();
+    z.add(7);
+    z.add(4);
+    z.add(2);
+    Assert.assertFalse(z.isShared());
+    long hits = factory.getNumberOfHits();
+    factory.intern(z);
+    Assert.assertTrue(z.isShared());
+    Assert.assertEquals(hits + 1, factory.getNumberOfHits());
+    Assert.assertTrue(z.sameValue(x));
+
+    MutableIntSet copy = IntSetUtil.makeMutableCopy(z);
+    Assert.assertTrue(copy instanceof CopyOnWriteIntSet);
+    copy.clear();
+    Assert.assertTrue(copy.isEmpty());
+    Assert.assertTrue(z.sameValue(x));
+  }
+
   /** Test the MutableSparseIntSet implementation */
   private static void doMutableLongSet(MutableLongSetFactory factory) {
     MutableLongSet v = factory.parse("{9,17}");
@@ -803,6 +929,56 @@ public class PrimitivesTest extends WalaTestCase {
     Assert.assertTrue(D.dominatorTree().getSuccNodeCount(nodes[10]) == 5);
   }
 
+  @Test
+  public void testSemiNCADominators() {
+    Random r = new Random(17);
+    for (int size : new int[] {1, 2, 10, 100, 1000}) {
+      for (int trial = 0; trial < 10; trial++) {
+        NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+        for (int i = 0; i < size; i++) G.addNode(i);
+        // a spine from the root, plus random edges; some nodes stay unreachable
+        for (int i = 1; i < size; i++) {
+          if (r.nextInt(10) != 0) G.addEdge(r.nextInt(i), i);
+        }
+        for (int i = 0; i < size; i++) G.addEdge(r.nextInt(size), r.nextInt(size));
+
+        Dominators<Integer> expected = new NumberedDominators<>(G, 0);
+        SemiNCADominators<Integer> actual = new SemiNCADominators<>(G, 0);
+        DominanceFrontiers<Integer> expectedDF =
+            new DominanceFrontiers<>(G, 0, new GenericDominators<>(G, 0));
+        DominanceFrontiers<Integer> actualDF = new DominanceFrontiers<>(G, 0, actual);
+        for (Integer n : G) {
+          Assert.assertEquals(expected.getIdom(n), actual.getIdom(n));
+          Assert.assertEquals(
+              Iterator2Collection.toSet(expected.dominatorTree().getSuccNodes(n)),
+              Iterator2Collection.toSet(actual.dominatorTree().getSuccNodes(n)));
+          for (int k = 0; k < 5; k++) {
+            Integer m = r.nextInt(size);
+            Assert.assertEquals(expected.isDominatedBy(n, m), actual.isDominatedBy(n, m));
+          }
+          if (expected.getIdom(n) != null || n == 0) {
+            Assert.assertEquals(
+                Iterator2Collection.toSet(expectedDF.getDominanceFrontier(n)),
+                Iterator2Collection.toSet(actualDF.getDominanceFrontier(n)));
+          }
+        }
+      }
+    }
+
+    // a long chain, which would overflow a recursive path compression
+    NumberedGraph<Integer> chain = SlowSparseNumberedGraph.make();
+    int length = 100000;
+    for (int i = 0; i < length; i++) chain.addNode(i);
+    for (int i = 1; i < length; i++) {
+      chain.addEdge(i - 1, i);
+      chain.addEdge(i, 0);
+    }
+    SemiNCADominators<Integer> D = new SemiNCADominators<>(chain, 0);
+    Assert.assertEquals(Integer.valueOf(length - 2), D.getIdom(length - 1));
+    Assert.assertTrue(D.isDominatedBy(length - 1, 1));
+    Assert.assertFalse(D.isDominatedBy(1, length - 1));
+  }
+
   @Test
   public void testBinaryIntegerRelation() {
     byte[] impl =
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.callGraph;
+
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions.ReflectionOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.LocalPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.store.CallGraphStore;
+import com.ibm.wala.ipa.callgraph.store.StoredPointerAnalysis;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Check that call graphs and points-to sets survive a round trip through a {@link CallGraphStore}
+ */
+public class CallGraphStoreTest extends WalaTestCase {
+
+  @Test
+  public void testRoundTrip()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints =
+        Util.makeMainEntrypoints(scope, cha, "Ldemandpa/TestArraysCopyOf");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    options.setReflectionOptions(ReflectionOptions.NONE);
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    PointerAnalysis<InstanceKey> pa = builder.getPointerAnalysis();
+
+    File file = File.createTempFile("callgraph", ".store");
+    file.deleteOnExit();
+    CallGraphStore.write(cg, pa, file);
+    StoredPointerAnalysis stored = CallGraphStore.read(file, cha, new AnalysisCacheImpl());
+    CallGraph storedCG = stored.getCallGraph();
+
+    Assert.assertEquals(cg.getNumberOfNodes(), storedCG.getNumberOfNodes());
+    Assert.assertEquals(cg.getEntrypointNodes().size(), storedCG.getEntrypointNodes().size());
+    Assert.assertEquals(cg.getFakeRootNode().toString(), storedCG.getFakeRootNode().toString());
+    for (CGNode n : cg) {
+      CGNode s = storedCG.getNode(cg.getNumber(n));
+      Assert.assertEquals(n.toString(), s.toString());
+      Assert.assertEquals(targets(cg, n), targets(storedCG, s));
+      Assert.assertTrue(cg.getSuccNodeNumbers(n).sameValue(storedCG.getSuccNodeNumbers(s)));
+      Assert.assertEquals(cg.getPredNodeCount(n), storedCG.getPredNodeCount(s));
+      if (!n.getMethod().isWalaSynthetic()) {
+        Assert.assertSame(n.getMethod(), s.getMethod());
+        Assert.assertEquals(n.getIR() == null, s.getIR() == null);
+        Assert.assertSame(s, storedCG.getNode(n.getMethod(), n.getContext()));
+      }
+    }
+
+    Assert.assertEquals(pointsTo(pa), pointsTo(stored));
+    // the heap model builds keys that find the stored points-to sets
+    for (CGNode s : storedCG) {
+      if (!s.getMethod().isWalaSynthetic() && !s.getMethod().isStatic()) {
+        PointerKey receiver = stored.getHeapModel().getPointerKeyForLocal(s, 1);
+        Assert.assertFalse(s.toString(), stored.getPointsToSet(receiver).isEmpty());
+      }
+    }
+  }
+
+  private static Set<String> targets(CallGraph cg, CGNode n) {
+    Set<String> result = HashSetFactory.make();
+    for (CallSiteReference site : Iterator2Iterable.make(n.iterateCallSites())) {
+      for (CGNode t : cg.getPossibleTargets(n, site)) {
+        result.add(site + " -> " + cg.getNumber(t));
+      }
+    }
+    return result;
+  }
+
+  private static Map<String, Set<String>> pointsTo(PointerAnalysis<InstanceKey> pa) {
+    Map<String, Set<String>> result = HashMapFactory.make();
+    for (PointerKey k : pa.getPointerKeys()) {
+      Set<String> pts = HashSetFactory.make();
+      for (InstanceKey ik : pa.getPointsToSet(k)) {
+        pts.add(ik.toString());
+      }
+      if (!pts.isEmpty()) {
+        // filtered keys print their filter, which is not stored
+        String key = k.toString();
+        if (k instanceof LocalPointerKey) {
+          LocalPointerKey local = (LocalPointerKey) k;
+          key = local.getNode() + " v" + local.getValueNumber();
+        }
+        result.put(key + (pa.isFiltered(k) ? " filtered" : ""), pts);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.callGraph;
+
+import com.ibm.wala.classLoader.BinaryDirectoryTreeModule;
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.classLoader.ShrikeClass;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions.ReflectionOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.LocalPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeBT.IInstruction;
+import com.ibm.wala.shrikeBT.InvokeInstruction;
+import com.ibm.wala.shrikeBT.MethodEditor;
+import com.ibm.wala.shrikeBT.NewInstruction;
+import com.ibm.wala.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Check that a call graph updated after a class file changed is the call graph, with the points-to
+ * sets, that a fresh build on the changed program gives
+ */
+public class IncrementalCallGraphTest extends WalaTestCase {
+
+  private static final String MAIN = "Lincremental/TestIncremental";
+
+  private static final String SOURCE = "incremental/TestIncremental$Source";
+
+  private static final String A = "Lincremental/TestIncremental$A;";
+
+  private static final String B = "Lincremental/TestIncremental$B;";
+
+  private static AnalysisScope makeScope() throws IOException {
+    return CallGraphTestUtil.makeJ2SEAnalysisScope(
+        TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+  }
+
+  private static AnalysisOptions makeOptions(AnalysisScope scope, IClassHierarchy cha) {
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(scope, Util.makeMainEntrypoints(scope, cha, MAIN));
+    options.setReflectionOptions(ReflectionOptions.NONE);
+    options.setIncrementalUpdates(true);
+    return options;
+  }
+
+  /**
+   * @return the class file of Source, changed to make a B where it made an A, in a directory that
+   *     is added to a copy of the scope ahead of the test data
+   */
+  private static AnalysisScope makeChangedScope(IClassHierarchy cha)
+      throws IOException, InvalidClassFileException {
+    ShrikeClass source =
+        (ShrikeClass)
+            cha.lookupClass(
+                TypeReference.findOrCreate(ClassLoaderReference.Application, "L" + SOURCE));
+    ClassInstrumenter ci =
+        new ClassInstrumenter(SOURCE + ".class", source.getReader().getBytes(), null);
+    for (int m = 0; m < ci.getReader().getMethodCount(); m++) {
+      MethodEditor me = new MethodEditor(ci.visitMethod(m));
+      IInstruction[] instructions = me.getInstructions();
+      me.beginPass();
+      for (int i = 0; i < instructions.length; i++) {
+        IInstruction instruction = instructions[i];
+        if (instruction instanceof NewInstruction
+            && ((NewInstruction) instruction).getType().equals(A)) {
+          me.replaceWith(
+              i,
+              new MethodEditor.Patch() {
+                @Override
+                public void emitTo(MethodEditor.Output w) {
+                  w.emit(NewInstruction.make(B, 0));
+                }
+              });
+        } else if (instruction instanceof InvokeInstruction
+            && ((InvokeInstruction) instruction).getClassType().equals(A)) {
+          InvokeInstruction call = (InvokeInstruction) instruction;
+          me.replaceWith(
+              i,
+              new MethodEditor.Patch() {
+                @Override
+                public void emitTo(MethodEditor.Output w) {
+                  w.emit(
+                      InvokeInstruction.make(
+                          call.getMethodSignature(),
+                          B,
+                          call.getMethodName(),
+                          call.getInvocationCode()));
+                }
+              });
+        }
+      }
+      me.applyPatches();
+      me.endPass();
+    }
+    Assert.assertTrue(ci.isChanged());
+
+    Path dir = Files.createTempDirectory("incremental");
+    dir.toFile().deleteOnExit();
+    File file = dir.resolve(SOURCE + ".class").toFile();
+    Files.createDirectories(file.getParentFile().toPath());
+    Files.write(file.toPath(), ci.emitClass().makeBytes());
+    file.deleteOnExit();
+    file.getParentFile().deleteOnExit();
+
+    AnalysisScope scope = makeScope();
+    scope.addToScopeHead(
+        ClassLoaderReference.Application, new BinaryDirectoryTreeModule(dir.toFile()));
+    return scope;
+  }
+
+  @Test
+  public void testUpdateMatchesFreshBuild()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException,
+          InvalidClassFileException {
+    AnalysisScope scope = makeScope();
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options = makeOptions(scope, cha);
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    Assert.assertTrue(edges(cg).stream().anyMatch(e -> e.contains("TestIncremental$A, toString")));
+
+    AnalysisScope changedScope = makeChangedScope(cha);
+    IClassHierarchy rebuilt = ClassHierarchyFactory.make(changedScope);
+    CallGraph updated =
+        builder.updateCallGraph(
+            rebuilt,
+            Collections.singleton(
+                TypeReference.findOrCreate(ClassLoaderReference.Application, "L" + SOURCE)),
+            null);
+
+    AnalysisOptions freshOptions = makeOptions(changedScope, rebuilt);
+    SSAPropagationCallGraphBuilder fresh =
+        Util.makeZeroOneCFABuilder(
+            Language.JAVA, freshOptions, new AnalysisCacheImpl(), rebuilt, changedScope);
+    CallGraph freshCG = fresh.makeCallGraph(freshOptions, null);
+
+    Set<String> updatedEdges = edges(updated);
+    Assert.assertTrue(
+        updatedEdges.stream().anyMatch(e -> e.contains("TestIncremental$B, toString")));
+    Assert.assertFalse(
+        updatedEdges.stream().anyMatch(e -> e.contains("TestIncremental$A, toString")));
+    Assert.assertEquals(edges(freshCG), updatedEdges);
+    Assert.assertEquals(
+        pointsTo(fresh.getPointerAnalysis()), pointsTo(builder.getPointerAnalysis()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCycleDetectionRejected()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = makeScope();
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options = makeOptions(scope, cha);
+    options.setOnlineCycleDetection(true);
+    Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope)
+        .makeCallGraph(options, null);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUpdateWithoutTracking()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = makeScope();
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options = makeOptions(scope, cha);
+    options.setIncrementalUpdates(false);
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    builder.makeCallGraph(options, null);
+    builder.updateCallGraph(cha, Collections.emptySet(), null);
+  }
+
+  /** node and edge numbering differ between the builds, so compare by name */
+  private static Set<String> edges(CallGraph cg) {
+    Set<String> result = HashSetFactory.make();
+    for (CGNode n : cg) {
+      result.add(n.toString());
+      for (CGNode s : Iterator2Iterable.make(cg.getSuccNodes(n))) {
+        result.add(n + " -> " + s);
+      }
+    }
+    return result;
+  }
+
+  /** the non-empty points-to sets; pointer keys of removed nodes remain with empty sets */
+  private static Map<String, Set<String>> pointsTo(PointerAnalysis<InstanceKey> pa) {
+    Map<String, Set<String>> result = HashMapFactory.make();
+    for (PointerKey k : pa.getPointerKeys()) {
+      // synthetic methods like fakeWorldClinit() number their values in discovery order
+      if (k instanceof LocalPointerKey
+          && ((LocalPointerKey) k).getNode().getMethod().isWalaSynthetic()) {
+        continue;
+      }
+      Set<String> pts = HashSetFactory.make();
+      for (InstanceKey ik : pa.getPointsToSet(k)) {
+        pts.add(ik.toString());
+      }
+      if (!pts.isEmpty()) {
+        result.put(k.toString(), pts);
+      }
+    }
+    return result;
+  }
+}
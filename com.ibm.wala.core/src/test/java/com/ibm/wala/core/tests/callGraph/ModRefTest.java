@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.callGraph;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphTransitiveClosure;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ipa.modref.ModRef;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.intset.OrdinalSet;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Check that mod-ref computed with several threads and per-SCC bit vectors agrees with the
+ * iterative transitive closure
+ */
+public class ModRefTest extends WalaTestCase {
+
+  private static CallGraph cg;
+
+  private static PointerAnalysis<InstanceKey> pa;
+
+  @BeforeClass
+  public static void beforeClass()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints =
+        Util.makeMainEntrypoints(scope, cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    cg = builder.makeCallGraph(options, null);
+    pa = builder.getPointerAnalysis();
+  }
+
+  @Test
+  public void testTransitiveClosureOverSCCs() {
+    // a node result that is not closed under callees, with cycles in the call graph
+    Map<CGNode, Collection<String>> local =
+        CallGraphTransitiveClosure.collectNodeResults(
+            cg,
+            n ->
+                n.getMethod().getName().toString().contains("a")
+                    ? Collections.emptySet()
+                    : single(n));
+    assertSame(
+        CallGraphTransitiveClosure.transitiveClosure(cg, local),
+        CallGraphTransitiveClosure.transitiveClosureOverSCCs(cg, local));
+  }
+
+  @Test
+  public void testParallelModRef() {
+    ModRef<InstanceKey> sequential = ModRef.make();
+    ModRef<InstanceKey> parallel = ModRef.make();
+    parallel.setNumberOfThreads(4);
+    assertSame(sequential.computeMod(cg, pa), parallel.computeMod(cg, pa));
+    assertSame(sequential.computeRef(cg, pa), parallel.computeRef(cg, pa));
+  }
+
+  private static Collection<String> single(CGNode n) {
+    Collection<String> result = HashSetFactory.make();
+    result.add(n.getMethod().getSignature());
+    return result;
+  }
+
+  private static <T> void assertSame(
+      Map<CGNode, OrdinalSet<T>> expected, Map<CGNode, OrdinalSet<T>> actual) {
+    Assert.assertEquals(expected.keySet(), actual.keySet());
+    for (CGNode n : expected.keySet()) {
+      Assert.assertEquals(
+          n.toString(),
+          HashSetFactory.make(OrdinalSet.toCollection(expected.get(n))),
+          HashSetFactory.make(OrdinalSet.toCollection(actual.get(n))));
+    }
+  }
+}
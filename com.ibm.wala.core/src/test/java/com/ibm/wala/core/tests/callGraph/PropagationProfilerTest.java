@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.callGraph;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions.ReflectionOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationProfiler;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Check that profiling reports on call graph construction; {@link SolverOptionsTest} checks that it
+ * does not change the result
+ */
+public class PropagationProfilerTest extends WalaTestCase {
+
+  @Test
+  public void testZeroCFA()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.BCEL, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints =
+        Util.makeMainEntrypoints(scope, cha, TestConstants.BCEL_VERIFIER_MAIN);
+
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    // this speeds up the test
+    options.setReflectionOptions(ReflectionOptions.NONE);
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    PropagationProfiler profiler = new PropagationProfiler(false, 5, 100);
+    builder.setProfiler(profiler);
+    builder.makeCallGraph(options, null);
+
+    String report = profiler.toJson();
+    for (String section :
+        new String[] {
+          "\"solver\": {\"solves\": ",
+          "\"operators\": [\n",
+          "\"nodes\": [\n",
+          "\"dispatchSites\": [\n",
+          "\"largestPointsToSets\": [\n",
+          "\"worklist\": [\n"
+        }) {
+      Assert.assertTrue(section, report.contains(section));
+    }
+    Assert.assertTrue(report.contains("\"operator\": \"com.ibm.wala.ipa.callgraph.propagation."));
+    Assert.assertTrue(report.contains("\"site\": \"invoke"));
+  }
+}
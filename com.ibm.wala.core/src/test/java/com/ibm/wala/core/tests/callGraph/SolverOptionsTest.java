@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.callGraph;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions.ReflectionOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationProfiler;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationSystem;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Check that the options of the pointer analysis solver, alone and combined, do the work they are
+ * meant to do without changing the call graph or the points-to sets.
+ */
+@RunWith(Parameterized.class)
+public class SolverOptionsTest extends WalaTestCase {
+
+  private static AnalysisScope scope;
+
+  private static IClassHierarchy cha;
+
+  private static Iterable<Entrypoint> entrypoints;
+
+  /** the result of the solver without any options */
+  private static Set<String> plainEdges;
+
+  private static Map<String, Set<String>> plainPointsTo;
+
+  private static long plainElementsUnioned;
+
+  private final int threads;
+
+  private final boolean cycleDetection;
+
+  private final boolean substitution;
+
+  private final boolean differences;
+
+  public SolverOptionsTest(
+      @SuppressWarnings("unused") String name,
+      int threads,
+      boolean cycleDetection,
+      boolean substitution,
+      boolean differences) {
+    this.threads = threads;
+    this.cycleDetection = cycleDetection;
+    this.substitution = substitution;
+    this.differences = differences;
+  }
+
+  @Parameters(name = "{0}")
+  public static Collection<Object[]> configurations() {
+    return Arrays.asList(
+        new Object[][] {
+          {"parallel", 4, false, false, false},
+          {"cycle detection", 1, true, false, false},
+          {"offline substitution", 1, false, true, false},
+          {"difference propagation", 1, false, false, true},
+          {"cycle detection and difference propagation", 1, true, false, true},
+          {"offline substitution and parallel", 4, false, true, false},
+          {"all", 4, true, true, true}
+        });
+  }
+
+  @BeforeClass
+  public static void buildPlain()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.BCEL, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    cha = ClassHierarchyFactory.make(scope);
+    entrypoints = Util.makeMainEntrypoints(scope, cha, TestConstants.BCEL_VERIFIER_MAIN);
+
+    AnalysisOptions options = makeOptions();
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    plainEdges = edges(cg);
+    plainPointsTo = pointsTo(builder.getPointerAnalysis());
+  }
+
+  private static AnalysisOptions makeOptions() {
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    // this speeds up the test
+    options.setReflectionOptions(ReflectionOptions.NONE);
+    return options;
+  }
+
+  @Test
+  public void testZeroOneCFA() throws IllegalArgumentException, CancelException {
+    AnalysisOptions options = makeOptions();
+    options.setNumberOfSolverThreads(threads);
+    options.setOnlineCycleDetection(cycleDetection);
+    options.setOfflineVariableSubstitution(substitution);
+    options.setDifferencePropagation(differences);
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    PropagationProfiler profiler = new PropagationProfiler();
+    builder.setProfiler(profiler);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    PropagationSystem system = builder.getPropagationSystem();
+    if (cycleDetection) {
+      Assert.assertTrue(system.getNumberOfCyclesFound() > 0);
+      Assert.assertTrue(system.getNumberOfVariablesMerged() >= system.getNumberOfCyclesFound());
+    }
+    if (substitution) {
+      Assert.assertTrue(system.getNumberOfKeysSubstituted() > 0);
+    }
+    if (differences && threads == 1) {
+      Assert.assertTrue(profiler.getNumberOfElementsUnioned() < unionedWithoutOptions());
+    }
+
+    Assert.assertEquals(plainEdges, edges(cg));
+    Assert.assertEquals(plainPointsTo, pointsTo(builder.getPointerAnalysis()));
+  }
+
+  /** @return the number of elements unioned by the solver without options, once it is known */
+  private static synchronized long unionedWithoutOptions() throws CancelException {
+    if (plainElementsUnioned == 0) {
+      AnalysisOptions options = makeOptions();
+      SSAPropagationCallGraphBuilder builder =
+          Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+      PropagationProfiler profiler = new PropagationProfiler();
+      builder.setProfiler(profiler);
+      builder.makeCallGraph(options, null);
+      plainElementsUnioned = profiler.getNumberOfElementsUnioned();
+    }
+    return plainElementsUnioned;
+  }
+
+  /** the nodes with their numbers, and the edges between them */
+  private static Set<String> edges(CallGraph cg) {
+    Set<String> result = HashSetFactory.make();
+    for (CGNode n : cg) {
+      result.add(cg.getNumber(n) + " " + n);
+      for (CGNode s : Iterator2Iterable.make(cg.getSuccNodes(n))) {
+        result.add(cg.getNumber(n) + " -> " + cg.getNumber(s));
+      }
+    }
+    return result;
+  }
+
+  private static Map<String, Set<String>> pointsTo(PointerAnalysis<InstanceKey> pa) {
+    Map<String, Set<String>> result = HashMapFactory.make();
+    for (PointerKey k : pa.getPointerKeys()) {
+      Set<String> pts = HashSetFactory.make();
+      for (InstanceKey ik : pa.getPointsToSet(k)) {
+        pts.add(ik.toString());
+      }
+      result.put(k.toString(), pts);
+    }
+    return result;
+  }
+}
@@ -13,6 +13,7 @@ package com.ibm.wala.core.tests.cfg.exc.inter;
 import com.ibm.wala.cfg.exc.ExceptionPruningAnalysis;
 import com.ibm.wala.cfg.exc.InterprocAnalysisResult;
 import com.ibm.wala.cfg.exc.NullPointerAnalysis;
+import com.ibm.wala.cfg.exc.inter.InterprocNullPointerCache;
 import com.ibm.wala.cfg.exc.intra.IntraprocNullPointerAnalysis;
 import com.ibm.wala.classLoader.ClassLoaderFactory;
 import com.ibm.wala.classLoader.ClassLoaderFactoryImpl;
@@ -278,4 +279,50 @@ public class NullPointerExceptionInterTest extends WalaTestCase {
 
     Assert.assertTrue(intraExplodedCFG.hasExceptions());
   }
+
+  @Test
+  public void testSCCs() throws UnsoundGraphException, CancelException, WalaException {
+    final String[] throwing = {
+      "callIfException", "callDynamicIfException", "callIf2Exception",
+      "callDynamicIf2Exception", "callGetException", "callDynamicGetException"
+    };
+    final String[] notThrowing = {
+      "callIfNoException",
+      "callDynamicIfNoException",
+      "callIf2NoException",
+      "callDynamicIf2NoException"
+    };
+    final InterprocNullPointerCache cache = new InterprocNullPointerCache();
+    for (int threads = 1; threads <= 2; threads++) {
+      InterprocAnalysisResult<SSAInstruction, IExplodedBasicBlock> interExplodedCFG =
+          NullPointerAnalysis.computeInterprocAnalysis(
+              NullPointerAnalysis.DEFAULT_IGNORE_EXCEPTIONS,
+              cg,
+              null,
+              new NullProgressMonitor(),
+              false,
+              threads,
+              cache);
+      for (String method : throwing) {
+        Assert.assertTrue(method, getResult(interExplodedCFG, method).hasExceptions());
+      }
+      for (String method : notThrowing) {
+        Assert.assertFalse(method, getResult(interExplodedCFG, method).hasExceptions());
+      }
+    }
+
+    // the second run reuses every result of the first
+    Assert.assertTrue(cache.getNumberOfMisses() > 0);
+    Assert.assertEquals(cache.getNumberOfMisses(), cache.getNumberOfHits());
+  }
+
+  private static ExceptionPruningAnalysis<SSAInstruction, IExplodedBasicBlock> getResult(
+      InterprocAnalysisResult<SSAInstruction, IExplodedBasicBlock> interExplodedCFG,
+      String method) {
+    MethodReference mr =
+        StringStuff.makeMethodReference(
+            "cfg.exc.inter.CallFieldAccess." + method + "()Lcfg/exc/intra/B");
+    Assert.assertEquals(1, cg.getNodes(mr).size());
+    return interExplodedCFG.getResult(cg.getNodes(mr).iterator().next());
+  }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.cha;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IClassLoader;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check that building a class hierarchy on several threads gives the same result. */
+public class ParallelClassHierarchyTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ParallelClassHierarchyTest.class);
+  }
+
+  private static List<TypeReference> classes(IClassLoader loader) {
+    List<TypeReference> result = new ArrayList<>();
+    for (IClass klass : Iterator2Iterable.make(loader.iterateAllClasses())) {
+      result.add(klass.getReference());
+    }
+    return result;
+  }
+
+  private static List<TypeReference> interfaces(IClass klass) {
+    List<TypeReference> result = new ArrayList<>();
+    for (IClass i : klass.getDirectInterfaces()) {
+      result.add(i.getReference());
+    }
+    return result;
+  }
+
+  @Test
+  public void testSameHierarchy() throws IOException, ClassHierarchyException {
+    AnalysisScope scope =
+        AnalysisScopeReader.readJavaScope(
+            TestConstants.WALA_TESTDATA,
+            new FileProvider().getFile("J2SEClassHierarchyExclusions.txt"),
+            ParallelClassHierarchyTest.class.getClassLoader());
+    IClassHierarchy sequential = ClassHierarchyFactory.make(scope);
+    IClassHierarchy parallel = ClassHierarchyFactory.makeParallel(scope, 4);
+
+    Assert.assertEquals(sequential.getNumberOfClasses(), parallel.getNumberOfClasses());
+    IClassLoader[] sequentialLoaders = sequential.getLoaders();
+    IClassLoader[] parallelLoaders = parallel.getLoaders();
+    Assert.assertEquals(sequentialLoaders.length, parallelLoaders.length);
+    for (int i = 0; i < sequentialLoaders.length; i++) {
+      Assert.assertEquals(classes(sequentialLoaders[i]), classes(parallelLoaders[i]));
+    }
+
+    for (IClass klass : sequential) {
+      IClass other = parallel.lookupClass(klass.getReference());
+      Assert.assertNotNull(klass.toString(), other);
+      IClass superclass = klass.getSuperclass();
+      if (superclass == null) {
+        Assert.assertNull(other.getSuperclass());
+      } else {
+        Assert.assertEquals(superclass.getReference(), other.getSuperclass().getReference());
+      }
+      Assert.assertEquals(interfaces(klass), interfaces(other));
+      Assert.assertEquals(
+          sequential.getNumberOfImmediateSubclasses(klass),
+          parallel.getNumberOfImmediateSubclasses(other));
+    }
+  }
+}
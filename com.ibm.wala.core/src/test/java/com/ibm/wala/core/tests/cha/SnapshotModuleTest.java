@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.cha;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.SnapshotModule;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check that a snapshot of the primordial loader can replace the JDK in an analysis scope. */
+public class SnapshotModuleTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(SnapshotModuleTest.class);
+  }
+
+  @Test
+  public void testPrimordialSnapshot() throws IOException, ClassHierarchyException {
+    AnalysisScope scope =
+        AnalysisScopeReader.readJavaScope(
+            TestConstants.WALA_TESTDATA,
+            new FileProvider().getFile("J2SEClassHierarchyExclusions.txt"),
+            SnapshotModuleTest.class.getClassLoader());
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+
+    File file = File.createTempFile("primordial", ".snapshot");
+    file.deleteOnExit();
+    SnapshotModule.write(cha.getLoader(ClassLoaderReference.Primordial), file);
+    SnapshotModule snapshot = new SnapshotModule(file);
+    Assert.assertEquals("Primordial", snapshot.getLoaderName());
+
+    AnalysisScope snapshotScope = AnalysisScope.createJavaAnalysisScope();
+    snapshotScope.setExclusions(scope.getExclusions());
+    snapshotScope.addToScope(ClassLoaderReference.Primordial, snapshot);
+    for (Module m : scope.getModules(ClassLoaderReference.Application)) {
+      snapshotScope.addToScope(ClassLoaderReference.Application, m);
+    }
+    IClassHierarchy fromSnapshot = ClassHierarchyFactory.make(snapshotScope);
+
+    Assert.assertEquals(cha.getNumberOfClasses(), fromSnapshot.getNumberOfClasses());
+    for (IClass klass : cha) {
+      IClass other = fromSnapshot.lookupClass(klass.getReference());
+      Assert.assertNotNull(klass.toString(), other);
+      Assert.assertEquals(klass.getDeclaredMethods().size(), other.getDeclaredMethods().size());
+      Assert.assertEquals(
+          klass.getDeclaredInstanceFields().size(), other.getDeclaredInstanceFields().size());
+    }
+  }
+}
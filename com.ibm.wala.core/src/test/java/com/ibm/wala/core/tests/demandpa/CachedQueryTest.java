@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.demandpa;
+
+import com.ibm.wala.demandpa.alg.ContextSensitiveStateMachine;
+import com.ibm.wala.demandpa.alg.DemandRefinementPointsTo;
+import com.ibm.wala.demandpa.alg.DemandRefinementPointsTo.PointsToResult;
+import com.ibm.wala.demandpa.alg.DemandRefinementPointsTo.QueryStatistics;
+import com.ibm.wala.demandpa.alg.refinepolicy.TunedRefinementPolicy;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.Pair;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests caching and batching of queries in {@link DemandRefinementPointsTo}. */
+public class CachedQueryTest extends AbstractPtrTest {
+
+  public CachedQueryTest() {
+    super(TestInfo.SCOPE_FILE);
+  }
+
+  @Override
+  protected DemandRefinementPointsTo makeDemandPointerAnalysis(String mainClass)
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    DemandRefinementPointsTo dmp = super.makeDemandPointerAnalysis(mainClass);
+    dmp.setStateMachineFactory(new ContextSensitiveStateMachine.Factory());
+    dmp.setRefinementPolicyFactory(new TunedRefinementPolicy.Factory(dmp.getClassHierarchy()));
+    return dmp;
+  }
+
+  /** @return pointer keys for the non-constant arguments of the calls in main */
+  private static List<PointerKey> getQueries(DemandRefinementPointsTo dmp) {
+    CGNode main = AbstractPtrTest.findMainMethod(dmp.getBaseCallGraph());
+    IR ir = main.getIR();
+    Set<PointerKey> result = new LinkedHashSet<>();
+    for (SSAInstruction inst : ir.getInstructions()) {
+      if (inst instanceof SSAAbstractInvokeInstruction) {
+        for (int i = 0; i < inst.getNumberOfUses(); i++) {
+          int vn = inst.getUse(i);
+          if (!ir.getSymbolTable().isConstant(vn)) {
+            result.add(dmp.getHeapModel().getPointerKeyForLocal(main, vn));
+          }
+        }
+      }
+    }
+    return new ArrayList<>(result);
+  }
+
+  @Test
+  public void testCachedQueries()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    DemandRefinementPointsTo dmp = makeDemandPointerAnalysis(TestInfo.TEST_HASH_SET);
+    List<PointerKey> queries = getQueries(dmp);
+    Assert.assertFalse(queries.isEmpty());
+    Predicate<InstanceKey> never = ik -> false;
+
+    Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> uncached = new HashMap<>();
+    Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> uncachedAlways = new HashMap<>();
+    for (PointerKey pk : queries) {
+      uncached.put(pk, dmp.getPointsTo(pk, never));
+      QueryStatistics stats = dmp.getLastQueryStatistics();
+      Assert.assertFalse(stats.isCacheHit());
+      Assert.assertTrue(stats.getNumberOfPasses() > 0);
+      uncachedAlways.put(pk, dmp.getPointsTo(pk, ik -> true));
+    }
+    Assert.assertEquals(0, dmp.getNumberOfCacheHits() + dmp.getNumberOfCacheMisses());
+
+    dmp.setCacheResults(true);
+    for (int round = 0; round < 2; round++) {
+      for (PointerKey pk : queries) {
+        Assert.assertEquals(uncached.get(pk), dmp.getPointsTo(pk, never));
+        Assert.assertEquals(round > 0, dmp.getLastQueryStatistics().isCacheHit());
+      }
+    }
+    Assert.assertEquals(queries.size(), dmp.getNumberOfCacheMisses());
+    Assert.assertEquals(queries.size(), dmp.getNumberOfCacheHits());
+
+    // the passes cached for one predicate answer a query with another exactly as without the cache
+    for (PointerKey pk : queries) {
+      Assert.assertEquals(uncachedAlways.get(pk), dmp.getPointsTo(pk, ik -> true));
+      Assert.assertTrue(dmp.getLastQueryStatistics().isCacheHit());
+    }
+
+    // and in the other order, the passes missing from the cache are run
+    dmp.clearCache();
+    for (PointerKey pk : queries) {
+      Assert.assertEquals(uncachedAlways.get(pk), dmp.getPointsTo(pk, ik -> true));
+      Assert.assertEquals(uncached.get(pk), dmp.getPointsTo(pk, never));
+      Assert.assertEquals(uncached.get(pk), dmp.getPointsTo(pk, never));
+      Assert.assertTrue(dmp.getLastQueryStatistics().isCacheHit());
+    }
+
+    // changing the refinement policy invalidates the cache
+    dmp.setRefinementPolicyFactory(new TunedRefinementPolicy.Factory(dmp.getClassHierarchy()));
+    dmp.getPointsTo(queries.get(0), never);
+    Assert.assertFalse(dmp.getLastQueryStatistics().isCacheHit());
+  }
+
+  @Test
+  public void testBatchQueries()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    DemandRefinementPointsTo dmp = makeDemandPointerAnalysis(TestInfo.TEST_HASH_SET);
+    List<PointerKey> queries = getQueries(dmp);
+    Predicate<InstanceKey> never = ik -> false;
+    Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> individual = new HashMap<>();
+    for (PointerKey pk : queries) {
+      individual.put(pk, dmp.getPointsTo(pk, never));
+    }
+
+    dmp.setCacheResults(true);
+    List<PointerKey> batch = new ArrayList<>(queries);
+    batch.addAll(queries);
+    Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> result =
+        dmp.getPointsTo(batch, never);
+    Assert.assertEquals(individual, result);
+    List<QueryStatistics> stats = dmp.getLastBatchStatistics();
+    Assert.assertEquals(queries.size(), stats.size());
+    for (QueryStatistics s : stats) {
+      Assert.assertFalse(s.isCacheHit());
+      Assert.assertTrue(s.getNodesTraversed() <= s.getBudget());
+    }
+
+    Assert.assertEquals(result, dmp.getPointsTo(queries, never));
+    for (QueryStatistics s : dmp.getLastBatchStatistics()) {
+      Assert.assertTrue(s.isCacheHit());
+    }
+  }
+
+  @Test
+  public void testBatchSharesPointsToSets()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    // the default single pass with an unlimited budget, so that first passes are shared
+    DemandRefinementPointsTo dmp = super.makeDemandPointerAnalysis(TestInfo.TEST_HASH_SET);
+    List<PointerKey> queries = getQueries(dmp);
+    List<PointerKey> reversed = new ArrayList<>(queries);
+    Collections.reverse(reversed);
+    for (Predicate<InstanceKey> pred :
+        Arrays.<Predicate<InstanceKey>>asList(ik -> true, ik -> false)) {
+      Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> individual = new HashMap<>();
+      for (PointerKey pk : queries) {
+        individual.put(pk, dmp.getPointsTo(pk, pred));
+      }
+      Assert.assertEquals(individual, dmp.getPointsTo(queries, pred));
+      Assert.assertEquals(individual, dmp.getPointsTo(reversed, pred));
+    }
+
+    // later keys of the batch are answered from the first pass of an earlier one
+    dmp.getPointsTo(reversed, ik -> true);
+    Assert.assertTrue(dmp.getLastBatchStatistics().stream().anyMatch(QueryStatistics::isCacheHit));
+    Assert.assertEquals(0, dmp.getNumberOfCacheHits());
+  }
+
+  @Test
+  public void testParallelQueries()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    DemandRefinementPointsTo dmp = makeDemandPointerAnalysis(TestInfo.TEST_HASH_SET);
+    List<PointerKey> queries = getQueries(dmp);
+    Predicate<InstanceKey> never = ik -> false;
+
+    // queries run in parallel on a graph that is still being expanded
+    dmp.setNumberOfThreads(4);
+    Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> parallel =
+        dmp.getPointsTo(queries, never);
+    List<QueryStatistics> stats = dmp.getLastBatchStatistics();
+    Assert.assertEquals(queries.size(), stats.size());
+    Assert.assertSame(stats.get(stats.size() - 1), dmp.getLastQueryStatistics());
+
+    dmp.setNumberOfThreads(1);
+    Map<PointerKey, Pair<PointsToResult, Collection<InstanceKey>>> sequential = new HashMap<>();
+    for (PointerKey pk : queries) {
+      sequential.put(pk, dmp.getPointsTo(pk, never));
+    }
+    Assert.assertEquals(sequential, parallel);
+
+    // parallel queries share the cache
+    dmp.setCacheResults(true);
+    dmp.setNumberOfThreads(4);
+    Assert.assertEquals(sequential, dmp.getPointsTo(queries, never));
+    Assert.assertEquals(sequential, dmp.getPointsTo(queries, never));
+    Assert.assertTrue(dmp.getLastQueryStatistics().isCacheHit());
+    Assert.assertEquals(queries.size(), dmp.getNumberOfCacheMisses());
+    Assert.assertEquals(queries.size(), dmp.getNumberOfCacheHits());
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ir;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.BoundedAuxiliaryCache;
+import com.ibm.wala.ssa.BoundedAuxiliaryCache.EvictionPolicy;
+import com.ibm.wala.ssa.DefaultIRFactory;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.types.TypeReference;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Tests for {@link BoundedAuxiliaryCache} */
+public class BoundedAuxiliaryCacheTest extends WalaTestCase {
+
+  private static List<IMethod> methods;
+
+  @BeforeClass
+  public static void beforeClass() throws ClassHierarchyException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    IClass string = cha.lookupClass(TypeReference.JavaLangString);
+    methods = new ArrayList<>();
+    for (IMethod m : string.getDeclaredMethods()) {
+      if (!m.isAbstract() && !m.isNative()) {
+        methods.add(m);
+      }
+    }
+  }
+
+  @Test
+  public void testLRU() {
+    testBound(EvictionPolicy.LRU);
+  }
+
+  @Test
+  public void testLFU() {
+    testBound(EvictionPolicy.LFU);
+  }
+
+  private static void testBound(EvictionPolicy policy) {
+    long maxBytes = 256 * 1024;
+    BoundedAuxiliaryCache irCache = new BoundedAuxiliaryCache(maxBytes, policy);
+    BoundedAuxiliaryCache duCache = new BoundedAuxiliaryCache(maxBytes, policy);
+    IAnalysisCacheView cache =
+        new AnalysisCacheImpl(
+            new DefaultIRFactory(), new AnalysisOptions().getSSAOptions(), irCache, duCache);
+
+    for (IMethod m : methods) {
+      Assert.assertNotNull(cache.getDefUse(cache.getIR(m, Everywhere.EVERYWHERE)));
+      Assert.assertTrue(irCache.getEstimatedBytes() <= maxBytes);
+      Assert.assertTrue(duCache.getEstimatedBytes() <= maxBytes);
+    }
+    Assert.assertEquals(methods.size(), irCache.getMissCount());
+    Assert.assertEquals(methods.size(), irCache.getBuildCount());
+    Assert.assertTrue(irCache.getBuildTimeNanos() > 0);
+    Assert.assertTrue(irCache.getEvictionCount() > 0);
+    Assert.assertTrue(irCache.size() < methods.size());
+
+    // a small IR stays cached once built
+    IMethod length =
+        methods.stream().filter(m -> m.getName().toString().equals("length")).findFirst().get();
+    IR ir = cache.getIR(length, Everywhere.EVERYWHERE);
+    long hits = irCache.getHitCount();
+    long builds = irCache.getBuildCount();
+    Assert.assertSame(ir, cache.getIR(length, Everywhere.EVERYWHERE));
+    Assert.assertEquals(hits + 1, irCache.getHitCount());
+
+    cache.invalidate(length, Everywhere.EVERYWHERE);
+    Assert.assertNotSame(ir, cache.getIR(length, Everywhere.EVERYWHERE));
+    Assert.assertEquals(builds + 1, irCache.getBuildCount());
+
+    cache.clear();
+    Assert.assertEquals(0, irCache.size());
+    Assert.assertEquals(0, irCache.getEstimatedBytes());
+  }
+
+  @Test
+  public void testUnbounded() {
+    BoundedAuxiliaryCache irCache = new BoundedAuxiliaryCache(Long.MAX_VALUE);
+    IAnalysisCacheView cache =
+        new AnalysisCacheImpl(
+            new DefaultIRFactory(),
+            new AnalysisOptions().getSSAOptions(),
+            irCache,
+            new BoundedAuxiliaryCache(Long.MAX_VALUE));
+    for (IMethod m : methods) {
+      cache.getIR(m, Everywhere.EVERYWHERE);
+    }
+    for (IMethod m : methods) {
+      cache.getIR(m, Everywhere.EVERYWHERE);
+    }
+    Assert.assertEquals(methods.size(), irCache.size());
+    Assert.assertEquals(methods.size(), irCache.getHitCount());
+    Assert.assertEquals(0, irCache.getEvictionCount());
+  }
+
+  /** threads asking for the same IRs at once share one build of each */
+  @Test
+  public void testConcurrentLookups() throws InterruptedException, ExecutionException {
+    BoundedAuxiliaryCache irCache = new BoundedAuxiliaryCache(Long.MAX_VALUE);
+    IAnalysisCacheView cache =
+        new AnalysisCacheImpl(
+            new DefaultIRFactory(),
+            new AnalysisOptions().getSSAOptions(),
+            irCache,
+            new BoundedAuxiliaryCache(Long.MAX_VALUE));
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<List<IR>>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  List<IR> irs = new ArrayList<>();
+                  for (IMethod m : methods) {
+                    irs.add(cache.getIR(m, Everywhere.EVERYWHERE));
+                  }
+                  return irs;
+                }));
+      }
+      List<IR> first = results.get(0).get();
+      for (Future<List<IR>> result : results) {
+        List<IR> irs = result.get();
+        for (int i = 0; i < methods.size(); i++) {
+          Assert.assertSame(first.get(i), irs.get(i));
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertEquals(methods.size(), irCache.getBuildCount());
+    Assert.assertEquals(methods.size(), irCache.size());
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ptrs;
+
+import com.ibm.wala.analysis.pointers.BasicHeapGraph;
+import com.ibm.wala.analysis.pointers.CompactHeapGraph;
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.graph.traverse.DFS;
+import com.ibm.wala.util.intset.OrdinalSet;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompactHeapGraphTest {
+
+  @Test
+  public void testCompactHeapGraph()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, TestConstants.SLICE_TESTMESSAGEFORMAT);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    PointerAnalysis<InstanceKey> pa = builder.getPointerAnalysis();
+
+    BasicHeapGraph<InstanceKey> basic = new BasicHeapGraph<>(pa, cg);
+    CompactHeapGraph<InstanceKey> compact = new CompactHeapGraph<>(pa);
+
+    // same nodes and edges
+    Assert.assertEquals(basic.getNumberOfNodes(), compact.getNumberOfNodes());
+    int edges = 0;
+    for (Object n : basic) {
+      Assert.assertTrue(compact.containsNode(n));
+      Assert.assertEquals(n, compact.getNode(compact.getNumber(n)));
+      Set<Object> succs = HashSetFactory.make();
+      basic.getSuccNodes(n).forEachRemaining(succs::add);
+      Assert.assertEquals(succs, Iterator2Collection.toSet(compact.getSuccNodes(n)));
+      Assert.assertEquals(succs.size(), compact.getSuccNodeCount(n));
+      Set<Object> preds = HashSetFactory.make();
+      basic.getPredNodes(n).forEachRemaining(preds::add);
+      Assert.assertEquals(preds, Iterator2Collection.toSet(compact.getPredNodes(n)));
+      for (Object s : succs) {
+        Assert.assertTrue(compact.hasEdge(n, s));
+      }
+      edges += succs.size();
+    }
+    Assert.assertEquals(edges, compact.getNumberOfEdges());
+
+    // reachability from each static field agrees with a search over the basic graph
+    Map<PointerKey, OrdinalSet<InstanceKey>> fromStatics =
+        compact.getReachableInstanceKeysFromStaticFields();
+    Assert.assertFalse(fromStatics.isEmpty());
+    Set<InstanceKey> all = HashSetFactory.make();
+    for (Map.Entry<PointerKey, OrdinalSet<InstanceKey>> e : fromStatics.entrySet()) {
+      Set<InstanceKey> expected =
+          reachableInstanceKeys(basic, Collections.<Object>singleton(e.getKey()));
+      Assert.assertEquals(expected, HashSetFactory.make(OrdinalSet.toCollection(e.getValue())));
+      all.addAll(expected);
+    }
+    Assert.assertEquals(
+        all,
+        HashSetFactory.make(
+            OrdinalSet.toCollection(compact.getReachableInstanceKeys(fromStatics.keySet()))));
+  }
+
+  private static Set<InstanceKey> reachableInstanceKeys(
+      BasicHeapGraph<InstanceKey> g, Set<Object> roots) {
+    Set<InstanceKey> result = HashSetFactory.make();
+    for (Object n : DFS.getReachableNodes(g, roots)) {
+      if (n instanceof InstanceKey) {
+        result.add((InstanceKey) n);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.shrike;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.shrike.cg.BinaryTraceReader;
+import com.ibm.wala.shrike.cg.BinaryTraceWriter;
+import com.ibm.wala.util.collections.HashMapFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check that the edges recorded by several threads can be read back from a binary trace */
+public class BinaryTraceTest extends WalaTestCase {
+
+  private static final int THREADS = 4;
+
+  private static final int CALLS = 10000;
+
+  @Test
+  public void testRoundTrip() throws IOException, InterruptedException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    // a small buffer, so that threads wrap around and wait for the writer
+    BinaryTraceWriter writer = new BinaryTraceWriter(bytes, 16);
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      String name = "pack.Class" + t;
+      String klass = 'L' + name.replace('.', '/') + ';';
+      threads[t] =
+          new Thread(
+              () -> {
+                BinaryTraceWriter.Buffer buffer = writer.newBuffer();
+                int main = writer.methodId(klass, "main([Ljava/lang/String;)V");
+                buffer.record(main, BinaryTraceWriter.ROOT);
+                for (int i = 0; i < CALLS; i++) {
+                  int callee = writer.methodId(klass, "m" + i % 10 + "()V");
+                  buffer.record(callee, writer.siteId(main, callee));
+                }
+                buffer.record(
+                    writer.methodId("class " + name, "<clinit>()V"), BinaryTraceWriter.CLINIT);
+              });
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    writer.close();
+
+    Map<String, Integer> edges = HashMapFactory.make();
+    try (BinaryTraceReader reader =
+        new BinaryTraceReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+      String edge;
+      while ((edge = reader.readEdge()) != null) {
+        edges.merge(edge, 1, Integer::sum);
+      }
+    }
+
+    Assert.assertEquals(THREADS * 12, edges.size());
+    for (int t = 0; t < THREADS; t++) {
+      String klass = "Lpack/Class" + t + ';';
+      Assert.assertEquals(
+          Integer.valueOf(1), edges.get("root\t" + klass + "\tmain([Ljava/lang/String;)V"));
+      Assert.assertEquals(
+          Integer.valueOf(1), edges.get("clinit\tpack/Class" + t + "\t<clinit>()V"));
+      for (int i = 0; i < 10; i++) {
+        Assert.assertEquals(
+            Integer.valueOf(CALLS / 10),
+            edges.get(
+                klass + "\tmain([Ljava/lang/String;)V\tLpack/Class" + t + ";\tm" + i + "()V"));
+      }
+    }
+  }
+
+  @Test
+  public void testEndedThreads() throws IOException, InterruptedException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryTraceWriter writer = new BinaryTraceWriter(bytes, 1024);
+    for (int t = 0; t < 10 * THREADS; t++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                BinaryTraceWriter.Buffer buffer = writer.newBuffer();
+                buffer.record(writer.methodId("LC;", "run()V"), BinaryTraceWriter.ROOT);
+              });
+      thread.start();
+      thread.join();
+    }
+    // the writer drops the buffer of each thread after draining it
+    for (int i = 0; i < 1000 && writer.getNumberOfBuffers() > 0; i++) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(0, writer.getNumberOfBuffers());
+    writer.close();
+
+    int edges = 0;
+    try (BinaryTraceReader reader =
+        new BinaryTraceReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+      while (reader.readEdge() != null) {
+        edges++;
+      }
+    }
+    Assert.assertEquals(10 * THREADS, edges);
+  }
+
+  @Test
+  public void testTruncatedTrace() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryTraceWriter writer = new BinaryTraceWriter(bytes, 1024);
+    BinaryTraceWriter.Buffer buffer = writer.newBuffer();
+    for (int i = 0; i < 1000; i++) {
+      buffer.record(writer.methodId("LC;", "m" + i + "()V"), BinaryTraceWriter.CALLBACKS);
+    }
+    writer.close();
+
+    byte[] trace = bytes.toByteArray();
+    int edges = 0;
+    try (BinaryTraceReader reader =
+        new BinaryTraceReader(new ByteArrayInputStream(Arrays.copyOf(trace, trace.length / 2)))) {
+      while (reader.readEdge() != null) {
+        edges++;
+      }
+    }
+    Assert.assertTrue(edges < 1000);
+  }
+}
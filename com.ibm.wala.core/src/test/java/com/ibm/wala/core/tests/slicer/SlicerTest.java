@@ -37,6 +37,8 @@ import com.ibm.wala.ipa.callgraph.util.CallGraphSearchUtil;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ipa.modref.ModRef;
+import com.ibm.wala.ipa.slicer.CompactSDG;
 import com.ibm.wala.ipa.slicer.HeapStatement.HeapReturnCaller;
 import com.ibm.wala.ipa.slicer.MethodEntryStatement;
 import com.ibm.wala.ipa.slicer.NormalReturnCaller;
@@ -46,24 +48,40 @@ import com.ibm.wala.ipa.slicer.Slicer;
 import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
 import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
 import com.ibm.wala.ipa.slicer.SlicerUtil;
+import com.ibm.wala.ipa.slicer.SlicingSession;
 import com.ibm.wala.ipa.slicer.Statement;
+import com.ibm.wala.ipa.slicer.thin.CISDG;
+import com.ibm.wala.ipa.slicer.thin.CISlicer;
+import com.ibm.wala.ipa.slicer.thin.CompactCISDG;
 import com.ibm.wala.ipa.slicer.thin.ThinSlicer;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.Descriptor;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Collection;
 import com.ibm.wala.util.config.AnalysisScopeReader;
 import com.ibm.wala.util.config.FileOfClasses;
+import com.ibm.wala.util.graph.Graph;
 import com.ibm.wala.util.graph.GraphIntegrity;
 import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
+import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.graph.traverse.DFS;
 import com.ibm.wala.util.io.FileProvider;
 import com.ibm.wala.util.io.FileUtil;
 import com.ibm.wala.util.strings.Atom;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -978,6 +996,217 @@ public class SlicerTest {
     GraphIntegrity.check(sdg);
   }
 
+  @Test
+  public void testParallelSDG()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    PointerAnalysis<InstanceKey> pa = builder.getPointerAnalysis();
+
+    SDG<InstanceKey> sequential =
+        new SDG<>(cg, pa, DataDependenceOptions.FULL, ControlDependenceOptions.NONE);
+    SDG<InstanceKey> parallel =
+        new SDG<>(cg, pa, DataDependenceOptions.FULL, ControlDependenceOptions.NONE);
+    parallel.setNumberOfThreads(4);
+
+    // same statements, numbered identically, with the same edges
+    Assert.assertEquals(sequential.getNumberOfNodes(), parallel.getNumberOfNodes());
+    for (Statement st : sequential) {
+      int n = sequential.getNumber(st);
+      Assert.assertEquals(st, parallel.getNode(n));
+      Assert.assertTrue(
+          sequential.getSuccNodeNumbers(st).sameValue(parallel.getSuccNodeNumbers(st)));
+    }
+
+    Statement s = SlicerUtil.findCallTo(CallGraphSearchUtil.findMainMethod(cg), "println");
+    Assert.assertEquals(
+        Slicer.computeBackwardSlice(sequential, s), Slicer.computeBackwardSlice(parallel, s));
+  }
+
+  @Test
+  public void testCompactSDG()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    SDG<InstanceKey> sdg =
+        new SDG<>(
+            cg,
+            builder.getPointerAnalysis(),
+            DataDependenceOptions.FULL,
+            ControlDependenceOptions.NO_EXCEPTIONAL_EDGES);
+    CompactSDG compact = new CompactSDG(sdg);
+
+    // the same statements and edges
+    Assert.assertEquals(sdg.getNumberOfNodes(), compact.getNumberOfNodes());
+    for (Statement st : sdg) {
+      Assert.assertTrue(compact.containsNode(st));
+      Assert.assertEquals(st, compact.getNode(compact.getNumber(st)));
+      Assert.assertEquals(
+          Iterator2Collection.toSet(sdg.getSuccNodes(st)),
+          Iterator2Collection.toSet(compact.getSuccNodes(st)));
+      Assert.assertEquals(
+          Iterator2Collection.toSet(sdg.getPredNodes(st)),
+          Iterator2Collection.toSet(compact.getPredNodes(st)));
+    }
+
+    Statement s = SlicerUtil.findCallTo(CallGraphSearchUtil.findMainMethod(cg), "println");
+    for (boolean backward : new boolean[] {true, false}) {
+      Assert.assertEquals(
+          HashSetFactory.make(new Slicer().slice(sdg, Collections.singleton(s), backward)),
+          HashSetFactory.make(
+              new Slicer().slice(compact, Collections.singleton(s), backward, null)));
+    }
+  }
+
+  @Test
+  public void testCompactCISDG()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, TestConstants.SLICE_TESTMESSAGEFORMAT);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    PointerAnalysis<InstanceKey> pa = builder.getPointerAnalysis();
+    SDG<InstanceKey> sdg =
+        new SDG<>(cg, pa, DataDependenceOptions.NO_HEAP, ControlDependenceOptions.NONE);
+    CompactCISDG compact = new CompactCISDG(sdg, pa, ModRef.make());
+
+    // compare with a search over the CISDG for the same SDG and mod and ref maps
+    Graph<Statement> inverted =
+        GraphInverter.invert(
+            new CISDG(sdg, CISlicer.scanForMod(sdg, pa), CISlicer.scanForRef(sdg, pa)) {});
+    CGNode main = CallGraphSearchUtil.findMainMethod(cg);
+    for (Statement seed : sdg.getPDG(main)) {
+      Set<Statement> expected = DFS.getReachableNodes(inverted, Collections.singleton(seed));
+      Set<Statement> slice = compact.computeBackwardThinSlice(Collections.singleton(seed));
+      Assert.assertEquals(expected, slice);
+      for (Statement st : slice) {
+        Assert.assertTrue(
+            compact.computeForwardThinSlice(Collections.singleton(st)).contains(seed));
+      }
+    }
+  }
+
+  @Test
+  public void testSlicingSession()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException,
+          InterruptedException, ExecutionException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, TestConstants.SLICE_TEST_PRIM_GETTER_SETTER);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    SDG<InstanceKey> sdg =
+        new SDG<>(
+            cg,
+            builder.getPointerAnalysis(),
+            DataDependenceOptions.NO_BASE_PTRS,
+            ControlDependenceOptions.NO_EXCEPTIONAL_EDGES);
+
+    List<Statement> seeds = new ArrayList<>();
+    for (CGNode n : cg) {
+      if (n.getMethod()
+          .getDeclaringClass()
+          .getClassLoader()
+          .getReference()
+          .equals(ClassLoaderReference.Application)) {
+        for (Statement st : sdg.getPDG(n)) {
+          if (st.getKind() == Statement.Kind.NORMAL) {
+            seeds.add(st);
+          }
+        }
+      }
+    }
+    Assert.assertFalse(seeds.isEmpty());
+
+    for (boolean backward : new boolean[] {true, false}) {
+      // one query at a time
+      SlicingSession session = new SlicingSession(sdg, backward);
+      for (Statement st : seeds) {
+        Assert.assertEquals(
+            HashSetFactory.make(new Slicer().slice(sdg, Collections.singleton(st), backward)),
+            HashSetFactory.make(session.slice(st)));
+      }
+      Assert.assertEquals(seeds.size(), session.getNumberOfQueries());
+      Assert.assertEquals(
+          HashSetFactory.make(new Slicer().slice(sdg, seeds, backward)),
+          HashSetFactory.make(session.slice(seeds)));
+
+      // a batch
+      Map<Statement, Collection<Statement>> batch =
+          new SlicingSession(sdg, backward).sliceEach(seeds);
+      for (Statement st : seeds) {
+        Assert.assertEquals(
+            HashSetFactory.make(session.slice(st)), HashSetFactory.make(batch.get(st)));
+      }
+
+      // a session that starts over before every query
+      SlicingSession bounded = new SlicingSession(sdg, backward);
+      bounded.setMaxPathEdges(1);
+      for (Statement st : seeds) {
+        Assert.assertEquals(batch.get(st), HashSetFactory.make(bounded.slice(st)));
+      }
+      Assert.assertTrue(bounded.getNumberOfFlushes() > 0);
+
+      // several threads tabulating each query, on an SDG that is still built lazily
+      SlicingSession parallel =
+          new SlicingSession(
+              new SDG<>(
+                  cg,
+                  builder.getPointerAnalysis(),
+                  DataDependenceOptions.NO_BASE_PTRS,
+                  ControlDependenceOptions.NO_EXCEPTIONAL_EDGES),
+              backward);
+      parallel.setNumberOfThreads(4);
+      for (Statement st : seeds) {
+        Assert.assertEquals(
+            HashSetFactory.make(new Slicer().slice(sdg, Collections.singleton(st), backward)),
+            HashSetFactory.make(parallel.slice(st)));
+      }
+
+      // concurrent queries
+      SlicingSession concurrent = new SlicingSession(sdg, backward);
+      ExecutorService pool = Executors.newFixedThreadPool(4);
+      try {
+        List<Future<Collection<Statement>>> slices = new ArrayList<>();
+        for (Statement st : seeds) {
+          slices.add(pool.submit(() -> concurrent.slice(st)));
+        }
+        for (int i = 0; i < seeds.size(); i++) {
+          Assert.assertEquals(batch.get(seeds.get(i)), HashSetFactory.make(slices.get(i).get()));
+        }
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+  }
+
   @Test
   public void testJustThrow()
       throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
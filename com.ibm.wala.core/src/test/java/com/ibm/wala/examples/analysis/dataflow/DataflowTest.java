@@ -42,6 +42,7 @@ import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.MethodReference;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.config.AnalysisScopeReader;
 import com.ibm.wala.util.config.FileOfClasses;
@@ -226,4 +227,33 @@ public class DataflowTest extends WalaTestCase {
       }
     }
   }
+
+  @Test
+  public void testContextSensitiveInParallel() throws IllegalArgumentException, CancelException {
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(
+            scope, cha, "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ContextSensitiveReachingDefs reachingDefs = new ContextSensitiveReachingDefs(cg);
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        expected = reachingDefs.analyze();
+    ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> supergraph =
+        reachingDefs.getSupergraph();
+    for (int i = 0; i < 5; i++) {
+      TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+          result = reachingDefs.analyze(4);
+      for (BasicBlockInContext<IExplodedBasicBlock> bb : supergraph) {
+        Assert.assertTrue(bb.toString(), expected.getResult(bb).sameValue(result.getResult(bb)));
+      }
+      Assert.assertEquals(
+          HashSetFactory.make(expected.getSupergraphNodesReached()),
+          HashSetFactory.make(result.getSupergraphNodesReached()));
+      Assert.assertEquals(
+          HashSetFactory.make(expected.getSeeds()), HashSetFactory.make(result.getSeeds()));
+    }
+  }
 }
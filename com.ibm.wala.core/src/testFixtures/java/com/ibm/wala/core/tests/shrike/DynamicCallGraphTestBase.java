@@ -15,7 +15,9 @@ import com.ibm.wala.core.tests.util.WalaTestCase;
 import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.callgraph.CallGraph;
 import com.ibm.wala.properties.WalaProperties;
+import com.ibm.wala.shrike.cg.BinaryTraceReader;
 import com.ibm.wala.shrike.cg.OfflineDynamicCallGraph;
+import com.ibm.wala.shrike.cg.TraceRuntime;
 import com.ibm.wala.shrikeBT.analysis.Analyzer.FailureException;
 import com.ibm.wala.shrikeCT.InvalidClassFileException;
 import com.ibm.wala.types.ClassLoaderReference;
@@ -29,6 +31,8 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -46,6 +50,11 @@ public abstract class DynamicCallGraphTestBase extends WalaTestCase {
 
   protected boolean testPatchCalls = false;
 
+  /**
+   * record the calls with {@link TraceRuntime} rather than {@link com.ibm.wala.shrike.cg.Runtime}
+   */
+  protected boolean testBinaryTrace = false;
+
   private boolean instrumentedJarBuilt = false;
 
   private final java.nio.file.Path instrumentedJarLocation;
@@ -86,6 +95,9 @@ public abstract class DynamicCallGraphTestBase extends WalaTestCase {
       if (testPatchCalls) {
         args.add("--patch-calls");
       }
+      if (testBinaryTrace) {
+        args.addAll(Arrays.asList("--runtime", TraceRuntime.class.getName()));
+      }
       OfflineDynamicCallGraph.main(args.toArray(new String[0]));
       Assert.assertTrue(
           "expected to create " + instrumentedJarLocation, Files.exists(instrumentedJarLocation));
@@ -199,12 +211,23 @@ public abstract class DynamicCallGraphTestBase extends WalaTestCase {
     Assert.assertTrue("could not find " + notFound, notFound.isEmpty());
   }
 
+  private BufferedReader openTrace() throws IOException {
+    if (testBinaryTrace) {
+      StringWriter edges = new StringWriter();
+      try (BinaryTraceReader reader = new BinaryTraceReader(Files.newInputStream(cgLocation))) {
+        reader.writeEdges(edges);
+      }
+      return new BufferedReader(new StringReader(edges.toString()));
+    } else {
+      return new BufferedReader(
+          new InputStreamReader(new GZIPInputStream(Files.newInputStream(cgLocation))));
+    }
+  }
+
   protected void check(CallGraph staticCG, EdgesTest test, Predicate<MethodReference> filter)
       throws IOException {
     int lines = 0;
-    try (final BufferedReader dynamicEdgesFile =
-        new BufferedReader(
-            new InputStreamReader(new GZIPInputStream(Files.newInputStream(cgLocation))))) {
+    try (final BufferedReader dynamicEdgesFile = openTrace()) {
       String line;
       loop:
       while ((line = dynamicEdgesFile.readLine()) != null) {
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package incremental;
+
+/**
+ * A program for the tests of incremental call graph updates, which recompile {@link Source} to make
+ * a {@link B} instead of an {@link A}.
+ */
+public class TestIncremental {
+
+  static class A {
+    @Override
+    public String toString() {
+      return "A";
+    }
+  }
+
+  static class B {
+    @Override
+    public String toString() {
+      return "B";
+    }
+  }
+
+  static class Source {
+    static Object make() {
+      return new A();
+    }
+  }
+
+  static Object made;
+
+  static void use(Object o) {
+    o.toString();
+  }
+
+  public static void main(String[] args) {
+    made = Source.make();
+    use(made);
+  }
+}
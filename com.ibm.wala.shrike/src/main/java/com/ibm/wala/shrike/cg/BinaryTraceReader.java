@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.shrike.cg;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a trace written by {@link BinaryTraceWriter}, and turns each execution into a call graph
+ * edge in the text format of {@link Runtime}: the caller, as a class and method or as {@code root},
+ * {@code clinit} or {@code callbacks}, followed by the class and method of the callee, all
+ * separated by tabs.
+ */
+public class BinaryTraceReader implements Closeable {
+
+  private final DataInputStream in;
+
+  /** class and method of each method id, separated by a tab */
+  private final List<String> methods = new ArrayList<>();
+
+  /** calling method of each call site id */
+  private final List<Integer> callers = new ArrayList<>();
+
+  /** executions left in the current entry */
+  private int events = 0;
+
+  private int thread = -1;
+
+  public BinaryTraceReader(InputStream in) throws IOException {
+    this.in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in), 1 << 16));
+    if (this.in.readInt() != BinaryTraceWriter.MAGIC) {
+      throw new IOException("not a dynamic call graph trace");
+    }
+    int version = this.in.readUnsignedByte();
+    if (version != BinaryTraceWriter.VERSION) {
+      throw new IOException("unsupported trace version " + version);
+    }
+  }
+
+  /**
+   * @return the next edge, or null at the end of the trace. A trace that was cut short, say because
+   *     the traced program was killed, ends after its last complete entry.
+   */
+  public String readEdge() throws IOException {
+    try {
+      while (events == 0) {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+          case BinaryTraceWriter.END:
+            return null;
+          case BinaryTraceWriter.METHOD:
+            methods.add(in.readUTF() + '\t' + in.readUTF());
+            break;
+          case BinaryTraceWriter.SITE:
+            callers.add(readVarint());
+            readVarint();
+            break;
+          case BinaryTraceWriter.EVENTS:
+            thread = readVarint();
+            events = readVarint();
+            break;
+          default:
+            throw new IOException("bad entry in trace: " + tag);
+        }
+      }
+      String callee = methods.get(readVarint());
+      int site = readVarint();
+      site = (site >>> 1) ^ -(site & 1);
+      events--;
+      return caller(site) + '\t' + callee;
+    } catch (EOFException e) {
+      events = 0;
+      return null;
+    }
+  }
+
+  /** @return the id of the thread that executed the last edge read */
+  public int getThread() {
+    return thread;
+  }
+
+  private String caller(int site) throws IOException {
+    switch (site) {
+      case BinaryTraceWriter.ROOT:
+        return "root";
+      case BinaryTraceWriter.CLINIT:
+        return "clinit";
+      case BinaryTraceWriter.CALLBACKS:
+        return "callbacks";
+      default:
+        if (site < 0 || site >= callers.size()) {
+          throw new IOException("undefined call site in trace: " + site);
+        }
+        return methods.get(callers.get(site));
+    }
+  }
+
+  private int readVarint() throws IOException {
+    int result = 0;
+    for (int shift = 0; ; shift += 7) {
+      int b = in.readUnsignedByte();
+      result |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+  }
+
+  /** write the edges of the trace, one per line */
+  public void writeEdges(Writer out) throws IOException {
+    String edge;
+    while ((edge = readEdge()) != null) {
+      out.write(edge);
+      out.write('\n');
+    }
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /** print the edges of the trace file given as the argument */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("usage: BinaryTraceReader <trace file>");
+      System.exit(1);
+    }
+    try (BinaryTraceReader reader = new BinaryTraceReader(new FileInputStream(args[0]))) {
+      reader.writeEdges(new PrintWriter(new OutputStreamWriter(System.out, "UTF-8")));
+    }
+  }
+}
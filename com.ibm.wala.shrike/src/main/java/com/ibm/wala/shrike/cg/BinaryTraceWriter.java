@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.shrike.cg;
+
+import com.ibm.wala.util.WorkerPool;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a binary trace of method executions, as read by {@link BinaryTraceReader}. Each thread
+ * records (method id, call site id) pairs of ints into a preallocated ring buffer of its own, with
+ * no locking and no allocation, and a writer thread drains the buffers to the trace in the
+ * background. A thread only blocks if its buffer is full. Once a thread has ended, the writer
+ * drains its buffer one last time and drops it.
+ *
+ * <p>The trace is gzipped, and consists of a header, {@link #MAGIC} and {@link #VERSION}, followed
+ * by entries that each start with a tag byte:
+ *
+ * <ul>
+ *   <li>{@link #METHOD}: a class name and a method name and descriptor, as UTF strings, defining
+ *       the next method id
+ *   <li>{@link #SITE}: the ids of the calling method and the declared target, or -1 if unknown, as
+ *       varints, defining the next call site id
+ *   <li>{@link #EVENTS}: a thread id and a number of executions, followed by that many pairs of the
+ *       id of the executed method and the id of the site that called it, as varints
+ *   <li>{@link #END}: the end of the trace
+ * </ul>
+ *
+ * Every id is defined before it is used. Call site ids are zigzag encoded, since {@link #ROOT},
+ * {@link #CLINIT} and {@link #CALLBACKS} are negative.
+ */
+public class BinaryTraceWriter implements Closeable {
+
+  static final int MAGIC = 0x57434754;
+
+  static final int VERSION = 1;
+
+  static final int END = 0;
+
+  static final int METHOD = 1;
+
+  static final int SITE = 2;
+
+  static final int EVENTS = 3;
+
+  /** call site id of methods called from outside the program, like main */
+  public static final int ROOT = -1;
+
+  /** call site id of class initializers */
+  public static final int CLINIT = -2;
+
+  /** call site id of methods called back from code that is not instrumented */
+  public static final int CALLBACKS = -3;
+
+  /** declared target of a call site that is not known */
+  public static final int UNKNOWN_TARGET = -1;
+
+  /** default number of executions each thread can buffer */
+  public static final int DEFAULT_BUFFER_SIZE = 1 << 14;
+
+  /** how long the writer thread waits when there is nothing to write */
+  private static final long IDLE_NANOS = 1000000;
+
+  /**
+   * A ring buffer of the executions recorded by one thread. Only its thread may call {@link
+   * #record}.
+   */
+  public final class Buffer {
+    private final int thread;
+
+    /** the thread that records into this buffer */
+    private final Thread owner;
+
+    /** two ints per execution */
+    private final int[] records;
+
+    private final int mask;
+
+    /** number of executions recorded, as seen by the recording thread */
+    private long recorded = 0;
+
+    /** number of executions recorded, as published to the writer thread */
+    private final AtomicLong published = new AtomicLong();
+
+    /** number of executions written, as seen by the writer thread */
+    private long written = 0;
+
+    /** number of executions written, as published to the recording thread */
+    private final AtomicLong consumed = new AtomicLong();
+
+    private Buffer(int thread, Thread owner) {
+      this.thread = thread;
+      this.owner = owner;
+      this.records = new int[2 * bufferSize];
+      this.mask = bufferSize - 1;
+    }
+
+    /**
+     * record an execution
+     *
+     * @param method id of the executed method
+     * @param site id of the site that called it
+     */
+    public void record(int method, int site) {
+      long n = recorded;
+      if (n - consumed.get() == bufferSize && !waitForSpace(n)) {
+        return;
+      }
+      int i = (int) (n & mask) << 1;
+      records[i] = method;
+      records[i + 1] = site;
+      recorded = n + 1;
+      published.lazySet(n + 1);
+    }
+
+    /** @return false if the trace was closed while waiting */
+    private boolean waitForSpace(long n) {
+      while (n - consumed.get() == bufferSize) {
+        if (closed) {
+          return false;
+        }
+        LockSupport.unpark(writerThread);
+        LockSupport.parkNanos(this, IDLE_NANOS / 10);
+      }
+      return true;
+    }
+
+    /** @return true iff anything was written */
+    private boolean drain() throws IOException {
+      long end = published.get();
+      if (end == written) {
+        return false;
+      }
+      writeDefinitions();
+      out.writeByte(EVENTS);
+      writeVarint(out, thread);
+      writeVarint(out, (int) (end - written));
+      for (long n = written; n < end; n++) {
+        int i = (int) (n & mask) << 1;
+        writeVarint(out, records[i]);
+        writeVarint(out, (records[i + 1] << 1) ^ (records[i + 1] >> 31));
+      }
+      written = end;
+      consumed.lazySet(end);
+      return true;
+    }
+  }
+
+  private final int bufferSize;
+
+  private final DataOutputStream out;
+
+  private final List<Buffer> buffers = new CopyOnWriteArrayList<>();
+
+  /** method ids, by class and then by method, as given to {@link #methodId} */
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, Integer>> methodIds =
+      new ConcurrentHashMap<>();
+
+  /** call site ids, by calling method id in the high word and target id in the low word */
+  private final ConcurrentHashMap<Long, Integer> siteIds = new ConcurrentHashMap<>();
+
+  /** guards the definitions of ids */
+  private final Object definitions = new Object();
+
+  /** class and method of each method id */
+  private final List<String[]> methods = new ArrayList<>();
+
+  /** caller and target of each call site id */
+  private final List<int[]> sites = new ArrayList<>();
+
+  private int methodsWritten = 0;
+
+  private int sitesWritten = 0;
+
+  /** number of buffers made so far, which is the id of the next thread */
+  private int threadsSeen = 0;
+
+  private final Thread writerThread;
+
+  private volatile boolean closed = false;
+
+  private IOException failure;
+
+  /**
+   * @param out where to write the trace
+   * @param bufferSize number of executions each thread can buffer, a power of two
+   */
+  public BinaryTraceWriter(OutputStream out, int bufferSize) throws IOException {
+    if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+      throw new IllegalArgumentException("invalid buffer size: " + bufferSize);
+    }
+    this.bufferSize = bufferSize;
+    this.out =
+        new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(out, 1 << 16), 1 << 16));
+    this.out.writeInt(MAGIC);
+    this.out.writeByte(VERSION);
+    writerThread =
+        WorkerPool.daemonThreads("WALA dynamic call graph trace writer").newThread(this::run);
+    writerThread.start();
+  }
+
+  /**
+   * @return a new buffer for the calling thread to record its executions, which is dropped when the
+   *     thread ends
+   */
+  public Buffer newBuffer() {
+    synchronized (definitions) {
+      Buffer result = new Buffer(threadsSeen++, Thread.currentThread());
+      buffers.add(result);
+      return result;
+    }
+  }
+
+  /** @return the number of buffers whose threads have not been seen to end */
+  public int getNumberOfBuffers() {
+    return buffers.size();
+  }
+
+  /**
+   * @param klass the class of the method, in any of the forms the instrumentation passes
+   * @param method the name and descriptor of the method
+   * @return the id of the method
+   */
+  public int methodId(String klass, String method) {
+    ConcurrentHashMap<String, Integer> ofClass = methodIds.get(klass);
+    if (ofClass != null) {
+      Integer id = ofClass.get(method);
+      if (id != null) {
+        return id;
+      }
+    }
+    synchronized (definitions) {
+      ofClass = methodIds.computeIfAbsent(klass, k -> new ConcurrentHashMap<>());
+      Integer id = ofClass.get(method);
+      if (id == null) {
+        id = methods.size();
+        methods.add(new String[] {bashToDescriptor(klass), method});
+        ofClass.put(method, id);
+      }
+      return id;
+    }
+  }
+
+  /**
+   * @param caller id of the calling method
+   * @param target id of the declared target, or {@link #UNKNOWN_TARGET}
+   * @return the id of the call site
+   */
+  public int siteId(int caller, int target) {
+    Long key = ((long) caller << 32) | (target & 0xffffffffL);
+    Integer id = siteIds.get(key);
+    if (id != null) {
+      return id;
+    }
+    synchronized (definitions) {
+      id = siteIds.get(key);
+      if (id == null) {
+        id = sites.size();
+        sites.add(new int[] {caller, target});
+        siteIds.put(key, id);
+      }
+      return id;
+    }
+  }
+
+  /** @return the class and method of the given method id */
+  String[] getMethod(int id) {
+    synchronized (definitions) {
+      return methods.get(id);
+    }
+  }
+
+  private void writeDefinitions() throws IOException {
+    synchronized (definitions) {
+      for (; methodsWritten < methods.size(); methodsWritten++) {
+        String[] m = methods.get(methodsWritten);
+        out.writeByte(METHOD);
+        out.writeUTF(m[0]);
+        out.writeUTF(m[1]);
+      }
+      for (; sitesWritten < sites.size(); sitesWritten++) {
+        int[] s = sites.get(sitesWritten);
+        out.writeByte(SITE);
+        writeVarint(out, s[0]);
+        writeVarint(out, s[1]);
+      }
+    }
+  }
+
+  private static void writeVarint(DataOutputStream out, int v) throws IOException {
+    while ((v & ~0x7f) != 0) {
+      out.writeByte((v & 0x7f) | 0x80);
+      v >>>= 7;
+    }
+    out.writeByte(v);
+  }
+
+  private void run() {
+    try {
+      while (!closed) {
+        boolean any = false;
+        for (Buffer b : buffers) {
+          // everything a thread recorded is published by the time it is seen to have ended
+          boolean ended = !b.owner.isAlive();
+          any |= b.drain();
+          if (ended) {
+            buffers.remove(b);
+          }
+        }
+        if (!any) {
+          LockSupport.parkNanos(this, IDLE_NANOS);
+        }
+      }
+      for (Buffer b : buffers) {
+        b.drain();
+      }
+      writeDefinitions();
+      out.writeByte(END);
+      out.close();
+    } catch (IOException e) {
+      failure = e;
+      closed = true;
+    }
+  }
+
+  /**
+   * Write what has been recorded so far and finish the trace. Executions recorded after this are
+   * dropped.
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    LockSupport.unpark(writerThread);
+    try {
+      writerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /** as {@link Runtime#bashToDescriptor}, which would start a text trace if called from here */
+  static String bashToDescriptor(String className) {
+    if (className.startsWith("class ")) {
+      className = className.substring(6);
+    }
+    if (className.indexOf('.') >= 0) {
+      className = className.replace('.', '/');
+    }
+    return className;
+  }
+}
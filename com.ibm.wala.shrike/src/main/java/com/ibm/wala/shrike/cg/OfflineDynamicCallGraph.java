@@ -114,6 +114,11 @@ public class OfflineDynamicCallGraph {
 
   private static final ClassHierarchyStore cha = new ClassHierarchyStore();
 
+  /** use the given class, like {@link Runtime} or {@link TraceRuntime}, to record the calls */
+  static void setRuntime(Class<?> runtime) {
+    OfflineDynamicCallGraph.runtime = runtime;
+  }
+
   public static void main(String[] args)
       throws IOException, ClassNotFoundException, InvalidClassFileException, FailureException {
     OfflineInstrumenter instrumenter;
@@ -122,7 +127,9 @@ public class OfflineDynamicCallGraph {
 
       for (int i = 0; i < args.length; i++) {
         if ("--runtime".equals(args[i])) {
-          runtime = Class.forName(args[i + 1]);
+          // do not initialize the runtime, which would start a trace
+          runtime =
+              Class.forName(args[i + 1], false, OfflineDynamicCallGraph.class.getClassLoader());
         } else if ("--exclusions".equals(args[i])) {
           try (FileInputStream input = new FileInputStream(args[i + 1])) {
             filter = new FileOfClasses(input);
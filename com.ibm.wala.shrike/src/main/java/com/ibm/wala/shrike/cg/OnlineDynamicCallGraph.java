@@ -71,6 +71,20 @@ public class OnlineDynamicCallGraph implements ClassFileTransformer {
     }
   }
 
+  /**
+   * @param agentArgs if not empty, the name of the class to record the calls with, like {@code
+   *     com.ibm.wala.shrike.cg.TraceRuntime}; {@link Runtime} by default
+   */
+  public static void premain(String agentArgs, Instrumentation inst)
+      throws IllegalArgumentException, IOException, InvalidClassFileException,
+          ClassNotFoundException {
+    if (agentArgs != null && !agentArgs.isEmpty()) {
+      OfflineDynamicCallGraph.setRuntime(
+          Class.forName(agentArgs, false, OnlineDynamicCallGraph.class.getClassLoader()));
+    }
+    premain(inst);
+  }
+
   public static void premain(Instrumentation inst)
       throws IllegalArgumentException, IOException, InvalidClassFileException {
     inst.addTransformer(new OnlineDynamicCallGraph());
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.shrike.cg;
+
+import com.ibm.wala.util.config.FileOfClasses;
+import com.ibm.wala.util.config.SetOfClasses;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A low-overhead replacement for {@link Runtime} that writes a binary trace with a {@link
+ * BinaryTraceWriter}; {@link BinaryTraceReader} turns the trace into the same edges that {@link
+ * Runtime} would print. Select it with {@code --runtime com.ibm.wala.shrike.cg.TraceRuntime} when
+ * instrumenting with {@link OfflineDynamicCallGraph}, or by passing its name as the agent argument
+ * of {@link OnlineDynamicCallGraph}.
+ *
+ * <p>It reads the same {@code dynamicCGFile} and {@code dynamicCGFilter} properties, and {@code
+ * dynamicCGBufferSize} for the number of executions each thread can buffer. Instead of a stack of
+ * strings and a stack walk at every execution, each thread keeps a stack of method ids and the
+ * target of the call it is about to make, and only walks the stack, as {@link Runtime} does, to
+ * classify an execution that was not reached through that call. An execution is reached through the
+ * call if it has the signature of the target, and either the class of the target or a receiver that
+ * is an instance of it. Custom {@link Runtime.Policy}s are not supported.
+ */
+public class TraceRuntime {
+
+  private static final TraceRuntime runtime =
+      new TraceRuntime(
+          System.getProperty("dynamicCGFile"),
+          System.getProperty("dynamicCGFilter"),
+          Integer.getInteger("dynamicCGBufferSize", BinaryTraceWriter.DEFAULT_BUFFER_SIZE));
+
+  public static final Object NULL_TAG =
+      new Object() {
+        @Override
+        public String toString() {
+          return "NULL TAG";
+        }
+      };
+
+  /** number of call sites each thread remembers the ids of */
+  private static final int SITE_CACHE_SIZE = 1 << 10;
+
+  private static final class ThreadState {
+    private final BinaryTraceWriter.Buffer buffer;
+
+    /** ids of the methods executing, with {@link BinaryTraceWriter#ROOT} at the bottom */
+    private int[] callStack = new int[64];
+
+    private int depth = 1;
+
+    /** the class and method of the call this thread is about to make, if any */
+    private String pendingClass;
+
+    private String pendingMethod;
+
+    private final long[] cachedSites = new long[SITE_CACHE_SIZE];
+
+    private final int[] cachedSiteIds = new int[SITE_CACHE_SIZE];
+
+    private ThreadState(BinaryTraceWriter.Buffer buffer) {
+      this.buffer = buffer;
+      callStack[0] = BinaryTraceWriter.ROOT;
+      Arrays.fill(cachedSites, -1L);
+    }
+
+    private int caller() {
+      return callStack[depth - 1];
+    }
+
+    private void push(int method) {
+      if (depth == callStack.length) {
+        callStack = Arrays.copyOf(callStack, 2 * depth);
+      }
+      callStack[depth++] = method;
+    }
+
+    private void pop() {
+      if (depth > 1) {
+        depth--;
+      }
+    }
+
+    private int site(BinaryTraceWriter writer, int caller, int target) {
+      if (caller == BinaryTraceWriter.ROOT) {
+        return BinaryTraceWriter.ROOT;
+      }
+      long key = ((long) caller << 32) | (target & 0xffffffffL);
+      int i = (int) (key ^ (key >>> 29)) & (SITE_CACHE_SIZE - 1);
+      if (cachedSites[i] != key) {
+        cachedSiteIds[i] = writer.siteId(caller, target);
+        cachedSites[i] = key;
+      }
+      return cachedSiteIds[i];
+    }
+  }
+
+  private final BinaryTraceWriter writer;
+
+  private SetOfClasses filter;
+
+  /** the names of each class and all its supertypes, in the form passed to {@link #execution} */
+  private static final ClassValue<Set<String>> supertypes =
+      new ClassValue<Set<String>>() {
+        @Override
+        protected Set<String> computeValue(Class<?> type) {
+          Set<String> result = new HashSet<>();
+          result.add(type.getName().replace('.', '/'));
+          if (type.getSuperclass() != null) {
+            result.addAll(get(type.getSuperclass()));
+          }
+          for (Class<?> i : type.getInterfaces()) {
+            result.addAll(get(i));
+          }
+          return result;
+        }
+      };
+
+  /** whether each class, as passed to {@link #execution}, is excluded by the filter */
+  private final ConcurrentHashMap<String, Boolean> excluded = new ConcurrentHashMap<>();
+
+  private final ThreadLocal<ThreadState> threads;
+
+  private TraceRuntime(String fileName, String filterFileName, int bufferSize) {
+    try (final FileInputStream in = new FileInputStream(filterFileName)) {
+      filter = new FileOfClasses(in);
+    } catch (Exception e) {
+      filter = null;
+    }
+
+    BinaryTraceWriter w = null;
+    if (fileName == null) {
+      System.err.println("no dynamic call graph trace: dynamicCGFile is not set");
+    } else {
+      try {
+        w = new BinaryTraceWriter(new FileOutputStream(fileName), bufferSize);
+      } catch (IOException e) {
+        System.err.println("no dynamic call graph trace: cannot write " + fileName + ": " + e);
+      }
+    }
+    writer = w;
+    threads =
+        writer == null ? null : ThreadLocal.withInitial(() -> new ThreadState(writer.newBuffer()));
+
+    java.lang.Runtime.getRuntime().addShutdownHook(new Thread(TraceRuntime::endTrace));
+  }
+
+  public static void endTrace() {
+    if (runtime.writer != null) {
+      try {
+        runtime.writer.close();
+      } catch (IOException e) {
+        System.err.println("error writing dynamic call graph trace: " + e);
+      }
+    }
+  }
+
+  private boolean isExcluded(String klass) {
+    if (filter == null) {
+      return false;
+    }
+    Boolean result = excluded.get(klass);
+    if (result == null) {
+      result = filter.contains(BinaryTraceWriter.bashToDescriptor(klass));
+      excluded.put(klass, result);
+    }
+    return result;
+  }
+
+  public static void execution(String klass, String method, Object receiver) {
+    if (runtime.writer == null) {
+      return;
+    }
+    ThreadState state = runtime.threads.get();
+    int callee = runtime.writer.methodId(klass, method);
+    if (!runtime.isExcluded(klass)) {
+      int site;
+      if (isPendingCall(state, klass, method, receiver)) {
+        int target = runtime.writer.methodId(state.pendingClass, state.pendingMethod);
+        site = state.site(runtime.writer, state.caller(), target);
+        state.pendingClass = state.pendingMethod = null;
+      } else {
+        site = runtime.unexpectedCaller(state, method);
+      }
+      state.buffer.record(callee, site);
+    }
+    state.push(callee);
+  }
+
+  /** @return true iff the execution of method of klass on receiver is the call state is making */
+  private static boolean isPendingCall(
+      ThreadState state, String klass, String method, Object receiver) {
+    if (!method.equals(state.pendingMethod)) {
+      return false;
+    }
+    if (sameClass(state.pendingClass, klass)) {
+      return true;
+    }
+    // a virtual call may reach an override in a subclass, or a method inherited from a superclass
+    return receiver != NULL_TAG
+        && receiver != null
+        && supertypes.get(receiver.getClass()).contains(className(state.pendingClass));
+  }
+
+  /**
+   * @param descriptor a class as given to {@link #addToCallStack}, usually a type descriptor
+   * @param klass a class as given to {@link #execution}, usually an internal name
+   * @return true iff both name the same class
+   */
+  private static boolean sameClass(String descriptor, String klass) {
+    return descriptor.equals(klass)
+        || (descriptor.length() == klass.length() + 2
+            && descriptor.charAt(0) == 'L'
+            && descriptor.endsWith(";")
+            && descriptor.regionMatches(1, klass, 0, klass.length()));
+  }
+
+  /** @return the internal name of a class given to {@link #addToCallStack} */
+  private static String className(String descriptor) {
+    if (descriptor.startsWith("L") && descriptor.endsWith(";")) {
+      descriptor = descriptor.substring(1, descriptor.length() - 1);
+    }
+    return BinaryTraceWriter.bashToDescriptor(descriptor);
+  }
+
+  /**
+   * classify an execution that was not reached through the call its thread was about to make, by
+   * looking at the stack like {@link Runtime} does
+   */
+  private int unexpectedCaller(ThreadState state, String method) {
+    StackTraceElement[] stack = (new Throwable()).getStackTrace();
+    // stack frames: unexpectedCaller(0), execution(1), callee(2), caller(3)
+    if (stack.length > 3) {
+      StackTraceElement callerFrame = stack[3];
+      if (!callerFrame.getMethodName().startsWith("$")) {
+        String caller =
+            state.caller() == BinaryTraceWriter.ROOT
+                ? "root"
+                : String.join("\t", writer.getMethod(state.caller()));
+        if (!caller.contains(callerFrame.getMethodName())
+            || !caller.contains(BinaryTraceWriter.bashToDescriptor(callerFrame.getClassName()))) {
+          return "<clinit>".equals(stack[2].getMethodName())
+              ? BinaryTraceWriter.CLINIT
+              : "finalize".equals(stack[2].getMethodName())
+                  ? BinaryTraceWriter.ROOT
+                  : BinaryTraceWriter.CALLBACKS;
+        }
+      }
+    }
+    return method.contains("<clinit>")
+        ? BinaryTraceWriter.CLINIT
+        : state.site(writer, state.caller(), BinaryTraceWriter.UNKNOWN_TARGET);
+  }
+
+  @SuppressWarnings("unused")
+  public static void termination(String klass, String method, Object receiver, boolean exception) {
+    if (runtime.writer != null) {
+      runtime.threads.get().pop();
+    }
+  }
+
+  public static void pop() {
+    if (runtime.writer != null) {
+      ThreadState state = runtime.threads.get();
+      state.pendingClass = state.pendingMethod = null;
+    }
+  }
+
+  @SuppressWarnings("unused")
+  public static void addToCallStack(String klass, String method, Object receiver) {
+    if (runtime.writer != null) {
+      ThreadState state = runtime.threads.get();
+      state.pendingClass = klass;
+      state.pendingMethod = method;
+    }
+  }
+}
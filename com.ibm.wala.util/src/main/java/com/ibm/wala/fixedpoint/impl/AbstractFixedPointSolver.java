@@ -84,7 +84,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
   /** During verbose evaluation, holds the number of dataflow equations evaluated */
   private int nEvaluated = 0;
 
-  /** During verbose evaluation, holds the number of dataflow equations created */
+  /** The number of dataflow equations created */
   private int nCreated = 0;
 
   /** worklist for the iterative solver */
@@ -103,6 +103,11 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
     firstSolve = false;
   }
 
+  /** @return true iff {@link #solve(IProgressMonitor)} has not yet initialized the system */
+  protected boolean isFirstSolve() {
+    return firstSolve;
+  }
+
   /** @return true iff work list is empty */
   public boolean emptyWorkList() {
     return workList.isEmpty();
@@ -116,7 +121,6 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
    * @return true iff the evaluation of some equation caused a change in the value of some variable.
    */
   @Override
-  @SuppressWarnings("unchecked")
   public boolean solve(IProgressMonitor monitor) throws CancelException {
 
     boolean globalChange = false;
@@ -125,38 +129,74 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
       initForFirstSolve();
     }
 
-    while (!workList.isEmpty()) {
+    while (hasWork()) {
       MonitorUtil.throwExceptionIfCanceled(monitor);
       orderStatements();
+      globalChange |= evaluateNext();
+    }
+    return globalChange;
+  }
 
-      // duplicate insertion detection
-      AbstractStatement s = workList.takeStatement();
+  /** @return true iff there is work left for {@link #solve(IProgressMonitor)} */
+  protected boolean hasWork() {
+    return !workList.isEmpty();
+  }
 
-      if (DEBUG) {
-        System.err.println(("Before evaluation " + s));
-      }
-      byte code = s.evaluate();
-      nEvaluated++;
-      if (verbose) {
-        if (nEvaluated % getVerboseInterval() == 0) {
-          performVerboseAction();
-        }
-        if (nEvaluated % getPeriodicMaintainInterval() == 0) {
-          periodicMaintenance();
-        }
-      }
-      if (DEBUG) {
-        System.err.println(("After evaluation  " + s + ' ' + isChanged(code)));
-      }
-      if (isChanged(code)) {
-        globalChange = true;
-        updateWorkList(s);
+  /**
+   * Do the next piece of work for {@link #solve(IProgressMonitor)}: by default, evaluate the next
+   * statement on the work list. Subclasses may select the statements to evaluate differently, say
+   * several at a time, as long as they finish each evaluation with {@link
+   * #evaluated(AbstractStatement, byte)} or {@link #countEvaluation()}.
+   *
+   * @return true iff the evaluation of some equation caused a change in the value of some variable.
+   */
+  @SuppressWarnings("unchecked")
+  protected boolean evaluateNext() {
+    // duplicate insertion detection
+    AbstractStatement<T, ?> s = workList.takeStatement();
+
+    if (DEBUG) {
+      System.err.println(("Before evaluation " + s));
+    }
+    byte code = evaluateStatement(s);
+    if (DEBUG) {
+      System.err.println(("After evaluation  " + s + ' ' + isChanged(code)));
+    }
+    return evaluated(s, code);
+  }
+
+  /**
+   * Finish an evaluation of s by the solver: count it, put the statements that use its left-hand
+   * side on the work list if it changed, and remove it if it is fixed.
+   *
+   * @param code the code returned by the evaluation
+   * @return true iff the evaluation changed the left-hand side of s
+   */
+  protected boolean evaluated(AbstractStatement<T, ?> s, byte code) {
+    countEvaluation();
+    if (isChanged(code)) {
+      updateWorkList(s);
+    }
+    if (isFixed(code)) {
+      removeStatement(s);
+    }
+    return isChanged(code);
+  }
+
+  /**
+   * Count an evaluation by the solver, and if verbose, perform the verbose action and the periodic
+   * maintenance when they are due.
+   */
+  protected void countEvaluation() {
+    nEvaluated++;
+    if (verbose) {
+      if (nEvaluated % getVerboseInterval() == 0) {
+        performVerboseAction();
       }
-      if (isFixed(code)) {
-        removeStatement(s);
+      if (nEvaluated % getPeriodicMaintainInterval() == 0) {
+        periodicMaintenance();
       }
     }
-    return globalChange;
   }
 
   @Override
@@ -243,6 +283,13 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
     }
   }
 
+  /**
+   * Called by each newStatement method with the statement it was asked to add, whether or not the
+   * system already contains an equal one, before the statement is evaluated. Does nothing by
+   * default.
+   */
+  protected void statementRequested(@SuppressWarnings("unused") AbstractStatement<T, ?> s) {}
+
   /**
    * Add a step with zero operands on the right-hand side.
    *
@@ -264,6 +311,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
     // add to the list of graph
     lhs.setOrderNumber(nextOrderNumber++);
     final NullaryStatement<T> s = new BasicNullaryStatement<>(lhs, operator);
+    statementRequested(s);
     if (getFixedPointSystem().containsStatement(s)) {
       return false;
     }
@@ -277,7 +325,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
   @SuppressWarnings("unchecked")
   private void incorporateNewStatement(boolean toWorkList, boolean eager, AbstractStatement s) {
     if (eager) {
-      byte code = s.evaluate();
+      byte code = evaluateStatement(s);
       if (verbose) {
         nEvaluated++;
         if (nEvaluated % getVerboseInterval() == 0) {
@@ -314,6 +362,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
     }
     // add to the list of graph
     UnaryStatement<T> s = operator.makeEquation(lhs, rhs);
+    statementRequested(s);
     if (getFixedPointSystem().containsStatement(s)) {
       return false;
     }
@@ -364,6 +413,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
     // add to the list of graph
 
     GeneralStatement<T> s = new Statement(lhs, operator, op1, op2);
+    statementRequested(s);
     if (getFixedPointSystem().containsStatement(s)) {
       return false;
     }
@@ -395,6 +445,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
     // add to the list of graph
     lhs.setOrderNumber(nextOrderNumber++);
     GeneralStatement<T> s = new Statement(lhs, operator, op1, op2, op3);
+    statementRequested(s);
     if (getFixedPointSystem().containsStatement(s)) {
       nextOrderNumber--;
       return false;
@@ -419,6 +470,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
     // add to the list of graph
     if (lhs != null) lhs.setOrderNumber(nextOrderNumber++);
     GeneralStatement<T> s = new Statement(lhs, operator, rhs);
+    statementRequested(s);
     if (getFixedPointSystem().containsStatement(s)) {
       nextOrderNumber--;
       return false;
@@ -539,6 +591,16 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
     topologicalGrowthFactor = d;
   }
 
+  /**
+   * Evaluate a statement on behalf of the solver. Subclasses may override this to account for the
+   * work done by evaluations.
+   *
+   * @return the code returned by {@link AbstractStatement#evaluate()}
+   */
+  protected byte evaluateStatement(AbstractStatement<T, ?> s) {
+    return s.evaluate();
+  }
+
   public int getNumberOfEvaluations() {
     return nEvaluated;
   }
@@ -547,6 +609,11 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
     nEvaluated++;
   }
 
+  /** @return the number of statements added to the system so far */
+  public int getNumberOfStatementsCreated() {
+    return nCreated;
+  }
+
   /** a method that will be called every N evaluations. subclasses should override as desired. */
   protected void periodicMaintenance() {}
 
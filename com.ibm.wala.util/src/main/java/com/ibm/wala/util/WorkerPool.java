@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed number of daemon worker threads for one parallel phase of an analysis, meant to be used
+ * in a try-with-resources statement, so that its threads end with the phase:
+ *
+ * <pre>
+ * try (WorkerPool pool = new WorkerPool("SDG worker", n)) {
+ *   List&lt;Future&lt;?&gt;&gt; futures = ...pool.submit(...)...;
+ *   WorkerPool.awaitAll(futures);
+ * }
+ * </pre>
+ *
+ * The {@code await} methods wait for results, rethrowing the exceptions of the tasks as they were
+ * thrown and turning an interrupt into a {@link CancelRuntimeException}.
+ */
+public class WorkerPool implements AutoCloseable {
+
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * @param name the name of the worker threads
+   * @param numberOfThreads the number of worker threads
+   * @throws IllegalArgumentException if numberOfThreads &lt; 1
+   */
+  public WorkerPool(String name, int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    executor =
+        new ThreadPoolExecutor(
+            numberOfThreads,
+            numberOfThreads,
+            1,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            daemonThreads(name));
+    // let idle workers die, so that a pool that is not closed does not pin threads
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /** @return a factory of daemon threads called name-1, name-2, ... */
+  public static ThreadFactory daemonThreads(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return r -> {
+      Thread t = new Thread(r, name + '-' + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  public int getNumberOfThreads() {
+    return executor.getMaximumPoolSize();
+  }
+
+  /** @return the executor of this pool, for APIs that take an {@link ExecutorService} */
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  public <T> Future<T> submit(Callable<T> task) {
+    return executor.submit(task);
+  }
+
+  public Future<?> submit(Runnable task) {
+    return executor.submit(task);
+  }
+
+  /** Stop the workers, interrupting any tasks still running. */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * wait for the result of a task
+   *
+   * @throws CancelRuntimeException if interrupted while waiting
+   */
+  public static <T> T await(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancelRuntimeException(e);
+    } catch (ExecutionException e) {
+      throw rethrow(e.getCause());
+    }
+  }
+
+  /**
+   * wait for the result of a task that may throw a checked exception of the given type, which is
+   * rethrown as it is
+   *
+   * @throws CancelRuntimeException if interrupted while waiting
+   */
+  public static <T, E extends Exception> T await(Future<T> future, Class<E> checked) throws E {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancelRuntimeException(e);
+    } catch (ExecutionException e) {
+      throwIfInstance(e.getCause(), checked);
+      throw rethrow(e.getCause());
+    }
+  }
+
+  /**
+   * wait for the result of a task that may throw checked exceptions of the given types, which are
+   * rethrown as they are
+   *
+   * @throws CancelRuntimeException if interrupted while waiting
+   */
+  public static <T, E1 extends Exception, E2 extends Exception, E3 extends Exception> T await(
+      Future<T> future, Class<E1> checked1, Class<E2> checked2, Class<E3> checked3)
+      throws E1, E2, E3 {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancelRuntimeException(e);
+    } catch (ExecutionException e) {
+      throwIfInstance(e.getCause(), checked1);
+      throwIfInstance(e.getCause(), checked2);
+      throwIfInstance(e.getCause(), checked3);
+      throw rethrow(e.getCause());
+    }
+  }
+
+  /** wait for all the given tasks, as with {@link #await(Future)} */
+  public static void awaitAll(Iterable<? extends Future<?>> futures) {
+    for (Future<?> f : futures) {
+      await(f);
+    }
+  }
+
+  private static <E extends Exception> void throwIfInstance(Throwable cause, Class<E> type)
+      throws E {
+    if (type.isInstance(cause)) {
+      throw type.cast(cause);
+    }
+  }
+
+  /** @return never; throws cause if unchecked, and otherwise wraps it */
+  private static RuntimeException rethrow(Throwable cause) {
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    } else {
+      throw new RuntimeException(cause);
+    }
+  }
+}
@@ -15,16 +15,29 @@ import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.NonNullSingletonIterator;
 import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.NumberedGraph;
 import com.ibm.wala.util.graph.traverse.DFS;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
-/** An object that computes the dominance frontiers of a graph */
+/**
+ * An object that computes the dominance frontiers of a graph.
+ *
+ * <p>For a {@link NumberedGraph}, the frontiers are computed from {@link SemiNCADominators} by
+ * walking up the dominator tree from the predecessors of each node, as in Cooper, Harvey and
+ * Kennedy, "A Simple, Fast Dominance Algorithm"; they are kept in arrays indexed by node number.
+ */
 public class DominanceFrontiers<T> {
 
   private final Map<T, Set<T>> DF = HashMapFactory.make();
 
+  /** for a numbered graph, the frontier of each node in compressed sparse rows */
+  private int[] frontierOffsets;
+
+  private int[] frontiers;
+
   private final Dominators<T> dom;
 
   private final Graph<T> G;
@@ -36,13 +49,34 @@ public class DominanceFrontiers<T> {
    * @param root The root from which to compute dominators
    */
   public DominanceFrontiers(Graph<T> G, T root) {
+    this(G, root, Dominators.make(G, root));
+  }
+
+  /**
+   * @param G The graph
+   * @param root The root from which to compute dominators
+   * @param dom The dominators of G from root
+   */
+  public DominanceFrontiers(Graph<T> G, T root, Dominators<T> dom) {
     this.root = root;
     this.G = G;
-    this.dom = Dominators.make(G, root);
-    analyze();
+    this.dom = dom;
+    if (dom instanceof SemiNCADominators) {
+      analyze((SemiNCADominators<T>) dom);
+    } else {
+      analyze();
+    }
   }
 
   public Iterator<T> getDominanceFrontier(T n) {
+    if (frontiers != null) {
+      int x = ((NumberedGraph<T>) G).getNumber(n);
+      if (x < 0 || !((SemiNCADominators<T>) dom).isReachable(x)) {
+        throw new IllegalArgumentException("no dominance frontier for node " + n);
+      }
+      return ((SemiNCADominators<T>) dom)
+          .nodes(frontiers, frontierOffsets[x], frontierOffsets[x + 1]);
+    }
     Set<T> frontier = DF.get(n);
     if (frontier == null) {
       throw new IllegalArgumentException("no dominance frontier for node " + n);
@@ -62,6 +96,56 @@ public class DominanceFrontiers<T> {
     return dom.dominatorTree();
   }
 
+  /**
+   * Each node y is in the frontier of the nodes on the dominator tree path from each predecessor of
+   * y up to, but excluding, the immediate dominator of y.
+   */
+  private void analyze(SemiNCADominators<T> dom) {
+    int n = dom.idom.length;
+    int[] idom = dom.idom;
+    int[] preds = dom.preds;
+    int[] predOffsets = dom.predOffsets;
+    // the last node added to the frontier of each node, to skip duplicates
+    int[] last = new int[n];
+
+    // count the frontier of each node, then fill the rows
+    frontierOffsets = new int[n + 1];
+    Arrays.fill(last, -1);
+    for (int y : dom.preorder) {
+      for (int i = predOffsets[y]; i < predOffsets[y + 1]; i++) {
+        int p = preds[i];
+        if (!dom.isReachable(p)) {
+          continue;
+        }
+        for (int x = p; x != idom[y] && last[x] != y; x = idom[x]) {
+          last[x] = y;
+          frontierOffsets[x + 1]++;
+        }
+      }
+    }
+    for (int x = 0; x < n; x++) {
+      frontierOffsets[x + 1] += frontierOffsets[x];
+    }
+    frontiers = new int[frontierOffsets[n]];
+    int[] next = Arrays.copyOf(frontierOffsets, n);
+    Arrays.fill(last, -1);
+    for (int y : dom.preorder) {
+      for (int i = predOffsets[y]; i < predOffsets[y + 1]; i++) {
+        int p = preds[i];
+        if (!dom.isReachable(p)) {
+          continue;
+        }
+        for (int x = p; x != idom[y] && last[x] != y; x = idom[x]) {
+          last[x] = y;
+          frontiers[next[x]++] = y;
+        }
+      }
+    }
+    for (int x = 0; x < n; x++) {
+      Arrays.sort(frontiers, frontierOffsets[x], frontierOffsets[x + 1]);
+    }
+  }
+
   private void analyze() {
     Graph<T> DT = dom.dominatorTree();
 
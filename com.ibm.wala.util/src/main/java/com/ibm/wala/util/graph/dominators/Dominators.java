@@ -39,7 +39,7 @@ public abstract class Dominators<T> {
   static final boolean DEBUG = false;
 
   /** a mapping from DFS number to node */
-  private final T[] vertex;
+  private T[] vertex;
 
   /** a convenient place to locate the graph to avoid passing it internally */
   protected final Graph<T> G;
@@ -55,7 +55,6 @@ public abstract class Dominators<T> {
    * @param root The root from which to compute dominators
    * @throws IllegalArgumentException if G is null
    */
-  @SuppressWarnings("unchecked")
   public Dominators(Graph<T> G, T root) throws IllegalArgumentException {
     if (G == null) {
       throw new IllegalArgumentException("G is null");
@@ -65,12 +64,11 @@ public abstract class Dominators<T> {
     if (G.getNumberOfNodes() == 0) {
       throw new IllegalArgumentException("G has no nodes");
     }
-    this.vertex = (T[]) new Object[G.getNumberOfNodes() + 1];
   }
 
   public static <T> Dominators<T> make(Graph<T> G, T root) {
     if (G instanceof NumberedGraph) {
-      return new NumberedDominators<>((NumberedGraph<T>) G, root);
+      return new SemiNCADominators<>((NumberedGraph<T>) G, root);
     } else {
       return new GenericDominators<>(G, root);
     }
@@ -209,9 +207,12 @@ public abstract class Dominators<T> {
   //
 
   /** analyze dominators */
+  @SuppressWarnings("unchecked")
   protected void analyze() {
     if (DEBUG) System.out.println("Dominators for " + G);
 
+    vertex = (T[]) new Object[G.getNumberOfNodes() + 1];
+
     // Step 1: Perform a DFS numbering
     step1();
 
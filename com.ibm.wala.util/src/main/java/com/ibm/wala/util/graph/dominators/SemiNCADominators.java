@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.graph.dominators;
+
+import com.ibm.wala.util.collections.EmptyIterator;
+import com.ibm.wala.util.collections.NonNullSingletonIterator;
+import com.ibm.wala.util.graph.AbstractGraph;
+import com.ibm.wala.util.graph.EdgeManager;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.NodeManager;
+import com.ibm.wala.util.graph.NumberedGraph;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Calculate dominators of a {@link NumberedGraph} with the Semi-NCA algorithm of Georgiadis and
+ * Tarjan, which computes semidominators as in Lengauer and Tarjan's algorithm, then finds each
+ * immediate dominator as the nearest common ancestor of the node's parent and semidominator in the
+ * partially built dominator tree.
+ *
+ * <p>The graph is copied once into arrays indexed by node number, and all further work is on {@code
+ * int} arrays, with no objects allocated per node. Path compression is iterative, so deep graphs do
+ * not overflow the stack. Queries walk the idom array, and {@link #isDominatedBy} takes constant
+ * time, using the preorder intervals of the dominator tree.
+ *
+ * <p>Sources: Georgiadis, "Linear-Time Algorithms for Dominators and Related Problems", PhD thesis,
+ * Princeton, 2005; TOPLAS 1(1), July 1979
+ */
+public class SemiNCADominators<T> extends Dominators<T> {
+
+  /** number of the root */
+  private final int rootNumber;
+
+  /** immediate dominator by node number; -1 for the root and for unreachable nodes */
+  final int[] idom;
+
+  /** node numbers in DFS preorder from the root; only reachable nodes */
+  final int[] preorder;
+
+  /** predecessors of each node, by node number */
+  final int[] predOffsets;
+
+  final int[] preds;
+
+  /** preorder number of each node in the dominator tree, or -1 if unreachable */
+  private final int[] treeIn;
+
+  /** largest preorder number in the dominator subtree of each node */
+  private final int[] treeOut;
+
+  /** children of each node in the dominator tree */
+  private final int[] childOffsets;
+
+  private final int[] children;
+
+  public SemiNCADominators(NumberedGraph<T> G, T root) throws IllegalArgumentException {
+    super(G, root);
+    rootNumber = G.getNumber(root);
+    if (rootNumber < 0) {
+      throw new IllegalArgumentException("root is not in G: " + root);
+    }
+    int n = G.getMaxNumber() + 1;
+
+    // copy the successors, then invert them for the predecessors
+    int[] succOffsets = new int[n + 1];
+    int[] succs = new int[16];
+    int edges = 0;
+    int[] rowOf = new int[n];
+    Arrays.fill(rowOf, -1);
+    int[] succCounts = new int[n];
+    predOffsets = new int[n + 1];
+    for (T node : G) {
+      int x = G.getNumber(node);
+      rowOf[x] = edges;
+      // not getSuccNodeNumbers, which some graphs, like inverted CFGs, do not implement
+      for (Iterator<T> it = G.getSuccNodes(node); it.hasNext(); ) {
+        int y = G.getNumber(it.next());
+        if (edges == succs.length) {
+          succs = Arrays.copyOf(succs, 2 * edges);
+        }
+        succs[edges++] = y;
+        succCounts[x]++;
+        predOffsets[y + 1]++;
+      }
+    }
+    for (int x = 0; x < n; x++) {
+      succOffsets[x + 1] = succOffsets[x] + succCounts[x];
+    }
+    // rows were appended in iteration order; lay them out by node number
+    int[] ordered = new int[edges];
+    for (int x = 0; x < n; x++) {
+      if (rowOf[x] >= 0) {
+        System.arraycopy(succs, rowOf[x], ordered, succOffsets[x], succCounts[x]);
+      }
+    }
+    succs = ordered;
+    for (int x = 0; x < n; x++) {
+      predOffsets[x + 1] += predOffsets[x];
+    }
+    preds = new int[edges];
+    int[] next = Arrays.copyOf(predOffsets, n);
+    for (int x = 0; x < n; x++) {
+      for (int i = succOffsets[x]; i < succOffsets[x + 1]; i++) {
+        preds[next[succs[i]]++] = x;
+      }
+    }
+
+    // Step 1: DFS preorder numbering from the root, 1-based
+    int[] pre = new int[n];
+    int[] order = new int[n + 1];
+    int[] parent = new int[n + 1];
+    int count = 0;
+    int[] stack = new int[n];
+    int[] cursor = new int[n];
+    int top = 0;
+    pre[rootNumber] = ++count;
+    order[count] = rootNumber;
+    stack[top] = rootNumber;
+    cursor[top++] = succOffsets[rootNumber];
+    while (top > 0) {
+      int x = stack[top - 1];
+      if (cursor[top - 1] == succOffsets[x + 1]) {
+        top--;
+        continue;
+      }
+      int y = succs[cursor[top - 1]++];
+      if (pre[y] == 0) {
+        pre[y] = ++count;
+        order[count] = y;
+        parent[count] = pre[x];
+        stack[top] = y;
+        cursor[top++] = succOffsets[y];
+      }
+    }
+    reachableNodeCount = count;
+
+    // Step 2: semidominators, in reverse preorder, with a path-compressed forest
+    int[] semi = new int[count + 1];
+    int[] label = new int[count + 1];
+    int[] ancestor = new int[count + 1];
+    for (int v = 1; v <= count; v++) {
+      semi[v] = v;
+      label[v] = v;
+    }
+    for (int w = count; w > 1; w--) {
+      int x = order[w];
+      for (int i = predOffsets[x]; i < predOffsets[x + 1]; i++) {
+        int v = pre[preds[i]];
+        if (v == 0) {
+          // unreachable from the root
+          continue;
+        }
+        int u = eval(v, ancestor, label, semi, stack);
+        if (semi[u] < semi[w]) {
+          semi[w] = semi[u];
+        }
+      }
+      ancestor[w] = parent[w];
+    }
+
+    // Step 3: each idom is the nearest ancestor of the parent whose preorder is at most semi
+    int[] dom = ancestor;
+    dom[1] = 0;
+    for (int w = 2; w <= count; w++) {
+      int d = parent[w];
+      while (d > semi[w]) {
+        d = dom[d];
+      }
+      dom[w] = d;
+    }
+
+    idom = new int[n];
+    Arrays.fill(idom, -1);
+    preorder = Arrays.copyOfRange(order, 1, count + 1);
+    for (int w = 2; w <= count; w++) {
+      idom[order[w]] = order[dom[w]];
+    }
+
+    // the dominator tree, and its preorder intervals
+    childOffsets = new int[n + 1];
+    for (int w = 2; w <= count; w++) {
+      childOffsets[idom[order[w]] + 1]++;
+    }
+    for (int x = 0; x < n; x++) {
+      childOffsets[x + 1] += childOffsets[x];
+    }
+    children = new int[Math.max(count - 1, 0)];
+    System.arraycopy(childOffsets, 0, next, 0, n);
+    for (int w = 2; w <= count; w++) {
+      int x = order[w];
+      children[next[idom[x]]++] = x;
+    }
+    treeIn = new int[n];
+    treeOut = new int[n];
+    Arrays.fill(treeIn, -1);
+    int time = 0;
+    top = 0;
+    treeIn[rootNumber] = time++;
+    stack[top] = rootNumber;
+    cursor[top++] = childOffsets[rootNumber];
+    while (top > 0) {
+      int x = stack[top - 1];
+      if (cursor[top - 1] == childOffsets[x + 1]) {
+        treeOut[x] = time - 1;
+        top--;
+        continue;
+      }
+      int y = children[cursor[top - 1]++];
+      treeIn[y] = time++;
+      stack[top] = y;
+      cursor[top++] = childOffsets[y];
+    }
+  }
+
+  /**
+   * @return the vertex with minimum semidominator on the forest path from v to the root of its
+   *     tree, excluding that root
+   */
+  private static int eval(int v, int[] ancestor, int[] label, int[] semi, int[] stack) {
+    if (ancestor[v] == 0) {
+      return v;
+    }
+    // compress the path from v, starting nearest the root
+    int top = 0;
+    for (int x = v; ancestor[ancestor[x]] != 0; x = ancestor[x]) {
+      stack[top++] = x;
+    }
+    while (top > 0) {
+      int x = stack[--top];
+      int a = ancestor[x];
+      if (semi[label[a]] < semi[label[x]]) {
+        label[x] = label[a];
+      }
+      ancestor[x] = ancestor[a];
+    }
+    return label[v];
+  }
+
+  private NumberedGraph<T> graph() {
+    return (NumberedGraph<T>) G;
+  }
+
+  /** @return the number of the immediate dominator of the node numbered n, or -1 if none */
+  public int getIdomNumber(int n) {
+    return idom[n];
+  }
+
+  /** @return true if the node numbered n is reachable from the root */
+  public boolean isReachable(int n) {
+    return treeIn[n] >= 0;
+  }
+
+  @Override
+  public T getIdom(T node) {
+    int d = idom[graph().getNumber(node)];
+    return d < 0 ? null : graph().getNode(d);
+  }
+
+  @Override
+  public boolean isDominatedBy(T node, T master) {
+    int x = graph().getNumber(node);
+    if (treeIn[x] < 0) {
+      // an unreachable node is dominated only by itself
+      return node.equals(master);
+    }
+    int m = graph().getNumber(master);
+    return m >= 0 && treeIn[m] >= 0 && treeIn[m] <= treeIn[x] && treeIn[x] <= treeOut[m];
+  }
+
+  /** return the dominator tree, which has an edge from n to n' if n dominates n' */
+  @Override
+  public Graph<T> dominatorTree() {
+    return new AbstractGraph<T>() {
+      @Override
+      protected NodeManager<T> getNodeManager() {
+        return G;
+      }
+
+      @Override
+      protected EdgeManager<T> getEdgeManager() {
+        return edges;
+      }
+
+      private final EdgeManager<T> edges =
+          new EdgeManager<T>() {
+            @Override
+            public Iterator<T> getPredNodes(T N) {
+              T d = getIdom(N);
+              return d == null ? EmptyIterator.instance() : new NonNullSingletonIterator<>(d);
+            }
+
+            @Override
+            public int getPredNodeCount(T N) {
+              return getIdom(N) == null ? 0 : 1;
+            }
+
+            @Override
+            public Iterator<T> getSuccNodes(T N) {
+              int x = graph().getNumber(N);
+              return nodes(children, childOffsets[x], childOffsets[x + 1]);
+            }
+
+            @Override
+            public int getSuccNodeCount(T N) {
+              int x = graph().getNumber(N);
+              return childOffsets[x + 1] - childOffsets[x];
+            }
+
+            @Override
+            public void addEdge(T src, T dst) {
+              throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void removeEdge(T src, T dst) {
+              throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void removeAllIncidentEdges(T node) {
+              throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void removeIncomingEdges(T node) {
+              throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void removeOutgoingEdges(T node) {
+              throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean hasEdge(T src, T dst) {
+              return src.equals(getIdom(dst));
+            }
+          };
+    };
+  }
+
+  /** @return the nodes numbered numbers[from], ..., numbers[to - 1] */
+  Iterator<T> nodes(int[] numbers, int from, int to) {
+    return new Iterator<T>() {
+      private int i = from;
+
+      @Override
+      public boolean hasNext() {
+        return i < to;
+      }
+
+      @Override
+      public T next() {
+        if (i >= to) {
+          throw new NoSuchElementException();
+        }
+        return graph().getNode(numbers[i++]);
+      }
+    };
+  }
+
+  /** the per-node state of Lengauer and Tarjan's algorithm is not used */
+  @Override
+  protected DominatorInfo getInfo(T node) {
+    throw new UnsupportedOperationException();
+  }
+}
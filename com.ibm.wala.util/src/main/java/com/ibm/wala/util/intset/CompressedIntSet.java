@@ -0,0 +1,761 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.intset;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of non-negative integers, compressed in the style of Roaring bitmaps.
+ *
+ * <p>The elements are partitioned by their high 16 bits. The low 16 bits of the elements of each
+ * partition live in a container, which is a sorted array while the partition holds at most {@link
+ * #ARRAY_MAX} elements, and a bitmap of 2^16 bits otherwise. A large sparse set thus costs about
+ * two bytes per element, and a large dense set about one bit per element, independently of the
+ * magnitude of its elements.
+ */
+public final class CompressedIntSet implements MutableIntSet {
+
+  private static final long serialVersionUID = -1904620377432553467L;
+
+  /** the largest number of elements held in an array container */
+  static final int ARRAY_MAX = 4096;
+
+  /** number of words in a bitmap container */
+  private static final int BITMAP_WORDS = 1 << 10;
+
+  private static final char[] NO_KEYS = new char[0];
+
+  private static final Container[] NO_CONTAINERS = new Container[0];
+
+  /** the high 16 bits of the elements of each container, sorted */
+  private char[] keys = NO_KEYS;
+
+  /** containers[i] holds the low 16 bits of the elements whose high 16 bits are keys[i] */
+  private Container[] containers = NO_CONTAINERS;
+
+  /** number of containers in use */
+  private int count;
+
+  /** number of elements */
+  private int size;
+
+  public CompressedIntSet() {}
+
+  /** @throws IllegalArgumentException if set is null */
+  public CompressedIntSet(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    copySet(set);
+  }
+
+  private static char high(int i) {
+    return (char) (i >>> 16);
+  }
+
+  private static char low(int i) {
+    return (char) i;
+  }
+
+  /** @return the index of the container for key, or (-(insertion point) - 1) if none */
+  private int find(char key) {
+    return Arrays.binarySearch(keys, 0, count, key);
+  }
+
+  private Container getContainer(char key) {
+    int idx = find(key);
+    return idx < 0 ? null : containers[idx];
+  }
+
+  private void insertContainer(int pos, char key, Container c) {
+    if (count == keys.length) {
+      int newLength = Math.max(1, 2 * count);
+      keys = Arrays.copyOf(keys, newLength);
+      containers = Arrays.copyOf(containers, newLength);
+    }
+    System.arraycopy(keys, pos, keys, pos + 1, count - pos);
+    System.arraycopy(containers, pos, containers, pos + 1, count - pos);
+    keys[pos] = key;
+    containers[pos] = c;
+    count++;
+  }
+
+  private void removeContainer(int pos) {
+    System.arraycopy(keys, pos + 1, keys, pos, count - pos - 1);
+    System.arraycopy(containers, pos + 1, containers, pos, count - pos - 1);
+    count--;
+    containers[count] = null;
+  }
+
+  @Override
+  public boolean contains(int i) {
+    Container c = getContainer(high(i));
+    return c != null && c.contains(low(i));
+  }
+
+  @Override
+  public boolean add(int i) {
+    char key = high(i);
+    int idx = find(key);
+    if (idx < 0) {
+      Container c = new Container();
+      c.add(low(i));
+      insertContainer(-idx - 1, key, c);
+      size++;
+      return true;
+    }
+    if (containers[idx].add(low(i))) {
+      size++;
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean remove(int i) {
+    int idx = find(high(i));
+    if (idx < 0 || !containers[idx].remove(low(i))) {
+      return false;
+    }
+    if (containers[idx].cardinality == 0) {
+      removeContainer(idx);
+    }
+    size--;
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    keys = NO_KEYS;
+    containers = NO_CONTAINERS;
+    count = 0;
+    size = 0;
+  }
+
+  @Override
+  public void copySet(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    set = CopyOnWriteIntSet.unwrap(set);
+    if (set == this) {
+      return;
+    }
+    if (set instanceof CompressedIntSet) {
+      CompressedIntSet that = (CompressedIntSet) set;
+      keys = Arrays.copyOf(that.keys, that.count);
+      containers = new Container[that.count];
+      for (int i = 0; i < that.count; i++) {
+        containers[i] = that.containers[i].copy();
+      }
+      count = that.count;
+      size = that.size;
+    } else {
+      clear();
+      addAll(set);
+    }
+  }
+
+  @Override
+  public boolean addAll(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    set = CopyOnWriteIntSet.unwrap(set);
+    if (set instanceof CompressedIntSet) {
+      CompressedIntSet that = (CompressedIntSet) set;
+      if (that == this) {
+        return false;
+      }
+      int oldSize = size;
+      for (int i = 0; i < that.count; i++) {
+        int idx = find(that.keys[i]);
+        if (idx < 0) {
+          insertContainer(-idx - 1, that.keys[i], that.containers[i].copy());
+          size += that.containers[i].cardinality;
+        } else {
+          Container c = containers[idx];
+          int before = c.cardinality;
+          containers[idx] = c.union(that.containers[i]);
+          size += containers[idx].cardinality - before;
+        }
+      }
+      return size != oldSize;
+    }
+    boolean result = false;
+    for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+      result |= add(it.next());
+    }
+    return result;
+  }
+
+  @Override
+  public void intersectWith(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    set = CopyOnWriteIntSet.unwrap(set);
+    if (set instanceof CompressedIntSet) {
+      CompressedIntSet that = (CompressedIntSet) set;
+      int j = 0;
+      size = 0;
+      for (int i = 0; i < count; i++) {
+        Container other = that.getContainer(keys[i]);
+        Container c = other == null ? null : containers[i].intersection(other);
+        if (c != null) {
+          keys[j] = keys[i];
+          containers[j] = c;
+          size += c.cardinality;
+          j++;
+        }
+      }
+      Arrays.fill(containers, j, count, null);
+      count = j;
+    } else {
+      MutableSparseIntSet toRemove = MutableSparseIntSet.makeEmpty();
+      foreachExcluding(set, toRemove::add);
+      for (IntIterator it = toRemove.intIterator(); it.hasNext(); ) {
+        remove(it.next());
+      }
+    }
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter) {
+    if (other == null) {
+      throw new IllegalArgumentException("other is null");
+    }
+    if (filter == null) {
+      throw new IllegalArgumentException("filter is null");
+    }
+    other = CopyOnWriteIntSet.unwrap(other);
+    filter = CopyOnWriteIntSet.unwrap(filter);
+    if (other instanceof CompressedIntSet && filter instanceof CompressedIntSet) {
+      CompressedIntSet o = (CompressedIntSet) other;
+      CompressedIntSet f = (CompressedIntSet) filter;
+      int oldSize = size;
+      for (int i = 0; i < o.count; i++) {
+        Container fc = f.getContainer(o.keys[i]);
+        Container c = fc == null ? null : o.containers[i].intersection(fc);
+        if (c != null) {
+          int idx = find(o.keys[i]);
+          if (idx < 0) {
+            insertContainer(-idx - 1, o.keys[i], c);
+            size += c.cardinality;
+          } else {
+            int before = containers[idx].cardinality;
+            containers[idx] = containers[idx].union(c);
+            size += containers[idx].cardinality - before;
+          }
+        }
+      }
+      return size != oldSize;
+    }
+    boolean result = false;
+    for (IntIterator it = other.intIterator(); it.hasNext(); ) {
+      int i = it.next();
+      if (filter.contains(i)) {
+        result |= add(i);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean containsAny(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    set = CopyOnWriteIntSet.unwrap(set);
+    if (set instanceof CompressedIntSet) {
+      CompressedIntSet that = (CompressedIntSet) set;
+      for (int i = 0; i < count; i++) {
+        Container other = that.getContainer(keys[i]);
+        if (other != null && containers[i].intersects(other)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+      if (contains(it.next())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public IntSet intersection(IntSet that) {
+    CompressedIntSet result = new CompressedIntSet(this);
+    result.intersectWith(that);
+    return result;
+  }
+
+  @Override
+  public IntSet union(IntSet that) {
+    CompressedIntSet result = new CompressedIntSet(this);
+    result.addAll(that);
+    return result;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public IntIterator intIterator() {
+    return new IntIterator() {
+      private int index;
+
+      private final Container.Cursor cursor = new Container.Cursor();
+
+      {
+        if (count > 0) {
+          cursor.reset(containers[0]);
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+        return index < count;
+      }
+
+      @Override
+      public int next() {
+        if (index >= count) {
+          throw new NoSuchElementException();
+        }
+        int result = (keys[index] << 16) | cursor.next();
+        if (!cursor.hasNext() && ++index < count) {
+          cursor.reset(containers[index]);
+        }
+        return result;
+      }
+    };
+  }
+
+  @Override
+  public void foreach(IntSetAction action) {
+    if (action == null) {
+      throw new IllegalArgumentException("null action");
+    }
+    for (int i = 0; i < count; i++) {
+      containers[i].foreach(keys[i] << 16, action);
+    }
+  }
+
+  @Override
+  public void foreachExcluding(IntSet X, IntSetAction action) {
+    if (action == null) {
+      throw new IllegalArgumentException("null action");
+    }
+    foreach(
+        i -> {
+          if (!X.contains(i)) {
+            action.act(i);
+          }
+        });
+  }
+
+  @Override
+  public int max() {
+    return count == 0 ? -1 : (keys[count - 1] << 16) | containers[count - 1].max();
+  }
+
+  @Override
+  public boolean sameValue(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that is null");
+    }
+    that = CopyOnWriteIntSet.unwrap(that);
+    if (that instanceof CompressedIntSet) {
+      CompressedIntSet other = (CompressedIntSet) that;
+      if (size != other.size || count != other.count) {
+        return false;
+      }
+      for (int i = 0; i < count; i++) {
+        if (keys[i] != other.keys[i] || !containers[i].sameValue(other.containers[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return size == that.size() && isSubset(that);
+  }
+
+  @Override
+  public boolean isSubset(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that is null");
+    }
+    that = CopyOnWriteIntSet.unwrap(that);
+    if (that instanceof CompressedIntSet) {
+      CompressedIntSet other = (CompressedIntSet) that;
+      if (size > other.size) {
+        return false;
+      }
+      for (int i = 0; i < count; i++) {
+        Container c = other.getContainer(keys[i]);
+        if (c == null || !containers[i].isSubset(c)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (size > that.size()) {
+      return false;
+    }
+    for (IntIterator it = intIterator(); it.hasNext(); ) {
+      if (!that.contains(it.next())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(6 * size);
+    sb.append("{ ");
+    foreach(i -> sb.append(i).append(' '));
+    sb.append('}');
+    return sb.toString();
+  }
+
+  /** The low 16 bits of the elements that share their high 16 bits */
+  private static final class Container implements Serializable {
+
+    private static final long serialVersionUID = 5526463364546395437L;
+
+    /** sorted elements, or null if this container is a bitmap */
+    private char[] array = new char[1];
+
+    /** the elements as a bitmap, or null if this container is an array */
+    private long[] bits;
+
+    private int cardinality;
+
+    Container copy() {
+      Container result = new Container();
+      result.cardinality = cardinality;
+      if (array != null) {
+        result.array = Arrays.copyOf(array, Math.max(1, cardinality));
+      } else {
+        result.array = null;
+        result.bits = bits.clone();
+      }
+      return result;
+    }
+
+    boolean contains(char x) {
+      if (array != null) {
+        return Arrays.binarySearch(array, 0, cardinality, x) >= 0;
+      }
+      return (bits[x >>> 6] & (1L << x)) != 0;
+    }
+
+    boolean add(char x) {
+      if (array != null) {
+        int idx = Arrays.binarySearch(array, 0, cardinality, x);
+        if (idx >= 0) {
+          return false;
+        }
+        if (cardinality == ARRAY_MAX) {
+          toBitmap();
+          return add(x);
+        }
+        idx = -idx - 1;
+        if (cardinality == array.length) {
+          array = Arrays.copyOf(array, Math.min(ARRAY_MAX, 2 * cardinality));
+        }
+        System.arraycopy(array, idx, array, idx + 1, cardinality - idx);
+        array[idx] = x;
+        cardinality++;
+        return true;
+      }
+      long mask = 1L << x;
+      if ((bits[x >>> 6] & mask) != 0) {
+        return false;
+      }
+      bits[x >>> 6] |= mask;
+      cardinality++;
+      return true;
+    }
+
+    boolean remove(char x) {
+      if (array != null) {
+        int idx = Arrays.binarySearch(array, 0, cardinality, x);
+        if (idx < 0) {
+          return false;
+        }
+        System.arraycopy(array, idx + 1, array, idx, cardinality - idx - 1);
+        cardinality--;
+        return true;
+      }
+      long mask = 1L << x;
+      if ((bits[x >>> 6] & mask) == 0) {
+        return false;
+      }
+      bits[x >>> 6] &= ~mask;
+      cardinality--;
+      if (cardinality <= ARRAY_MAX) {
+        toArray();
+      }
+      return true;
+    }
+
+    private void toBitmap() {
+      bits = new long[BITMAP_WORDS];
+      for (int i = 0; i < cardinality; i++) {
+        bits[array[i] >>> 6] |= 1L << array[i];
+      }
+      array = null;
+    }
+
+    private void toArray() {
+      char[] a = new char[Math.max(1, cardinality)];
+      int n = 0;
+      for (int w = 0; w < BITMAP_WORDS; w++) {
+        for (long word = bits[w]; word != 0; word &= word - 1) {
+          a[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+        }
+      }
+      array = a;
+      bits = null;
+    }
+
+    /** @return a container holding the elements of this and other; this, if nothing is added */
+    Container union(Container other) {
+      if (other.isSubset(this)) {
+        return this;
+      }
+      if (array != null && other.array != null && cardinality + other.cardinality <= ARRAY_MAX) {
+        char[] merged = new char[cardinality + other.cardinality];
+        int i = 0, j = 0, n = 0;
+        while (i < cardinality && j < other.cardinality) {
+          char a = array[i], b = other.array[j];
+          if (a < b) {
+            merged[n++] = a;
+            i++;
+          } else if (a > b) {
+            merged[n++] = b;
+            j++;
+          } else {
+            merged[n++] = a;
+            i++;
+            j++;
+          }
+        }
+        while (i < cardinality) {
+          merged[n++] = array[i++];
+        }
+        while (j < other.cardinality) {
+          merged[n++] = other.array[j++];
+        }
+        Container result = new Container();
+        result.array = merged;
+        result.cardinality = n;
+        return result;
+      }
+      Container result = copy();
+      if (result.array != null) {
+        result.toBitmap();
+      }
+      if (other.array != null) {
+        for (int j = 0; j < other.cardinality; j++) {
+          result.add(other.array[j]);
+        }
+      } else {
+        int card = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+          result.bits[w] |= other.bits[w];
+          card += Long.bitCount(result.bits[w]);
+        }
+        result.cardinality = card;
+      }
+      if (result.cardinality <= ARRAY_MAX) {
+        result.toArray();
+      }
+      return result;
+    }
+
+    /** @return a container holding the elements of both this and other, or null if none */
+    Container intersection(Container other) {
+      if (array == null && other.array == null) {
+        long[] b = new long[BITMAP_WORDS];
+        int card = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+          b[w] = bits[w] & other.bits[w];
+          card += Long.bitCount(b[w]);
+        }
+        if (card == 0) {
+          return null;
+        }
+        Container result = new Container();
+        result.array = null;
+        result.bits = b;
+        result.cardinality = card;
+        if (card <= ARRAY_MAX) {
+          result.toArray();
+        }
+        return result;
+      }
+      Container small = array != null ? this : other;
+      Container large = small == this ? other : this;
+      char[] a = new char[small.cardinality];
+      int n = 0;
+      for (int i = 0; i < small.cardinality; i++) {
+        if (large.contains(small.array[i])) {
+          a[n++] = small.array[i];
+        }
+      }
+      if (n == 0) {
+        return null;
+      }
+      Container result = new Container();
+      result.array = n == a.length ? a : Arrays.copyOf(a, n);
+      result.cardinality = n;
+      return result;
+    }
+
+    boolean intersects(Container other) {
+      if (array == null && other.array == null) {
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+          if ((bits[w] & other.bits[w]) != 0) {
+            return true;
+          }
+        }
+        return false;
+      }
+      Container small = array != null ? this : other;
+      Container large = small == this ? other : this;
+      for (int i = 0; i < small.cardinality; i++) {
+        if (large.contains(small.array[i])) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    boolean isSubset(Container other) {
+      if (cardinality > other.cardinality) {
+        return false;
+      }
+      if (array == null) {
+        // other must be a bitmap as well
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+          if ((bits[w] & ~other.bits[w]) != 0) {
+            return false;
+          }
+        }
+        return true;
+      }
+      for (int i = 0; i < cardinality; i++) {
+        if (!other.contains(array[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    boolean sameValue(Container other) {
+      if (cardinality != other.cardinality) {
+        return false;
+      }
+      if (array != null && other.array != null) {
+        for (int i = 0; i < cardinality; i++) {
+          if (array[i] != other.array[i]) {
+            return false;
+          }
+        }
+        return true;
+      }
+      return isSubset(other);
+    }
+
+    void foreach(int base, IntSetAction action) {
+      if (array != null) {
+        for (int i = 0; i < cardinality; i++) {
+          action.act(base | array[i]);
+        }
+      } else {
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+          for (long word = bits[w]; word != 0; word &= word - 1) {
+            action.act(base | ((w << 6) + Long.numberOfTrailingZeros(word)));
+          }
+        }
+      }
+    }
+
+    int max() {
+      if (array != null) {
+        return array[cardinality - 1];
+      }
+      for (int w = BITMAP_WORDS - 1; ; w--) {
+        if (bits[w] != 0) {
+          return (w << 6) + 63 - Long.numberOfLeadingZeros(bits[w]);
+        }
+      }
+    }
+
+    /** iterates over the low 16 bits of the elements of a container */
+    static final class Cursor {
+      private Container c;
+
+      /** index into the array, or of the current word of the bitmap */
+      private int index;
+
+      /** the bits of the current word not returned yet */
+      private long word;
+
+      void reset(Container c) {
+        this.c = c;
+        index = 0;
+        if (c.array == null) {
+          index = -1;
+          advanceWord();
+        }
+      }
+
+      private void advanceWord() {
+        word = 0;
+        while (word == 0 && ++index < BITMAP_WORDS) {
+          word = c.bits[index];
+        }
+      }
+
+      boolean hasNext() {
+        return c.array != null ? index < c.cardinality : index < BITMAP_WORDS;
+      }
+
+      int next() {
+        if (c.array != null) {
+          return c.array[index++];
+        }
+        int result = (index << 6) + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+        if (word == 0) {
+          advanceWord();
+        }
+        return result;
+      }
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.intset;
+
+/** A factory for {@link CompressedIntSet}s */
+public class CompressedIntSetFactory implements MutableIntSetFactory<CompressedIntSet> {
+
+  /** @throws IllegalArgumentException if set is null */
+  @Override
+  public CompressedIntSet make(int[] set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    CompressedIntSet result = new CompressedIntSet();
+    for (int element : set) {
+      result.add(element);
+    }
+    return result;
+  }
+
+  @Override
+  public CompressedIntSet parse(String string) throws NumberFormatException {
+    return make(SparseIntSet.parseIntArray(string));
+  }
+
+  /** @throws IllegalArgumentException if x is null */
+  @Override
+  public CompressedIntSet makeCopy(IntSet x) {
+    return new CompressedIntSet(x);
+  }
+
+  @Override
+  public CompressedIntSet make() {
+    return new CompressedIntSet();
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.intset;
+
+/**
+ * A {@link MutableIntSet} that may share its representation with equal sets made by the same {@link
+ * HashConsingIntSetFactory}.
+ *
+ * <p>A copy of such a set, made by the factory or by {@link #copySet(IntSet)}, shares the
+ * representation of the original, after the factory has replaced it by a canonical representation
+ * of the same elements. A shared representation is never changed; a set copies it before its first
+ * change, unless the change turns out to be a no-op.
+ */
+public final class CopyOnWriteIntSet implements MutableIntSet {
+
+  private static final long serialVersionUID = 3120524768981484357L;
+
+  private final HashConsingIntSetFactory factory;
+
+  /** the elements, if they are not shared; exactly one of mutable and frozen is non-null */
+  private MutableIntSet mutable;
+
+  /** the elements, if they are shared */
+  private Frozen frozen;
+
+  CopyOnWriteIntSet(HashConsingIntSetFactory factory, MutableIntSet elements) {
+    this.factory = factory;
+    this.mutable = elements;
+  }
+
+  /** @return true iff this set currently shares its representation */
+  public boolean isShared() {
+    return frozen != null;
+  }
+
+  /** Replace the representation of this set by the canonical one, and return it */
+  Frozen freeze() {
+    if (frozen == null) {
+      frozen = factory.canonicalize(mutable);
+      mutable = null;
+    }
+    return frozen;
+  }
+
+  private IntSet elements() {
+    return frozen == null ? mutable : frozen.set;
+  }
+
+  private MutableIntSet mutable() {
+    if (frozen != null) {
+      mutable = factory.delegate.makeCopy(frozen.set);
+      frozen = null;
+    }
+    return mutable;
+  }
+
+  /** @return the factory that made this set */
+  public HashConsingIntSetFactory getFactory() {
+    return factory;
+  }
+
+  boolean isFrom(HashConsingIntSetFactory f) {
+    return factory == f;
+  }
+
+  private boolean isFromSameFactory(IntSet set) {
+    return set instanceof CopyOnWriteIntSet && ((CopyOnWriteIntSet) set).factory == factory;
+  }
+
+  /** @return the representation of set, if set is a {@link CopyOnWriteIntSet}, or set itself */
+  static IntSet unwrap(IntSet set) {
+    return set instanceof CopyOnWriteIntSet ? ((CopyOnWriteIntSet) set).elements() : set;
+  }
+
+  /** @return true iff every element of s is in t, without relying on s knowing the type of t */
+  private static boolean isSubset(IntSet s, IntSet t) {
+    if (s.getClass() == t.getClass()) {
+      return s.isSubset(t);
+    }
+    for (IntIterator it = s.intIterator(); it.hasNext(); ) {
+      if (!t.contains(it.next())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean contains(int i) {
+    return elements().contains(i);
+  }
+
+  @Override
+  public boolean containsAny(IntSet set) {
+    return elements().containsAny(unwrap(set));
+  }
+
+  @Override
+  public IntSet intersection(IntSet that) {
+    return elements().intersection(unwrap(that));
+  }
+
+  @Override
+  public IntSet union(IntSet that) {
+    return elements().union(unwrap(that));
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return elements().isEmpty();
+  }
+
+  @Override
+  public int size() {
+    return elements().size();
+  }
+
+  @Override
+  public IntIterator intIterator() {
+    return elements().intIterator();
+  }
+
+  @Override
+  public void foreach(IntSetAction action) {
+    elements().foreach(action);
+  }
+
+  @Override
+  public void foreachExcluding(IntSet X, IntSetAction action) {
+    elements().foreachExcluding(unwrap(X), action);
+  }
+
+  @Override
+  public int max() {
+    return elements().max();
+  }
+
+  @Override
+  public boolean sameValue(IntSet that) {
+    if (frozen != null && isFromSameFactory(that) && ((CopyOnWriteIntSet) that).frozen == frozen) {
+      return true;
+    }
+    return elements().sameValue(unwrap(that));
+  }
+
+  @Override
+  public boolean isSubset(IntSet that) {
+    if (frozen != null && isFromSameFactory(that) && ((CopyOnWriteIntSet) that).frozen == frozen) {
+      return true;
+    }
+    return elements().isSubset(unwrap(that));
+  }
+
+  @Override
+  public void copySet(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    if (set == this) {
+      return;
+    }
+    if (isFromSameFactory(set) && !set.isEmpty()) {
+      frozen = ((CopyOnWriteIntSet) set).freeze();
+      mutable = null;
+    } else if (frozen != null) {
+      mutable = factory.delegate.makeCopy(unwrap(set));
+      frozen = null;
+    } else {
+      mutable.copySet(unwrap(set));
+    }
+  }
+
+  @Override
+  public boolean addAll(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    IntSet s = unwrap(set);
+    if (s.isEmpty()) {
+      return false;
+    }
+    if (isEmpty() && isFromSameFactory(set)) {
+      copySet(set);
+      return true;
+    }
+    if (frozen != null && isSubset(s, frozen.set)) {
+      return false;
+    }
+    return mutable().addAll(s);
+  }
+
+  @Override
+  public boolean add(int i) {
+    if (frozen != null && frozen.set.contains(i)) {
+      return false;
+    }
+    return mutable().add(i);
+  }
+
+  @Override
+  public boolean remove(int i) {
+    if (frozen != null && !frozen.set.contains(i)) {
+      return false;
+    }
+    return mutable().remove(i);
+  }
+
+  @Override
+  public void clear() {
+    if (frozen != null) {
+      mutable = factory.delegate.make();
+      frozen = null;
+    } else {
+      mutable.clear();
+    }
+  }
+
+  @Override
+  public void intersectWith(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    IntSet s = unwrap(set);
+    if (frozen != null && isSubset(frozen.set, s)) {
+      return;
+    }
+    mutable().intersectWith(s);
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter) {
+    if (other == null) {
+      throw new IllegalArgumentException("other is null");
+    }
+    if (filter == null) {
+      throw new IllegalArgumentException("filter is null");
+    }
+    IntSet o = unwrap(other);
+    IntSet f = unwrap(filter);
+    if (frozen != null) {
+      boolean changes = false;
+      for (IntIterator it = o.intIterator(); it.hasNext() && !changes; ) {
+        int i = it.next();
+        changes = f.contains(i) && !frozen.set.contains(i);
+      }
+      if (!changes) {
+        return false;
+      }
+    }
+    return mutable().addAllInIntersection(o, f);
+  }
+
+  @Override
+  public String toString() {
+    return elements().toString();
+  }
+
+  /**
+   * An immutable representation of a set, shared by all {@link CopyOnWriteIntSet}s with the same
+   * elements. Equality is equality of the elements.
+   */
+  static final class Frozen implements java.io.Serializable {
+
+    private static final long serialVersionUID = -7025616094946045062L;
+
+    final IntSet set;
+
+    private final int hash;
+
+    Frozen(IntSet set) {
+      this.set = set;
+      int h = 0;
+      for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+        h = 31 * h + it.next();
+      }
+      this.hash = h;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Frozen)) {
+        return false;
+      }
+      Frozen other = (Frozen) obj;
+      return hash == other.hash && set.sameValue(other.set);
+    }
+  }
+}
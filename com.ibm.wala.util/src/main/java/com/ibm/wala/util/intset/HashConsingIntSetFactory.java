@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.intset;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * A factory for {@link CopyOnWriteIntSet}s, which hash-conses the representations they share.
+ *
+ * <p>Copying a set made by this factory replaces its representation by a canonical one, which is
+ * then shared by the copy. {@link #intern(IntSet)} does the same without copying, e.g. to share the
+ * representation of sets that became equal independently. Canonical representations are only weakly
+ * held by the factory.
+ *
+ * <p>The representations themselves are made by a delegate factory; by default, {@link
+ * CompressedIntSetFactory}. To use this factory for all sets, e.g. for points-to sets, install it
+ * with {@link IntSetUtil#setDefaultIntSetFactory(MutableIntSetFactory)} or the {@link
+ * IntSetUtil#INT_SET_FACTORY_CONFIG_PROPERTY_NAME} system property.
+ */
+public class HashConsingIntSetFactory implements MutableIntSetFactory<CopyOnWriteIntSet> {
+
+  /** makes the representations of the sets */
+  final MutableIntSetFactory<?> delegate;
+
+  /** the canonical representations */
+  private final WeakHashMap<CopyOnWriteIntSet.Frozen, WeakReference<CopyOnWriteIntSet.Frozen>>
+      canonical = new WeakHashMap<>();
+
+  private long lookups;
+
+  private long hits;
+
+  public HashConsingIntSetFactory() {
+    this(new CompressedIntSetFactory());
+  }
+
+  /** @param delegate makes the representations of the sets */
+  public HashConsingIntSetFactory(MutableIntSetFactory<?> delegate) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("null delegate");
+    }
+    this.delegate = delegate;
+  }
+
+  @Override
+  public CopyOnWriteIntSet make(int[] set) {
+    return new CopyOnWriteIntSet(this, delegate.make(set));
+  }
+
+  @Override
+  public CopyOnWriteIntSet parse(String string) throws NumberFormatException {
+    return new CopyOnWriteIntSet(this, delegate.parse(string));
+  }
+
+  /** @throws IllegalArgumentException if x is null */
+  @Override
+  public CopyOnWriteIntSet makeCopy(IntSet x) {
+    if (x == null) {
+      throw new IllegalArgumentException("x == null");
+    }
+    if (x instanceof CopyOnWriteIntSet) {
+      CopyOnWriteIntSet result = make();
+      result.copySet(x);
+      return result;
+    }
+    return new CopyOnWriteIntSet(this, delegate.makeCopy(x));
+  }
+
+  @Override
+  public CopyOnWriteIntSet make() {
+    return new CopyOnWriteIntSet(this, delegate.make());
+  }
+
+  /**
+   * Let s share the canonical representation of its elements. Does nothing unless s is a non-empty
+   * set made by this factory.
+   */
+  public void intern(IntSet s) {
+    if (s instanceof CopyOnWriteIntSet && !s.isEmpty()) {
+      CopyOnWriteIntSet set = (CopyOnWriteIntSet) s;
+      if (set.isFrom(this)) {
+        set.freeze();
+      }
+    }
+  }
+
+  /** @return the canonical representation of the elements of s, which must not change anymore */
+  synchronized CopyOnWriteIntSet.Frozen canonicalize(IntSet s) {
+    CopyOnWriteIntSet.Frozen probe = new CopyOnWriteIntSet.Frozen(s);
+    lookups++;
+    WeakReference<CopyOnWriteIntSet.Frozen> ref = canonical.get(probe);
+    CopyOnWriteIntSet.Frozen result = ref == null ? null : ref.get();
+    if (result != null) {
+      hits++;
+      return result;
+    }
+    canonical.put(probe, new WeakReference<>(probe));
+    return probe;
+  }
+
+  /** @return the number of canonical representations currently held */
+  public synchronized int getNumberOfCanonicalSets() {
+    return canonical.size();
+  }
+
+  /** @return the number of times a representation was made canonical */
+  public synchronized long getNumberOfLookups() {
+    return lookups;
+  }
+
+  /** @return the number of times an equal canonical representation already existed */
+  public synchronized long getNumberOfHits() {
+    return hits;
+  }
+
+  @Override
+  public String toString() {
+    return "HashConsingIntSetFactory[" + delegate.getClass().getSimpleName() + ']';
+  }
+}
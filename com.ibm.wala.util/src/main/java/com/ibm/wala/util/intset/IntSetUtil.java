@@ -88,6 +88,10 @@ public class IntSetUtil {
       MutableIntSet pCopy = makeMutableCopy(((DebuggingMutableIntSet) set).primaryImpl);
       MutableIntSet sCopy = makeMutableCopy(((DebuggingMutableIntSet) set).secondaryImpl);
       return new DebuggingMutableIntSet(pCopy, sCopy);
+    } else if (set instanceof CompressedIntSet) {
+      return new CompressedIntSet(set);
+    } else if (set instanceof CopyOnWriteIntSet) {
+      return ((CopyOnWriteIntSet) set).getFactory().makeCopy(set);
     } else if (set instanceof EmptyIntSet) {
       return IntSetUtil.make();
     } else {
@@ -334,6 +334,8 @@ public class MutableSharedBitVectorIntSet implements MutableIntSet {
       return sameValue((BitVectorIntSet) that);
     } else if (that instanceof SemiSparseMutableIntSet) {
       return that.sameValue(this);
+    } else if (that instanceof CompressedIntSet || that instanceof CopyOnWriteIntSet) {
+      return that.sameValue(this);
     } else {
       Assertions.UNREACHABLE("unexpected class " + that.getClass());
       return false;